@@ -0,0 +1,160 @@
+package org.cloudbus.cloudsim.examples.benchmark;
+
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009, The University of Melbourne, Australia
+ */
+
+import java.text.DecimalFormat;
+import java.util.Calendar;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CalendarFutureQueue;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.FutureEventQueue;
+import org.cloudbus.cloudsim.core.FutureQueue;
+import org.cloudbus.cloudsim.core.HeapFutureQueue;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+/**
+ * A benchmark comparing the future event queue implementations. It runs the classic "hold model":
+ * a single entity keeps a fixed number of pending events and, every time one of them is processed,
+ * schedules a new one with a random delay. The number of simulation events processed per second of
+ * wall time is reported for every queue.
+ * <p>
+ * Usage: <tt>FutureQueueBenchmark [pendingEvents] [totalEvents]</tt>
+ */
+public class FutureQueueBenchmark {
+
+	/** The tag of the events exchanged by the benchmark entity. */
+	private static final int HOLD = 990001;
+
+	/** The queue implementations being compared. */
+	private static final String[] QUEUES = { "TreeSet", "Heap", "Calendar" };
+
+	/**
+	 * Creates main() to run this benchmark.
+	 *
+	 * @param args the number of pending events and the total number of events to process
+	 */
+	public static void main(String[] args) {
+		int pending = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int total = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+
+		DecimalFormat dft = new DecimalFormat("###,###");
+		System.out.println("Hold model: " + dft.format(pending) + " pending events, " + dft.format(total)
+				+ " events per run");
+
+		// First round warms up the JIT, the second one is measured
+		for (int round = 0; round < 2; round++) {
+			for (String queue : QUEUES) {
+				double eventsPerSecond = run(createQueue(queue), pending, total);
+				if (round == 1) {
+					System.out.println(queue + ": " + dft.format(eventsPerSecond) + " events/sec");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a future queue given its name.
+	 *
+	 * @param name the queue name
+	 * @return the queue
+	 */
+	private static FutureEventQueue createQueue(String name) {
+		if (name.equals("Heap")) {
+			return new HeapFutureQueue();
+		}
+		if (name.equals("Calendar")) {
+			return new CalendarFutureQueue();
+		}
+		return new FutureQueue();
+	}
+
+	/**
+	 * Runs one simulation of the hold model.
+	 *
+	 * @param queue the future queue to use
+	 * @param pending the number of pending events
+	 * @param total the number of events to process
+	 * @return the number of events processed per second
+	 */
+	private static double run(FutureEventQueue queue, int pending, int total) {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false, queue);
+		HoldEntity entity = new HoldEntity("HoldEntity", pending, total);
+
+		long start = System.nanoTime();
+		CloudSim.startSimulation();
+		long elapsed = System.nanoTime() - start;
+		Log.enable();
+
+		return entity.getProcessed() / (elapsed / 1.0e9);
+	}
+
+	/**
+	 * An entity that keeps a fixed number of events pending in the future queue.
+	 */
+	private static class HoldEntity extends SimEntity {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+		/** The number of pending events. */
+		private final int pending;
+
+		/** The number of events to process. */
+		private final int total;
+
+		/** The random delay generator. */
+		private final Random random = new Random(1);
+
+		/** The number of events scheduled. */
+		private int scheduled;
+
+		/** The number of events processed. */
+		private int processed;
+
+		public HoldEntity(String name, int pending, int total) {
+			super(name);
+			this.pending = pending;
+			this.total = total;
+		}
+
+		@Override
+		public void startEntity() {
+			for (int i = 0; i < pending && scheduled < total; i++) {
+				hold();
+			}
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			processed++;
+			if (scheduled < total) {
+				hold();
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+		private void hold() {
+			schedule(getId(), random.nextDouble() * 100.0, HOLD);
+			scheduled++;
+		}
+
+		public int getProcessed() {
+			return processed;
+		}
+	}
+
+}
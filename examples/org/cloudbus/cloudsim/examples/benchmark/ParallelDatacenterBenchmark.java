@@ -0,0 +1,180 @@
+package org.cloudbus.cloudsim.examples.benchmark;
+
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009, The University of Melbourne, Australia
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.NetworkTopology;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+/**
+ * A benchmark of the parallel run of a simulation. Every datacenter is used by its own broker, which
+ * is linked to it in the network topology, so each datacenter is run by a separate logical process
+ * and the link latency is the lookahead. The same simulation is run sequentially and with the given
+ * number of threads; the log output of the runs is compared, and the wall time of each run, the
+ * speedup and the parallel efficiency of the parallel run are reported.
+ * <p>
+ * Usage: <tt>ParallelDatacenterBenchmark [datacenters] [hostsPerDatacenter] [cloudletsPerVm]
+ * [threads] [latency]</tt>
+ */
+public class ParallelDatacenterBenchmark {
+
+	/**
+	 * Creates main() to run this benchmark.
+	 *
+	 * @param args the number of datacenters, of hosts per datacenter, of cloudlets per vm, the number
+	 *            of threads and the latency of the links
+	 */
+	public static void main(String[] args) {
+		int datacenters = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int hosts = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int cloudlets = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime()
+				.availableProcessors();
+		double latency = args.length > 4 ? Double.parseDouble(args[4]) : 1.0;
+
+		System.out.println(datacenters + " datacenters, " + hosts + " hosts and " + hosts * 4 * cloudlets
+				+ " cloudlets per datacenter, " + threads + " threads, latency " + latency);
+		OutputStream console = Log.getOutput();
+		try {
+			// First round warms up the JIT, the second one is measured
+			for (int round = 0; round < 2; round++) {
+				ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+				long[] s = run(datacenters, hosts, cloudlets, 1, latency, sequential);
+				ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+				long[] p = run(datacenters, hosts, cloudlets, threads, latency, parallel);
+				if (round == 0) {
+					continue;
+				}
+				boolean same = Arrays.equals(sequential.toByteArray(), parallel.toByteArray());
+				System.out.printf("sequential: %.3f s, %d events%n", s[0] / 1e9, s[1]);
+				System.out.printf("parallel:   %.3f s, %d events, %d logical processes, %d windows,"
+						+ " speedup %.2f, efficiency %.2f%n", p[0] / 1e9, p[1], p[2], p[3], (double) s[0] / p[0],
+						CloudSim.getParallelEfficiency());
+				System.out.println("log output " + (same ? "identical" : "DIFFERENT") + " ("
+						+ sequential.size() + " bytes)");
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.out.println("The simulation has been terminated due to an unexpected error");
+		} finally {
+			Log.setOutput(console);
+		}
+	}
+
+	/**
+	 * Runs one simulation.
+	 *
+	 * @return the wall time of the run in nanoseconds, the number of events processed, of logical
+	 *         processes and of time windows
+	 */
+	private static long[] run(int datacenters, int hosts, int cloudlets, int threads, double latency,
+			OutputStream output) throws Exception {
+		Log.setOutput(output);
+		CloudSim.init(datacenters, Calendar.getInstance(), false);
+		CloudSim.setParallelism(threads);
+
+		Random random = new Random(7);
+		for (int i = 0; i < datacenters; i++) {
+			Datacenter datacenter = createDatacenter("Datacenter_" + i, hosts);
+			PinnedBroker broker = new PinnedBroker("Broker_" + i, datacenter.getId());
+			List<Vm> vms = new ArrayList<Vm>();
+			List<Cloudlet> cloudletList = new ArrayList<Cloudlet>();
+			for (int vmId = 0; vmId < hosts * 4; vmId++) {
+				vms.add(new Vm(vmId, broker.getId(), 1000, 1, 512, 1000, 10000, "Xen",
+						new CloudletSchedulerTimeShared()));
+				for (int j = 0; j < cloudlets; j++) {
+					Cloudlet cloudlet = new Cloudlet(vmId * cloudlets + j, 10000 + random.nextInt(990000), 1,
+							300, 300, new UtilizationModelFull(), new UtilizationModelFull(),
+							new UtilizationModelFull());
+					cloudlet.setUserId(broker.getId());
+					cloudlet.setVmId(vmId);
+					cloudletList.add(cloudlet);
+				}
+			}
+			broker.submitVmList(vms);
+			broker.submitCloudletList(cloudletList);
+			NetworkTopology.addLink(datacenter.getId(), broker.getId(), 1000, latency);
+		}
+
+		long start = System.nanoTime();
+		CloudSim.startSimulation();
+		long nanos = System.nanoTime() - start;
+		CloudSim.stopSimulation();
+		return new long[] { nanos, CloudSim.getNumberOfEventsProcessed(),
+				CloudSim.getNumberOfLogicalProcesses(), CloudSim.getNumberOfWindows() };
+	}
+
+	private static Datacenter createDatacenter(String name, int hosts) throws Exception {
+		List<Host> hostList = new ArrayList<Host>();
+		for (int i = 0; i < hosts; i++) {
+			List<Pe> peList = new ArrayList<Pe>();
+			for (int j = 0; j < 4; j++) {
+				peList.add(new Pe(j, new PeProvisionerSimple(1000)));
+			}
+			hostList.add(new Host(i, new RamProvisionerSimple(4096), new BwProvisionerSimple(10000),
+					1000000, peList, new VmSchedulerTimeShared(peList)));
+		}
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen",
+				hostList, 10.0, 3.0, 0.05, 0.001, 0.0);
+		return new Datacenter(name, characteristics, new VmAllocationPolicySimple(hostList),
+				new LinkedList<Storage>(), 0);
+	}
+
+	/**
+	 * A broker creating all its vms in a given datacenter.
+	 */
+	private static class PinnedBroker extends DatacenterBroker {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+		private final int datacenterId;
+
+		public PinnedBroker(String name, int datacenterId) throws Exception {
+			super(name);
+			this.datacenterId = datacenterId;
+		}
+
+		@Override
+		protected void processResourceCharacteristicsRequest(SimEvent ev) {
+			setDatacenterIdsList(Arrays.asList(datacenterId));
+			setDatacenterCharacteristicsList(new HashMap<Integer, DatacenterCharacteristics>());
+			sendNow(datacenterId, CloudSimTags.RESOURCE_CHARACTERISTICS, getId());
+		}
+	}
+
+}
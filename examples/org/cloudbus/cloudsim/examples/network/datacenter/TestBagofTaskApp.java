@@ -28,6 +28,9 @@ import org.cloudbus.cloudsim.network.datacenter.TaskStage;
 
 public class TestBagofTaskApp extends AppCloudlet {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	public TestBagofTaskApp(int type, int appID, double deadline, 	int numbervm, int userId) {
 		super(type, appID, deadline, numbervm,userId);
 		
@@ -0,0 +1,237 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.FileItem;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowParser;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.Parameters.ParsingMode;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This DaxParserBenchmark parses the bundled DAX files and a synthetic DAX
+ * with the jdom and the StAX parsers of WorkflowParser. It reports the time
+ * and the peak heap of each parser, and checks that both give the same tasks,
+ * files and dependencies.
+ * <p>
+ * The synthetic DAX has layers of 1000 jobs, each job reading the output of
+ * one job of the layer above. The jdom parser may run out of memory on it.
+ * <p>
+ * Usage: <tt>DaxParserBenchmark [daxDir] [syntheticJobs] [rounds]</tt>
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class DaxParserBenchmark {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this benchmark
+     *
+     * @param args the directory of the DAX files, the number of jobs of the
+     * synthetic DAX and the number of measured rounds
+     */
+    public static void main(String[] args) {
+        String daxDir = args.length > 0 ? args[0] : "config/dax";
+        int jobs = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        Log.disable();
+
+        try {
+            File[] daxFiles = new File(daxDir).listFiles();
+            if (daxFiles == null) {
+                throw new IOException("Cannot list " + daxDir);
+            }
+            Arrays.sort(daxFiles);
+            // the JIT has to settle first
+            for (int i = 0; i < rounds; i++) {
+                for (File dax : daxFiles) {
+                    parse(dax.getPath(), ParsingMode.DOM);
+                    parse(dax.getPath(), ParsingMode.STREAMING);
+                }
+            }
+            long[] nanos = new long[2];
+            boolean identical = true;
+            for (int i = 0; i < rounds; i++) {
+                for (File dax : daxFiles) {
+                    long[] digests = new long[2];
+                    for (int k = 0; k < 2; k++) {
+                        long start = System.nanoTime();
+                        List<Task> tasks = parse(dax.getPath(), k == 1 ? ParsingMode.STREAMING : ParsingMode.DOM);
+                        nanos[k] += System.nanoTime() - start;
+                        digests[k] = digest(tasks);
+                    }
+                    if (digests[0] != digests[1]) {
+                        System.out.println(dax.getName() + ": tasks DIFFERENT");
+                        identical = false;
+                    }
+                }
+            }
+            System.out.printf("%d DAX files of %s: jdom %.1f ms/round, StAX %.1f ms/round, tasks %s%n",
+                    daxFiles.length, daxDir, nanos[0] / 1e6 / rounds, nanos[1] / 1e6 / rounds,
+                    identical ? "identical" : "DIFFERENT");
+
+            File synthetic = File.createTempFile("synthetic", ".xml");
+            synthetic.deleteOnExit();
+            writeDax(synthetic, jobs);
+            System.out.printf("Synthetic DAX of %d jobs, %.1f MB%n", jobs, synthetic.length() / 1e6);
+            long[] digests = new long[2];
+            // StAX first, jdom may not fit in the heap
+            for (int k = 1; k >= 0; k--) {
+                String name = k == 1 ? "StAX" : "jdom";
+                resetPeakHeap();
+                long start = System.nanoTime();
+                try {
+                    List<Task> tasks = parse(synthetic.getPath(), k == 1 ? ParsingMode.STREAMING : ParsingMode.DOM);
+                    long elapsed = System.nanoTime() - start;
+                    System.out.printf("%-4s: %d tasks in %.2f s, peak heap %.0f MB%n", name, tasks.size(),
+                            elapsed / 1e9, getPeakHeap() / 1e6);
+                    digests[k] = digest(tasks);
+                } catch (OutOfMemoryError e) {
+                    System.out.printf("%-4s: out of memory after %.2f s%n", name, (System.nanoTime() - start) / 1e9);
+                    digests[k] = 0;
+                }
+            }
+            if (digests[0] != 0) {
+                System.out.println("tasks " + (digests[0] == digests[1] ? "identical" : "DIFFERENT"));
+            }
+            synthetic.delete();
+        } catch (Exception e) {
+            System.err.println("DaxParserBenchmark: the benchmark has been terminated due to an unexpected error");
+            e.printStackTrace();
+        } finally {
+            Log.enable();
+        }
+    }
+
+    /**
+     * Parses a DAX file
+     *
+     * @return the tasks of the DAX
+     */
+    private static List<Task> parse(String daxPath, ParsingMode mode) {
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0,
+                ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(1, daxPath, null, null, op, cp,
+                Parameters.SchedulingAlgorithm.MINMIN, Parameters.PlanningAlgorithm.INVALID, null, 0);
+        Parameters.setParsingMode(mode);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+
+        WorkflowParser parser = new WorkflowParser(0);
+        parser.parse();
+        return parser.getTaskList();
+    }
+
+    /**
+     * Gets a checksum of the tasks, their files and their dependencies
+     */
+    static long digest(List<Task> tasks) {
+        CRC32 crc = new CRC32();
+        StringBuilder sb = new StringBuilder();
+        for (Task task : tasks) {
+            sb.setLength(0);
+            sb.append(task.getCloudletId()).append(' ').append(task.getType()).append(' ')
+                    .append(task.getCloudletLength()).append(' ').append(task.getDepth());
+            for (FileItem file : task.getFileList()) {
+                sb.append(' ').append(file.getName()).append(':').append(file.getType())
+                        .append(':').append(file.getSize());
+            }
+            sb.append(" <");
+            for (Task parent : task.getParentList()) {
+                sb.append(' ').append(parent.getCloudletId());
+            }
+            sb.append(" >");
+            for (Task child : task.getChildList()) {
+                sb.append(' ').append(child.getCloudletId());
+            }
+            crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes a layered DAX, each job reading the output of a random job of
+     * the layer above
+     */
+    static void writeDax(File file, int jobs) throws IOException {
+        int width = 1000;
+        Random random = new Random(0);
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<adag xmlns=\"http://pegasus.isi.edu/schema/DAX\" version=\"2.1\" count=\"1\""
+                    + " index=\"0\" name=\"synthetic\" jobCount=\"" + jobs + "\">\n");
+            int[] parents = new int[jobs];
+            for (int i = 0; i < jobs; i++) {
+                parents[i] = i < width ? -1 : (i / width - 1) * width + random.nextInt(width);
+                out.write("  <job id=\"ID" + i + "\" namespace=\"synthetic\" name=\"task" + (i % 7)
+                        + "\" version=\"1.0\" runtime=\"" + (1 + random.nextInt(10000) / 100.0) + "\">\n");
+                String input = parents[i] < 0 ? "input" + (i % 100) + ".dat" : "out" + parents[i] + ".dat";
+                out.write("    <uses file=\"" + input + "\" link=\"input\" register=\"true\" transfer=\"true\""
+                        + " optional=\"false\" type=\"data\" size=\"" + (1 + random.nextInt(1000000)) + "\"/>\n");
+                out.write("    <uses file=\"out" + i + ".dat\" link=\"output\" register=\"true\" transfer=\"true\""
+                        + " optional=\"false\" type=\"data\" size=\"" + (1 + random.nextInt(1000000)) + "\"/>\n");
+                out.write("  </job>\n");
+            }
+            for (int i = width; i < jobs; i++) {
+                out.write("  <child ref=\"ID" + i + "\">\n");
+                out.write("    <parent ref=\"ID" + parents[i] + "\"/>\n");
+                out.write("  </child>\n");
+            }
+            out.write("</adag>\n");
+        }
+    }
+
+    /**
+     * Collects the garbage and resets the peak usage of the heap
+     */
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Gets the peak usage of the heap, summed over its pools
+     */
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
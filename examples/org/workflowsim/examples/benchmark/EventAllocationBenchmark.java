@@ -0,0 +1,158 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.examples.WorkflowSimBasicExample1;
+import org.workflowsim.failure.FailureGenerator;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This EventAllocationBenchmark measures the memory allocated while running the
+ * WorkflowSimBasicExample1 setup, with and without recycling the simulation
+ * events. The allocation is read from the ThreadMXBean of the running thread,
+ * so only the HotSpot family of JVMs is supported.
+ * <p>
+ * Usage: <tt>EventAllocationBenchmark [daxPath] [vmNum] [rounds]</tt>
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class EventAllocationBenchmark extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this benchmark
+     *
+     * @param args the DAX file, the number of vms and the number of measured
+     * rounds
+     */
+    public static void main(String[] args) {
+        String daxPath = args.length > 0 ? args[0] : "config/dax/Montage_1000.xml";
+        int vmNum = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            System.err.println("EventAllocationBenchmark: thread allocation is not measurable on this JVM");
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Log.disable();
+
+        try {
+            System.out.println("Workflow " + daxPath + ", " + vmNum + " vms, " + rounds + " rounds");
+            // the JIT has to settle first, escape analysis alone removes part of the allocations
+            for (int i = 0; i < rounds; i++) {
+                run(daxPath, vmNum, false, threads);
+                run(daxPath, vmNum, true, threads);
+            }
+            for (boolean pooling : new boolean[]{false, true}) {
+                long bytes = 0;
+                long events = 0;
+                long gcCount = 0;
+                long gcMillis = 0;
+                long nanos = 0;
+                for (int i = 0; i < rounds; i++) {
+                    long gcCountBefore = getGcCount();
+                    long gcMillisBefore = getGcMillis();
+                    long start = System.nanoTime();
+                    long[] result = run(daxPath, vmNum, pooling, threads);
+                    nanos += System.nanoTime() - start;
+                    bytes += result[0];
+                    events += result[1];
+                    gcCount += getGcCount() - gcCountBefore;
+                    gcMillis += getGcMillis() - gcMillisBefore;
+                }
+                System.out.printf("pooling %-5s: %,d bytes/run, %,d events/run, %,d bytes/event,"
+                        + " %.1f MB/s, %d collections (%d ms)%n",
+                        pooling, bytes / rounds, events / rounds, bytes / Math.max(1, events),
+                        bytes / 1048576.0 / (nanos / 1e9), gcCount, gcMillis);
+            }
+        } catch (Exception e) {
+            System.err.println("EventAllocationBenchmark: the simulation has been terminated due to an unexpected error");
+            e.printStackTrace();
+        } finally {
+            Log.enable();
+        }
+    }
+
+    /**
+     * Runs one simulation on the calling thread
+     *
+     * @return the bytes allocated and the events processed
+     */
+    private static long[] run(String daxPath, int vmNum, boolean pooling,
+            com.sun.management.ThreadMXBean threads) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0,
+                ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(vmNum, daxPath, null, null, op, cp,
+                Parameters.SchedulingAlgorithm.MINMIN, Parameters.PlanningAlgorithm.INVALID, null, 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        FailureMonitor.init();
+        FailureGenerator.init();
+
+        CloudSim.init(1, Calendar.getInstance(), false);
+        CloudSim.setEventPooling(pooling);
+        WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        wfEngine.submitVmList(createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum()), 0);
+        wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+        CloudSim.startSimulation();
+        List<Job> outputList = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+        if (outputList.isEmpty()) {
+            throw new IllegalStateException("No job has been completed");
+        }
+        return new long[]{threads.getThreadAllocatedBytes(threadId) - before,
+            CloudSim.getNumberOfEventsProcessed()};
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long getGcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
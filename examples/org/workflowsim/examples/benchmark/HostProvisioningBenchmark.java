@@ -0,0 +1,265 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.benchmark;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.HarddriveStorage;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.examples.WorkflowSimBasicExample1;
+import org.workflowsim.failure.FailureGenerator;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This HostProvisioningBenchmark runs a workflow on a large datacenter twice:
+ * placing the vms with VmAllocationPolicySimple, which finds the host with the
+ * most free PEs in a tournament tree, and with a policy scanning all the hosts
+ * for every vm, as VmAllocationPolicySimple used to. It reports the time spent
+ * placing the vms and the time of the whole run, and checks that both runs
+ * give the same jobs.
+ * <p>
+ * Usage: <tt>HostProvisioningBenchmark [daxPath] [hostNum] [vmNum] [rounds]</tt>
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class HostProvisioningBenchmark extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this benchmark
+     *
+     * @param args the DAX file, the number of hosts, the number of vms and the
+     * number of measured rounds
+     */
+    public static void main(String[] args) {
+        String daxPath = args.length > 0 ? args[0] : "config/dax/Montage_1000.xml";
+        int hostNum = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int vmNum = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        Log.disable();
+
+        try {
+            System.out.println("Workflow " + daxPath + ", " + hostNum + " hosts, " + vmNum + " vms, "
+                    + rounds + " rounds");
+            // the JIT has to settle first
+            for (int i = 0; i < rounds; i++) {
+                run(daxPath, hostNum, vmNum, false);
+                run(daxPath, hostNum, vmNum, true);
+            }
+            // both setups are run in turn, so that they share the drift of the machine
+            String[] jobs = new String[2];
+            long[] placementNanos = new long[2];
+            long[] nanos = new long[2];
+            for (int i = 0; i < rounds; i++) {
+                for (int k = 0; k < 2; k++) {
+                    long start = System.nanoTime();
+                    Result result = run(daxPath, hostNum, vmNum, k == 1);
+                    nanos[k] += System.nanoTime() - start;
+                    placementNanos[k] += result.placementNanos;
+                    jobs[k] = result.jobs;
+                }
+            }
+            for (int k = 0; k < 2; k++) {
+                System.out.printf("%-6s: vm placement %.3f ms/run (%.2f us/vm), run %.1f ms%n",
+                        k == 1 ? "scan" : "tree", placementNanos[k] / 1e6 / rounds,
+                        placementNanos[k] / 1e3 / rounds / vmNum, nanos[k] / 1e6 / rounds);
+            }
+            System.out.println("jobs " + (jobs[0].equals(jobs[1]) ? "identical" : "DIFFERENT"));
+        } catch (Exception e) {
+            System.err.println("HostProvisioningBenchmark: the simulation has been terminated due to an unexpected error");
+            e.printStackTrace();
+        } finally {
+            Log.enable();
+        }
+    }
+
+    /**
+     * Runs one simulation
+     *
+     * @return the placement time and the jobs of the run
+     */
+    private static Result run(String daxPath, int hostNum, int vmNum, boolean scan)
+            throws Exception {
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0,
+                ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(vmNum, daxPath, null, null, op, cp,
+                Parameters.SchedulingAlgorithm.MINMIN, Parameters.PlanningAlgorithm.INVALID, null, 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        FailureMonitor.init();
+        FailureGenerator.init();
+
+        CloudSim.init(1, Calendar.getInstance(), false);
+        List<Host> hostList = createHosts(hostNum);
+        TimedPolicy policy = scan ? new ScanPolicy(hostList) : new TimedPolicy(hostList);
+        WorkflowDatacenter datacenter = createDatacenter("Datacenter_0", hostList, policy);
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        wfEngine.submitVmList(createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum()), 0);
+        wfEngine.bindSchedulerDatacenter(datacenter.getId(), 0);
+
+        CloudSim.startSimulation();
+        List<Job> outputList = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+        if (outputList.isEmpty()) {
+            throw new IllegalStateException("No job has been completed");
+        }
+        Result result = new Result();
+        StringBuilder jobs = new StringBuilder();
+        for (Job job : outputList) {
+            jobs.append(job.getCloudletId()).append(' ').append(job.getVmId()).append(' ')
+                    .append(job.getExecStartTime()).append(' ').append(job.getFinishTime()).append('\n');
+        }
+        result.jobs = jobs.toString();
+        result.placementNanos = policy.nanos;
+        return result;
+    }
+
+    /**
+     * Creates dual core hosts
+     */
+    private static List<Host> createHosts(int hostNum) {
+        List<Host> hostList = new ArrayList<>();
+        for (int i = 0; i < hostNum; i++) {
+            List<Pe> peList = new ArrayList<>();
+            int mips = 2000;
+            int ram = 2048;
+            long storage = 1000000;
+            int bw = 10000;
+            peList.add(new Pe(0, new PeProvisionerSimple(mips)));
+            peList.add(new Pe(1, new PeProvisionerSimple(mips)));
+            hostList.add(new Host(i, new RamProvisionerSimple(ram),
+                    new BwProvisionerSimple(bw), storage, peList,
+                    new VmSchedulerTimeShared(peList)));
+        }
+        return hostList;
+    }
+
+    /**
+     * Creates a datacenter of the given hosts
+     */
+    private static WorkflowDatacenter createDatacenter(String name, List<Host> hostList,
+            VmAllocationPolicySimple policy) throws Exception {
+        DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+                "x86", "Linux", "Xen", hostList, 10.0, 3.0, 0.05, 0.1, 0.1);
+        HarddriveStorage storage = new HarddriveStorage(name, 1e12);
+        storage.setMaxTransferRate(15);
+        LinkedList<Storage> storageList = new LinkedList<>();
+        storageList.add(storage);
+        return new WorkflowDatacenter(name, characteristics, policy, storageList, 0);
+    }
+
+    /**
+     * The outcome of a run
+     */
+    private static class Result {
+
+        private long placementNanos;
+        private String jobs;
+    }
+
+    /**
+     * A VmAllocationPolicySimple measuring the time spent placing the vms
+     */
+    private static class TimedPolicy extends VmAllocationPolicySimple {
+
+        private static final long serialVersionUID = 1L;
+
+        private long nanos;
+
+        public TimedPolicy(List<? extends Host> list) {
+            super(list);
+        }
+
+        @Override
+        public boolean allocateHostForVm(Vm vm) {
+            long start = System.nanoTime();
+            boolean result = place(vm);
+            nanos += System.nanoTime() - start;
+            return result;
+        }
+
+        protected boolean place(Vm vm) {
+            return super.allocateHostForVm(vm);
+        }
+    }
+
+    /**
+     * A policy scanning the free PEs of all the hosts for every vm
+     */
+    private static class ScanPolicy extends TimedPolicy {
+
+        private static final long serialVersionUID = 1L;
+
+        public ScanPolicy(List<? extends Host> list) {
+            super(list);
+        }
+
+        @Override
+        protected boolean place(Vm vm) {
+            int requiredPes = vm.getNumberOfPes();
+            boolean result = false;
+            int tries = 0;
+            List<Integer> freePesTmp = new ArrayList<>(getFreePes());
+
+            if (!getVmTable().containsKey(vm.getUid())) {
+                do {
+                    int moreFree = Integer.MIN_VALUE;
+                    int idx = -1;
+                    for (int i = 0; i < freePesTmp.size(); i++) {
+                        if (freePesTmp.get(i) > moreFree) {
+                            moreFree = freePesTmp.get(i);
+                            idx = i;
+                        }
+                    }
+
+                    Host host = getHostList().get(idx);
+                    result = host.vmCreate(vm);
+                    if (result) {
+                        getVmTable().put(vm.getUid(), host);
+                        getUsedPes().put(vm.getUid(), requiredPes);
+                        getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
+                        break;
+                    }
+                    freePesTmp.set(idx, Integer.MIN_VALUE);
+                    tries++;
+                } while (tries < getFreePes().size());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.HarddriveStorage;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.NetworkTopology;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowGenerator;
+import org.workflowsim.WorkflowGenerator.WorkflowShape;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.failure.FailureGenerator;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.ClusteringParameters.ClusteringMethod;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.Parameters.PlanningAlgorithm;
+import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This ParallelWorkflowBenchmark runs a generated workflow on several
+ * datacenters bound to one scheduler, each linked to the scheduler in the
+ * network topology, on a shared file system. Each datacenter is then run by
+ * a logical process of its own, and the link latency is the lookahead. The
+ * same simulation is run sequentially and with the given number of threads;
+ * the log output and the jobs received by the engine are compared, and the
+ * wall time, the logical processes, the windows, the speedup over the
+ * sequential run and the parallel efficiency of the parallel run are
+ * reported.
+ * <p>
+ * Usage: <tt>ParallelWorkflowBenchmark [shape] [size] [datacenters]
+ * [vmsPerDatacenter] [threads] [latency]</tt>
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ParallelWorkflowBenchmark {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this benchmark
+     *
+     * @param args the shape and the size of the workflow, the number of
+     * datacenters, of vms per datacenter, the number of threads and the
+     * latency of the links
+     */
+    public static void main(String[] args) {
+        WorkflowShape shape = WorkflowShape.valueOf(args.length > 0 ? args[0] : "MONTAGE");
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int datacenters = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int vms = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int threads = args.length > 4 ? Integer.parseInt(args[4])
+                : Runtime.getRuntime().availableProcessors();
+        double latency = args.length > 5 ? Double.parseDouble(args[5]) : 1.0;
+
+        System.out.println(shape + " workflow of " + size + " jobs, " + datacenters + " datacenters of "
+                + vms + " vms, " + threads + " threads, latency " + latency);
+        OutputStream console = Log.getOutput();
+        try {
+            WorkflowGenerator generator = new WorkflowGenerator(shape, size, 0);
+            // First round warms up the JIT, the second one is measured
+            for (int round = 0; round < 2; round++) {
+                ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+                StringBuilder sequentialJobs = new StringBuilder();
+                long s = run(generator, datacenters, vms, 1, latency, sequential, sequentialJobs);
+                ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+                StringBuilder parallelJobs = new StringBuilder();
+                long p = run(generator, datacenters, vms, threads, latency, parallel, parallelJobs);
+                if (round == 0) {
+                    continue;
+                }
+                System.out.printf("sequential: %.3f s%n", s / 1e9);
+                System.out.printf("parallel:   %.3f s, %d logical processes, %d windows, speedup %.2f,"
+                        + " efficiency %.2f%n", p / 1e9, CloudSim.getNumberOfLogicalProcesses(),
+                        CloudSim.getNumberOfWindows(), (double) s / p, CloudSim.getParallelEfficiency());
+                boolean sameLog = Arrays.equals(sequential.toByteArray(), parallel.toByteArray());
+                boolean sameJobs = sequentialJobs.toString().equals(parallelJobs.toString());
+                System.out.println("log output " + (sameLog ? "identical" : "DIFFERENT") + " ("
+                        + sequential.size() + " bytes), jobs " + (sameJobs ? "identical" : "DIFFERENT"));
+            }
+        } catch (Exception e) {
+            System.err.println("ParallelWorkflowBenchmark: the benchmark has been terminated due to an unexpected error");
+            e.printStackTrace();
+        } finally {
+            Log.setOutput(console);
+        }
+    }
+
+    /**
+     * Runs one simulation
+     *
+     * @return the wall time of the run in nanoseconds
+     */
+    private static long run(WorkflowGenerator generator, int datacenters, int vms, int threads,
+            double latency, OutputStream output, StringBuilder jobs) throws Exception {
+        Log.setOutput(output);
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0, ClusteringMethod.NONE, null);
+        Parameters.init(datacenters * vms, (String) null, null, null, op, cp, SchedulingAlgorithm.MINMIN,
+                PlanningAlgorithm.INVALID, null, 0);
+        Parameters.setWorkflowGenerator(generator);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        FailureMonitor.init();
+        FailureGenerator.init();
+        CloudSim.init(1, Calendar.getInstance(), false);
+        CloudSim.setParallelism(threads);
+
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        int schedulerId = wfEngine.getSchedulerId(0);
+        wfEngine.submitVmList(createVM(schedulerId, datacenters * vms), 0);
+        for (int i = 0; i < datacenters; i++) {
+            WorkflowDatacenter datacenter = createDatacenter("Datacenter_" + i, vms);
+            wfEngine.bindSchedulerDatacenter(datacenter.getId(), 0);
+            NetworkTopology.addLink(datacenter.getId(), schedulerId, 1000, latency);
+        }
+
+        long start = System.nanoTime();
+        CloudSim.startSimulation();
+        long nanos = System.nanoTime() - start;
+        List<Job> outputList = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+        for (Job job : outputList) {
+            jobs.append(job.getCloudletId()).append(' ').append(job.getVmId()).append(' ')
+                    .append(job.getResourceId()).append(' ').append(job.getFinishTime()).append('\n');
+        }
+        return nanos;
+    }
+
+    /**
+     * Creates the vms, like those of WorkflowSimBasicExample1
+     */
+    private static List<CondorVM> createVM(int userId, int vms) {
+        List<CondorVM> list = new ArrayList<>();
+        for (int i = 0; i < vms; i++) {
+            list.add(new CondorVM(i, userId, 1000, 1, 512, 1000, 10000, "Xen",
+                    new CloudletSchedulerSpaceShared()));
+        }
+        return list;
+    }
+
+    /**
+     * Creates a datacenter of single core hosts, one per vm, so that the vms
+     * the first datacenters cannot take go to the next ones
+     */
+    private static WorkflowDatacenter createDatacenter(String name, int vms) throws Exception {
+        List<Host> hostList = new ArrayList<>();
+        for (int i = 0; i < vms; i++) {
+            List<Pe> peList = new ArrayList<>();
+            peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+            hostList.add(new Host(i, new RamProvisionerSimple(512), new BwProvisionerSimple(10000), 1000000,
+                    peList, new VmSchedulerTimeShared(peList)));
+        }
+        DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+                "x86", "Linux", "Xen", hostList, 10.0, 3.0, 0.05, 0.1, 0.1);
+        HarddriveStorage storage = new HarddriveStorage(name, 1e12);
+        storage.setMaxTransferRate(15);
+        LinkedList<Storage> storageList = new LinkedList<>();
+        storageList.add(storage);
+        return new WorkflowDatacenter(name, characteristics, new VmAllocationPolicySimple(hostList),
+                storageList, 0);
+    }
+}
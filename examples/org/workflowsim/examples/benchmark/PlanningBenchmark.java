@@ -0,0 +1,128 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowGenerator;
+import org.workflowsim.WorkflowGenerator.WorkflowShape;
+import org.workflowsim.WorkflowParser;
+import org.workflowsim.planning.BasePlanningAlgorithm;
+import org.workflowsim.planning.DHEFTPlanningAlgorithm;
+import org.workflowsim.planning.HEFTPlanningAlgorithm;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This PlanningBenchmark measures the static planners on generated workflows,
+ * outside of a simulation. The tasks of each shape are built once, and HEFT
+ * and DHEFT then plan them on vms of random speeds and bandwidths. A first
+ * plan warms up the JIT and the next ones are timed.
+ * <p>
+ * Usage: <tt>PlanningBenchmark [shapes] [taskNum] [vmNum] [runs] [threads]</tt>,
+ * e.g. <tt>PlanningBenchmark MONTAGE,INSPIRAL 10000 500 3 4</tt>, the threads
+ * being those of HEFT.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class PlanningBenchmark {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this benchmark
+     *
+     * @param args the comma separated shapes of the workflows, the number of
+     * tasks, of vms, of timed plans and of threads of HEFT
+     */
+    public static void main(String[] args) {
+        String[] shapes = (args.length > 0 ? args[0] : "MONTAGE,CYBERSHAKE,EPIGENOMICS,INSPIRAL,SIPHT").split(",");
+        int taskNum = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int vmNum = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+        Log.disable();
+
+        try {
+            System.out.println(taskNum + " tasks, " + vmNum + " vms, " + runs + " runs, " + threads + " threads");
+            for (String shape : shapes) {
+                List<Task> taskList = createTasks(WorkflowShape.valueOf(shape.trim()), taskNum, vmNum);
+                for (String name : new String[]{"HEFT", "DHEFT"}) {
+                    plan(name, taskList, vmNum, threads);
+                    long total = 0;
+                    for (int run = 0; run < runs; run++) {
+                        long start = System.nanoTime();
+                        plan(name, taskList, vmNum, threads);
+                        total += System.nanoTime() - start;
+                    }
+                    Set<Integer> usedVms = new HashSet<>();
+                    for (Task task : taskList) {
+                        usedVms.add(task.getVmId());
+                    }
+                    System.out.printf("%-11s %-5s: %d tasks, %.3f s/plan, %d vms used%n", shape.trim(), name,
+                            taskList.size(), total / 1e9 / runs, usedVms.size());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("PlanningBenchmark: the benchmark has been terminated due to an unexpected error");
+            e.printStackTrace();
+        } finally {
+            Log.enable();
+        }
+    }
+
+    /**
+     * Builds the tasks of a generated workflow
+     */
+    private static List<Task> createTasks(WorkflowShape shape, int taskNum, int vmNum) {
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0, ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(vmNum, (String) null, null, null, op, cp, Parameters.SchedulingAlgorithm.STATIC,
+                Parameters.PlanningAlgorithm.HEFT, null, 0);
+        Parameters.setWorkflowGenerator(new WorkflowGenerator(shape, taskNum, 0));
+        Parameters.setSlimTasks(true);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        WorkflowParser parser = new WorkflowParser(0);
+        parser.parse();
+        Parameters.setWorkflowGenerator(null);
+        return parser.getTaskList();
+    }
+
+    /**
+     * Plans the tasks with one planner
+     */
+    private static void plan(String name, List<Task> taskList, int vmNum, int threads) throws Exception {
+        BasePlanningAlgorithm planner = name.equals("HEFT") ? new HEFTPlanningAlgorithm(threads)
+                : new DHEFTPlanningAlgorithm();
+        Random random = new Random(7);
+        List<CondorVM> vmList = new ArrayList<>();
+        for (int i = 0; i < vmNum; i++) {
+            vmList.add(new CondorVM(i, 0, 500 + random.nextInt(4) * 250, 1, 512, 500 + random.nextInt(4) * 250,
+                    10000, "Xen", new CloudletSchedulerSpaceShared()));
+        }
+        planner.setTaskList(taskList);
+        planner.setVmList(vmList);
+        planner.run();
+    }
+}
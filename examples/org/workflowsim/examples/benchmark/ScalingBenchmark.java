@@ -0,0 +1,400 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.benchmark;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.HarddriveStorage;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowGenerator;
+import org.workflowsim.WorkflowGenerator.WorkflowShape;
+import org.workflowsim.WorkflowParser;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.clustering.BasicClustering;
+import org.workflowsim.clustering.BlockClustering;
+import org.workflowsim.clustering.HorizontalClustering;
+import org.workflowsim.clustering.VerticalClustering;
+import org.workflowsim.failure.FailureGenerator;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.planning.BasePlanningAlgorithm;
+import org.workflowsim.planning.DHEFTPlanningAlgorithm;
+import org.workflowsim.planning.HEFTPlanningAlgorithm;
+import org.workflowsim.planning.RandomPlanningAlgorithm;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.ClusteringParameters.ClusteringMethod;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.Parameters.ParsingMode;
+import org.workflowsim.utils.Parameters.PlanningAlgorithm;
+import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This ScalingBenchmark generates a workflow of each given size, and reports
+ * the wall time and the peak heap of each stage of its simulation:
+ * <ul>
+ * <li>generate: the generation of the workflow</li>
+ * <li>write: the writing of its DAX file</li>
+ * <li>parse: the parsing of the DAX file with StAX</li>
+ * <li>build: the building of the tasks from the generator, without XML, and
+ * the heap they keep per task</li>
+ * <li>plan: the planning algorithm, if any, on the tasks</li>
+ * <li>cluster: the clustering of the tasks into jobs</li>
+ * <li>simulate: a whole simulation of the generated workflow, from the first
+ * job received by the datacenter to the end. The simulation builds, plans and
+ * clusters the tasks again before, which is not counted here.</li>
+ * </ul>
+ * The peak heap of a stage includes what the earlier stages still hold, such
+ * as the generator. The tasks are slim, see Parameters.setSlimTasks. The sizes are run from the smallest, a stage that does not
+ * scale will show on the larger ones first.
+ * <p>
+ * Usage: <tt>ScalingBenchmark [shape] [sizes] [planning] [clustering]
+ * [clustersNum] [vmNum]</tt>, e.g.
+ * <tt>ScalingBenchmark MONTAGE 10000,100000,1000000 INVALID HORIZONTAL 20 20</tt>.
+ * The clustering is NONE, HORIZONTAL, VERTICAL or BLOCK.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ScalingBenchmark {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this benchmark
+     *
+     * @param args the shape of the workflows, their comma separated sizes, the
+     * planning algorithm, the clustering method, the number of clusters and
+     * the number of vms
+     */
+    public static void main(String[] args) {
+        WorkflowShape shape = WorkflowShape.valueOf(args.length > 0 ? args[0] : "MONTAGE");
+        String[] sizes = (args.length > 1 ? args[1] : "10000,100000,1000000").split(",");
+        PlanningAlgorithm planning = PlanningAlgorithm.valueOf(args.length > 2 ? args[2] : "INVALID");
+        ClusteringMethod clustering = ClusteringMethod.valueOf(args.length > 3 ? args[3] : "HORIZONTAL");
+        int clustersNum = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+        int vmNum = args.length > 5 ? Integer.parseInt(args[5]) : 20;
+        if (clustering == ClusteringMethod.BALANCED) {
+            throw new IllegalArgumentException("The balanced clustering is not supported by this benchmark");
+        }
+        Log.disable();
+
+        try {
+            System.out.println(shape + " workflows, " + planning + " planning, " + clustering + " clustering of "
+                    + clustersNum + " clusters, " + vmNum + " vms");
+            for (String size : sizes) {
+                run(shape, Integer.parseInt(size.trim()), planning, clustering, clustersNum, vmNum);
+            }
+        } catch (Exception e) {
+            System.err.println("ScalingBenchmark: the benchmark has been terminated due to an unexpected error");
+            e.printStackTrace();
+        } finally {
+            Log.enable();
+        }
+    }
+
+    /**
+     * Runs the stages on a workflow of one size
+     */
+    private static void run(WorkflowShape shape, int size, PlanningAlgorithm planning,
+            ClusteringMethod clustering, int clustersNum, int vmNum) throws Exception {
+        init(null, planning, clustering, clustersNum, vmNum);
+        Stage stage = new Stage("generate");
+        WorkflowGenerator generator = new WorkflowGenerator(shape, size, 0);
+        stage.end();
+        System.out.printf("%d jobs, %d dependencies%n", generator.getJobCount(), generator.getDependencyCount());
+
+        File dax = File.createTempFile("scaling", ".xml");
+        try {
+            stage = new Stage("write");
+            generator.writeDax(dax);
+            stage.end();
+
+            parse(dax, planning, clustering, clustersNum, vmNum);
+        } finally {
+            dax.delete();
+        }
+
+        init(null, planning, clustering, clustersNum, vmNum);
+        Parameters.setWorkflowGenerator(generator);
+        long heap = getUsedHeap();
+        stage = new Stage("build");
+        WorkflowParser parser = new WorkflowParser(0);
+        parser.parse();
+        List<Task> taskList = parser.getTaskList();
+        stage.end();
+        System.out.printf("%d bytes per task%n", (getUsedHeap() - heap) / taskList.size());
+
+        BasePlanningAlgorithm planner = getPlanningAlgorithm(planning);
+        if (planner != null) {
+            stage = new Stage("plan");
+            planner.setTaskList(taskList);
+            planner.setVmList(createVM(0, vmNum));
+            planner.run();
+            stage.end();
+        }
+
+        stage = new Stage("cluster");
+        BasicClustering engine = getClusteringEngine(clustering, clustersNum);
+        engine.setTaskList(taskList);
+        engine.run();
+        stage.end();
+        System.out.printf("%d jobs clustered%n", engine.getJobList().size());
+        engine = null;
+        parser = null;
+        taskList = null;
+
+        init(null, planning, clustering, clustersNum, vmNum);
+        Parameters.setWorkflowGenerator(generator);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        FailureMonitor.init();
+        FailureGenerator.init();
+        CloudSim.init(1, Calendar.getInstance(), false);
+        TimedDatacenter datacenter = createDatacenter("Datacenter_0", vmNum);
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        wfEngine.submitVmList(createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum()), 0);
+        wfEngine.bindSchedulerDatacenter(datacenter.getId(), 0);
+
+        long start = System.nanoTime();
+        CloudSim.startSimulation();
+        List<Job> outputList = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+        if (datacenter.stage == null || outputList.isEmpty()) {
+            throw new IllegalStateException("No job has been completed");
+        }
+        datacenter.stage.end();
+        double makespan = 0;
+        for (Job job : outputList) {
+            makespan = Math.max(makespan, job.getFinishTime());
+        }
+        System.out.printf("%d jobs completed, %.2f s before the first job, makespan %.0f%n", outputList.size(),
+                (datacenter.stage.start - start) / 1e9, makespan);
+    }
+
+    /**
+     * Parses the DAX file of a workflow and drops its tasks, so that they are
+     * not counted by the next stages
+     */
+    private static void parse(File dax, PlanningAlgorithm planning, ClusteringMethod clustering,
+            int clustersNum, int vmNum) {
+        init(dax.getPath(), planning, clustering, clustersNum, vmNum);
+        Stage stage = new Stage("parse");
+        WorkflowParser parser = new WorkflowParser(0);
+        parser.parse();
+        stage.end();
+    }
+
+    /**
+     * Initializes the parameters of a stage
+     */
+    private static void init(String daxPath, PlanningAlgorithm planning, ClusteringMethod clustering,
+            int clustersNum, int vmNum) {
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(clustersNum, 0, clustering, null);
+        SchedulingAlgorithm scheduling = planning == PlanningAlgorithm.INVALID ? SchedulingAlgorithm.MINMIN
+                : SchedulingAlgorithm.STATIC;
+        Parameters.init(vmNum, daxPath, null, null, op, cp, scheduling, planning, null, 0);
+        Parameters.setParsingMode(ParsingMode.STREAMING);
+        Parameters.setWorkflowGenerator(null);
+        Parameters.setSlimTasks(true);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+    }
+
+    /**
+     * Gets the planning algorithm the planner would use
+     */
+    private static BasePlanningAlgorithm getPlanningAlgorithm(PlanningAlgorithm name) {
+        switch (name) {
+            case RANDOM:
+                return new RandomPlanningAlgorithm();
+            case HEFT:
+                return new HEFTPlanningAlgorithm();
+            case DHEFT:
+                return new DHEFTPlanningAlgorithm();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the clustering engine the clustering engine would use
+     */
+    private static BasicClustering getClusteringEngine(ClusteringMethod method, int clustersNum) {
+        switch (method) {
+            case HORIZONTAL:
+                return new HorizontalClustering(clustersNum, 0);
+            case VERTICAL:
+                return new VerticalClustering(1);
+            case BLOCK:
+                return new BlockClustering(clustersNum, 0);
+            default:
+                return new BasicClustering();
+        }
+    }
+
+    /**
+     * Creates the vms, like those of WorkflowSimBasicExample1
+     */
+    private static List<CondorVM> createVM(int userId, int vms) {
+        List<CondorVM> list = new ArrayList<>();
+        for (int i = 0; i < vms; i++) {
+            list.add(new CondorVM(i, userId, 1000, 1, 512, 1000, 10000, "Xen",
+                    new CloudletSchedulerSpaceShared()));
+        }
+        return list;
+    }
+
+    /**
+     * Creates a datacenter of dual core hosts for the vms
+     */
+    private static TimedDatacenter createDatacenter(String name, int vmNum) throws Exception {
+        List<Host> hostList = new ArrayList<>();
+        for (int i = 0; i < (vmNum + 1) / 2; i++) {
+            List<Pe> peList = new ArrayList<>();
+            peList.add(new Pe(0, new PeProvisionerSimple(2000)));
+            peList.add(new Pe(1, new PeProvisionerSimple(2000)));
+            hostList.add(new Host(i, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000), 1000000,
+                    peList, new VmSchedulerTimeShared(peList)));
+        }
+        DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+                "x86", "Linux", "Xen", hostList, 10.0, 3.0, 0.05, 0.1, 0.1);
+        HarddriveStorage storage = new HarddriveStorage(name, 1e12);
+        storage.setMaxTransferRate(15);
+        LinkedList<Storage> storageList = new LinkedList<>();
+        storageList.add(storage);
+        return new TimedDatacenter(name, characteristics, new VmAllocationPolicySimple(hostList), storageList);
+    }
+
+    /**
+     * Collects the garbage and resets the peak usage of the heap
+     */
+    private static void resetPeakHeap() {
+        System.gc();
+        resetPeakUsage();
+    }
+
+    /**
+     * Collects the garbage and gets the used heap
+     */
+    private static long getUsedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Resets the peak usage of the heap, without collecting the garbage
+     */
+    private static void resetPeakUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Gets the peak usage of the heap, summed over its pools
+     */
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * A measured stage
+     */
+    private static class Stage {
+
+        private final String name;
+        private final long start;
+
+        /**
+         * Starts a stage, after collecting the garbage of the earlier ones
+         */
+        public Stage(String name) {
+            this(name, true);
+        }
+
+        public Stage(String name, boolean collect) {
+            if (collect) {
+                resetPeakHeap();
+            } else {
+                resetPeakUsage();
+            }
+            this.name = name;
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * Ends the stage and prints its wall time and peak heap
+         */
+        public void end() {
+            long elapsed = System.nanoTime() - this.start;
+            System.out.printf("  %-8s %9.3f s  peak heap %6.0f MB%n", this.name, elapsed / 1e9, getPeakHeap() / 1e6);
+        }
+    }
+
+    /**
+     * A datacenter starting the simulate stage when it receives the first job
+     */
+    private static class TimedDatacenter extends WorkflowDatacenter {
+
+        private static final long serialVersionUID = 1L;
+
+        private Stage stage;
+
+        public TimedDatacenter(String name, DatacenterCharacteristics characteristics,
+                VmAllocationPolicySimple policy, List<Storage> storageList) throws Exception {
+            super(name, characteristics, policy, storageList, 0);
+        }
+
+        @Override
+        protected void processCloudletSubmit(SimEvent ev, boolean ack) {
+            if (this.stage == null) {
+                this.stage = new Stage("simulate", false);
+            }
+            super.processCloudletSubmit(ev, ack);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowSimTags;
+import org.workflowsim.scheduling.BaseSchedulingAlgorithm;
+import org.workflowsim.scheduling.FCFSSchedulingAlgorithm;
+import org.workflowsim.scheduling.MCTSchedulingAlgorithm;
+import org.workflowsim.scheduling.MaxMinSchedulingAlgorithm;
+import org.workflowsim.scheduling.MinMinSchedulingAlgorithm;
+
+/**
+ * This SchedulingRoundBenchmark measures the scheduling rounds of the dynamic
+ * scheduling algorithms outside of a simulation. The algorithm is driven the
+ * way a WorkflowScheduler drives it: after every round the vms that got a job
+ * become idle again, and as many new jobs arrive as were scheduled, so every
+ * round sees the same number of waiting jobs. The vms have random speeds and
+ * the jobs random lengths.
+ * <p>
+ * Usage: <tt>SchedulingRoundBenchmark [vmNum] [jobNum] [rounds]</tt>
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class SchedulingRoundBenchmark {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this benchmark
+     *
+     * @param args the number of vms, of waiting jobs and of measured rounds
+     */
+    public static void main(String[] args) {
+        int vmNum = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int jobNum = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        Log.disable();
+
+        try {
+            System.out.println(vmNum + " vms, " + jobNum + " waiting jobs, " + rounds + " rounds");
+            for (String name : new String[]{"MINMIN", "MAXMIN", "MCT", "FCFS"}) {
+                // the first run warms up the JIT
+                run(name, vmNum, jobNum, rounds);
+                BaseSchedulingAlgorithm algorithm = run(name, vmNum, jobNum, rounds);
+                System.out.printf("%-6s: %d rounds, %.3f ms/round, longest %.3f ms%n", name,
+                        algorithm.getRoundCount(),
+                        algorithm.getTotalRoundTime() / 1e6 / algorithm.getRoundCount(),
+                        algorithm.getMaxRoundTime() / 1e6);
+            }
+        } catch (Exception e) {
+            System.err.println("SchedulingRoundBenchmark: the benchmark has been terminated due to an unexpected error");
+            e.printStackTrace();
+        } finally {
+            Log.enable();
+        }
+    }
+
+    /**
+     * Runs the scheduling rounds of one algorithm
+     *
+     * @return the algorithm, with the statistics of its rounds
+     */
+    private static BaseSchedulingAlgorithm run(String name, int vmNum, int jobNum, int rounds)
+            throws Exception {
+        BaseSchedulingAlgorithm algorithm;
+        switch (name) {
+            case "MINMIN":
+                algorithm = new MinMinSchedulingAlgorithm();
+                break;
+            case "MAXMIN":
+                algorithm = new MaxMinSchedulingAlgorithm();
+                break;
+            case "MCT":
+                algorithm = new MCTSchedulingAlgorithm();
+                break;
+            default:
+                algorithm = new FCFSSchedulingAlgorithm();
+                break;
+        }
+        Random random = new Random(7);
+        List<CondorVM> vmList = new ArrayList<>();
+        for (int i = 0; i < vmNum; i++) {
+            vmList.add(new CondorVM(i, 0, 500 + random.nextInt(4) * 250, 1, 512, 1000, 10000, "Xen",
+                    new CloudletSchedulerSpaceShared()));
+        }
+        List<Job> jobList = new ArrayList<>();
+        int nextId = 0;
+        for (; nextId < jobNum; nextId++) {
+            jobList.add(new Job(nextId, 1000 + random.nextInt(100000)));
+        }
+        algorithm.setCloudletList(jobList);
+        algorithm.setVmList(vmList);
+
+        for (int round = 0; round < rounds; round++) {
+            algorithm.schedule();
+            List<Cloudlet> scheduledList = algorithm.getScheduledList();
+            List<Job> arrived = new ArrayList<>();
+            for (Cloudlet cloudlet : scheduledList) {
+                CondorVM vm = vmList.get(cloudlet.getVmId());
+                vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+                algorithm.vmIdle(vm);
+                arrived.add(new Job(nextId++, 1000 + random.nextInt(100000)));
+            }
+            jobList.addAll(arrived);
+            algorithm.cloudletsArrived(arrived);
+        }
+        return algorithm;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.benchmark;
+
+import java.io.File;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowParser;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.Parameters.ParsingMode;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This WorkflowCacheBenchmark loads a synthetic DAX, and optionally a given
+ * one, by parsing it with jdom and with StAX, and from the workflow cache. It
+ * reports the time of each way, and checks that they give the same tasks.
+ * <p>
+ * Usage: <tt>WorkflowCacheBenchmark [syntheticJobs] [rounds] [daxPath]</tt>
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class WorkflowCacheBenchmark {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this benchmark
+     *
+     * @param args the number of jobs of the synthetic DAX, the number of
+     * measured rounds and a DAX file
+     */
+    public static void main(String[] args) {
+        int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Log.disable();
+
+        File cache = null;
+        File synthetic = null;
+        try {
+            cache = File.createTempFile("workflowcache", "");
+            cache.delete();
+            synthetic = File.createTempFile("synthetic", ".xml");
+            DaxParserBenchmark.writeDax(synthetic, jobs);
+            run(synthetic.getPath(), cache, rounds);
+            if (args.length > 2) {
+                run(args[2], cache, rounds);
+            }
+        } catch (Exception e) {
+            System.err.println("WorkflowCacheBenchmark: the benchmark has been terminated due to an unexpected error");
+            e.printStackTrace();
+        } finally {
+            if (synthetic != null) {
+                synthetic.delete();
+            }
+            if (cache != null && cache.isDirectory()) {
+                for (File file : cache.listFiles()) {
+                    file.delete();
+                }
+                cache.delete();
+            }
+            Log.enable();
+        }
+    }
+
+    /**
+     * Loads a DAX in each way
+     */
+    private static void run(String daxPath, File cache, int rounds) {
+        String[] names = {"jdom", "StAX", "cache"};
+        long[] nanos = new long[3];
+        long[] digests = new long[3];
+        int tasks = 0;
+        long start = System.nanoTime();
+        parse(daxPath, ParsingMode.STREAMING, cache.getPath());
+        long saving = System.nanoTime() - start;
+        for (int i = 0; i <= rounds; i++) {
+            for (int k = 0; k < 3; k++) {
+                start = System.nanoTime();
+                List<Task> taskList = parse(daxPath, k == 0 ? ParsingMode.DOM : ParsingMode.STREAMING,
+                        k == 2 ? cache.getPath() : null);
+                // the first round lets the JIT settle
+                if (i > 0) {
+                    nanos[k] += System.nanoTime() - start;
+                }
+                digests[k] = DaxParserBenchmark.digest(taskList);
+                tasks = taskList.size();
+            }
+        }
+        System.out.printf("%s: %d tasks, parsed and cached in %.1f ms%n", new File(daxPath).getName(), tasks,
+                saving / 1e6);
+        for (int k = 0; k < 3; k++) {
+            System.out.printf("%-5s: %.1f ms%n", names[k], nanos[k] / 1e6 / rounds);
+        }
+        System.out.println("tasks " + (digests[0] == digests[1] && digests[0] == digests[2] ? "identical" : "DIFFERENT"));
+    }
+
+    /**
+     * Parses a DAX file, or loads it from the cache directory if not null
+     *
+     * @return the tasks of the DAX
+     */
+    private static List<Task> parse(String daxPath, ParsingMode mode, String cache) {
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0,
+                ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(1, daxPath, null, null, op, cp,
+                Parameters.SchedulingAlgorithm.MINMIN, Parameters.PlanningAlgorithm.INVALID, null, 0);
+        Parameters.setParsingMode(mode);
+        Parameters.setWorkflowCache(cache);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+
+        WorkflowParser parser = new WorkflowParser(0);
+        parser.parse();
+        return parser.getTaskList();
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.failure;
+
+import java.io.File;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.examples.WorkflowSimBasicExample1;
+import org.workflowsim.failure.FailureGenerator;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.failure.FailureParameters;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This FaultTolerantCheckpointExample1 runs the FaultTolerantSchedulingExample1
+ * setup once, with a checkpoint written at a given time, and then restores the
+ * checkpoint several times to finish the same workflow under different failure
+ * rates. Only the part of the simulation after the checkpoint is run again.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class FaultTolerantCheckpointExample1 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this example This example has only one datacenter
+     * and one storage
+     */
+    public static void main(String[] args) {
+
+        try {
+            int vmNum = 20;//number of vms;
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "/Users/weiweich/NetBeansProjects/WorkflowSim-1.0/config/dax/Montage_100.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+            /**
+             * The time of the checkpoint, and the scales of the Weibull
+             * distribution of the task failures used after it.
+             */
+            double checkpointTime = 100;
+            double[] failureScales = {1000, 100, 20};
+
+            DistributionGenerator[][] failureGenerators = new DistributionGenerator[1][1];
+            failureGenerators[0][0] = new DistributionGenerator(DistributionGenerator.DistributionFamily.WEIBULL,
+                    100, 1.0, 30, 300, 0.78);
+            initFailures(failureGenerators);
+
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+            ClusteringParameters cp = new ClusteringParameters(0, 0,
+                    ClusteringParameters.ClusteringMethod.NONE, null);
+            Parameters.init(vmNum, daxPath, null,
+                    null, op, cp, Parameters.SchedulingAlgorithm.MINMIN, Parameters.PlanningAlgorithm.INVALID,
+                    null, 0);
+            ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+
+            FailureMonitor.init();
+            FailureGenerator.init();
+
+            CloudSim.init(1, Calendar.getInstance(), false);
+
+            WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+            wfEngine.submitVmList(vmlist0, 0);
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+            /**
+             * The checkpoint is written while the first run goes on; the
+             * parameters set above are saved with it.
+             */
+            File checkpoint = File.createTempFile("workflowsim", ".checkpoint");
+            checkpoint.deleteOnExit();
+            CloudSim.checkpointAt(checkpointTime, checkpoint);
+
+            CloudSim.startSimulation();
+            List<Job> outputList0 = wfEngine.getJobsReceivedList();
+            CloudSim.stopSimulation();
+            printJobList(outputList0);
+            printSummary("Original run", outputList0);
+
+            /**
+             * Every restore gets a fresh copy of the simulation at the
+             * checkpoint, including the failures already sampled; only the
+             * distribution used from now on is changed.
+             */
+            for (double scale : failureScales) {
+                CloudSim.restoreSimulation(checkpoint);
+                failureGenerators = new DistributionGenerator[1][1];
+                failureGenerators[0][0] = new DistributionGenerator(DistributionGenerator.DistributionFamily.WEIBULL,
+                        scale, 1.0, 30, 300, 0.78);
+                initFailures(failureGenerators);
+
+                WorkflowPlanner planner = (WorkflowPlanner) CloudSim.getEntity("planner_0");
+                CloudSim.startSimulation();
+                List<Job> outputList = planner.getWorkflowEngine().getJobsReceivedList();
+                CloudSim.stopSimulation();
+                printSummary("Restored at " + checkpointTime + " with failure scale " + scale, outputList);
+            }
+            CloudSim.setContext(null);
+        } catch (Exception e) {
+            /**
+             * A checkpoint that cannot be written or restored is reported
+             * with its cause, such as an entity that is not serializable.
+             */
+            Log.printLine("The simulation has been terminated due to an unexpected error: " + e);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Sets the failure parameters of the current simulation: every failure is
+     * retried, and failures are neither classified nor clustered.
+     */
+    private static void initFailures(DistributionGenerator[][] failureGenerators) {
+        FailureParameters.init(FailureParameters.FTCluteringAlgorithm.FTCLUSTERING_NOOP,
+                FailureParameters.FTCMonitor.MONITOR_ALL,
+                FailureParameters.FTCFailure.FAILURE_ALL, failureGenerators);
+    }
+
+    /**
+     * Prints the number of jobs received and the time the last one finished
+     */
+    private static void printSummary(String title, List<Job> list) {
+        double makespan = 0;
+        for (Job job : list) {
+            makespan = Math.max(makespan, job.getFinishTime());
+        }
+        Log.printLine(title + ": " + list.size() + " jobs received, makespan " + makespan);
+    }
+}
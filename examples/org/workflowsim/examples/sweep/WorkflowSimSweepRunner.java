@@ -0,0 +1,430 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.sweep;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.examples.WorkflowSimBasicExample1;
+import org.workflowsim.failure.FailureGenerator;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This WorkflowSimSweepRunner runs the WorkflowSimBasicExample1 setup over a
+ * grid of DAX files, vm numbers, scheduling algorithms and clustering
+ * parameters. The runs are executed concurrently on a fork-join pool, each one
+ * in its own simulation context, and one line per run is appended to the
+ * output file as soon as the run completes.
+ * <p>
+ * Usage: <tt>WorkflowSimSweepRunner [options]</tt>
+ * <ul>
+ * <li><tt>-dax path,...</tt> DAX files or directories of DAX files (default
+ * config/dax)
+ * <li><tt>-vms n,...</tt> numbers of vms (default 20)
+ * <li><tt>-schedulers name,...</tt> scheduling algorithms (default all but
+ * STATIC, unless planning algorithms are given)
+ * <li><tt>-planners name,...</tt> planning algorithms, run with the STATIC
+ * scheduler (default none)
+ * <li><tt>-clustering method[:num[:size[:code]]],...</tt> clustering
+ * parameters (default NONE). Horizontal clustering shuffles the tasks with
+ * a time based seed, so these runs are not reproducible.
+ * <li><tt>-threads n</tt> size of the pool (default number of processors)
+ * <li><tt>-out file</tt> output file (default sweep-results.tsv)
+ * </ul>
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class WorkflowSimSweepRunner extends WorkflowSimBasicExample1 {
+
+    /**
+     * The column names of the output file
+     */
+    private static final String HEADER = "dax\tvms\tscheduler\tplanner\tclustering"
+            + "\tstatus\tmakespan\tcost\tevents\twallMillis";
+
+    /**
+     * One point of the parameter grid.
+     */
+    public static class SweepRun {
+
+        private final String daxPath;
+        private final int vmNum;
+        private final Parameters.SchedulingAlgorithm scheduler;
+        private final Parameters.PlanningAlgorithm planner;
+        private final String clustering;
+
+        public SweepRun(String daxPath, int vmNum, Parameters.SchedulingAlgorithm scheduler,
+                Parameters.PlanningAlgorithm planner, String clustering) {
+            this.daxPath = daxPath;
+            this.vmNum = vmNum;
+            this.scheduler = scheduler;
+            this.planner = planner;
+            this.clustering = clustering;
+        }
+
+        public String getDaxPath() {
+            return daxPath;
+        }
+
+        public int getVmNum() {
+            return vmNum;
+        }
+
+        public Parameters.SchedulingAlgorithm getScheduler() {
+            return scheduler;
+        }
+
+        public Parameters.PlanningAlgorithm getPlanner() {
+            return planner;
+        }
+
+        public String getClustering() {
+            return clustering;
+        }
+    }
+
+    /**
+     * The outcome of one run.
+     */
+    public static class SweepResult {
+
+        private final SweepRun run;
+        private final String status;
+        private final double makespan;
+        private final double cost;
+        private final long events;
+        private final long wallMillis;
+
+        public SweepResult(SweepRun run, String status, double makespan, double cost,
+                long events, long wallMillis) {
+            this.run = run;
+            this.status = status;
+            this.makespan = makespan;
+            this.cost = cost;
+            this.events = events;
+            this.wallMillis = wallMillis;
+        }
+
+        public SweepRun getRun() {
+            return run;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public double getMakespan() {
+            return makespan;
+        }
+
+        public double getCost() {
+            return cost;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        public long getWallMillis() {
+            return wallMillis;
+        }
+
+        /**
+         * Formats this result as a line of the output file
+         *
+         * @return the line
+         */
+        public String toLine() {
+            return String.format(Locale.ROOT, "%s\t%d\t%s\t%s\t%s\t%s\t%.4f\t%.4f\t%d\t%d",
+                    new File(run.getDaxPath()).getName(), run.getVmNum(), run.getScheduler(),
+                    run.getPlanner(), run.getClustering(), status, makespan, cost, events,
+                    wallMillis);
+        }
+    }
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run the sweep
+     *
+     * @param args the options, see the class description
+     */
+    public static void main(String[] args) {
+        List<String> daxPaths = new ArrayList<>();
+        List<Integer> vmNums = new ArrayList<>();
+        List<Parameters.SchedulingAlgorithm> schedulers = new ArrayList<>();
+        List<Parameters.PlanningAlgorithm> planners = new ArrayList<>();
+        List<String> clusterings = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        String output = "sweep-results.tsv";
+
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                List<String> values = Arrays.asList(args[i + 1].split(","));
+                switch (args[i]) {
+                    case "-dax":
+                        for (String value : values) {
+                            daxPaths.addAll(listDaxFiles(value));
+                        }
+                        break;
+                    case "-vms":
+                        for (String value : values) {
+                            vmNums.add(Integer.parseInt(value));
+                        }
+                        break;
+                    case "-schedulers":
+                        for (String value : values) {
+                            schedulers.add(Parameters.SchedulingAlgorithm.valueOf(value));
+                        }
+                        break;
+                    case "-planners":
+                        for (String value : values) {
+                            planners.add(Parameters.PlanningAlgorithm.valueOf(value));
+                        }
+                        break;
+                    case "-clustering":
+                        clusterings.addAll(values);
+                        break;
+                    case "-threads":
+                        threads = Integer.parseInt(args[i + 1]);
+                        break;
+                    case "-out":
+                        output = args[i + 1];
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("WorkflowSimSweepRunner: " + e.getMessage());
+            return;
+        }
+
+        if (daxPaths.isEmpty()) {
+            daxPaths.addAll(listDaxFiles("config/dax"));
+        }
+        if (vmNums.isEmpty()) {
+            vmNums.add(20);
+        }
+        if (schedulers.isEmpty() && planners.isEmpty()) {
+            for (Parameters.SchedulingAlgorithm scheduler : Parameters.SchedulingAlgorithm.values()) {
+                if (scheduler != Parameters.SchedulingAlgorithm.STATIC
+                        && scheduler != Parameters.SchedulingAlgorithm.INVALID) {
+                    schedulers.add(scheduler);
+                }
+            }
+        }
+        if (clusterings.isEmpty()) {
+            clusterings.add("NONE");
+        }
+
+        List<SweepRun> runs = createGrid(daxPaths, vmNums, schedulers, planners, clusterings);
+        System.out.println("WorkflowSimSweepRunner: " + runs.size() + " runs on "
+                + threads + " threads, writing to " + output);
+
+        long start = System.nanoTime();
+        try {
+            runSweep(runs, threads, output);
+        } catch (IOException e) {
+            System.err.println("WorkflowSimSweepRunner: cannot write " + output + ": " + e.getMessage());
+            return;
+        }
+        System.out.println("WorkflowSimSweepRunner: done in "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+    /**
+     * Lists the DAX files of a path
+     *
+     * @param path a DAX file or a directory of DAX files
+     * @return the DAX files, sorted by name
+     */
+    protected static List<String> listDaxFiles(String path) {
+        List<String> list = new ArrayList<>();
+        File file = new File(path);
+        if (file.isDirectory()) {
+            File[] files = file.listFiles();
+            if (files != null) {
+                Arrays.sort(files);
+                for (File dax : files) {
+                    if (dax.isFile() && dax.getName().endsWith(".xml")) {
+                        list.add(dax.getPath());
+                    }
+                }
+            }
+        } else {
+            list.add(path);
+        }
+        return list;
+    }
+
+    /**
+     * Creates all the runs of the grid. Each planning algorithm is run with
+     * the STATIC scheduler.
+     *
+     * @return the runs
+     */
+    protected static List<SweepRun> createGrid(List<String> daxPaths, List<Integer> vmNums,
+            List<Parameters.SchedulingAlgorithm> schedulers,
+            List<Parameters.PlanningAlgorithm> planners, List<String> clusterings) {
+        List<SweepRun> runs = new ArrayList<>();
+        for (String daxPath : daxPaths) {
+            for (int vmNum : vmNums) {
+                for (String clustering : clusterings) {
+                    for (Parameters.SchedulingAlgorithm scheduler : schedulers) {
+                        runs.add(new SweepRun(daxPath, vmNum, scheduler,
+                                Parameters.PlanningAlgorithm.INVALID, clustering));
+                    }
+                    for (Parameters.PlanningAlgorithm planner : planners) {
+                        runs.add(new SweepRun(daxPath, vmNum,
+                                Parameters.SchedulingAlgorithm.STATIC, planner, clustering));
+                    }
+                }
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Executes the runs on a fork-join pool and writes a line to the output
+     * file whenever a run completes.
+     *
+     * @param runs the runs
+     * @param threads the parallelism of the pool
+     * @param output the output file
+     * @throws IOException if the output file cannot be written
+     */
+    public static void runSweep(List<SweepRun> runs, int threads, String output) throws IOException {
+        // the log is shared by all the simulations
+        Log.disable();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        CompletionService<SweepResult> completion = new ExecutorCompletionService<>(pool);
+        for (final SweepRun run : runs) {
+            completion.submit(new Callable<SweepResult>() {
+                @Override
+                public SweepResult call() {
+                    return runSimulation(run);
+                }
+            });
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(output))) {
+            writer.println(HEADER);
+            writer.flush();
+            for (int i = 0; i < runs.size(); i++) {
+                try {
+                    writer.println(completion.take().get().toLine());
+                } catch (ExecutionException e) {
+                    writer.println("# " + e.getCause());
+                }
+                writer.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+            Log.enable();
+        }
+    }
+
+    /**
+     * Runs one simulation in a new simulation context bound to the calling
+     * thread.
+     *
+     * @param run the point of the grid
+     * @return the result
+     */
+    public static SweepResult runSimulation(SweepRun run) {
+        SimulationContext context = new SimulationContext();
+        CloudSim.setContext(context);
+        long start = System.nanoTime();
+        try {
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+            ClusteringParameters cp = parseClustering(run.getClustering());
+            Parameters.init(run.getVmNum(), run.getDaxPath(), null, null, op, cp,
+                    run.getScheduler(), run.getPlanner(), null, 0);
+            ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+            FailureMonitor.init();
+            FailureGenerator.init();
+
+            CloudSim.init(1, Calendar.getInstance(), false);
+            WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            wfEngine.submitVmList(createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum()), 0);
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+            CloudSim.startSimulation();
+            List<Job> outputList = wfEngine.getJobsReceivedList();
+            CloudSim.stopSimulation();
+
+            double makespan = 0.0;
+            double cost = 0.0;
+            for (Job job : outputList) {
+                makespan = Math.max(makespan, job.getFinishTime());
+                cost += job.getProcessingCost();
+            }
+            return new SweepResult(run, "OK", makespan, cost, context.getNumberOfEventsProcessed(),
+                    (System.nanoTime() - start) / 1000000);
+        } catch (Exception e) {
+            return new SweepResult(run, "ERROR:" + e.getClass().getSimpleName(), 0.0, 0.0,
+                    context.getNumberOfEventsProcessed(), (System.nanoTime() - start) / 1000000);
+        } finally {
+            CloudSim.setContext(null);
+        }
+    }
+
+    /**
+     * Parses clustering parameters written as
+     * <tt>method[:num[:size[:code]]]</tt>, e.g. <tt>HORIZONTAL:20</tt>
+     *
+     * @param value the clustering parameters
+     * @return the clustering parameters
+     */
+    protected static ClusteringParameters parseClustering(String value) {
+        String[] fields = value.split(":");
+        ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.valueOf(fields[0]);
+        int num = fields.length > 1 ? Integer.parseInt(fields[1]) : 0;
+        int size = fields.length > 2 ? Integer.parseInt(fields[2]) : 0;
+        String code = fields.length > 3 ? fields[3] : null;
+        return new ClusteringParameters(num, size, method, code);
+    }
+}
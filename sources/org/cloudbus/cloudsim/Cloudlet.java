@@ -8,6 +8,7 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.Serializable;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -23,7 +24,10 @@ import org.cloudbus.cloudsim.core.CloudSim;
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 1.0
  */
-public class Cloudlet {
+public class Cloudlet implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * The User or Broker ID. It is advisable that broker set this ID with its own ID, so that
@@ -79,8 +83,8 @@ public class Cloudlet {
 	/** The history. */
 	private StringBuffer history;
 
-	/** The res list. */
-	private final List<Resource> resList;
+	/** The res list, created when this Cloudlet is first allocated to a resource. */
+	private List<Resource> resList;
 
 	/** The index. */
 	private int index;
@@ -192,8 +196,6 @@ public class Cloudlet {
 		vmId = -1;
 		accumulatedBwCost = 0.0;
 		costPerBw = 0.0;
-
-		requiredFiles = new LinkedList<String>();
 	}
 
 	/**
@@ -342,10 +344,9 @@ public class Cloudlet {
 		this.cloudletFileSize = Math.max(1, cloudletFileSize);
 		this.cloudletOutputSize = Math.max(1, cloudletOutputSize);
 
-		// Normally, a Cloudlet is only executed on a resource without being
-		// migrated to others. Hence, to reduce memory consumption, set the
-		// size of this ArrayList to be less than the default one.
-		resList = new ArrayList<Resource>(2);
+		// The resource list and the required files are only created when
+		// they are used, as most Cloudlets of a large simulation never
+		// hold a required file and wait a long time before being executed.
 		index = -1;
 		this.record = record;
 
@@ -353,8 +354,6 @@ public class Cloudlet {
 		accumulatedBwCost = 0.0;
 		costPerBw = 0.0;
 
-		requiredFiles = new LinkedList<String>();
-
 		setUtilizationModelCpu(utilizationModelCpu);
 		setUtilizationModelRam(utilizationModelRam);
 		setUtilizationModelBw(utilizationModelBw);
@@ -365,7 +364,10 @@ public class Cloudlet {
 	/**
 	 * Internal class that keeps track Cloudlet's movement in different CloudResources.
 	 */
-	private static class Resource {
+	private static class Resource implements Serializable {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
 
 		/** Cloudlet's submission time to a CloudResource. */
 		public double submissionTime = 0.0;
@@ -727,7 +729,13 @@ public class Cloudlet {
 		res.costPerSec = cost;
 		res.resourceName = CloudSim.getEntityName(resourceID);
 
-		// add into a list if moving to a new grid resource
+		// add into a list if moving to a new grid resource. Normally, a
+		// Cloudlet is only executed on a resource without being migrated to
+		// others. Hence, to reduce memory consumption, set the size of this
+		// ArrayList to be less than the default one.
+		if (resList == null) {
+			resList = new ArrayList<Resource>(2);
+		}
 		resList.add(res);
 
 		if (index == -1 && record) {
@@ -1002,7 +1010,7 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public String[] getAllResourceName() {
-		final int size = resList.size();
+		final int size = index + 1;
 		String[] data = null;
 
 		if (size > 0) {
@@ -1023,7 +1031,7 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public int[] getAllResourceId() {
-		final int size = resList.size();
+		final int size = index + 1;
 		int[] data = null;
 
 		if (size > 0) {
@@ -1144,6 +1152,9 @@ public class Cloudlet {
 	 * @return the resource by id
 	 */
 	public Resource getResourceById(final int resourceId) {
+		if (resList == null) {
+			return null;
+		}
 		for (Resource resource : resList) {
 			if (resource.resourceId == resourceId) {
 				return resource;
@@ -1293,11 +1304,14 @@ public class Cloudlet {
 	// Data cloudlet
 
 	/**
-	 * Gets the required files.
+	 * Gets the required files. The list is created on the first call.
 	 * 
 	 * @return the required files
 	 */
 	public List<String> getRequiredFiles() {
+		if (requiredFiles == null) {
+			requiredFiles = new LinkedList<String>();
+		}
 		return requiredFiles;
 	}
 
@@ -1317,12 +1331,7 @@ public class Cloudlet {
 	 * @return <tt>true</tt> if succesful, <tt>false</tt> otherwise
 	 */
 	public boolean addRequiredFile(final String fileName) {
-		// if the list is empty
-		if (getRequiredFiles() == null) {
-			setRequiredFiles(new LinkedList<String>());
-		}
-
-		// then check whether filename already exists or not
+		// check whether filename already exists or not
 		boolean result = false;
 		for (int i = 0; i < getRequiredFiles().size(); i++) {
 			final String temp = getRequiredFiles().get(i);
@@ -1347,7 +1356,7 @@ public class Cloudlet {
 	 */
 	public boolean deleteRequiredFile(final String filename) {
 		boolean result = false;
-		if (getRequiredFiles() == null) {
+		if (requiredFiles == null) {
 			return result;
 		}
 
@@ -1372,7 +1381,7 @@ public class Cloudlet {
 	 */
 	public boolean requiresFiles() {
 		boolean result = false;
-		if (getRequiredFiles() != null && getRequiredFiles().size() > 0) {
+		if (requiredFiles != null && requiredFiles.size() > 0) {
 			result = true;
 		}
 
@@ -17,6 +17,7 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.util.IdMap;
 
 /**
  * Datacenter class is a CloudResource whose hostList are virtualized. It deals with processing of
@@ -31,6 +32,9 @@ import org.cloudbus.cloudsim.core.SimEvent;
  */
 public class Datacenter extends SimEntity {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** The characteristics. */
 	private DatacenterCharacteristics characteristics;
 
@@ -49,6 +53,9 @@ public class Datacenter extends SimEntity {
 	/** The vm list. */
 	private List<? extends Vm> vmList;
 
+	/** The vms looked up so far, by user id and vm id. */
+	private final IdMap<Vm> vmsById = new IdMap<Vm>();
+
 	/** The scheduling interval. */
 	private double schedulingInterval;
 
@@ -369,7 +376,7 @@ public class Datacenter extends SimEntity {
 			userId = data[1];
 			vmId = data[2];
 
-			status = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId).getCloudletScheduler()
+			status = getVm(vmId, userId).getCloudletScheduler()
 					.getCloudletStatus(cloudletId);
 		}
 
@@ -380,7 +387,7 @@ public class Datacenter extends SimEntity {
 				cloudletId = cl.getCloudletId();
 				userId = cl.getUserId();
 
-				status = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
+				status = getVm(vmId, userId)
 						.getCloudletScheduler().getCloudletStatus(cloudletId);
 			} catch (Exception e) {
 				Log.printLine(getName() + ": Error in processing CloudSimTags.CLOUDLET_STATUS");
@@ -393,13 +400,8 @@ public class Datacenter extends SimEntity {
 			return;
 		}
 
-		int[] array = new int[3];
-		array[0] = getId();
-		array[1] = cloudletId;
-		array[2] = status;
-
 		int tag = CloudSimTags.CLOUDLET_STATUS;
-		sendNow(userId, tag, array);
+		sendNowInts(userId, tag, getId(), cloudletId, status);
 	}
 
 	/**
@@ -431,16 +433,8 @@ public class Datacenter extends SimEntity {
 		boolean result = getVmAllocationPolicy().allocateHostForVm(vm);
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = vm.getId();
-
-			if (result) {
-				data[2] = CloudSimTags.TRUE;
-			} else {
-				data[2] = CloudSimTags.FALSE;
-			}
-			send(vm.getUserId(), CloudSim.getMinTimeBetweenEvents(), CloudSimTags.VM_CREATE_ACK, data);
+			sendInts(vm.getUserId(), CloudSim.getMinTimeBetweenEvents(), CloudSimTags.VM_CREATE_ACK,
+					getId(), vm.getId(), result ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 
 		if (result) {
@@ -471,12 +465,8 @@ public class Datacenter extends SimEntity {
 		getVmAllocationPolicy().deallocateHostForVm(vm);
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = vm.getId();
-			data[2] = CloudSimTags.TRUE;
-
-			sendNow(vm.getUserId(), CloudSimTags.VM_DESTROY_ACK, data);
+			sendNowInts(vm.getUserId(), CloudSimTags.VM_DESTROY_ACK,
+					getId(), vm.getId(), CloudSimTags.TRUE);
 		}
 
 		getVmList().remove(vm);
@@ -511,16 +501,8 @@ public class Datacenter extends SimEntity {
 		}
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = vm.getId();
-
-			if (result) {
-				data[2] = CloudSimTags.TRUE;
-			} else {
-				data[2] = CloudSimTags.FALSE;
-			}
-			sendNow(ev.getSource(), CloudSimTags.VM_CREATE_ACK, data);
+			sendNowInts(ev.getSource(), CloudSimTags.VM_CREATE_ACK,
+					getId(), vm.getId(), result ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 
 		Log.formatLine(
@@ -617,7 +599,7 @@ public class Datacenter extends SimEntity {
 		int destId = array[4];
 
 		// get the cloudlet
-		Cloudlet cl = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
+		Cloudlet cl = getVm(vmId, userId)
 				.getCloudletScheduler().cloudletCancel(cloudletId);
 
 		boolean failed = false;
@@ -626,11 +608,8 @@ public class Datacenter extends SimEntity {
 		} else {
 			// has the cloudlet already finished?
 			if (cl.getCloudletStatus() == Cloudlet.SUCCESS) {// if yes, send it back to user
-				int[] data = new int[3];
-				data[0] = getId();
-				data[1] = cloudletId;
-				data[2] = 0;
-				sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_SUBMIT_ACK, data);
+				sendNowInts(cl.getUserId(), CloudSimTags.CLOUDLET_SUBMIT_ACK,
+						getId(), cloudletId, 0);
 				sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
 			}
 
@@ -639,7 +618,7 @@ public class Datacenter extends SimEntity {
 
 			// the cloudlet will migrate from one vm to another does the destination VM exist?
 			if (destId == getId()) {
-				Vm vm = getVmAllocationPolicy().getHost(vmDestId, userId).getVm(vmDestId,userId);
+				Vm vm = getVm(vmDestId, userId);
 				if (vm == null) {
 					failed = true;
 				} else {
@@ -655,15 +634,8 @@ public class Datacenter extends SimEntity {
 		}
 
 		if (type == CloudSimTags.CLOUDLET_MOVE_ACK) {// send ACK if requested
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = cloudletId;
-			if (failed) {
-				data[2] = 0;
-			} else {
-				data[2] = 1;
-			}
-			sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_SUBMIT_ACK, data);
+			sendNowInts(cl.getUserId(), CloudSimTags.CLOUDLET_SUBMIT_ACK,
+					getId(), cloudletId, failed ? 0 : 1);
 		}
 	}
 
@@ -696,14 +668,10 @@ public class Datacenter extends SimEntity {
 				// Hence, this might cause CloudSim to be hanged since waiting
 				// for this Cloudlet back.
 				if (ack) {
-					int[] data = new int[3];
-					data[0] = getId();
-					data[1] = cl.getCloudletId();
-					data[2] = CloudSimTags.FALSE;
-
 					// unique tag = operation tag
 					int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-					sendNow(cl.getUserId(), tag, data);
+					sendNowInts(cl.getUserId(), tag,
+							getId(), cl.getCloudletId(), CloudSimTags.FALSE);
 				}
 
 				sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
@@ -721,8 +689,7 @@ public class Datacenter extends SimEntity {
 			// time to transfer the files
 			double fileTransferTime = predictFileTransferTime(cl.getRequiredFiles());
 
-			Host host = getVmAllocationPolicy().getHost(vmId, userId);
-			Vm vm = host.getVm(vmId, userId);
+			Vm vm = getVm(vmId, userId);
 			CloudletScheduler scheduler = vm.getCloudletScheduler();
 			double estimatedFinishTime = scheduler.cloudletSubmit(cl, fileTransferTime);
 
@@ -733,14 +700,9 @@ public class Datacenter extends SimEntity {
 			}
 
 			if (ack) {
-				int[] data = new int[3];
-				data[0] = getId();
-				data[1] = cl.getCloudletId();
-				data[2] = CloudSimTags.TRUE;
-
 				// unique tag = operation tag
 				int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-				sendNow(cl.getUserId(), tag, data);
+				sendNowInts(cl.getUserId(), tag, getId(), cl.getCloudletId(), CloudSimTags.TRUE);
 			}
 		} catch (ClassCastException c) {
 			Log.printLine(getName() + ".processCloudletSubmit(): " + "ClassCastException error.");
@@ -788,7 +750,7 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletResume(int cloudletId, int userId, int vmId, boolean ack) {
-		double eventTime = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
+		double eventTime = getVm(vmId, userId)
 				.getCloudletScheduler().cloudletResume(cloudletId);
 
 		boolean status = false;
@@ -800,15 +762,8 @@ public class Datacenter extends SimEntity {
 		}
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = cloudletId;
-			if (status) {
-				data[2] = CloudSimTags.TRUE;
-			} else {
-				data[2] = CloudSimTags.FALSE;
-			}
-			sendNow(userId, CloudSimTags.CLOUDLET_RESUME_ACK, data);
+			sendNowInts(userId, CloudSimTags.CLOUDLET_RESUME_ACK,
+					getId(), cloudletId, status ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 	}
 
@@ -823,19 +778,12 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletPause(int cloudletId, int userId, int vmId, boolean ack) {
-		boolean status = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
+		boolean status = getVm(vmId, userId)
 				.getCloudletScheduler().cloudletPause(cloudletId);
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = cloudletId;
-			if (status) {
-				data[2] = CloudSimTags.TRUE;
-			} else {
-				data[2] = CloudSimTags.FALSE;
-			}
-			sendNow(userId, CloudSimTags.CLOUDLET_PAUSE_ACK, data);
+			sendNowInts(userId, CloudSimTags.CLOUDLET_PAUSE_ACK,
+					getId(), cloudletId, status ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 	}
 
@@ -849,7 +797,7 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletCancel(int cloudletId, int userId, int vmId) {
-		Cloudlet cl = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
+		Cloudlet cl = getVm(vmId, userId)
 				.getCloudletScheduler().cloudletCancel(cloudletId);
 		sendNow(userId, CloudSimTags.CLOUDLET_CANCEL, cl);
 	}
@@ -1039,6 +987,17 @@ public class Datacenter extends SimEntity {
 		registerOtherEntity();
 	}
 
+	/**
+	 * A datacenter only exchanges events with the brokers and the information service, so it can
+	 * be run by a logical process of its own.
+	 * 
+	 * @return true
+	 */
+	@Override
+	protected boolean isIsolated() {
+		return true;
+	}
+
 	/**
 	 * Gets the host list.
 	 * 
@@ -1158,6 +1117,31 @@ public class Datacenter extends SimEntity {
 		this.vmList = vmList;
 	}
 
+	/**
+	 * Gets a vm running in this datacenter. This is the vm of the host given by the
+	 * {@link VmAllocationPolicy} for the ids, but the vms found are kept by ids, so a lookup does not
+	 * build the uid of the vm nor scan the vms of the host. A vm kept is only returned while it is
+	 * placed on a host, as destroying a vm takes it off its host.
+	 * 
+	 * @param vmId the vm id
+	 * @param userId the id of the owner of the vm
+	 * @return the vm, or <tt>null</tt> if the host of the vm does not run it
+	 * @throws NullPointerException if no host is allocated to the vm
+	 */
+	protected Vm getVm(int vmId, int userId) {
+		Vm vm = vmsById.get(userId, vmId);
+		if (vm != null && vm.getHost() != null) {
+			return vm;
+		}
+		vm = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId, userId);
+		if (vm != null) {
+			vmsById.put(userId, vmId, vm);
+		} else {
+			vmsById.remove(userId, vmId);
+		}
+		return vm;
+	}
+
 	/**
 	 * Gets the scheduling interval.
 	 * 
@@ -8,6 +8,7 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -20,6 +21,7 @@ import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.lists.CloudletList;
 import org.cloudbus.cloudsim.lists.VmList;
+import org.cloudbus.cloudsim.util.IdMap;
 
 /**
  * DatacentreBroker represents a broker acting on behalf of a user. It hides VM management, as vm
@@ -31,12 +33,21 @@ import org.cloudbus.cloudsim.lists.VmList;
  */
 public class DatacenterBroker extends SimEntity {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** The vm list. */
 	protected List<? extends Vm> vmList;
 
 	/** The vms created list. */
 	protected List<? extends Vm> vmsCreatedList;
 
+	/** The index by id of the vm list. */
+	private final VmIndex vmIndex = new VmIndex();
+
+	/** The index by id of the vms created list. */
+	private final VmIndex vmsCreatedIndex = new VmIndex();
+
 	/** The cloudlet list. */
 	protected List<? extends Cloudlet> cloudletList;
 
@@ -216,17 +227,16 @@ public class DatacenterBroker extends SimEntity {
 	 * @post $none
 	 */
 	protected void processVmCreate(SimEvent ev) {
-		int[] data = (int[]) ev.getData();
-		int datacenterId = data[0];
-		int vmId = data[1];
-		int result = data[2];
+		int datacenterId = ev.getIntData(0);
+		int vmId = ev.getIntData(1);
+		int result = ev.getIntData(2);
 
 		if (result == CloudSimTags.TRUE) {
 			getVmsToDatacentersMap().put(vmId, datacenterId);
-			getVmsCreatedList().add(VmList.getById(getVmList(), vmId));
+			getVmsCreatedList().add(getVmById(vmId));
 			Log.printLine(CloudSim.clock() + ": " + getName() + ": VM #" + vmId
 					+ " has been created in Datacenter #" + datacenterId + ", Host #"
-					+ VmList.getById(getVmsCreatedList(), vmId).getHost().getId());
+					+ getCreatedVmById(vmId).getHost().getId());
 		} else {
 			Log.printLine(CloudSim.clock() + ": " + getName() + ": Creation of VM #" + vmId
 					+ " failed in Datacenter #" + datacenterId);
@@ -346,7 +356,7 @@ public class DatacenterBroker extends SimEntity {
 			if (cloudlet.getVmId() == -1) {
 				vm = getVmsCreatedList().get(vmIndex);
 			} else { // submit to the specific vm
-				vm = VmList.getById(getVmsCreatedList(), cloudlet.getVmId());
+				vm = getCreatedVmById(cloudlet.getVmId());
 				if (vm == null) { // vm was not created
 					Log.printLine(CloudSim.clock() + ": " + getName() + ": Postponing execution of cloudlet "
 							+ cloudlet.getCloudletId() + ": bount VM not available");
@@ -424,6 +434,19 @@ public class DatacenterBroker extends SimEntity {
 		return (List<T>) vmList;
 	}
 
+	/**
+	 * Gets a vm of the vm list by id. Like {@link VmList#getById(List, int)}, the first vm with the
+	 * id is returned, but through an index instead of a scan of the list.
+	 * 
+	 * @param <T> the generic type
+	 * @param vmId the vm id
+	 * @return the vm, or <tt>null</tt> if there is none with this id
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Vm> T getVmById(int vmId) {
+		return (T) vmIndex.get(getVmList(), vmId);
+	}
+
 	/**
 	 * Sets the vm list.
 	 * 
@@ -508,6 +531,19 @@ public class DatacenterBroker extends SimEntity {
 		return (List<T>) vmsCreatedList;
 	}
 
+	/**
+	 * Gets a vm of the vms created list by id.
+	 * 
+	 * @param <T> the generic type
+	 * @param vmId the vm id
+	 * @return the vm, or <tt>null</tt> if there is none with this id
+	 * @see #getVmById(int)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Vm> T getCreatedVmById(int vmId) {
+		return (T) vmsCreatedIndex.get(getVmsCreatedList(), vmId);
+	}
+
 	/**
 	 * Sets the vm list.
 	 * 
@@ -652,4 +688,36 @@ public class DatacenterBroker extends SimEntity {
 		this.datacenterRequestedIdsList = datacenterRequestedIdsList;
 	}
 
+	/**
+	 * An index by id of the vms of a list. The vm lists of a broker are only appended to or
+	 * cleared, so the index follows its list by adding the vms appended since the last lookup, and
+	 * is built again when the list has shrunk or has been replaced.
+	 */
+	private static final class VmIndex implements Serializable {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+		private final IdMap<Vm> vms = new IdMap<Vm>();
+
+		/** The list indexed, compared by identity. */
+		private List<? extends Vm> list;
+
+		/** The number of vms of the list indexed so far. */
+		private int indexed;
+
+		Vm get(List<? extends Vm> list, int vmId) {
+			if (list != this.list || list.size() < indexed) {
+				vms.clear();
+				this.list = list;
+				indexed = 0;
+			}
+			for (; indexed < list.size(); indexed++) {
+				Vm vm = list.get(indexed);
+				vms.putIfAbsent(vm.getId(), vm);
+			}
+			return vms.get(vmId);
+		}
+	}
+
 }
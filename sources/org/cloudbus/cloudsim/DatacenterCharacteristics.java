@@ -8,11 +8,13 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.Serializable;
 import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.lists.HostList;
 import org.cloudbus.cloudsim.lists.PeList;
+import org.cloudbus.cloudsim.util.IdMap;
 
 /**
  * DatacenterCharacteristics represents static properties of a resource such as resource
@@ -25,7 +27,10 @@ import org.cloudbus.cloudsim.lists.PeList;
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 1.0
  */
-public class DatacenterCharacteristics {
+public class DatacenterCharacteristics implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
 
 	/** The resource id -- setup when Resource is created. */
 	private int id;
@@ -39,6 +44,12 @@ public class DatacenterCharacteristics {
 	/** The host list. */
 	private List<? extends Host> hostList;
 
+	/** The hosts of the host list by id, built on the first lookup. */
+	private IdMap<Host> hostsById;
+
+	/** The size of the host list when the hosts were indexed. */
+	private int hostsIndexed;
+
 	/** The time zone -- difference from GMT. */
 	private double timeZone;
 
@@ -193,7 +204,27 @@ public class DatacenterCharacteristics {
 			return -1;
 		}
 
-		return PeList.getMips(HostList.getById(getHostList(), id).getPeList(), peId);
+		return PeList.getMips(getHostById(id).getPeList(), peId);
+	}
+
+	/**
+	 * Gets a host by id. Like {@link HostList#getById(List, int)}, the first host with the id is
+	 * returned; the hosts are indexed again when the size of the host list changes.
+	 * 
+	 * @param <T> the generic type
+	 * @param id the host id
+	 * @return the host, or <tt>null</tt> if there is none with this id
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Host> T getHostById(int id) {
+		if (hostsById == null || hostsIndexed != getHostList().size()) {
+			hostsById = new IdMap<Host>();
+			for (Host host : getHostList()) {
+				hostsById.putIfAbsent(host.getId(), host);
+			}
+			hostsIndexed = getHostList().size();
+		}
+		return (T) hostsById.get(id);
 	}
 
 	/**
@@ -502,6 +533,7 @@ public class DatacenterCharacteristics {
 	 */
 	protected <T extends Host> void setHostList(List<T> hostList) {
 		this.hostList = hostList;
+		hostsById = null;
 	}
 
 	/**
@@ -39,6 +39,9 @@ import org.cloudbus.cloudsim.core.CloudSimTags;
  */
 public class InfoPacket implements Packet {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** The packet name. */
 	private final String name;
 
@@ -26,6 +26,9 @@ public class Log {
 	/** The output. */
 	private static OutputStream output;
 
+	/** The output of the calling thread, if it has its own. */
+	private static final ThreadLocal<OutputStream> threadOutput = new ThreadLocal<OutputStream>();
+
 	/** The disable output flag. */
 	private static boolean disabled;
 
@@ -120,17 +123,46 @@ public class Log {
 	}
 
 	/**
-	 * Gets the output.
+	 * Gets the output: the output of the calling thread if it has its own, the shared output
+	 * otherwise.
 	 * 
 	 * @return the output
 	 */
 	public static OutputStream getOutput() {
+		OutputStream local = threadOutput.get();
+		if (local != null) {
+			return local;
+		}
 		if (output == null) {
 			setOutput(System.out);
 		}
 		return output;
 	}
 
+	/**
+	 * Sets the output of the calling thread, which replaces the shared output for the messages
+	 * printed by this thread. A parallel simulation uses it to put the messages of its threads in
+	 * order.
+	 * 
+	 * @param _output the output of the thread, or <tt>null</tt> to go back to the shared output
+	 */
+	public static void setThreadOutput(OutputStream _output) {
+		if (_output == null) {
+			threadOutput.remove();
+		} else {
+			threadOutput.set(_output);
+		}
+	}
+
+	/**
+	 * Gets the output of the calling thread.
+	 * 
+	 * @return the output of the thread, or <tt>null</tt> if it uses the shared output
+	 */
+	public static OutputStream getThreadOutput() {
+		return threadOutput.get();
+	}
+
 	/**
 	 * Sets the disable output flag.
 	 * 
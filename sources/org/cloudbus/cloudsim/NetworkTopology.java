@@ -9,10 +9,13 @@
 package org.cloudbus.cloudsim;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.cloudbus.cloudsim.network.DelayMatrix_Float;
 import org.cloudbus.cloudsim.network.GraphReaderBrite;
 import org.cloudbus.cloudsim.network.TopologicalGraph;
@@ -29,6 +32,8 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  * Nevertheless, each CloudSim entity must be mapped to one (and only one) BRITE node to allow
  * proper work of the network simulation. Each BRITE node can be mapped to only one entity at a
  * time.
+ * <p>
+ * The topology is kept per simulation context, see {@link SimulationContext}.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -36,17 +41,44 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  */
 public class NetworkTopology {
 
-	protected static int nextIdx = 0;
+	/** The name of the simulation context attribute holding the topology. */
+	private static final String TOPOLOGY_ATTRIBUTE = NetworkTopology.class.getName();
+
+	/**
+	 * The network topology of a simulation context.
+	 */
+	protected static class Topology implements Serializable {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
 
-	private static boolean networkEnabled = false;
+		protected int nextIdx = 0;
 
-	protected static DelayMatrix_Float delayMatrix = null;
+		protected boolean networkEnabled = false;
 
-	protected static double[][] bwMatrix = null;
+		protected DelayMatrix_Float delayMatrix = null;
 
-	protected static TopologicalGraph graph = null;
+		protected double[][] bwMatrix = null;
 
-	protected static Map<Integer, Integer> map = null;
+		protected TopologicalGraph graph = null;
+
+		protected Map<Integer, Integer> map = null;
+	}
+
+	/**
+	 * Gets the network topology of the current simulation context, creating an empty one if needed.
+	 * 
+	 * @return the network topology
+	 */
+	protected static Topology getTopology() {
+		SimulationContext context = CloudSim.getContext();
+		Topology topology = (Topology) context.getAttribute(TOPOLOGY_ATTRIBUTE);
+		if (topology == null) {
+			topology = new Topology();
+			context.setAttribute(TOPOLOGY_ATTRIBUTE, topology);
+		}
+		return topology;
+	}
 
 	/**
 	 * Creates the network topology if file exists and if file can be succesfully parsed. File is
@@ -61,11 +93,12 @@ public class NetworkTopology {
 
 		// try to find the file
 		GraphReaderBrite reader = new GraphReaderBrite();
+		Topology topology = getTopology();
 
 		try {
-			graph = reader.readGraphFile(fileName);
-			map = new HashMap<Integer, Integer>();
-			generateMatrices();
+			topology.graph = reader.readGraphFile(fileName);
+			topology.map = new HashMap<Integer, Integer>();
+			generateMatrices(topology);
 		} catch (IOException e) {
 			// problem with the file. Does not simulate network
 			Log.printLine("Problem in processing BRITE file. Network simulation is disabled. Error: "
@@ -76,15 +109,17 @@ public class NetworkTopology {
 
 	/**
 	 * Generates the matrices used internally to set latency and bandwidth between elements
+	 * 
+	 * @param topology the network topology
 	 */
-	private static void generateMatrices() {
+	private static void generateMatrices(Topology topology) {
 		// creates the delay matrix
-		delayMatrix = new DelayMatrix_Float(graph, false);
+		topology.delayMatrix = new DelayMatrix_Float(topology.graph, false);
 
 		// creates the bw matrix
-		bwMatrix = createBwMatrix(graph, false);
+		topology.bwMatrix = createBwMatrix(topology.graph, false);
 
-		networkEnabled = true;
+		topology.networkEnabled = true;
 	}
 
 	/**
@@ -99,32 +134,35 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void addLink(int srcId, int destId, double bw, double lat) {
+		Topology topology = getTopology();
 
-		if (graph == null) {
-			graph = new TopologicalGraph();
+		if (topology.graph == null) {
+			topology.graph = new TopologicalGraph();
 		}
 
-		if (map == null) {
-			map = new HashMap<Integer, Integer>();
+		if (topology.map == null) {
+			topology.map = new HashMap<Integer, Integer>();
 		}
 
+		Map<Integer, Integer> map = topology.map;
+
 		// maybe add the nodes
 		if (!map.containsKey(srcId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(srcId, nextIdx);
-			nextIdx++;
+			topology.graph.addNode(new TopologicalNode(topology.nextIdx));
+			map.put(srcId, topology.nextIdx);
+			topology.nextIdx++;
 		}
 
 		if (!map.containsKey(destId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(destId, nextIdx);
-			nextIdx++;
+			topology.graph.addNode(new TopologicalNode(topology.nextIdx));
+			map.put(destId, topology.nextIdx);
+			topology.nextIdx++;
 		}
 
 		// generate a new link
-		graph.addLink(new TopologicalLink(map.get(srcId), map.get(destId), (float) lat, (float) bw));
+		topology.graph.addLink(new TopologicalLink(map.get(srcId), map.get(destId), (float) lat, (float) bw));
 
-		generateMatrices();
+		generateMatrices(topology);
 
 	}
 
@@ -171,7 +209,9 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void mapNode(int cloudSimEntityID, int briteID) {
-		if (networkEnabled) {
+		Topology topology = getTopology();
+		if (topology.networkEnabled) {
+			Map<Integer, Integer> map = topology.map;
 			try {
 				// this CloudSim entity was already mapped?
 				if (!map.containsKey(cloudSimEntityID)) {
@@ -199,9 +239,10 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void unmapNode(int cloudSimEntityID) {
-		if (networkEnabled) {
+		Topology topology = getTopology();
+		if (topology.networkEnabled) {
 			try {
-				map.remove(cloudSimEntityID);
+				topology.map.remove(cloudSimEntityID);
 			} catch (Exception e) {
 				Log.printLine("Error in network unmapping. CloudSim node: " + cloudSimEntityID);
 			}
@@ -219,10 +260,11 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static double getDelay(int srcID, int destID) {
-		if (networkEnabled) {
+		Topology topology = getTopology();
+		if (topology.networkEnabled) {
 			try {
 				// add the network latency
-				double delay = delayMatrix.getDelay(map.get(srcID), map.get(destID));
+				double delay = topology.delayMatrix.getDelay(topology.map.get(srcID), topology.map.get(destID));
 
 				return delay;
 			} catch (Exception e) {
@@ -232,6 +274,17 @@ public class NetworkTopology {
 		return 0.0;
 	}
 
+	/**
+	 * Checks whether a CloudSim entity is mapped to a node of the network topology.
+	 * 
+	 * @param cloudSimEntityID ID of the entity
+	 * @return $true if the network simulation is working and the entity is mapped
+	 */
+	public static boolean isMapped(int cloudSimEntityID) {
+		Topology topology = getTopology();
+		return topology.networkEnabled && topology.map != null && topology.map.containsKey(cloudSimEntityID);
+	}
+
 	/**
 	 * This method returns true if network simulation is working. If there were some problem during
 	 * creation of network (e.g., during parsing of BRITE file) that does not allow a proper
@@ -242,7 +295,7 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static boolean isNetworkEnabled() {
-		return networkEnabled;
+		return getTopology().networkEnabled;
 	}
 
 }
@@ -8,16 +8,23 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 
 /**
  * VmAllocationPolicySimple is an VmAllocationPolicy that chooses, as the host for a VM, the host
  * with less PEs in use.
+ * <p>
+ * The free PEs of the hosts are kept in a tournament tree, so the host with the most free PEs, the
+ * first one in the host list on a tie, is found in logarithmic time in the number of hosts. The
+ * tree follows every change made to the list returned by {@link #getFreePes()}.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -25,6 +32,9 @@ import org.cloudbus.cloudsim.core.CloudSim;
  */
 public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** The vm table. */
 	private Map<String, Host> vmTable;
 
@@ -32,7 +42,16 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	private Map<String, Integer> usedPes;
 
 	/** The free pes. */
-	private List<Integer> freePes;
+	private FreePesList freePes;
+
+	/** The tournament tree: each node holds the best host position of its leaves, or -1. */
+	private int[] tree;
+
+	/** The number of leaves of the tree, a power of two. */
+	private int leaves;
+
+	/** Whether each host is left out of the current search, having refused the VM. */
+	private boolean[] skipped;
 
 	/**
 	 * Creates the new VmAllocationPolicySimple object.
@@ -44,11 +63,11 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	public VmAllocationPolicySimple(List<? extends Host> list) {
 		super(list);
 
-		setFreePes(new ArrayList<Integer>());
+		List<Integer> freePes = new ArrayList<Integer>();
 		for (Host host : getHostList()) {
-			getFreePes().add(host.getNumberOfPes());
-
+			freePes.add(host.getNumberOfPes());
 		}
+		setFreePes(freePes);
 
 		setVmTable(new HashMap<String, Host>());
 		setUsedPes(new HashMap<String, Integer>());
@@ -66,25 +85,16 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	public boolean allocateHostForVm(Vm vm) {
 		int requiredPes = vm.getNumberOfPes();
 		boolean result = false;
-		int tries = 0;
-		List<Integer> freePesTmp = new ArrayList<Integer>();
-		for (Integer freePes : getFreePes()) {
-			freePesTmp.add(freePes);
-		}
 
 		if (!getVmTable().containsKey(vm.getUid())) { // if this vm was not created
-			do {// we still trying until we find a host or until we try all of them
-				int moreFree = Integer.MIN_VALUE;
-				int idx = -1;
-
+			List<Integer> tried = new ArrayList<Integer>();
+			// we still trying until we find a host or until we try all of them
+			while (true) {
 				// we want the host with less pes in use
-				for (int i = 0; i < freePesTmp.size(); i++) {
-					if (freePesTmp.get(i) > moreFree) {
-						moreFree = freePesTmp.get(i);
-						idx = i;
-					}
+				int idx = tree[1];
+				if (idx < 0 || skipped[idx]) {
+					break;
 				}
-
 				Host host = getHostList().get(idx);
 				result = host.vmCreate(vm);
 
@@ -92,14 +102,16 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 					getVmTable().put(vm.getUid(), host);
 					getUsedPes().put(vm.getUid(), requiredPes);
 					getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
-					result = true;
 					break;
-				} else {
-					freePesTmp.set(idx, Integer.MIN_VALUE);
 				}
-				tries++;
-			} while (!result && tries < getFreePes().size());
-
+				tried.add(idx);
+				skipped[idx] = true;
+				update(idx);
+			}
+			for (int idx : tried) {
+				skipped[idx] = false;
+				update(idx);
+			}
 		}
 
 		return result;
@@ -196,12 +208,56 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	}
 
 	/**
-	 * Sets the free pes.
+	 * Sets the free pes. The values are copied, and the placement tree is built again.
 	 * 
 	 * @param freePes the new free pes
 	 */
 	protected void setFreePes(List<Integer> freePes) {
-		this.freePes = freePes;
+		this.freePes = new FreePesList(freePes);
+		int hosts = freePes.size();
+		skipped = new boolean[hosts];
+		int size = 1;
+		while (size < hosts) {
+			size <<= 1;
+		}
+		leaves = size;
+		tree = new int[2 * size];
+		for (int i = 0; i < size; i++) {
+			tree[size + i] = i < hosts ? i : -1;
+		}
+		for (int node = size - 1; node > 0; node--) {
+			tree[node] = best(tree[2 * node], tree[2 * node + 1]);
+		}
+	}
+
+	/**
+	 * Updates the path of a host to the root of the placement tree.
+	 * 
+	 * @param idx the position of the host
+	 */
+	private void update(int idx) {
+		for (int node = (leaves + idx) >> 1; node > 0; node >>= 1) {
+			tree[node] = best(tree[2 * node], tree[2 * node + 1]);
+		}
+	}
+
+	/**
+	 * Gets the host with the most free PEs of two, the first one on a tie, leaving out the hosts
+	 * skipped by the current search.
+	 */
+	private int best(int a, int b) {
+		if (a < 0 || skipped[a]) {
+			return b < 0 || skipped[b] ? -1 : b;
+		}
+		if (b < 0 || skipped[b]) {
+			return a;
+		}
+		int freeA = freePes.values[a];
+		int freeB = freePes.values[b];
+		if (freeA != freeB) {
+			return freeA > freeB ? a : b;
+		}
+		return Math.min(a, b);
 	}
 
 	/*
@@ -237,4 +293,41 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
 		return false;
 	}
+
+	/**
+	 * The free pes of the hosts, which updates the placement tree when a value is set.
+	 */
+	private class FreePesList extends AbstractList<Integer> implements RandomAccess, Serializable {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+		/** The free pes of each host. */
+		private final int[] values;
+
+		FreePesList(List<Integer> list) {
+			values = new int[list.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = list.get(i);
+			}
+		}
+
+		@Override
+		public Integer get(int index) {
+			return values[index];
+		}
+
+		@Override
+		public Integer set(int index, Integer element) {
+			int previous = values[index];
+			values[index] = element;
+			update(index);
+			return previous;
+		}
+
+		@Override
+		public int size() {
+			return values.length;
+		}
+	}
 }
@@ -0,0 +1,572 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements the future event queue as a calendar queue (R. Brown, "Calendar queues: a
+ * fast O(1) priority queue implementation for the simulation event set problem", CACM 1988). The
+ * time axis is divided into "days" of a fixed width and the days are mapped round-robin onto an
+ * array of buckets, each bucket keeping its events in a sorted linked list. Insertion and removal of
+ * the first event take O(1) amortized time as long as the events are spread over the calendar. The
+ * number of buckets and the day width are re-estimated whenever the queue doubles or halves.
+ * <p>
+ * Inside a bucket the events are sorted with {@link SimEvent#compareTo(SimEvent)}, so events at the
+ * same time keep the (time, serial) FIFO order of {@link FutureQueue}, and the events added with
+ * {@link #addEventFirst(SimEvent)} still come first.
+ * <p>
+ * The iterator of this queue does <b>not</b> return the events in time order.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureEventQueue
+ * @see SimEvent
+ */
+public class CalendarFutureQueue implements FutureEventQueue {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The minimum number of buckets of the calendar. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The number of events sampled when estimating the day width. */
+	private static final int SAMPLE_SIZE = 25;
+
+	/** The first event of each bucket; the buckets are serialized as sequences of events. */
+	private transient SimEvent[] heads;
+
+	/** The last event of each bucket. */
+	private transient SimEvent[] tails;
+
+	/** The mask mapping a day onto a bucket; the number of buckets is a power of two. */
+	private int mask;
+
+	/** The width of a day. */
+	private double width;
+
+	/** The day being currently scanned. */
+	private long currentDay;
+
+	/** The time of the last event removed from the head of the queue. */
+	private double lastTime;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/** Whether the calendar is being rebuilt. */
+	private boolean resizing;
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** The serial of the next event added to the head of the queue, below all the others. */
+	private long firstSerial = Long.MIN_VALUE;
+
+	/**
+	 * Creates a new calendar future queue with a day width of 1.0.
+	 */
+	public CalendarFutureQueue() {
+		this(1.0);
+	}
+
+	/**
+	 * Creates a new calendar future queue.
+	 *
+	 * @param width the initial width of a day; it is adjusted when the calendar is resized
+	 * @pre width > 0
+	 */
+	public CalendarFutureQueue(double width) {
+		if (!(width > 0) || Double.isInfinite(width)) {
+			throw new IllegalArgumentException("The day width should be positive, but is:" + width);
+		}
+		this.width = width;
+		allocate(MIN_BUCKETS);
+	}
+
+	/**
+	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+		growIfNeeded();
+	}
+
+	/**
+	 * Add a new event to the head of the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(firstSerial++);
+		insert(newEvent);
+		growIfNeeded();
+	}
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	@Override
+	public SimEvent first() {
+		if (size == 0) {
+			return null;
+		}
+		return heads[locateFirst()];
+	}
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	@Override
+	public SimEvent pollFirst() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = takeFirst();
+		shrinkIfNeeded();
+		return first;
+	}
+
+	/**
+	 * Removes the first event of the queue and every following event scheduled at the same time,
+	 * appending them to the given list in queue order.
+	 *
+	 * @param batch the list that receives the removed events
+	 * @return the number of events removed
+	 */
+	@Override
+	public int pollFirstBatch(List<SimEvent> batch) {
+		if (size == 0) {
+			return 0;
+		}
+		SimEvent first = takeFirst();
+		batch.add(first);
+		int count = 1;
+
+		// events at the same time share the bucket of the first one
+		int bucket = (int) (currentDay & mask);
+		while (heads[bucket] != null && heads[bucket].eventTime() == first.eventTime()) {
+			batch.add(unlinkHead(bucket));
+			count++;
+		}
+		shrinkIfNeeded();
+		return count;
+	}
+
+	/**
+	 * Returns an iterator to the queue. The events are returned bucket by bucket, not in time order,
+	 * and the iterator does not support removal.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+
+			private int bucket = -1;
+
+			private SimEvent next = advance(null);
+
+			private SimEvent advance(SimEvent current) {
+				SimEvent candidate = current == null ? null : current.getQueueNext();
+				while (candidate == null && bucket < heads.length - 1) {
+					bucket++;
+					candidate = heads[bucket];
+				}
+				return candidate;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				SimEvent current = next;
+				next = advance(current);
+				return current;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Use CalendarFutureQueue.remove(SimEvent) instead.");
+			}
+		};
+	}
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes the event from the queue. Only the bucket of the event is scanned.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	@Override
+	public boolean remove(SimEvent event) {
+		int bucket = event.getQueueIndex();
+		if (bucket < 0 || bucket >= heads.length) {
+			return false;
+		}
+		SimEvent previous = null;
+		SimEvent current = heads[bucket];
+		while (current != null && current != event) {
+			previous = current;
+			current = current.getQueueNext();
+		}
+		if (current == null) {
+			return false;
+		}
+
+		if (previous == null) {
+			heads[bucket] = event.getQueueNext();
+		} else {
+			previous.setQueueNext(event.getQueueNext());
+		}
+		if (tails[bucket] == event) {
+			tails[bucket] = previous;
+		}
+		detach(event);
+		size--;
+		shrinkIfNeeded();
+		return true;
+	}
+
+	/**
+	 * Removes all the events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	/**
+	 * Clears the queue.
+	 */
+	@Override
+	public void clear() {
+		for (int i = 0; i < heads.length; i++) {
+			SimEvent event = heads[i];
+			while (event != null) {
+				SimEvent next = event.getQueueNext();
+				detach(event);
+				event = next;
+			}
+		}
+		allocate(MIN_BUCKETS);
+		size = 0;
+		currentDay = 0;
+		lastTime = 0;
+	}
+
+	/**
+	 * Gets the current width of a day of the calendar.
+	 *
+	 * @return the day width
+	 */
+	public double getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the current number of buckets of the calendar.
+	 *
+	 * @return the number of buckets
+	 */
+	public int getNumberOfBuckets() {
+		return heads.length;
+	}
+
+	/**
+	 * Inserts an event in the sorted list of its bucket, without changing its serial.
+	 *
+	 * @param event the event
+	 */
+	private void insert(SimEvent event) {
+		long day = dayOf(event.eventTime());
+		int bucket = (int) (day & mask);
+		SimEvent tail = tails[bucket];
+
+		if (tail == null) {
+			heads[bucket] = event;
+			tails[bucket] = event;
+			event.setQueueNext(null);
+		} else if (tail.compareTo(event) < 0) {
+			// the common case: the new event is the last one of its day
+			tail.setQueueNext(event);
+			tails[bucket] = event;
+			event.setQueueNext(null);
+		} else {
+			SimEvent previous = null;
+			SimEvent current = heads[bucket];
+			while (current.compareTo(event) < 0) {
+				previous = current;
+				current = current.getQueueNext();
+			}
+			event.setQueueNext(current);
+			if (previous == null) {
+				heads[bucket] = event;
+			} else {
+				previous.setQueueNext(event);
+			}
+		}
+		event.setQueueIndex(bucket);
+		size++;
+
+		if (day < currentDay) {
+			currentDay = day;
+		}
+	}
+
+	/**
+	 * Finds the bucket holding the first event and moves the current day to the day of that event.
+	 *
+	 * @return the bucket holding the first event
+	 * @pre size > 0
+	 */
+	private int locateFirst() {
+		for (int i = 0; i < heads.length; i++) {
+			int bucket = (int) (currentDay & mask);
+			SimEvent head = heads[bucket];
+			if (head != null && dayOf(head.eventTime()) <= currentDay) {
+				return bucket;
+			}
+			currentDay++;
+		}
+
+		// a whole year without events: direct search for the earliest bucket head
+		int firstBucket = -1;
+		for (int bucket = 0; bucket < heads.length; bucket++) {
+			SimEvent head = heads[bucket];
+			if (head != null && (firstBucket < 0 || head.compareTo(heads[firstBucket]) < 0)) {
+				firstBucket = bucket;
+			}
+		}
+		currentDay = dayOf(heads[firstBucket].eventTime());
+		return firstBucket;
+	}
+
+	/**
+	 * Removes the first event of the queue without resizing the calendar.
+	 *
+	 * @return the first event
+	 * @pre size > 0
+	 */
+	private SimEvent takeFirst() {
+		return unlinkHead(locateFirst());
+	}
+
+	/**
+	 * Removes the first event of a bucket.
+	 *
+	 * @param bucket the bucket
+	 * @return the removed event
+	 */
+	private SimEvent unlinkHead(int bucket) {
+		SimEvent head = heads[bucket];
+		heads[bucket] = head.getQueueNext();
+		if (heads[bucket] == null) {
+			tails[bucket] = null;
+		}
+		detach(head);
+		size--;
+		lastTime = head.eventTime();
+		return head;
+	}
+
+	/**
+	 * Clears the queue links of an event that left the queue.
+	 *
+	 * @param event the event
+	 */
+	private static void detach(SimEvent event) {
+		event.setQueueNext(null);
+		event.setQueueIndex(-1);
+	}
+
+	/**
+	 * Gets the day of a given time.
+	 *
+	 * @param time the time
+	 * @return the day
+	 */
+	private long dayOf(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	/**
+	 * Allocates empty buckets.
+	 *
+	 * @param buckets the number of buckets, a power of two
+	 */
+	private void allocate(int buckets) {
+		heads = new SimEvent[buckets];
+		tails = new SimEvent[buckets];
+		mask = buckets - 1;
+	}
+
+	/**
+	 * Doubles the number of buckets when there are more than two events per bucket.
+	 */
+	private void growIfNeeded() {
+		if (!resizing && size > 2 * heads.length && heads.length < (1 << 30)) {
+			resize(heads.length * 2);
+		}
+	}
+
+	/**
+	 * Halves the number of buckets when there is less than one event for two buckets.
+	 */
+	private void shrinkIfNeeded() {
+		if (!resizing && heads.length > MIN_BUCKETS && size < heads.length / 2) {
+			resize(heads.length / 2);
+		}
+	}
+
+	/**
+	 * Rebuilds the calendar with a new number of buckets and a new day width.
+	 *
+	 * @param buckets the new number of buckets
+	 */
+	private void resize(int buckets) {
+		resizing = true;
+		width = estimateWidth();
+
+		SimEvent[] oldHeads = heads;
+		allocate(buckets);
+		size = 0;
+		currentDay = dayOf(lastTime);
+		for (SimEvent head : oldHeads) {
+			SimEvent event = head;
+			while (event != null) {
+				SimEvent next = event.getQueueNext();
+				insert(event);
+				event = next;
+			}
+		}
+		resizing = false;
+	}
+
+	/**
+	 * Estimates the day width as three times the average separation between the first events of the
+	 * queue, ignoring events at the same time and separations larger than twice the average.
+	 *
+	 * @return the new day width
+	 */
+	private double estimateWidth() {
+		int samples = Math.min(size, SAMPLE_SIZE);
+		if (samples < 2) {
+			return width;
+		}
+
+		double savedTime = lastTime;
+		long savedDay = currentDay;
+		SimEvent[] sample = new SimEvent[samples];
+		for (int i = 0; i < samples; i++) {
+			sample[i] = takeFirst();
+		}
+		for (int i = 0; i < samples; i++) {
+			insert(sample[i]);
+		}
+		lastTime = savedTime;
+		currentDay = Math.min(currentDay, savedDay);
+
+		double total = 0;
+		int count = 0;
+		for (int i = 1; i < samples; i++) {
+			double separation = sample[i].eventTime() - sample[i - 1].eventTime();
+			if (separation > 0) {
+				total += separation;
+				count++;
+			}
+		}
+		if (count == 0) {
+			return width;
+		}
+
+		double average = total / count;
+		total = 0;
+		count = 0;
+		for (int i = 1; i < samples; i++) {
+			double separation = sample[i].eventTime() - sample[i - 1].eventTime();
+			if (separation > 0 && separation <= 2 * average) {
+				total += separation;
+				count++;
+			}
+		}
+		double newWidth = 3 * total / count;
+		if (!(newWidth > 0) || Double.isInfinite(newWidth)) {
+			return width;
+		}
+		return newWidth;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(heads.length);
+		for (SimEvent head : heads) {
+			for (SimEvent event = head; event != null; event = event.getQueueNext()) {
+				out.writeObject(event);
+			}
+			out.writeObject(null);
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		allocate(in.readInt());
+		for (int bucket = 0; bucket < heads.length; bucket++) {
+			for (SimEvent event = (SimEvent) in.readObject(); event != null; event = (SimEvent) in
+					.readObject()) {
+				if (tails[bucket] == null) {
+					heads[bucket] = event;
+				} else {
+					tails[bucket].setQueueNext(event);
+				}
+				tails[bucket] = event;
+			}
+		}
+	}
+
+}
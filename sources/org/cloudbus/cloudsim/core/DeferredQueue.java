@@ -8,81 +8,447 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
- * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
- * linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link Simulation}. The events are stored
+ * in one mailbox per destination entity, indexed by the entity id, so that an entity looking for its
+ * next event only goes through its own events. Each mailbox keeps its events in time order, and also
+ * threads the events of each tag in a list of their own, so that a {@link PredicateType} only looks at
+ * the heads of the lists of its tags.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
  * @see SimEvent
  */
-public class DeferredQueue {
+public class DeferredQueue implements Serializable {
 
-	/** The list. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
 
-	/** The max time. */
-	private double maxTime = -1;
+	/** The mailboxes, indexed by destination entity id. */
+	private final List<Mailbox> mailboxes = new ArrayList<Mailbox>();
+
+	/** The number of events in all the mailboxes. */
+	private int size;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
-		// The event has to be inserted as the last of all events
-		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
+		int dest = newEvent.getDestination();
+		while (mailboxes.size() <= dest) {
+			mailboxes.add(null);
+		}
+		Mailbox mailbox = mailboxes.get(dest);
+		if (mailbox == null) {
+			mailbox = new Mailbox();
+			mailboxes.set(dest, mailbox);
 		}
+		mailbox.addEvent(newEvent);
+		size++;
+	}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
-			}
+	/**
+	 * Finds the first event of an entity matching a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the first matching event, or <tt>null</tt> if none matches
+	 */
+	public SimEvent first(int dest, Predicate p) {
+		Mailbox mailbox = getMailbox(dest);
+		if (mailbox == null) {
+			return null;
 		}
+		Node node = mailbox.find(p);
+		return node == null ? null : node.event;
+	}
 
-		list.add(newEvent);
+	/**
+	 * Removes the first event of an entity matching a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the removed event, or <tt>null</tt> if none matches
+	 */
+	public SimEvent poll(int dest, Predicate p) {
+		Mailbox mailbox = getMailbox(dest);
+		if (mailbox == null) {
+			return null;
+		}
+		Node node = mailbox.find(p);
+		if (node == null) {
+			return null;
+		}
+		mailbox.remove(node);
+		size--;
+		return node.event;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Counts the events of an entity matching a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int dest, Predicate p) {
+		Mailbox mailbox = getMailbox(dest);
+		if (mailbox == null) {
+			return 0;
+		}
+		return mailbox.count(p);
+	}
+
+	/**
+	 * Returns an iterator to the events in the queue. The events are returned mailbox by mailbox,
+	 * in increasing order of destination id.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		return new Iterator<SimEvent>() {
+
+			private int dest = 0;
+
+			private Node next;
+
+			private Node last;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null) {
+					if (dest >= mailboxes.size()) {
+						return false;
+					}
+					Mailbox mailbox = mailboxes.get(dest++);
+					next = mailbox == null ? null : mailbox.head;
+				}
+				return true;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = next;
+				next = next.next;
+				return last.event;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				mailboxes.get(last.event.getDestination()).remove(last);
+				last = null;
+				size--;
+			}
+		};
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		mailboxes.clear();
+		size = 0;
+	}
+
+	/**
+	 * Gets the mailbox of an entity.
+	 *
+	 * @param dest the id of the destination entity
+	 * @return the mailbox, or <tt>null</tt> if the entity never had deferred events
+	 */
+	private Mailbox getMailbox(int dest) {
+		if (dest < 0 || dest >= mailboxes.size()) {
+			return null;
+		}
+		return mailboxes.get(dest);
+	}
+
+	/**
+	 * A deferred event, linked to the events before and after it in its mailbox and among the
+	 * events of its tag.
+	 */
+	private static class Node {
+
+		private final SimEvent event;
+
+		/** The arrival number of the event in its mailbox, which orders events of the same time. */
+		private final long serial;
+
+		private Node previous;
+
+		private Node next;
+
+		private Node previousOfTag;
+
+		private Node nextOfTag;
+
+		private Node(SimEvent event, long serial) {
+			this.event = event;
+			this.serial = serial;
+		}
+
+		/**
+		 * Whether this event comes before another one of the same mailbox.
+		 */
+		private boolean isBefore(Node other) {
+			double time = event.eventTime();
+			double otherTime = other.event.eventTime();
+			return time < otherTime || time == otherTime && serial < other.serial;
+		}
+	}
+
+	/**
+	 * The events of one tag in a mailbox.
+	 */
+	private static class TagList {
+
+		private Node head;
+
+		private Node tail;
+
+		private int size;
+	}
+
+	/**
+	 * The deferred events of a single entity. An event is placed as the last of all events with the
+	 * same time, so the events are ordered by time and then by arrival.
+	 */
+	private static class Mailbox implements Serializable {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+		private transient Node head;
+
+		private transient Node tail;
+
+		private transient int size;
+
+		/** The events of each tag. */
+		private transient Map<Integer, TagList> tags;
+
+		/** The arrival number of the next event. */
+		private transient long nextSerial;
+
+		private Mailbox() {
+			tags = new HashMap<Integer, TagList>();
+		}
+
+		/**
+		 * Adds a new event as the last of all events with the same time.
+		 *
+		 * @param newEvent the event
+		 */
+		private void addEvent(SimEvent newEvent) {
+			Node node = new Node(newEvent, nextSerial++);
+
+			// The event has to be inserted as the last of all events
+			// with the same event_time(). Yes, this matters.
+			Node previous = tail;
+			while (previous != null && node.isBefore(previous)) {
+				previous = previous.previous;
+			}
+			node.previous = previous;
+			node.next = previous == null ? head : previous.next;
+			if (node.previous == null) {
+				head = node;
+			} else {
+				node.previous.next = node;
+			}
+			if (node.next == null) {
+				tail = node;
+			} else {
+				node.next.previous = node;
+			}
+			size++;
+
+			TagList list = tags.get(newEvent.getTag());
+			if (list == null) {
+				list = new TagList();
+				tags.put(newEvent.getTag(), list);
+			}
+			previous = list.tail;
+			while (previous != null && node.isBefore(previous)) {
+				previous = previous.previousOfTag;
+			}
+			node.previousOfTag = previous;
+			node.nextOfTag = previous == null ? list.head : previous.nextOfTag;
+			if (node.previousOfTag == null) {
+				list.head = node;
+			} else {
+				node.previousOfTag.nextOfTag = node;
+			}
+			if (node.nextOfTag == null) {
+				list.tail = node;
+			} else {
+				node.nextOfTag.previousOfTag = node;
+			}
+			list.size++;
+		}
+
+		/**
+		 * Removes an event of this mailbox.
+		 *
+		 * @param node the event
+		 */
+		private void remove(Node node) {
+			if (node.previous == null) {
+				head = node.next;
+			} else {
+				node.previous.next = node.next;
+			}
+			if (node.next == null) {
+				tail = node.previous;
+			} else {
+				node.next.previous = node.previous;
+			}
+			size--;
+
+			TagList list = tags.get(node.event.getTag());
+			if (node.previousOfTag == null) {
+				list.head = node.nextOfTag;
+			} else {
+				node.previousOfTag.nextOfTag = node.nextOfTag;
+			}
+			if (node.nextOfTag == null) {
+				list.tail = node.previousOfTag;
+			} else {
+				node.nextOfTag.previousOfTag = node.previousOfTag;
+			}
+			if (--list.size == 0) {
+				tags.remove(node.event.getTag());
+			}
+		}
+
+		/**
+		 * Finds the first event matching a predicate. A {@link PredicateType} only compares the first
+		 * events of its tags.
+		 *
+		 * @param p the predicate
+		 * @return the event, or <tt>null</tt> if none matches
+		 */
+		private Node find(Predicate p) {
+			if (head == null || p instanceof PredicateNone) {
+				return null;
+			}
+			if (p instanceof PredicateAny) {
+				return head;
+			}
+			if (p instanceof PredicateType) {
+				PredicateType type = (PredicateType) p;
+				Node first = null;
+				for (int i = 0; i < type.getTagCount(); i++) {
+					TagList list = tags.get(type.getTag(i));
+					if (list != null && (first == null || list.head.isBefore(first))) {
+						first = list.head;
+					}
+				}
+				return first;
+			}
+			for (Node node = head; node != null; node = node.next) {
+				if (p.match(node.event)) {
+					return node;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Counts the events matching a predicate. A {@link PredicateType} adds up the sizes of its tags.
+		 *
+		 * @param p the predicate
+		 * @return the number of events
+		 */
+		private int count(Predicate p) {
+			if (p instanceof PredicateNone) {
+				return 0;
+			}
+			if (p instanceof PredicateAny) {
+				return size;
+			}
+			if (p instanceof PredicateType) {
+				PredicateType type = (PredicateType) p;
+				int count = 0;
+				for (int i = 0; i < type.getTagCount(); i++) {
+					TagList list = tags.get(type.getTag(i));
+					if (list != null && !isCounted(type, i)) {
+						count += list.size;
+					}
+				}
+				return count;
+			}
+			int count = 0;
+			for (Node node = head; node != null; node = node.next) {
+				if (p.match(node.event)) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Whether a tag of a predicate is listed before, so that it is counted once.
+		 */
+		private static boolean isCounted(PredicateType type, int index) {
+			for (int i = 0; i < index; i++) {
+				if (type.getTag(i) == type.getTag(index)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void writeObject(ObjectOutputStream out) throws IOException {
+			out.defaultWriteObject();
+			out.writeInt(size);
+			for (Node node = head; node != null; node = node.next) {
+				out.writeObject(node.event);
+			}
+		}
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			in.defaultReadObject();
+			tags = new HashMap<Integer, TagList>();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				addEvent((SimEvent) in.readObject());
+			}
+		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The future event set used by {@link CloudSim}. Implementations must return the events in the order
+ * defined by {@link SimEvent#compareTo(SimEvent)}: by time, and for events at the same time in the
+ * order they were added, except that the events added with {@link #addEventFirst(SimEvent)} come
+ * before the other events at the same time.
+ * <p>
+ * The available implementations are {@link FutureQueue} (the default, backed by a TreeSet),
+ * {@link HeapFutureQueue} and {@link CalendarFutureQueue}. An implementation is selected through
+ * {@link CloudSim#init(int, java.util.Calendar, boolean, FutureEventQueue)}.
+ * <p>
+ * A queue is saved with the rest of the simulation in a checkpoint, see
+ * {@link SimulationContext#checkpointAt(double, java.io.File)}.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see SimEvent
+ */
+public interface FutureEventQueue extends Serializable {
+
+	/**
+	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEvent(SimEvent newEvent);
+
+	/**
+	 * Add a new event to the head of the queue, i.e. before all the queued events at the same time.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent first();
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent pollFirst();
+
+	/**
+	 * Removes the first event of the queue and every following event scheduled at the same time,
+	 * appending them to the given list in queue order.
+	 *
+	 * @param batch the list that receives the removed events
+	 * @return the number of events removed
+	 */
+	int pollFirstBatch(List<SimEvent> batch);
+
+	/**
+	 * Returns an iterator to the queue. Implementations are not required to return the events in
+	 * time order nor to support removal through the iterator.
+	 *
+	 * @return the iterator
+	 */
+	Iterator<SimEvent> iterator();
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	int size();
+
+	/**
+	 * Removes the event from the queue.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	boolean remove(SimEvent event);
+
+	/**
+	 * Removes all the events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	boolean removeAll(Collection<SimEvent> events);
+
+	/**
+	 * Clears the queue.
+	 */
+	void clear();
+
+}
@@ -0,0 +1,336 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements the future event queue as an array-backed indexed d-ary heap. Every queued
+ * event keeps its position in the heap, so an event can be removed in O(log n) by passing the event
+ * itself as the handle. Events are ordered by {@link SimEvent#compareTo(SimEvent)}, i.e. by time
+ * and serial, which gives the same order as the {@link FutureQueue} (including the events added
+ * with {@link #addEventFirst(SimEvent)}).
+ * <p>
+ * The iterator of this queue does <b>not</b> return the events in time order.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureEventQueue
+ * @see SimEvent
+ */
+public class HeapFutureQueue implements FutureEventQueue {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The default number of children of each heap node. */
+	public static final int DEFAULT_ARITY = 4;
+
+	/** The initial capacity of the heap array. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The number of children of each heap node. */
+	private final int arity;
+
+	/** The heap array. */
+	private SimEvent[] heap;
+
+	/** The number of events in the heap. */
+	private int size;
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** The serial of the next event added to the head of the queue, below all the others. */
+	private long firstSerial = Long.MIN_VALUE;
+
+	/**
+	 * Creates a new 4-ary heap future queue.
+	 */
+	public HeapFutureQueue() {
+		this(DEFAULT_ARITY);
+	}
+
+	/**
+	 * Creates a new heap future queue.
+	 *
+	 * @param arity the number of children of each heap node
+	 * @pre arity >= 2
+	 */
+	public HeapFutureQueue(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("The heap arity should be at least 2, but is:" + arity);
+		}
+		this.arity = arity;
+		heap = new SimEvent[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	/**
+	 * Add a new event to the head of the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(firstSerial++);
+		insert(newEvent);
+	}
+
+	/**
+	 * Returns an iterator to the queue. The events are returned in heap order, not in time order,
+	 * and the iterator does not support removal.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+
+			private int cursor = 0;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < size;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (cursor >= size) {
+					throw new NoSuchElementException();
+				}
+				return heap[cursor++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Use HeapFutureQueue.remove(SimEvent) instead.");
+			}
+		};
+	}
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	@Override
+	public SimEvent first() {
+		if (size == 0) {
+			return null;
+		}
+		return heap[0];
+	}
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	@Override
+	public SimEvent pollFirst() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = heap[0];
+		removeAt(0);
+		return first;
+	}
+
+	/**
+	 * Removes the first event of the queue and every following event scheduled at the same time,
+	 * appending them to the given list in queue order.
+	 *
+	 * @param batch the list that receives the removed events
+	 * @return the number of events removed
+	 */
+	@Override
+	public int pollFirstBatch(List<SimEvent> batch) {
+		if (size == 0) {
+			return 0;
+		}
+		double time = heap[0].eventTime();
+		int count = 0;
+		while (size > 0 && heap[0].eventTime() == time) {
+			batch.add(pollFirst());
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Removes the event from the queue in O(log n), using the position kept by the event.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	@Override
+	public boolean remove(SimEvent event) {
+		int index = event.getQueueIndex();
+		if (index < 0 || index >= size || heap[index] != event) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	/**
+	 * Removes all the events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	/**
+	 * Clears the queue.
+	 */
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			heap[i].setQueueIndex(-1);
+			heap[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Inserts an event at the bottom of the heap and restores the heap order.
+	 *
+	 * @param newEvent the event
+	 */
+	private void insert(SimEvent newEvent) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, heap.length * 2);
+		}
+		heap[size] = newEvent;
+		newEvent.setQueueIndex(size);
+		size++;
+		siftUp(size - 1);
+	}
+
+	/**
+	 * Removes the event at the given heap position.
+	 *
+	 * @param index the heap position
+	 */
+	private void removeAt(int index) {
+		SimEvent removed = heap[index];
+		removed.setQueueIndex(-1);
+		size--;
+		if (index == size) {
+			heap[size] = null;
+			return;
+		}
+		SimEvent last = heap[size];
+		heap[size] = null;
+		heap[index] = last;
+		last.setQueueIndex(index);
+		if (index > 0 && before(last, heap[(index - 1) / arity])) {
+			siftUp(index);
+		} else {
+			siftDown(index);
+		}
+	}
+
+	/**
+	 * Moves the event at the given position up until its parent precedes it.
+	 *
+	 * @param index the heap position
+	 */
+	private void siftUp(int index) {
+		SimEvent event = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) / arity;
+			SimEvent parentEvent = heap[parent];
+			if (!before(event, parentEvent)) {
+				break;
+			}
+			heap[index] = parentEvent;
+			parentEvent.setQueueIndex(index);
+			index = parent;
+		}
+		heap[index] = event;
+		event.setQueueIndex(index);
+	}
+
+	/**
+	 * Moves the event at the given position down until it precedes all its children.
+	 *
+	 * @param index the heap position
+	 */
+	private void siftDown(int index) {
+		SimEvent event = heap[index];
+		while (true) {
+			int firstChild = index * arity + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int lastChild = Math.min(firstChild + arity, size);
+			int best = firstChild;
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				if (before(heap[child], heap[best])) {
+					best = child;
+				}
+			}
+			SimEvent bestEvent = heap[best];
+			if (!before(bestEvent, event)) {
+				break;
+			}
+			heap[index] = bestEvent;
+			bestEvent.setQueueIndex(index);
+			index = best;
+		}
+		heap[index] = event;
+		event.setQueueIndex(index);
+	}
+
+	/**
+	 * Checks whether an event has to be processed before another one.
+	 *
+	 * @param a the first event
+	 * @param b the second event
+	 * @return true if <tt>a</tt> precedes <tt>b</tt>
+	 */
+	private static boolean before(SimEvent a, SimEvent b) {
+		return a.compareTo(b) < 0;
+	}
+
+}
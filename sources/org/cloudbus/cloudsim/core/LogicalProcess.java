@@ -0,0 +1,413 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A logical process of a parallel simulation: a part of the entities, run by its own
+ * {@link SimulationContext} during a time window. What a logical process produces in a window and
+ * that has to be seen by the others is kept here until the end of the window, tagged with the
+ * position it would have in a sequential run, i.e. the (time, round, entity id) of the clock tick
+ * phase that produced it, where the round counts the earlier ticks at the same time:
+ * <ul>
+ * <li>the events to put in a future queue: the events sent to another logical process, and the
+ * events sent beyond the end of the window;
+ * <li>the {@link org.cloudbus.cloudsim.Log} output of the entities;
+ * <li>the clock ticks run, for the statistics of the simulation;
+ * <li>the updates of the state shared by the entities of all the logical processes.
+ * </ul>
+ * Within a logical process these items are produced in increasing order of position, so the
+ * output of all the logical processes is merged in sequential order without sorting.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see SimulationContext#setParallelism(int)
+ */
+final class LogicalProcess {
+
+	/** The index of this logical process; the main one is 0. */
+	final int index;
+
+	/** The context running the entities of this logical process. */
+	final SimulationContext context;
+
+	/** The events to be put in a future queue at the end of the window, null when cancelled. */
+	private SimEvent[] outEvents = new SimEvent[64];
+
+	/** Whether each outgoing event was sent to the head of the queue. */
+	private boolean[] outFirst = new boolean[64];
+
+	private double[] outTime = new double[64];
+
+	private int[] outRound = new int[64];
+
+	private int[] outEntity = new int[64];
+
+	private int outSize;
+
+	/** The log output of the window. */
+	private final LogBuffer log = new LogBuffer();
+
+	/** The start of each segment of the log output in the buffer. */
+	private int[] segStart = new int[16];
+
+	private double[] segTime = new double[16];
+
+	private int[] segRound = new int[16];
+
+	private int[] segEntity = new int[16];
+
+	private int segCount;
+
+	/** The clock ticks of the window, with the number of entities run after each of them. */
+	private double[] tickTime = new double[64];
+
+	private int[] tickRound = new int[64];
+
+	private int[] tickRuns = new int[64];
+
+	/** Whether each tick entry stands for a batch of events, or only for the entities run. */
+	private boolean[] tickBatch = new boolean[64];
+
+	private int tickCount;
+
+	/** The updates of the shared state of the window. */
+	private Runnable[] updates = new Runnable[16];
+
+	private double[] updateTime = new double[16];
+
+	private int[] updateRound = new int[16];
+
+	private int[] updateEntity = new int[16];
+
+	private int updateCount;
+
+	/** The wall time spent running the windows, in nanoseconds. */
+	long busyTime;
+
+	/**
+	 * Creates a logical process.
+	 *
+	 * @param index the index of the logical process
+	 * @param parent the context of the simulation
+	 */
+	LogicalProcess(int index, SimulationContext parent) {
+		this.index = index;
+		context = new SimulationContext(parent, this);
+	}
+
+	/**
+	 * Gets the stream the log output of the logical process is written to.
+	 *
+	 * @return the log stream
+	 */
+	OutputStream getLog() {
+		return log;
+	}
+
+	/**
+	 * Drops what has been produced during the previous window.
+	 */
+	void beginWindow() {
+		Arrays.fill(outEvents, 0, outSize, null);
+		outSize = 0;
+		log.reset();
+		segCount = 0;
+		tickCount = 0;
+		Arrays.fill(updates, 0, updateCount, null);
+		updateCount = 0;
+	}
+
+	// ------------------- OUTGOING EVENTS --------------------------
+
+	/**
+	 * Keeps an event until the end of the window. The position of the event in the list is stored
+	 * as its queue index, which tells that the event is outgoing.
+	 */
+	void addOutgoing(SimEvent e, boolean first, double time, int round, int entity) {
+		if (outSize == outEvents.length) {
+			int capacity = outSize * 2;
+			outEvents = Arrays.copyOf(outEvents, capacity);
+			outFirst = Arrays.copyOf(outFirst, capacity);
+			outTime = Arrays.copyOf(outTime, capacity);
+			outRound = Arrays.copyOf(outRound, capacity);
+			outEntity = Arrays.copyOf(outEntity, capacity);
+		}
+		e.setQueueIndex(outSize);
+		outEvents[outSize] = e;
+		outFirst[outSize] = first;
+		outTime[outSize] = time;
+		outRound[outSize] = round;
+		outEntity[outSize] = entity;
+		outSize++;
+	}
+
+	/**
+	 * Removes an outgoing event.
+	 *
+	 * @return true if the event was outgoing
+	 */
+	boolean removeOutgoing(SimEvent e) {
+		int i = e.getQueueIndex();
+		if (i < 0 || i >= outSize || outEvents[i] != e) {
+			return false;
+		}
+		outEvents[i] = null;
+		e.setQueueIndex(-1);
+		return true;
+	}
+
+	// ------------------- LOG OUTPUT --------------------------
+
+	/**
+	 * Starts a segment of log output, written by an entity run after the clock tick of the given
+	 * time and round.
+	 */
+	void startSegment(double time, int round, int entity) {
+		if (segCount > 0 && segStart[segCount - 1] == log.size()) {
+			segCount--; // the previous segment is empty
+		}
+		if (segCount == segStart.length) {
+			int capacity = segCount * 2;
+			segStart = Arrays.copyOf(segStart, capacity);
+			segTime = Arrays.copyOf(segTime, capacity);
+			segRound = Arrays.copyOf(segRound, capacity);
+			segEntity = Arrays.copyOf(segEntity, capacity);
+		}
+		segStart[segCount] = log.size();
+		segTime[segCount] = time;
+		segRound[segCount] = round;
+		segEntity[segCount] = entity;
+		segCount++;
+	}
+
+	// ------------------- CLOCK TICKS --------------------------
+
+	/**
+	 * Records a clock tick: a batch of events taken from the future queue, or the entities run
+	 * after the batch of the given time and round.
+	 */
+	void addTick(double time, int round, boolean batch, int runs) {
+		if (tickCount == tickTime.length) {
+			int capacity = tickCount * 2;
+			tickTime = Arrays.copyOf(tickTime, capacity);
+			tickRound = Arrays.copyOf(tickRound, capacity);
+			tickRuns = Arrays.copyOf(tickRuns, capacity);
+			tickBatch = Arrays.copyOf(tickBatch, capacity);
+		}
+		tickTime[tickCount] = time;
+		tickRound[tickCount] = round;
+		tickBatch[tickCount] = batch;
+		tickRuns[tickCount] = runs;
+		tickCount++;
+	}
+
+	// ------------------- SHARED STATE --------------------------
+
+	/**
+	 * Keeps an update of the shared state, made by an entity run after the clock tick of the given
+	 * time and round, until the end of the window.
+	 */
+	void addUpdate(Runnable update, double time, int round, int entity) {
+		if (updateCount == updates.length) {
+			int capacity = updateCount * 2;
+			updates = Arrays.copyOf(updates, capacity);
+			updateTime = Arrays.copyOf(updateTime, capacity);
+			updateRound = Arrays.copyOf(updateRound, capacity);
+			updateEntity = Arrays.copyOf(updateEntity, capacity);
+		}
+		updates[updateCount] = update;
+		updateTime[updateCount] = time;
+		updateRound[updateCount] = round;
+		updateEntity[updateCount] = entity;
+		updateCount++;
+	}
+
+	// ------------------- MERGE --------------------------
+
+	/**
+	 * Compares two positions of a sequential run.
+	 */
+	private static int compare(double time1, int round1, int entity1, double time2, int round2,
+			int entity2) {
+		if (time1 != time2) {
+			return time1 < time2 ? -1 : 1;
+		}
+		if (round1 != round2) {
+			return round1 < round2 ? -1 : 1;
+		}
+		return entity1 < entity2 ? -1 : entity1 == entity2 ? 0 : 1;
+	}
+
+	/**
+	 * Puts the outgoing events of all the logical processes in the future queues of their
+	 * destinations, in sequential order.
+	 *
+	 * @param lps the logical processes
+	 * @param lpOf the logical process of each entity
+	 */
+	static void commitEvents(LogicalProcess[] lps, int[] lpOf) {
+		int[] next = new int[lps.length];
+		while (true) {
+			int best = -1;
+			for (int i = 0; i < lps.length; i++) {
+				LogicalProcess lp = lps[i];
+				int j = next[i];
+				if (j < lp.outSize && (best < 0 || compare(lp.outTime[j], lp.outRound[j], lp.outEntity[j],
+						lps[best].outTime[next[best]], lps[best].outRound[next[best]],
+						lps[best].outEntity[next[best]]) < 0)) {
+					best = i;
+				}
+			}
+			if (best < 0) {
+				return;
+			}
+			LogicalProcess lp = lps[best];
+			int j = next[best]++;
+			SimEvent e = lp.outEvents[j];
+			if (e != null) {
+				lp.outEvents[j] = null;
+				e.setQueueIndex(-1);
+				lp.context.unindex(e);
+				int dest = e.getType() == SimEvent.HOLD_DONE ? e.getSource() : e.getDestination();
+				lps[lpOf[dest]].context.enqueueCommitted(e, lp.outFirst[j]);
+			}
+		}
+	}
+
+	/**
+	 * Applies the updates of the shared state made by all the logical processes, in sequential
+	 * order.
+	 *
+	 * @param lps the logical processes
+	 */
+	static void commitUpdates(LogicalProcess[] lps) {
+		int[] next = new int[lps.length];
+		while (true) {
+			int best = -1;
+			for (int i = 0; i < lps.length; i++) {
+				LogicalProcess lp = lps[i];
+				int j = next[i];
+				if (j < lp.updateCount && (best < 0 || compare(lp.updateTime[j], lp.updateRound[j],
+						lp.updateEntity[j], lps[best].updateTime[next[best]], lps[best].updateRound[next[best]],
+						lps[best].updateEntity[next[best]]) < 0)) {
+					best = i;
+				}
+			}
+			if (best < 0) {
+				for (LogicalProcess lp : lps) {
+					lp.updateCount = 0;
+				}
+				return;
+			}
+			LogicalProcess lp = lps[best];
+			int j = next[best]++;
+			Runnable update = lp.updates[j];
+			lp.updates[j] = null;
+			update.run();
+		}
+	}
+
+	/**
+	 * Writes the log output of all the logical processes, in sequential order.
+	 *
+	 * @param lps the logical processes
+	 * @param output the stream to write to
+	 */
+	static void commitLog(LogicalProcess[] lps, OutputStream output) {
+		int[] next = new int[lps.length];
+		try {
+			while (true) {
+				int best = -1;
+				for (int i = 0; i < lps.length; i++) {
+					LogicalProcess lp = lps[i];
+					int j = next[i];
+					if (j < lp.segCount && (best < 0 || compare(lp.segTime[j], lp.segRound[j], lp.segEntity[j],
+							lps[best].segTime[next[best]], lps[best].segRound[next[best]],
+							lps[best].segEntity[next[best]]) < 0)) {
+						best = i;
+					}
+				}
+				if (best < 0) {
+					return;
+				}
+				LogicalProcess lp = lps[best];
+				int j = next[best]++;
+				int end = j + 1 < lp.segCount ? lp.segStart[j + 1] : lp.log.size();
+				lp.log.writeTo(output, lp.segStart[j], end - lp.segStart[j]);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Merges the clock ticks of all the logical processes. The ticks of different logical processes
+	 * with the same time and round are a single tick of the simulation.
+	 *
+	 * @param lps the logical processes
+	 * @return the number of batches of events, and the largest number of entities run after one of
+	 *         them
+	 */
+	static long[] commitTicks(LogicalProcess[] lps) {
+		int[] next = new int[lps.length];
+		long batches = 0;
+		long maxRuns = 0;
+		boolean started = false;
+		double time = 0;
+		int round = 0;
+		boolean batch = false;
+		long runs = 0;
+		while (true) {
+			int best = -1;
+			for (int i = 0; i < lps.length; i++) {
+				LogicalProcess lp = lps[i];
+				int j = next[i];
+				if (j < lp.tickCount && (best < 0 || compare(lp.tickTime[j], lp.tickRound[j], 0,
+						lps[best].tickTime[next[best]], lps[best].tickRound[next[best]], 0) < 0)) {
+					best = i;
+				}
+			}
+			LogicalProcess lp = best < 0 ? null : lps[best];
+			int j = best < 0 ? -1 : next[best]++;
+			if (started && (lp == null || lp.tickTime[j] != time || lp.tickRound[j] != round)) {
+				if (batch) {
+					batches++;
+				}
+				maxRuns = Math.max(maxRuns, runs);
+			}
+			if (lp == null) {
+				return new long[] { batches, maxRuns };
+			}
+			if (!started || lp.tickTime[j] != time || lp.tickRound[j] != round) {
+				started = true;
+				time = lp.tickTime[j];
+				round = lp.tickRound[j];
+				batch = false;
+				runs = 0;
+			}
+			batch |= lp.tickBatch[j];
+			runs += lp.tickRuns[j];
+		}
+	}
+
+	/**
+	 * A byte array output stream that writes part of its content to another stream.
+	 */
+	private static final class LogBuffer extends ByteArrayOutputStream {
+
+		void writeTo(OutputStream output, int offset, int length) throws IOException {
+			output.write(buf, offset, length);
+		}
+	}
+
+}
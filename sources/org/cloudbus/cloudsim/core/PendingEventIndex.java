@@ -0,0 +1,226 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * An index of the events waiting in the future queue, by source entity and tag. The events of each
+ * (source, tag) pair are kept in a doubly linked list threaded through the events themselves, in
+ * the order they were added, so that adding or removing an event takes constant time and the
+ * events of a pair can be found without going through the future queue. Events sent by a negative
+ * source id are not indexed.
+ * <p>
+ * The links between the events are not serialized with the events; each list is written as a
+ * sequence of events and linked again when it is read, which keeps the serialization from
+ * recursing along the lists.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see SimulationContext#cancelAll(int, org.cloudbus.cloudsim.core.predicates.Predicate)
+ */
+final class PendingEventIndex implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The index of each source entity, by entity id. */
+	private SourceIndex[] sources = new SourceIndex[16];
+
+	/**
+	 * Adds an event that has just been put in the future queue.
+	 *
+	 * @param event the event
+	 */
+	void add(SimEvent event) {
+		int src = event.getSource();
+		if (src < 0) {
+			return;
+		}
+		if (src >= sources.length) {
+			SourceIndex[] grown = new SourceIndex[Math.max(src + 1, sources.length * 2)];
+			System.arraycopy(sources, 0, grown, 0, sources.length);
+			sources = grown;
+		}
+		SourceIndex source = sources[src];
+		if (source == null) {
+			source = new SourceIndex();
+			sources[src] = source;
+		}
+		int slot = source.slotOf(event.getTag());
+		if (slot < 0) {
+			slot = source.addSlot(event.getTag());
+		}
+
+		SimEvent tail = source.tails[slot];
+		event.setIndexPrev(tail);
+		event.setIndexNext(null);
+		if (tail == null) {
+			source.heads[slot] = event;
+		} else {
+			tail.setIndexNext(event);
+		}
+		source.tails[slot] = event;
+	}
+
+	/**
+	 * Removes an event that has just been taken out of the future queue.
+	 *
+	 * @param event the event
+	 */
+	void remove(SimEvent event) {
+		int src = event.getSource();
+		if (src < 0 || src >= sources.length || sources[src] == null) {
+			return;
+		}
+		SourceIndex source = sources[src];
+		int slot = source.slotOf(event.getTag());
+		if (slot < 0) {
+			return;
+		}
+
+		SimEvent prev = event.getIndexPrev();
+		SimEvent next = event.getIndexNext();
+		if (prev == null) {
+			if (source.heads[slot] != event) {
+				return; // not indexed
+			}
+			source.heads[slot] = next;
+		} else {
+			prev.setIndexNext(next);
+		}
+		if (next == null) {
+			source.tails[slot] = prev;
+		} else {
+			next.setIndexPrev(prev);
+		}
+		event.setIndexPrev(null);
+		event.setIndexNext(null);
+	}
+
+	/**
+	 * Gets the first indexed event of a source and tag, in insertion order. The next ones are
+	 * reached through {@link SimEvent#getIndexNext()}.
+	 *
+	 * @param src the id of the source entity
+	 * @param tag the tag
+	 * @return the first event, or <tt>null</tt> if there are none
+	 */
+	SimEvent first(int src, int tag) {
+		if (src < 0 || src >= sources.length || sources[src] == null) {
+			return null;
+		}
+		SourceIndex source = sources[src];
+		int slot = source.slotOf(tag);
+		return slot < 0 ? null : source.heads[slot];
+	}
+
+	/**
+	 * Gets the tags used by a source so far. Some of them may have no pending event.
+	 *
+	 * @param src the id of the source entity
+	 * @return the tags; only the first {@link #getTagCount(int)} entries are valid
+	 */
+	int[] getTags(int src) {
+		if (src < 0 || src >= sources.length || sources[src] == null) {
+			return new int[0];
+		}
+		return sources[src].tags;
+	}
+
+	/**
+	 * Gets the number of tags used by a source so far.
+	 *
+	 * @param src the id of the source entity
+	 * @return the number of tags
+	 */
+	int getTagCount(int src) {
+		if (src < 0 || src >= sources.length || sources[src] == null) {
+			return 0;
+		}
+		return sources[src].size;
+	}
+
+	/**
+	 * The lists of a single source entity, one per tag. A source only uses a handful of tags, so
+	 * they are looked up linearly.
+	 */
+	private static final class SourceIndex implements Serializable {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+		private int[] tags = new int[4];
+
+		private transient SimEvent[] heads = new SimEvent[4];
+
+		private transient SimEvent[] tails = new SimEvent[4];
+
+		private int size;
+
+		private void writeObject(ObjectOutputStream out) throws IOException {
+			out.defaultWriteObject();
+			for (int i = 0; i < size; i++) {
+				for (SimEvent event = heads[i]; event != null; event = event.getIndexNext()) {
+					out.writeObject(event);
+				}
+				out.writeObject(null);
+			}
+		}
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			in.defaultReadObject();
+			heads = new SimEvent[tags.length];
+			tails = new SimEvent[tags.length];
+			for (int i = 0; i < size; i++) {
+				SimEvent tail = null;
+				for (SimEvent event = (SimEvent) in.readObject(); event != null; event = (SimEvent) in
+						.readObject()) {
+					event.setIndexPrev(tail);
+					if (tail == null) {
+						heads[i] = event;
+					} else {
+						tail.setIndexNext(event);
+					}
+					tail = event;
+				}
+				tails[i] = tail;
+			}
+		}
+
+		private int slotOf(int tag) {
+			for (int i = 0; i < size; i++) {
+				if (tags[i] == tag) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private int addSlot(int tag) {
+			if (size == tags.length) {
+				int capacity = size * 2;
+				int[] newTags = new int[capacity];
+				SimEvent[] newHeads = new SimEvent[capacity];
+				SimEvent[] newTails = new SimEvent[capacity];
+				System.arraycopy(tags, 0, newTags, 0, size);
+				System.arraycopy(heads, 0, newHeads, 0, size);
+				System.arraycopy(tails, 0, newTails, 0, size);
+				tags = newTags;
+				heads = newHeads;
+				tails = newTails;
+			}
+			tags[size] = tag;
+			return size++;
+		}
+	}
+
+}
@@ -8,6 +8,8 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.Serializable;
+
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.NetworkTopology;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
@@ -28,7 +30,10 @@ import org.cloudbus.cloudsim.core.predicates.Predicate;
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  */
-public abstract class SimEntity implements Cloneable {
+public abstract class SimEntity implements Cloneable, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
 
 	/** The name. */
 	private String name;
@@ -42,6 +47,9 @@ public abstract class SimEntity implements Cloneable {
 	/** The entity's current state. */
 	private int state;
 
+	/** The simulation context the entity belongs to. */
+	private SimulationContext context;
+
 	/**
 	 * Creates a new entity.
 	 * 
@@ -54,7 +62,8 @@ public abstract class SimEntity implements Cloneable {
 		this.name = name;
 		id = -1;
 		state = RUNNABLE;
-		CloudSim.addEntity(this);
+		context = CloudSim.getContext();
+		context.addEntity(this);
 	}
 
 	/**
@@ -75,6 +84,40 @@ public abstract class SimEntity implements Cloneable {
 		return id;
 	}
 
+	/**
+	 * Get the simulation context this entity belongs to, i.e. the context that was current when the
+	 * entity was created. During a parallel run, this is the context of the logical process running
+	 * the entity.
+	 * 
+	 * @return the simulation context
+	 */
+	public SimulationContext getSimulationContext() {
+		return context;
+	}
+
+	/**
+	 * Sets the context running the entity, when a parallel run starts or ends.
+	 * 
+	 * @param context the simulation context
+	 */
+	void setSimulationContext(SimulationContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Tells whether this entity only interacts with the other entities through events, so that a
+	 * parallel run can give it a logical process of its own. An isolated entity must not share
+	 * mutable state with the other entities, except through
+	 * {@link SimulationContext#updateShared(Runnable)}, nor stop the simulation, and the events it
+	 * exchanges with them have to be delayed by the network topology.
+	 * 
+	 * @return <tt>false</tt> unless overridden
+	 * @see SimulationContext#setParallelism(int)
+	 */
+	protected boolean isIsolated() {
+		return false;
+	}
+
 	// The schedule functions
 
 	/**
@@ -87,10 +130,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void schedule(int dest, double delay, int tag, Object data) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return;
 		}
-		CloudSim.send(id, dest, delay, tag, data);
+		context.send(id, dest, delay, tag, data);
 	}
 
 	/**
@@ -115,7 +158,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void schedule(String dest, double delay, int tag, Object data) {
-		schedule(CloudSim.getEntityId(dest), delay, tag, data);
+		schedule(context.getEntityId(dest), delay, tag, data);
 	}
 
 	/**
@@ -162,7 +205,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void scheduleNow(String dest, int tag, Object data) {
-		schedule(CloudSim.getEntityId(dest), 0, tag, data);
+		schedule(context.getEntityId(dest), 0, tag, data);
 	}
 
 	/**
@@ -176,6 +219,35 @@ public abstract class SimEntity implements Cloneable {
 		schedule(dest, 0, tag, null);
 	}
 
+	/**
+	 * Cancels the events this entity has sent with a given tag and still pending, then sends a new
+	 * one, with data. This is the usual way of moving a timer, such as a periodic update, to a new
+	 * time. Note that the tag <code>9999</code> is reserved.
+	 * 
+	 * @param dest The unique id number of the destination entity
+	 * @param delay How long from the current simulation time the event should be sent
+	 * @param tag An user-defined number representing the type of event.
+	 * @param data The data to be sent with the event.
+	 */
+	public void reschedule(int dest, double delay, int tag, Object data) {
+		if (!context.running()) {
+			return;
+		}
+		context.reschedule(id, dest, delay, tag, data);
+	}
+
+	/**
+	 * Cancels the events this entity has sent with a given tag and still pending, then sends a new
+	 * one with <b>no</b> data. Note that the tag <code>9999</code> is reserved.
+	 * 
+	 * @param dest The unique id number of the destination entity
+	 * @param delay How long from the current simulation time the event should be sent
+	 * @param tag An user-defined number representing the type of event.
+	 */
+	public void reschedule(int dest, double delay, int tag) {
+		reschedule(dest, delay, tag, null);
+	}
+
 	/**
 	 * Send a high priority event to another entity by id number, with data. Note that the tag
 	 * <code>9999</code> is reserved.
@@ -186,10 +258,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void scheduleFirst(int dest, double delay, int tag, Object data) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return;
 		}
-		CloudSim.sendFirst(id, dest, delay, tag, data);
+		context.sendFirst(id, dest, delay, tag, data);
 	}
 
 	/**
@@ -214,7 +286,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void scheduleFirst(String dest, double delay, int tag, Object data) {
-		scheduleFirst(CloudSim.getEntityId(dest), delay, tag, data);
+		scheduleFirst(context.getEntityId(dest), delay, tag, data);
 	}
 
 	/**
@@ -261,7 +333,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @param data The data to be sent with the event.
 	 */
 	public void scheduleFirstNow(String dest, int tag, Object data) {
-		scheduleFirst(CloudSim.getEntityId(dest), 0, tag, data);
+		scheduleFirst(context.getEntityId(dest), 0, tag, data);
 	}
 
 	/**
@@ -284,10 +356,10 @@ public abstract class SimEntity implements Cloneable {
 		if (delay < 0) {
 			throw new IllegalArgumentException("Negative delay supplied.");
 		}
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return;
 		}
-		CloudSim.pause(id, delay);
+		context.pause(id, delay);
 	}
 
 	/**
@@ -297,7 +369,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @return The count of matching events
 	 */
 	public int numEventsWaiting(Predicate p) {
-		return CloudSim.waiting(id, p);
+		return context.waiting(id, p);
 	}
 
 	/**
@@ -306,7 +378,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @return The count of events
 	 */
 	public int numEventsWaiting() {
-		return CloudSim.waiting(id, CloudSim.SIM_ANY);
+		return context.waiting(id, CloudSim.SIM_ANY);
 	}
 
 	/**
@@ -316,11 +388,11 @@ public abstract class SimEntity implements Cloneable {
 	 * @return the simulation event
 	 */
 	public SimEvent selectEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return null;
 		}
 
-		return CloudSim.select(id, p);
+		return context.select(id, p);
 	}
 
 	/**
@@ -330,11 +402,11 @@ public abstract class SimEntity implements Cloneable {
 	 * @return The number of events cancelled (0 or 1)
 	 */
 	public SimEvent cancelEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return null;
 		}
 
-		return CloudSim.cancel(id, p);
+		return context.cancel(id, p);
 	}
 
 	/**
@@ -345,13 +417,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @return the simulation event
 	 */
 	public SimEvent getNextEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return null;
 		}
-		if (numEventsWaiting(p) > 0) {
-			return selectEvent(p);
-		}
-		return null;
+		return context.select(id, p);
 	}
 
 	/**
@@ -361,11 +430,11 @@ public abstract class SimEntity implements Cloneable {
 	 * @param p The predicate to match
 	 */
 	public void waitForEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return;
 		}
 
-		CloudSim.wait(id, p);
+		context.wait(id, p);
 		state = WAITING;
 	}
 
@@ -518,10 +587,98 @@ public abstract class SimEntity implements Cloneable {
 	 * @post $none
 	 */
 	protected void send(int entityId, double delay, int cloudSimTag, Object data) {
-		if (entityId < 0) {
+		delay = getSendDelay(entityId, delay);
+		if (delay < 0) {
 			return;
 		}
 
+		schedule(entityId, delay, cloudSimTag, data);
+	}
+
+	/**
+	 * Sends three ints to another entity by <tt>delaying</tt> the simulation time from the current
+	 * time, with a tag representing the event type. Unlike sending an <tt>int[]</tt>, no array is
+	 * allocated; the receiver reads the ints with {@link SimEvent#getIntData(int)}.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent. If delay is
+	 *            a negative number, then it will be changed to 0
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param data0 the first int
+	 * @param data1 the second int
+	 * @param data2 the third int
+	 * @pre entityID > 0
+	 * @pre delay >= 0.0
+	 * @post $none
+	 */
+	protected void sendInts(int entityId, double delay, int cloudSimTag, int data0, int data1, int data2) {
+		delay = getSendDelay(entityId, delay);
+		if (delay < 0 || !context.running()) {
+			return;
+		}
+		context.sendInts(id, entityId, delay, cloudSimTag, data0, data1, data2);
+	}
+
+	/**
+	 * Sends three ints to another entity without any delay.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param data0 the first int
+	 * @param data1 the second int
+	 * @param data2 the third int
+	 * @see #sendInts(int, double, int, int, int, int)
+	 */
+	protected void sendNowInts(int entityId, int cloudSimTag, int data0, int data1, int data2) {
+		sendInts(entityId, 0, cloudSimTag, data0, data1, data2);
+	}
+
+	/**
+	 * Sends a long to another entity by <tt>delaying</tt> the simulation time from the current
+	 * time, without boxing it. The receiver reads it with {@link SimEvent#getLongData()}.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent. If delay is
+	 *            a negative number, then it will be changed to 0
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param data the long
+	 */
+	protected void sendLong(int entityId, double delay, int cloudSimTag, long data) {
+		delay = getSendDelay(entityId, delay);
+		if (delay < 0 || !context.running()) {
+			return;
+		}
+		context.sendLong(id, entityId, delay, cloudSimTag, data);
+	}
+
+	/**
+	 * Sends a double to another entity by <tt>delaying</tt> the simulation time from the current
+	 * time, without boxing it. The receiver reads it with {@link SimEvent#getDoubleData()}.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent. If delay is
+	 *            a negative number, then it will be changed to 0
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param data the double
+	 */
+	protected void sendDouble(int entityId, double delay, int cloudSimTag, double data) {
+		delay = getSendDelay(entityId, delay);
+		if (delay < 0 || !context.running()) {
+			return;
+		}
+		context.sendDouble(id, entityId, delay, cloudSimTag, data);
+	}
+
+	/**
+	 * Gets the delay of a message sent to another entity: a negative delay is reset to 0 and the
+	 * network delay is added, except for self messages. An invalid entity id is reported, and the
+	 * message is not to be sent.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param delay the requested delay
+	 * @return the delay, or -1 if the entity id is invalid
+	 */
+	private double getSendDelay(int entityId, double delay) {
 		// if delay is -ve, then it doesn't make sense. So resets to 0.0
 		if (delay < 0) {
 			delay = 0;
@@ -533,15 +690,14 @@ public abstract class SimEntity implements Cloneable {
 
 		if (entityId < 0) {
 			Log.printLine(getName() + ".send(): Error - " + "invalid entity id " + entityId);
-			return;
+			return -1;
 		}
 
 		int srcId = getId();
 		if (entityId != srcId) {// does not delay self messages
 			delay += getNetworkDelay(srcId, entityId);
 		}
-
-		schedule(entityId, delay, cloudSimTag, data);
+		return delay;
 	}
 
 	/**
@@ -575,7 +731,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @post $none
 	 */
 	protected void send(String entityName, double delay, int cloudSimTag, Object data) {
-		send(CloudSim.getEntityId(entityName), delay, cloudSimTag, data);
+		send(context.getEntityId(entityName), delay, cloudSimTag, data);
 	}
 
 	/**
@@ -643,7 +799,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @post $none
 	 */
 	protected void sendNow(String entityName, int cloudSimTag, Object data) {
-		send(CloudSim.getEntityId(entityName), 0, cloudSimTag, data);
+		send(context.getEntityId(entityName), 0, cloudSimTag, data);
 	}
 
 	/**
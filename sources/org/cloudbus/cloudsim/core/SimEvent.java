@@ -8,20 +8,33 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.Serializable;
+
 /**
  * This class represents a simulation event which is passed between the entities in the simulation.
+ * <p>
+ * Besides an object, an event can carry a primitive payload: three ints, a long or a double. Such
+ * events are sent with {@link SimEntity#sendInts(int, double, int, int, int, int)} and the like,
+ * and are read with {@link #getIntData(int)}, {@link #getLongData()} and {@link #getDoubleData()}
+ * without boxing. {@link #getData()} still works for them: it boxes the payload into an
+ * <tt>int[3]</tt>, a {@link Long} or a {@link Double} the first time it is called. The payload is
+ * kept in a small holder in place of the data, so the events that do not use it are not larger;
+ * the holders are recycled with the events when the events are pooled.
  * 
  * @author Costas Simatos
  * @see Simulation
  * @see SimEntity
  */
-public class SimEvent implements Cloneable, Comparable<SimEvent> {
+public class SimEvent implements Cloneable, Comparable<SimEvent>, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
 
 	/** internal event type **/
-	private final int etype;
+	private int etype;
 
 	/** time at which event should occur **/
-	private final double time;
+	private double time;
 
 	/** time that the event was removed from the queue for service **/
 	private double endWaitingTime;
@@ -33,13 +46,22 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** the user defined type of the event **/
-	private final int tag;
+	private int tag;
 
 	/** any data the event is carrying **/
-	private final Object data;
+	private Object data;
 
 	private long serial = -1;
 
+	/** position of this event inside an indexed future queue, -1 when it is not queued **/
+	private int queueIndex = -1;
+
+	/** next event in the same bucket of a calendar future queue **/
+	private transient SimEvent queueNext;
+
+	/** previous and next pending events with the same source and tag **/
+	private transient SimEvent indexPrev, indexNext;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -50,6 +72,14 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	public static final int CREATE = 3;
 
+	// Primitive payload kinds
+
+	static final int PAYLOAD_INTS = 1;
+
+	static final int PAYLOAD_LONG = 2;
+
+	static final int PAYLOAD_DOUBLE = 3;
+
 	/**
 	 * Create a blank event.
 	 */
@@ -82,10 +112,97 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		data = null;
 	}
 
+	/**
+	 * Reinitialises a recycled event. The primitive payload and the queue bookkeeping are reset.
+	 */
+	void reset(int evtype, double time, int src, int dest, int tag, Object edata) {
+		etype = evtype;
+		this.time = time;
+		endWaitingTime = -1.0;
+		entSrc = src;
+		entDst = dest;
+		this.tag = tag;
+		data = edata;
+		serial = -1;
+		queueIndex = -1;
+		queueNext = null;
+		indexPrev = null;
+		indexNext = null;
+	}
+
+	/**
+	 * Drops the references held by an event going back to the pool.
+	 * 
+	 * @return the holder of the primitive payload of the event, to be recycled, or <tt>null</tt>
+	 */
+	Payload release() {
+		Payload holder = data instanceof Payload ? (Payload) data : null;
+		data = null;
+		queueNext = null;
+		indexPrev = null;
+		indexNext = null;
+		return holder;
+	}
+
+	/**
+	 * Moves an event taken out of the future queue to a new time, before putting it back.
+	 */
+	void retime(double time, int dest, Object edata) {
+		this.time = time;
+		entDst = dest;
+		data = edata;
+		serial = -1;
+		queueIndex = -1;
+		queueNext = null;
+	}
+
+	/**
+	 * Sets the primitive payload of the event, held by the given holder.
+	 */
+	void setPayload(Payload holder) {
+		data = holder;
+	}
+
 	protected void setSerial(long serial) {
 		this.serial = serial;
 	}
 
+	long getSerial() {
+		return serial;
+	}
+
+	int getQueueIndex() {
+		return queueIndex;
+	}
+
+	void setQueueIndex(int queueIndex) {
+		this.queueIndex = queueIndex;
+	}
+
+	SimEvent getQueueNext() {
+		return queueNext;
+	}
+
+	void setQueueNext(SimEvent queueNext) {
+		this.queueNext = queueNext;
+	}
+
+	SimEvent getIndexPrev() {
+		return indexPrev;
+	}
+
+	void setIndexPrev(SimEvent indexPrev) {
+		this.indexPrev = indexPrev;
+	}
+
+	SimEvent getIndexNext() {
+		return indexNext;
+	}
+
+	void setIndexNext(SimEvent indexNext) {
+		this.indexNext = indexNext;
+	}
+
 	/**
 	 * Used to set the time at which this event finished waiting in the event
 	 * 
@@ -125,6 +242,8 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 			return 1;
 		} else if (serial < event.serial) {
 			return -1;
+		} else if (serial > event.serial) {
+			return 1;
 		} else if (this == event) {
 			return 0;
 		} else {
@@ -196,14 +315,68 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	}
 
 	/**
-	 * Get the data passed in this event.
+	 * Get the data passed in this event. A primitive payload is boxed on the first call.
 	 * 
 	 * @return A reference to the data
 	 */
 	public Object getData() {
+		if (data instanceof Payload) {
+			data = ((Payload) data).box();
+		}
 		return data;
 	}
 
+	/**
+	 * Get one of the ints passed in this event. Events whose data is an <tt>int[]</tt> are also
+	 * accepted.
+	 * 
+	 * @param index the index of the int, from 0 to 2 for a primitive payload
+	 * @return the int
+	 * @throws ClassCastException if the event carries neither ints nor an <tt>int[]</tt>
+	 */
+	public int getIntData(int index) {
+		if (data instanceof Payload && ((Payload) data).kind == PAYLOAD_INTS) {
+			Payload holder = (Payload) data;
+			switch (index) {
+				case 0:
+					return (int) (holder.longData >> 32);
+				case 1:
+					return (int) holder.longData;
+				case 2:
+					return holder.intData;
+				default:
+					throw new IndexOutOfBoundsException("Int payload index: " + index);
+			}
+		}
+		return ((int[]) getData())[index];
+	}
+
+	/**
+	 * Get the long passed in this event. Events whose data is a {@link Number} are also accepted.
+	 * 
+	 * @return the long
+	 * @throws ClassCastException if the event carries neither a long nor a number
+	 */
+	public long getLongData() {
+		if (data instanceof Payload && ((Payload) data).kind == PAYLOAD_LONG) {
+			return ((Payload) data).longData;
+		}
+		return ((Number) getData()).longValue();
+	}
+
+	/**
+	 * Get the double passed in this event. Events whose data is a {@link Number} are also accepted.
+	 * 
+	 * @return the double
+	 * @throws ClassCastException if the event carries neither a double nor a number
+	 */
+	public double getDoubleData() {
+		if (data instanceof Payload && ((Payload) data).kind == PAYLOAD_DOUBLE) {
+			return Double.longBitsToDouble(((Payload) data).longData);
+		}
+		return ((Number) getData()).doubleValue();
+	}
+
 	/**
 	 * Create an exact copy of this event.
 	 * 
@@ -211,7 +384,8 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 */
 	@Override
 	public Object clone() {
-		return new SimEvent(etype, time, entSrc, entDst, tag, data);
+		Object copyData = data instanceof Payload ? ((Payload) data).copy() : data;
+		return new SimEvent(etype, time, entSrc, entDst, tag, copyData);
 	}
 
 	/**
@@ -231,4 +405,62 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	public void setDestination(int d) {
 		entDst = d;
 	}
+
+	/**
+	 * The primitive payload of an event: three ints, a long or a double.
+	 */
+	static final class Payload implements Serializable {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+		/** kind of the payload, one of the PAYLOAD_ constants **/
+		int kind;
+
+		/** third int of the payload **/
+		int intData;
+
+		/** first two ints, the long or the bits of the double of the payload **/
+		long longData;
+
+		void setInts(int value0, int value1, int value2) {
+			kind = PAYLOAD_INTS;
+			longData = ((long) value0 << 32) | (value1 & 0xFFFFFFFFL);
+			intData = value2;
+		}
+
+		void setLong(long value) {
+			kind = PAYLOAD_LONG;
+			longData = value;
+		}
+
+		void setDouble(double value) {
+			kind = PAYLOAD_DOUBLE;
+			longData = Double.doubleToRawLongBits(value);
+		}
+
+		/**
+		 * Boxes the payload.
+		 * 
+		 * @return an <tt>int[3]</tt>, a {@link Long} or a {@link Double}
+		 */
+		Object box() {
+			switch (kind) {
+				case PAYLOAD_INTS:
+					return new int[] { (int) (longData >> 32), (int) longData, intData };
+				case PAYLOAD_LONG:
+					return Long.valueOf(longData);
+				default:
+					return Double.valueOf(Double.longBitsToDouble(longData));
+			}
+		}
+
+		Payload copy() {
+			Payload copy = new Payload();
+			copy.kind = kind;
+			copy.intData = intData;
+			copy.longData = longData;
+			return copy;
+		}
+	}
 }
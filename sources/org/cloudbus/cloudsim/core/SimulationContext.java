@@ -0,0 +1,2110 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.NetworkTopology;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+
+/**
+ * A simulation context owns the state of one simulation: the clock, the future and deferred event
+ * queues, the entity registry and the simulation flags. The static methods of {@link CloudSim} work
+ * on the context bound to the calling thread with {@link CloudSim#setContext(SimulationContext)},
+ * or on the default context when none is bound. Each entity is bound to the context that is
+ * current when it is created.
+ * <p>
+ * Independent simulations can run concurrently in the same JVM, one per thread, by binding a new
+ * context to each thread before calling {@link CloudSim#init(int, Calendar, boolean)}. Static
+ * state kept outside of the simulation core, such as the {@link Log} settings, is still shared by
+ * all the contexts.
+ * <p>
+ * A single simulation can also be run by several threads, see {@link #setParallelism(int)}.
+ * <p>
+ * A context can be saved to a checkpoint file and restored later, see
+ * {@link #checkpointAt(double, File)}.
+ * 
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim
+ */
+public class SimulationContext implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+
+	/** The Constant CLOUDSIM_VERSION_STRING. */
+	private static final String CLOUDSIM_VERSION_STRING = "3.0";
+
+	/** The id of CIS entity. */
+	private int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	@SuppressWarnings("unused")
+	private int shutdownId = -1;
+
+	/** The CIS object. */
+	private CloudInformationService cis = null;
+
+	/** The Constant NOT_FOUND. */
+	private static final int NOT_FOUND = -1;
+
+	/** The trace flag. */
+	@SuppressWarnings("unused")
+	private boolean traceFlag = false;
+
+	/** The calendar. */
+	private Calendar calendar = null;
+
+	/** The termination time. */
+	private double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	private double minTimeBetweenEvents = 0.1;
+	
+	/**
+	 * Initialises all the common attributes.
+	 * 
+	 * @param _calendar the _calendar
+	 * @param _traceFlag the _trace flag
+	 * @param numUser number of users
+	 * @throws Exception This happens when creating this entity before initialising CloudSim package
+	 *             or this entity name is <tt>null</tt> or empty
+	 * @pre $none
+	 * @post $none
+	 */
+	private void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
+			throws Exception {
+		initialize();
+		// NOTE: the order for the below 3 lines are important
+		traceFlag = _traceFlag;
+
+		// Set the current Wall clock time as the starting time of
+		// simulation
+		if (_calendar == null) {
+			calendar = Calendar.getInstance();
+		} else {
+			calendar = _calendar;
+		}
+
+		// creates a CloudSimShutdown object, bound to this context
+		SimulationContext previous = CloudSim.bindContext(this);
+		try {
+			CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
+			shutdownId = shutdown.getId();
+		} finally {
+			CloudSim.bindContext(previous);
+		}
+	}
+
+	/**
+	 * Initialises CloudSim parameters. This method should be called before creating any entities.
+	 * <p>
+	 * Inside this method, it will create the following CloudSim entities:
+	 * <ul>
+	 * <li>CloudInformationService.
+	 * <li>CloudSimShutdown
+	 * </ul>
+	 * <p>
+	 * 
+	 * @param numUser the number of User Entities created. This parameters indicates that
+	 *            {@link gridsim.CloudSimShutdown} first waits for all user entities's
+	 *            END_OF_SIMULATION signal before issuing terminate signal to other entities
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @see gridsim.CloudSimShutdown
+	 * @see CloudInformationService.CloudInformationService
+	 * @pre numUser >= 0
+	 * @post $none
+	 */
+	public void init(int numUser, Calendar cal, boolean traceFlag) {
+		try {
+			initCommonVariable(cal, traceFlag, numUser);
+
+			// create a GIS object, bound to this context
+			SimulationContext previous = CloudSim.bindContext(this);
+			try {
+				cis = new CloudInformationService("CloudInformationService");
+			} finally {
+				CloudSim.bindContext(previous);
+			}
+
+			// set all the above entity IDs
+			cisId = cis.getId();
+		} catch (IllegalArgumentException s) {
+			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
+			Log.printLine(s.getMessage());
+		} catch (Exception e) {
+			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
+			Log.printLine(e.getMessage());
+		}
+	}
+
+	/**
+	 * Initialises CloudSim parameters. This method should be called before creating any entities.
+	 * <p>
+	 * Inside this method, it will create the following CloudSim entities:
+	 * <ul>
+	 * <li>CloudInformationService.
+	 * <li>CloudSimShutdown
+	 * </ul>
+	 * <p>
+	 * 
+	 * @param numUser the number of User Entities created. This parameters indicates that
+	 *            {@link gridsim.CloudSimShutdown} first waits for all user entities's
+	 *            END_OF_SIMULATION signal before issuing terminate signal to other entities
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param periodBetweenEvents - the minimal period between events. Events within shorter periods
+	 * after the last event are discarded.
+	 * @see gridsim.CloudSimShutdown
+	 * @see CloudInformationService.CloudInformationService
+	 * @pre numUser >= 0
+	 * @post $none
+	 */
+	public void init(int numUser, Calendar cal, boolean traceFlag, double periodBetweenEvents) {
+	    if (periodBetweenEvents <= 0) {
+		throw new IllegalArgumentException("The minimal time between events should be positive, but is:" + periodBetweenEvents);
+	    }
+	    
+	    init(numUser, cal, traceFlag);
+	    minTimeBetweenEvents = periodBetweenEvents;
+	}
+
+	/**
+	 * Initialises CloudSim parameters using the given future event queue implementation, such as a
+	 * {@link HeapFutureQueue} or a {@link CalendarFutureQueue}. This method should be called before
+	 * creating any entities.
+	 * 
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureQueue an empty future event queue used to store the scheduled events
+	 * @see #init(int, Calendar, boolean)
+	 * @pre numUser >= 0
+	 * @pre futureQueue != null
+	 * @post $none
+	 */
+	public void init(int numUser, Calendar cal, boolean traceFlag, FutureEventQueue futureQueue) {
+		if (futureQueue == null || futureQueue.size() > 0) {
+			throw new IllegalArgumentException("The future event queue should be an empty queue.");
+		}
+
+		init(numUser, cal, traceFlag);
+		future = futureQueue;
+	}
+	
+	
+	
+	/**
+	 * Starts the execution of CloudSim simulation. It waits for complete execution of all entities,
+	 * i.e. until all entities threads reach non-RUNNABLE state or there are no more events in the
+	 * future event queue.
+	 * <p>
+	 * <b>Note</b>: This method should be called after all the entities have been setup and added.
+	 * 
+	 * @return the double
+	 * @throws NullPointerException This happens when creating this entity before initialising
+	 *             CloudSim package or this entity name is <tt>null</tt> or empty.
+	 * @see gridsim.CloudSim#init(int, Calendar, boolean)
+	 * @pre $none
+	 * @post $none
+	 */
+	public double startSimulation() throws NullPointerException {
+		Log.printLine("Starting CloudSim version " + CLOUDSIM_VERSION_STRING);
+		try {
+			double clock = run();
+
+			// reset the simulation variables
+			cisId = -1;
+			shutdownId = -1;
+			cis = null;
+			calendar = null;
+			traceFlag = false;
+
+			return clock;
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			throw new NullPointerException("CloudSim.startCloudSimulation() :"
+					+ " Error - you haven't initialized CloudSim.");
+		}
+	}
+
+	/**
+	 * Stops Cloud Simulation (based on {@link Simulation#runStop()}). This should be only called if
+	 * any of the user defined entities <b>explicitly</b> want to terminate simulation during
+	 * execution.
+	 * 
+	 * @throws NullPointerException This happens when creating this entity before initialising
+	 *             CloudSim package or this entity name is <tt>null</tt> or empty
+	 * @see gridsim.CloudSim#init(int, Calendar, boolean)
+	 * @see Simulation#runStop()
+	 * @pre $none
+	 * @post $none
+	 */
+	public void stopSimulation() throws NullPointerException {
+		try {
+			runStop();
+		} catch (IllegalArgumentException e) {
+			throw new NullPointerException("CloudSim.stopCloudSimulation() : "
+					+ "Error - can't stop Cloud Simulation.");
+		}
+	}
+
+	/**
+	 * This method is called if one wants to terminate the simulation.
+	 * 
+	 * @return true, if successful; false otherwise.
+	 */
+	public boolean terminateSimulation() {
+		checkSequential("terminateSimulation");
+		running = false;
+		printMessage("Simulation: Reached termination time.");
+		return true;
+	}
+
+	/**
+	 * This method is called if one wants to terminate the simulation at a given time.
+	 * 
+	 * @param time the time at which the simulation has to be terminated
+	 * @return true, if successful otherwise.
+	 */
+	public boolean terminateSimulation(double time) {
+		checkSequential("terminateSimulation");
+		if (time <= clock) {
+			return false;
+		} else {
+			terminateAt = time;
+		}
+		return true;
+	}
+
+	
+	/**
+	 * Returns the minimum time between events. Events within shorter periods after the last event are discarded. 
+	 * @return the minimum time between events.
+	 */
+	public double getMinTimeBetweenEvents() {
+	    return minTimeBetweenEvents;
+	}
+
+	/**
+	 * Gets a new copy of initial simulation Calendar.
+	 * 
+	 * @return a new copy of Calendar object or if CloudSim hasn't been initialized
+	 * @see gridsim.CloudSim#init(int, Calendar, boolean, String[], String[], String)
+	 * @see gridsim.CloudSim#init(int, Calendar, boolean)
+	 * @pre $none
+	 * @post $none
+	 */
+	public Calendar getSimulationCalendar() {
+		// make a new copy
+		Calendar clone = calendar;
+		if (calendar != null) {
+			clone = (Calendar) calendar.clone();
+		}
+
+		return clone;
+	}
+
+	/**
+	 * Gets the entity ID of <tt>CloudInformationService</tt>.
+	 * 
+	 * @return the Entity ID or if it is not found
+	 * @pre $none
+	 * @post $result >= -1
+	 */
+	public int getCloudInfoServiceEntityId() {
+		return cisId;
+	}
+
+	/**
+	 * Sends a request to Cloud Information Service (GIS) entity to get the list of all Cloud
+	 * hostList.
+	 * 
+	 * @return A List containing CloudResource ID (as an Integer object) or if a CIS entity hasn't
+	 *         been created before
+	 * @pre $none
+	 * @post $none
+	 */
+	public List<Integer> getCloudResourceList() {
+		if (cis == null) {
+			return null;
+		}
+
+		return cis.getList();
+	}
+
+	// ======== SIMULATION METHODS ===============//
+
+	/** The entities. */
+	private List<SimEntity> entities;
+
+	/** The future event queue. */
+	private FutureEventQueue future;
+
+	/** The deferred event queue. */
+	private DeferredQueue deferred;
+
+	/** The events of the future queue, indexed by source and tag. */
+	private PendingEventIndex pending;
+
+	/** The events taken from the future queue in the current clock tick. */
+	private final List<SimEvent> currentEvents = new ArrayList<SimEvent>();
+
+	/** The ids of the entities that have to run in the next clock tick. */
+	private BitSet runnable;
+
+	/** The number of clock ticks. */
+	private long ticks;
+
+	/** The number of events taken from the future queue and processed. */
+	private long eventsProcessed;
+
+	/** The number of entities run, summed over all the clock ticks. */
+	private long entitiesRun;
+
+	/** The largest number of entities run in a single clock tick. */
+	private int maxEntitiesRunPerTick;
+
+	/** The simulation clock. */
+	private double clock;
+
+	/** Flag for checking if the simulation is running. */
+	private boolean running;
+
+	/** The entities by name. */
+	private Map<String, SimEntity> entitiesByName;
+
+	// The predicates used in entity wait methods
+	/** The wait predicates. */
+	private Map<Integer, Predicate> waitPredicates;
+
+	/** The paused. */
+	private volatile boolean paused = false;
+
+	/** The pause at. */
+	private long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	private boolean abruptTerminate = false;
+
+	/** The largest number of events kept in the event pool. */
+	private static final int MAX_EVENT_POOL_SIZE = 4096;
+
+	/** Flag for recycling the processed events. */
+	private boolean eventPooling = false;
+
+	/** The processed events waiting to be reused. */
+	private final ArrayDeque<SimEvent> eventPool = new ArrayDeque<SimEvent>();
+
+	/** The holders of primitive payloads of the recycled events, waiting to be reused. */
+	private final ArrayDeque<SimEvent.Payload> payloadPool = new ArrayDeque<SimEvent.Payload>();
+
+	/** The events delivered to the entities in the current clock tick, recycled at its end. */
+	private final List<SimEvent> deliveredEvents = new ArrayList<SimEvent>();
+
+	/** The attributes stored by other modules, such as the network topology. */
+	private final Map<String, Object> attributes;
+
+	/** The number of threads running the simulation. */
+	private int parallelism = 1;
+
+	/** The logical process run by this context, if it is part of a parallel run. */
+	private final LogicalProcess process;
+
+	/** The logical process of each entity during a parallel run. */
+	private int[] lpOf;
+
+	/** The end of the time window run by a logical process. */
+	private double windowEnd;
+
+	/** The time of the last batch of events taken from the future queue by a logical process. */
+	private double lastBatchTime;
+
+	/** The number of earlier batches at the same time as the last one. */
+	private int lastBatchRound;
+
+	/** The id of the entity run by a logical process, -1 between two entities. */
+	private int runningEntity = -1;
+
+	/** The number of logical processes of the last run; 1 for a sequential run. */
+	private int logicalProcesses = 1;
+
+	/** The number of time windows of the last parallel run. */
+	private long windows;
+
+	/** The lookahead of the last parallel run. */
+	private double lookahead;
+
+	/** The share of the thread time of the last parallel run spent running windows. */
+	private double parallelEfficiency;
+
+	/**
+	 * Creates a simulation context. It has to be initialised by one of the <tt>init</tt> methods
+	 * before entities are created in it.
+	 */
+	public SimulationContext() {
+		attributes = new ConcurrentHashMap<String, Object>();
+		process = null;
+	}
+
+	/**
+	 * Creates the context of a logical process. The entities and the attributes are those of the
+	 * simulation; the clock and the event queues are its own.
+	 * 
+	 * @param parent the context of the simulation
+	 * @param process the logical process
+	 */
+	SimulationContext(SimulationContext parent, LogicalProcess process) {
+		this.process = process;
+		attributes = parent.attributes;
+		entities = parent.entities;
+		entitiesByName = parent.entitiesByName;
+		cis = parent.cis;
+		cisId = parent.cisId;
+		shutdownId = parent.shutdownId;
+		calendar = parent.calendar;
+		traceFlag = parent.traceFlag;
+		minTimeBetweenEvents = parent.minTimeBetweenEvents;
+		future = new FutureQueue();
+		deferred = new DeferredQueue();
+		pending = new PendingEventIndex();
+		waitPredicates = new HashMap<Integer, Predicate>();
+		runnable = new BitSet();
+		clock = parent.clock;
+		lastBatchTime = parent.clock;
+		running = true;
+	}
+
+	/**
+	 * Initialise the simulation for stand alone simulations. This function should be called at the
+	 * start of the simulation.
+	 */
+	protected void initialize() {
+		Log.printLine("Initialising...");
+		entities = new ArrayList<SimEntity>();
+		entitiesByName = new LinkedHashMap<String, SimEntity>();
+		future = new FutureQueue();
+		deferred = new DeferredQueue();
+		pending = new PendingEventIndex();
+		waitPredicates = new HashMap<Integer, Predicate>();
+		runnable = new BitSet();
+		eventPool.clear();
+		payloadPool.clear();
+		deliveredEvents.clear();
+		ticks = 0;
+		eventsProcessed = 0;
+		entitiesRun = 0;
+		maxEntitiesRunPerTick = 0;
+		logicalProcesses = 1;
+		windows = 0;
+		lookahead = 0;
+		parallelEfficiency = 0;
+		clock = 0;
+		running = false;
+	}
+
+	// Public access methods
+
+	/**
+	 * Get the current simulation time.
+	 * 
+	 * @return the simulation time
+	 */
+	public double clock() {
+		return clock;
+	}
+
+	/**
+	 * Get the number of clock ticks run since the simulation was initialised.
+	 * 
+	 * @return the number of clock ticks
+	 */
+	public long getNumberOfTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Enables or disables the recycling of events. When it is enabled, the events delivered to the
+	 * entities during a clock tick are returned to a pool once all the entities of the tick have
+	 * run, and are reused by later sends. Entities must then not keep a reference to an event, nor
+	 * send the event itself as the data of another event, after processing it; the data carried by
+	 * the event is not affected. This setting is kept across {@link #initialize()}.
+	 * 
+	 * @param pooling <tt>true</tt> to recycle the events
+	 */
+	public void setEventPooling(boolean pooling) {
+		eventPooling = pooling;
+		if (!pooling) {
+			eventPool.clear();
+			payloadPool.clear();
+		}
+	}
+
+	/**
+	 * Checks whether the events are recycled.
+	 * 
+	 * @return <tt>true</tt> if the events are recycled
+	 * @see #setEventPooling(boolean)
+	 */
+	public boolean isEventPooling() {
+		return eventPooling;
+	}
+
+	/**
+	 * Sets the number of threads running the simulation. With more than one thread, the entities
+	 * that declare themselves isolated, such as the datacenters, are run in parallel, each in a
+	 * logical process of its own; all the other entities form the main logical process. The
+	 * simulation advances by time windows as long as the smallest network delay between two
+	 * logical processes, the lookahead: no event sent during a window can reach another logical
+	 * process before the window ends, so each logical process runs the window on its own. The
+	 * main logical process runs first, since it may stop the simulation. At the end of a window,
+	 * the events sent to other logical processes and the {@link Log} output are merged in the order
+	 * of a sequential run, so the results are the same as those of a sequential run.
+	 * <p>
+	 * The simulation is run sequentially when there is no isolated entity, when the network
+	 * topology does not map every isolated entity or gives a zero delay, when the events of the
+	 * future queue create entities, or when a termination time or a pause is set. During a
+	 * parallel run, the entities cannot be created, the simulation cannot be paused or terminated
+	 * at a given time, and an entity only sees the pending events it sent to its own logical
+	 * process when cancelling events. The state shared by the entities of several logical
+	 * processes is updated through {@link #updateShared(Runnable)}. This setting is kept across
+	 * {@link #initialize()}.
+	 * 
+	 * @param threads the number of threads; 1 runs the simulation sequentially
+	 * @see SimEntity#isIsolated()
+	 */
+	public void setParallelism(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be positive.");
+		}
+		parallelism = threads;
+	}
+
+	/**
+	 * Gets the number of threads running the simulation.
+	 * 
+	 * @return the number of threads
+	 * @see #setParallelism(int)
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Gets the number of logical processes of the last run.
+	 * 
+	 * @return the number of logical processes, 1 if the simulation has been run sequentially
+	 */
+	public int getNumberOfLogicalProcesses() {
+		return logicalProcesses;
+	}
+
+	/**
+	 * Gets the number of time windows of the last parallel run.
+	 * 
+	 * @return the number of time windows, 0 if the simulation has been run sequentially
+	 */
+	public long getNumberOfWindows() {
+		return windows;
+	}
+
+	/**
+	 * Gets the lookahead of the last parallel run, i.e. the length of its time windows.
+	 * 
+	 * @return the lookahead, 0 if the simulation has been run sequentially
+	 */
+	public double getLookahead() {
+		return lookahead;
+	}
+
+	/**
+	 * Gets the parallel efficiency of the last parallel run: the time the logical processes spent
+	 * running their windows, over the wall time of the run times the number of threads that could
+	 * run them. The main logical process running alone at the start of each window and the merges
+	 * at its end lower it. This is not a speedup over a sequential run, which has to be measured
+	 * by running the simulation both ways.
+	 * 
+	 * @return the parallel efficiency, between 0 and 1; 0 if the simulation has been run
+	 *         sequentially
+	 */
+	public double getParallelEfficiency() {
+		return parallelEfficiency;
+	}
+
+	/**
+	 * Get the number of events processed since the simulation was initialised.
+	 * 
+	 * @return the number of events processed
+	 */
+	public long getNumberOfEventsProcessed() {
+		return eventsProcessed;
+	}
+
+	/**
+	 * Get the number of entities run since the simulation was initialised, summed over all the clock
+	 * ticks. Only the entities woken by an event, by the end of a hold or by the simulation start are
+	 * run in a clock tick.
+	 * 
+	 * @return the number of entities run
+	 */
+	public long getNumberOfEntitiesRun() {
+		return entitiesRun;
+	}
+
+	/**
+	 * Get the largest number of entities run in a single clock tick.
+	 * 
+	 * @return the largest number of entities run per clock tick
+	 */
+	public int getMaxEntitiesRunPerTick() {
+		return maxEntitiesRunPerTick;
+	}
+
+	/**
+	 * Get the current number of entities in the simulation.
+	 * 
+	 * @return The number of entities
+	 */
+	public int getNumEntities() {
+		return entities.size();
+	}
+
+	/**
+	 * Get the entity with a given id.
+	 * 
+	 * @param id the entity's unique id number
+	 * @return The entity, or if it could not be found
+	 */
+	public SimEntity getEntity(int id) {
+		return entities.get(id);
+	}
+
+	/**
+	 * Get the entity with a given name.
+	 * 
+	 * @param name The entity's name
+	 * @return The entity
+	 */
+	public SimEntity getEntity(String name) {
+		return entitiesByName.get(name);
+	}
+
+	/**
+	 * Get the id of an entity with a given name.
+	 * 
+	 * @param name The entity's name
+	 * @return The entity's unique id number
+	 */
+	public int getEntityId(String name) {
+		SimEntity obj = entitiesByName.get(name);
+		if (obj == null) {
+			return NOT_FOUND;
+		} else {
+			return obj.getId();
+		}
+	}
+
+	/**
+	 * Gets name of the entity given its entity ID.
+	 * 
+	 * @param entityID the entity ID
+	 * @return the Entity name or if this object does not have one
+	 * @pre entityID > 0
+	 * @post $none
+	 */
+	public String getEntityName(int entityID) {
+		try {
+			return getEntity(entityID).getName();
+		} catch (IllegalArgumentException e) {
+			return null;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Gets name of the entity given its entity ID.
+	 * 
+	 * @param entityID the entity ID
+	 * @return the Entity name or if this object does not have one
+	 * @pre entityID > 0
+	 * @post $none
+	 */
+	public String getEntityName(Integer entityID) {
+		if (entityID != null) {
+			return getEntityName(entityID.intValue());
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a list of entities created for the simulation.
+	 * 
+	 * @return the entity iterator
+	 */
+	public List<SimEntity> getEntityList() {
+		// create a new list to prevent the user from changing
+		// the list of entities used by Simulation
+		List<SimEntity> list = new LinkedList<SimEntity>();
+		list.addAll(entities);
+		return list;
+	}
+
+	// Public update methods
+
+	/**
+	 * Add a new entity to the simulation. This is present for compatibility with existing
+	 * simulations since entities are automatically added to the simulation upon instantiation.
+	 * 
+	 * @param e The new entity
+	 */
+	public void addEntity(SimEntity e) {
+		SimEvent evt;
+		if (running) {
+			// Post an event to make this entity
+			evt = newEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
+			enqueue(evt);
+		}
+		if (e.getId() == -1) { // Only add once!
+			int id = entities.size();
+			e.setId(id);
+			entities.add(e);
+			entitiesByName.put(e.getName(), e);
+		}
+	}
+
+	/**
+	 * Internal method used to add a new entity to the simulation when the simulation is running. It
+	 * should <b>not</b> be called from user simulations.
+	 * 
+	 * @param e The new entity
+	 */
+	void addEntityDynamically(SimEntity e) {
+		if (e == null) {
+			throw new IllegalArgumentException("Adding null entity.");
+		} else {
+			printMessage("Adding: " + e.getName());
+		}
+		e.startEntity();
+		runnable.set(e.getId());
+	}
+
+	/**
+	 * Internal method used to run one tick of the simulation. This method should <b>not</b> be
+	 * called in simulations.
+	 * 
+	 * @return true, if successful otherwise
+	 */
+	public boolean runClockTick() {
+		SimEntity ent;
+		boolean queue_empty;
+
+		// Only the entities woken since the last tick can have events to process; they run in
+		// increasing order of id
+		int run = 0;
+		for (int id = runnable.nextSetBit(0); id >= 0; id = runnable.nextSetBit(id + 1)) {
+			runnable.clear(id);
+			ent = entities.get(id);
+			if (ent.getState() == SimEntity.RUNNABLE) {
+				ent.run();
+				run++;
+			}
+		}
+		if (!deliveredEvents.isEmpty()) {
+			for (int i = 0; i < deliveredEvents.size(); i++) {
+				releaseEvent(deliveredEvents.get(i));
+			}
+			deliveredEvents.clear();
+		}
+		ticks++;
+		entitiesRun += run;
+		if (run > maxEntitiesRunPerTick) {
+			maxEntitiesRunPerTick = run;
+		}
+				
+		// If there are more future events then deal with them
+		if (future.size() > 0) {
+			queue_empty = false;
+
+			// Takes the first event and all the next events at the same time
+			eventsProcessed += future.pollFirstBatch(currentEvents);
+			for (int i = 0; i < currentEvents.size(); i++) {
+				pending.remove(currentEvents.get(i));
+			}
+			for (int i = 0; i < currentEvents.size(); i++) {
+				processEvent(currentEvents.get(i));
+			}
+			currentEvents.clear();
+
+		} else {
+			queue_empty = true;
+			running = false;
+			printMessage("Simulation: No more future events");
+		}
+
+		return queue_empty;
+	}
+
+	/**
+	 * Internal method used to stop the simulation. This method should <b>not</b> be used directly.
+	 */
+	public void runStop() {
+		printMessage("Simulation completed.");
+	}
+
+	/**
+	 * Used to hold an entity for some time.
+	 * 
+	 * @param src the src
+	 * @param delay the delay
+	 */
+	public void hold(int src, long delay) {
+		SimEvent e = newEvent(SimEvent.HOLD_DONE, clock + delay, src, -1, -1, null);
+		enqueue(e);
+		entities.get(src).setState(SimEntity.HOLDING);
+	}
+
+	/**
+	 * Used to pause an entity for some time.
+	 * 
+	 * @param src the src
+	 * @param delay the delay
+	 */
+	public void pause(int src, double delay) {
+		SimEvent e = newEvent(SimEvent.HOLD_DONE, clock + delay, src, -1, -1, null);
+		enqueue(e);
+		entities.get(src).setState(SimEntity.HOLDING);
+	}
+
+	/**
+	 * Used to send an event from one entity to another.
+	 * 
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 */
+	public void send(int src, int dest, double delay, int tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
+		enqueue(e);
+	}
+
+	/**
+	 * Used to send three ints from one entity to another, such as the entity id, object id and
+	 * result of an acknowledgement, without allocating an array.
+	 * 
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data0 the first int
+	 * @param data1 the second int
+	 * @param data2 the third int
+	 * @see SimEvent#getIntData(int)
+	 */
+	public void sendInts(int src, int dest, double delay, int tag, int data0, int data1, int data2) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, clock + delay, src, dest, tag, null);
+		newPayload(e).setInts(data0, data1, data2);
+		enqueue(e);
+	}
+
+	/**
+	 * Used to send a long from one entity to another without boxing it.
+	 * 
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the long
+	 * @see SimEvent#getLongData()
+	 */
+	public void sendLong(int src, int dest, double delay, int tag, long data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, clock + delay, src, dest, tag, null);
+		newPayload(e).setLong(data);
+		enqueue(e);
+	}
+
+	/**
+	 * Used to send a double from one entity to another without boxing it.
+	 * 
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the double
+	 * @see SimEvent#getDoubleData()
+	 */
+	public void sendDouble(int src, int dest, double delay, int tag, double data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, clock + delay, src, dest, tag, null);
+		newPayload(e).setDouble(data);
+		enqueue(e);
+	}
+
+	/**
+	 * Used to send an event from one entity to another, with priority in the queue.
+	 * 
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 */
+	public void sendFirst(int src, int dest, double delay, int tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
+		enqueueFirst(e);
+	}
+
+	/**
+	 * Sets an entity's state to be waiting. The predicate used to wait for an event is now passed
+	 * to Sim_system. Only events that satisfy the predicate will be passed to the entity. This is
+	 * done to avoid unnecessary context switches.
+	 * 
+	 * @param src the src
+	 * @param p the p
+	 */
+	public void wait(int src, Predicate p) {
+		entities.get(src).setState(SimEntity.WAITING);
+		if (p != CloudSim.SIM_ANY) {
+			// If a predicate has been used store it in order to check it
+			waitPredicates.put(src, p);
+		}
+	}
+
+	/**
+	 * Checks if events for a specific entity are present in the deferred event queue.
+	 * 
+	 * @param d the d
+	 * @param p the p
+	 * @return the int
+	 */
+	public int waiting(int d, Predicate p) {
+		return deferred.count(d, p);
+	}
+
+	/**
+	 * Selects an event matching a predicate.
+	 * 
+	 * @param src the src
+	 * @param p the p
+	 * @return the sim event, or <tt>null</tt> if no deferred event matches
+	 */
+	public SimEvent select(int src, Predicate p) {
+		SimEvent ev = deferred.poll(src, p);
+		if (ev != null && eventPooling) {
+			deliveredEvents.add(ev);
+		}
+		return ev;
+	}
+
+	/**
+	 * Find first deferred event matching a predicate.
+	 * 
+	 * @param src the src
+	 * @param p the p
+	 * @return the sim event, or <tt>null</tt> if no deferred event matches
+	 */
+	public SimEvent findFirstDeferred(int src, Predicate p) {
+		return deferred.first(src, p);
+	}
+
+	/**
+	 * Removes an event from the event queue. Only the pending events of the source are searched.
+	 * 
+	 * @param src the src
+	 * @param p the p
+	 * @return the sim event
+	 */
+	public SimEvent cancel(int src, Predicate p) {
+		SimEvent first = null;
+		if (src < 0) {
+			Iterator<SimEvent> iter = future.iterator();
+			while (iter.hasNext()) {
+				SimEvent ev = iter.next();
+				if (ev.getSource() == src && p.match(ev) && (first == null || ev.compareTo(first) < 0)) {
+					first = ev;
+				}
+			}
+		} else {
+			int[] tags = getIndexedTags(src, p);
+			for (int i = 0; i < tags.length; i++) {
+				for (SimEvent ev = pending.first(src, tags[i]); ev != null; ev = ev.getIndexNext()) {
+					if (p.match(ev) && (first == null || ev.compareTo(first) < 0)) {
+						first = ev;
+					}
+				}
+			}
+		}
+
+		if (first != null) {
+			unqueue(first);
+			pending.remove(first);
+		}
+		return first;
+	}
+
+	/**
+	 * Removes all events that match a given predicate from the future event queue returns true if
+	 * at least one event has been cancelled; false otherwise. Only the pending events of the source
+	 * are searched and, for a {@link PredicateType}, only those with the selected tags, so the cost
+	 * does not depend on the size of the future queue.
+	 * 
+	 * @param src the src
+	 * @param p the p
+	 * @return true, if successful
+	 */
+	public boolean cancelAll(int src, Predicate p) {
+		List<SimEvent> toRemove = new ArrayList<SimEvent>();
+		if (src < 0) {
+			Iterator<SimEvent> iter = future.iterator();
+			while (iter.hasNext()) {
+				SimEvent ev = iter.next();
+				if (ev.getSource() == src && p.match(ev)) {
+					toRemove.add(ev);
+				}
+			}
+		} else {
+			int[] tags = getIndexedTags(src, p);
+			for (int i = 0; i < tags.length; i++) {
+				for (SimEvent ev = pending.first(src, tags[i]); ev != null; ev = ev.getIndexNext()) {
+					if (p.match(ev)) {
+						toRemove.add(ev);
+					}
+				}
+			}
+		}
+		if (toRemove.isEmpty()) {
+			return false;
+		}
+
+		boolean removed = false;
+		if (process == null) {
+			removed = future.removeAll(toRemove);
+		} else {
+			for (SimEvent ev : toRemove) {
+				removed |= unqueue(ev);
+			}
+		}
+		for (SimEvent ev : toRemove) {
+			pending.remove(ev);
+			releaseEvent(ev);
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes all the pending events sent by an entity with a given tag, then sends a new one. This
+	 * replaces the idiom of cancelling and scheduling again a timer, such as the periodic update
+	 * of a datacenter or the switching delay of a switch. When a single event is pending it is
+	 * moved to its new time rather than replaced.
+	 * 
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 */
+	public void reschedule(int src, int dest, double delay, int tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+		if (src < 0) {
+			cancelAll(src, new PredicateType(tag));
+			send(src, dest, delay, tag, data);
+			return;
+		}
+
+		SimEvent e = pending.first(src, tag);
+		if (e != null && e.getIndexNext() == null && e.getType() == SimEvent.SEND && unqueue(e)) {
+			pending.remove(e);
+			e.retime(clock + delay, dest, data);
+			enqueue(e);
+			return;
+		}
+
+		while (e != null) {
+			SimEvent next = e.getIndexNext();
+			unqueue(e);
+			pending.remove(e);
+			releaseEvent(e);
+			e = next;
+		}
+		send(src, dest, delay, tag, data);
+	}
+
+	/**
+	 * Gets the tags whose indexed events have to be searched for a predicate: the tags of a
+	 * {@link PredicateType}, all the tags used by the source otherwise.
+	 */
+	private int[] getIndexedTags(int src, Predicate p) {
+		if (p instanceof PredicateType) {
+			return ((PredicateType) p).getTags();
+		}
+		int[] tags = pending.getTags(src);
+		int count = pending.getTagCount(src);
+		return count == tags.length ? tags.clone() : Arrays.copyOf(tags, count);
+	}
+
+	/**
+	 * Puts an event in the future queue.
+	 */
+	private void enqueue(SimEvent e) {
+		if (process != null) {
+			enqueueInProcess(e, false);
+			return;
+		}
+		future.addEvent(e);
+		pending.add(e);
+	}
+
+	/**
+	 * Puts an event in the future queue, before the events at the same time.
+	 */
+	private void enqueueFirst(SimEvent e) {
+		if (process != null) {
+			enqueueInProcess(e, true);
+			return;
+		}
+		future.addEventFirst(e);
+		pending.add(e);
+	}
+
+	/**
+	 * Takes an event out of the future queue, or out of the outgoing events of the logical process.
+	 * 
+	 * @return true if the event was pending
+	 */
+	private boolean unqueue(SimEvent e) {
+		if (process != null && process.removeOutgoing(e)) {
+			return true;
+		}
+		return future.remove(e);
+	}
+
+	/**
+	 * Creates an event, reusing a pooled one when the events are recycled.
+	 */
+	private SimEvent newEvent(int type, double time, int src, int dest, int tag, Object data) {
+		SimEvent e = eventPool.pollLast();
+		if (e == null) {
+			return new SimEvent(type, time, src, dest, tag, data);
+		}
+		e.reset(type, time, src, dest, tag, data);
+		return e;
+	}
+
+	/**
+	 * Returns an event that is no longer referenced by the simulation to the pool. Nothing happens
+	 * unless the events are recycled.
+	 * 
+	 * @param e the event
+	 * @see #setEventPooling(boolean)
+	 */
+	void releaseEvent(SimEvent e) {
+		if (eventPooling && eventPool.size() < MAX_EVENT_POOL_SIZE) {
+			SimEvent.Payload holder = e.release();
+			if (holder != null) {
+				payloadPool.addLast(holder);
+			}
+			eventPool.addLast(e);
+		}
+	}
+
+	/**
+	 * Gives an event a holder for its primitive payload, reusing a pooled one when the events are
+	 * recycled.
+	 */
+	private SimEvent.Payload newPayload(SimEvent e) {
+		SimEvent.Payload holder = payloadPool.pollLast();
+		if (holder == null) {
+			holder = new SimEvent.Payload();
+		}
+		e.setPayload(holder);
+		return holder;
+	}
+
+	//
+	// Private internal methods
+	//
+
+	/**
+	 * Processes an event.
+	 * 
+	 * @param e the e
+	 */
+	private void processEvent(SimEvent e) {
+		int dest, src;
+		SimEntity dest_ent;
+		// Update the system's clock
+		if (e.eventTime() < clock) {
+			throw new IllegalArgumentException("Past event detected.");
+		}
+		clock = e.eventTime();
+
+		// Ok now process it
+		switch (e.getType()) {
+			case SimEvent.ENULL:
+				throw new IllegalArgumentException("Event has a null type.");
+
+			case SimEvent.CREATE:
+				SimEntity newe = (SimEntity) e.getData();
+				addEntityDynamically(newe);
+				releaseEvent(e);
+				break;
+
+			case SimEvent.SEND:
+				// Check for matching wait
+				dest = e.getDestination();
+				if (dest < 0) {
+					throw new IllegalArgumentException("Attempt to send to a null entity detected.");
+				} else {
+					int tag = e.getTag();
+					dest_ent = entities.get(dest);
+					if (dest_ent.getState() == SimEntity.WAITING) {
+						Integer destObj = Integer.valueOf(dest);
+						Predicate p = waitPredicates.get(destObj);
+						if ((p == null) || (tag == 9999) || (p.match(e))) {
+							dest_ent.setEventBuffer(e);
+							if (eventPooling) {
+								deliveredEvents.add(e);
+							}
+							dest_ent.setState(SimEntity.RUNNABLE);
+							waitPredicates.remove(destObj);
+							runnable.set(dest);
+						} else {
+							deferred.addEvent(e);
+						}
+					} else {
+						deferred.addEvent(e);
+						if (dest_ent.getState() == SimEntity.RUNNABLE) {
+							runnable.set(dest);
+						}
+					}
+				}
+				break;
+
+			case SimEvent.HOLD_DONE:
+				src = e.getSource();
+				if (src < 0) {
+					throw new IllegalArgumentException("Null entity holding.");
+				} else {
+					entities.get(src).setState(SimEntity.RUNNABLE);
+					runnable.set(src);
+				}
+				releaseEvent(e);
+				break;
+
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Internal method used to start the simulation. This method should <b>not</b> be used by user
+	 * simulations.
+	 */
+	public void runStart() {
+		running = true;
+		// Start all the entities
+		for (SimEntity ent : entities) {
+			ent.startEntity();
+		}
+		runnable.set(0, entities.size());
+
+		printMessage("Entities started.");
+	}
+
+	/**
+	 * Check if the simulation is still running. This method should be used by entities to check if
+	 * they should continue executing.
+	 * 
+	 * @return if the simulation is still running, otherwise
+	 */
+	public boolean running() {
+		return running;
+	}
+
+	/**
+	 * This method is called if one wants to pause the simulation.
+	 * 
+	 * @return true, if successful otherwise.
+	 */
+	public boolean pauseSimulation() {
+		checkSequential("pauseSimulation");
+		paused = true;
+		return paused;
+	}
+
+	/**
+	 * This method is called if one wants to pause the simulation at a given time.
+	 * 
+	 * @param time the time at which the simulation has to be paused
+	 * @return true, if successful otherwise.
+	 */
+	public boolean pauseSimulation(long time) {
+		checkSequential("pauseSimulation");
+		if (time <= clock) {
+			return false;
+		} else {
+			pauseAt = time;
+		}
+		return true;
+	}
+
+	/**
+	 * This method is called if one wants to resume the simulation that has previously been paused.
+	 * 
+	 * @return if the simulation has been restarted or or otherwise.
+	 */
+	public boolean resumeSimulation() {
+		paused = false;
+
+		if (pauseAt <= clock) {
+			pauseAt = -1;
+		}
+
+		return !paused;
+	}
+
+	/**
+	 * Start the simulation running. This should be called after all the entities have been setup
+	 * and added, and their ports linked.
+	 * 
+	 * @return the double last clock value
+	 */
+	public double run() {
+		// the entities reach the simulation through the static CloudSim methods, so this context
+		// has to be the current one while it runs
+		if (CloudSim.getContext() != this) {
+			SimulationContext previous = CloudSim.bindContext(this);
+			try {
+				return run();
+			} finally {
+				CloudSim.bindContext(previous);
+			}
+		}
+
+		if (!running) {
+			runStart();
+		}
+		boolean parallel = runParallel();
+		while (!parallel) {
+			if (runClockTick() || abruptTerminate) {
+				break;
+			}
+
+			if (checkpointFile != null && future.size() > 0 && future.first().eventTime() > checkpointAt) {
+				File file = checkpointFile;
+				try {
+					checkpoint(file);
+				} catch (IOException e) {
+					throw new IllegalStateException("The checkpoint could not be written to " + file, e);
+				}
+			}
+
+			// this block allows termination of simulation at a specific time
+			if (terminateAt > 0.0 && clock >= terminateAt) {
+				terminateSimulation();
+				clock = terminateAt;
+				break;
+			}
+
+			if (pauseAt != -1
+					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.first().eventTime())
+							|| future.size() == 0 && pauseAt <= clock)) {
+				pauseSimulation();
+				clock = pauseAt;
+			}
+
+			while (paused) {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		double clock = clock();
+
+		finishSimulation();
+		runStop();
+
+		return clock;
+	}
+
+	// ======== CHECKPOINTS ===============//
+
+	/** The file a checkpoint has to be written to during the run, or null. */
+	private File checkpointFile;
+
+	/** The time of the checkpoint to write during the run. */
+	private double checkpointAt = -1;
+
+	/**
+	 * Asks for a checkpoint of the simulation to be written to a file during the next run, at the
+	 * end of the first clock tick after which the next pending event is later than the given time.
+	 * The run goes on after the checkpoint is written. A checkpoint holds the whole state of the simulation: the clock, the
+	 * event queues, the entities with everything they reference, and the attributes of the context,
+	 * where the other modules keep their state. Everything reachable from them must therefore be
+	 * serializable. The static state kept outside of the context, such as the {@link Log} settings,
+	 * is not part of a checkpoint.
+	 * <p>
+	 * A checkpoint is restored with {@link #restore(File)}, and the restored context goes on with
+	 * the run when {@link #startSimulation()} is called. It can be restored several times, for
+	 * instance to try several parameters from the same state. A checkpoint can only be read by the
+	 * same version of the classes it was written by. The simulation is run sequentially when a
+	 * checkpoint is asked for.
+	 * 
+	 * @param time the simulation time of the checkpoint
+	 * @param file the checkpoint file, or <tt>null</tt> to cancel a previous request
+	 * @see CloudSim#restoreSimulation(File)
+	 */
+	public void checkpointAt(double time, File file) {
+		checkpointAt = time;
+		checkpointFile = file;
+	}
+
+	/**
+	 * Writes a checkpoint of the simulation to a file now. It must not be called while the
+	 * entities are run, i.e. from an entity; it is meant to save a simulation that has been set up
+	 * but not started yet. The checkpoint is compressed.
+	 * 
+	 * @param file the checkpoint file
+	 * @throws IOException if the checkpoint cannot be written
+	 * @see #checkpointAt(double, File)
+	 */
+	public void checkpoint(File file) throws IOException {
+		checkpointFile = null;
+		checkpointAt = -1;
+		eventPool.clear();
+		payloadPool.clear();
+		ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new GZIPOutputStream(
+				new FileOutputStream(file))));
+		boolean written = false;
+		try {
+			out.writeObject(this);
+			written = true;
+		} finally {
+			out.close();
+			if (!written) {
+				file.delete();
+			}
+		}
+		printMessage("Simulation: Checkpoint written to " + file + " at " + clock);
+	}
+
+	/**
+	 * Restores a simulation from a checkpoint. The restored context is not bound to any thread.
+	 * 
+	 * @param file the checkpoint file
+	 * @return the context of the restored simulation
+	 * @throws IOException if the checkpoint cannot be read
+	 * @see #checkpointAt(double, File)
+	 */
+	public static SimulationContext restore(File file) throws IOException {
+		ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new GZIPInputStream(
+				new FileInputStream(file))));
+		try {
+			return (SimulationContext) in.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("The checkpoint " + file + " refers to an unknown class", e);
+		} finally {
+			in.close();
+		}
+	}
+
+	// ======== PARALLEL RUN ===============//
+
+	/**
+	 * Runs the simulation in parallel until it ends, if it has been asked for and the simulation
+	 * allows it.
+	 * 
+	 * @return false if the simulation has to be run sequentially
+	 * @see #setParallelism(int)
+	 */
+	private boolean runParallel() {
+		if (parallelism <= 1 || process != null || terminateAt > 0 || pauseAt != -1 || paused
+				|| checkpointFile != null) {
+			return false;
+		}
+
+		int[] partition = new int[entities.size()];
+		int count = 1;
+		for (SimEntity ent : entities) {
+			if (ent.isIsolated()) {
+				partition[ent.getId()] = count++;
+			}
+		}
+		if (count == 1) {
+			return false;
+		}
+		double lookahead = getLookahead(partition);
+		if (lookahead <= 0) {
+			return false;
+		}
+		Iterator<SimEvent> iter = future.iterator();
+		while (iter.hasNext()) {
+			if (iter.next().getType() == SimEvent.CREATE) {
+				return false;
+			}
+		}
+
+		this.lookahead = lookahead;
+		logicalProcesses = count;
+		lpOf = partition;
+		LogicalProcess[] lps = new LogicalProcess[count];
+		for (int i = 0; i < count; i++) {
+			lps[i] = new LogicalProcess(i, this);
+			lps[i].context.lpOf = partition;
+		}
+		split(lps);
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, count - 1),
+				new ThreadFactory() {
+
+					private int threads = 0;
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "CloudSim-LP-" + (++threads));
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		long started = System.nanoTime();
+		try {
+			while (true) {
+				double start = Double.POSITIVE_INFINITY;
+				boolean woken = false;
+				for (LogicalProcess lp : lps) {
+					SimEvent first = lp.context.future.first();
+					if (first != null && first.eventTime() < start) {
+						start = first.eventTime();
+					}
+					woken |= !lp.context.runnable.isEmpty();
+				}
+				if (start == Double.POSITIVE_INFINITY) {
+					if (!woken) {
+						ticks++;
+						running = false;
+						printMessage("Simulation: No more future events");
+						break;
+					}
+					start = clock;
+				}
+				final double end = start + lookahead;
+				windows++;
+				for (LogicalProcess lp : lps) {
+					lp.beginWindow();
+				}
+
+				// the main logical process runs first, since its entities may stop the simulation
+				runWindow(lps[0], end, false, 0, 0);
+				final boolean stopped = lps[0].context.abruptTerminate;
+				final double stopTime = lps[0].context.lastBatchTime;
+				final int stopRound = lps[0].context.lastBatchRound;
+
+				tasks.clear();
+				for (int i = 1; i < count; i++) {
+					final LogicalProcess lp = lps[i];
+					SimEvent first = lp.context.future.first();
+					if (!lp.context.runnable.isEmpty() || first != null && first.eventTime() < end) {
+						tasks.add(new Callable<Void>() {
+
+							@Override
+							public Void call() {
+								runWindow(lp, end, stopped, stopTime, stopRound);
+								return null;
+							}
+						});
+					}
+				}
+				if (tasks.size() == 1) {
+					tasks.get(0).call();
+				} else if (!tasks.isEmpty()) {
+					for (Future<Void> result : executor.invokeAll(tasks)) {
+						result.get();
+					}
+				}
+				for (int i = 1; i < count; i++) {
+					if (lps[i].context.abruptTerminate) {
+						throw new IllegalStateException(
+								"Only the entities of the main logical process can terminate a parallel run.");
+					}
+				}
+
+				LogicalProcess.commitLog(lps, Log.getOutput());
+				LogicalProcess.commitUpdates(lps);
+				LogicalProcess.commitEvents(lps, partition);
+				long[] stats = LogicalProcess.commitTicks(lps);
+				ticks += stats[0];
+				maxEntitiesRunPerTick = (int) Math.max(maxEntitiesRunPerTick, stats[1]);
+
+				if (stopped) {
+					abruptTerminate = true;
+					runNextBatch(lps);
+					LogicalProcess.commitUpdates(lps);
+					break;
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		} finally {
+			executor.shutdownNow();
+			merge(lps);
+			long busy = 0;
+			for (LogicalProcess lp : lps) {
+				busy += lp.busyTime;
+			}
+			int threads = Math.min(parallelism, count - 1);
+			parallelEfficiency = (double) busy / threads / Math.max(1, System.nanoTime() - started);
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the lookahead of a partition of the entities: the smallest network delay between an
+	 * isolated entity and an entity of another logical process. The events exchanged with entities
+	 * that are not mapped to the network topology are not delayed, so every isolated entity has to
+	 * be mapped.
+	 * 
+	 * @param partition the logical process of each entity
+	 * @return the lookahead, 0 if there is none
+	 */
+	private double getLookahead(int[] partition) {
+		if (!NetworkTopology.isNetworkEnabled()) {
+			return 0;
+		}
+		double min = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < partition.length; i++) {
+			if (partition[i] == 0) {
+				continue;
+			}
+			if (!NetworkTopology.isMapped(i)) {
+				return 0;
+			}
+			for (int j = 0; j < partition.length; j++) {
+				if (partition[j] != partition[i] && NetworkTopology.isMapped(j)) {
+					min = Math.min(min, Math.min(NetworkTopology.getDelay(i, j), NetworkTopology.getDelay(j, i)));
+				}
+			}
+		}
+		return min == Double.POSITIVE_INFINITY ? 0 : min;
+	}
+
+	/**
+	 * Hands the pending events, the wait predicates and the woken entities over to the logical
+	 * processes of their entities.
+	 */
+	private void split(LogicalProcess[] lps) {
+		Iterator<SimEvent> iter = future.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			ev.setQueueIndex(-1);
+			int dest = ev.getType() == SimEvent.HOLD_DONE ? ev.getSource() : ev.getDestination();
+			lps[dest < 0 ? 0 : lpOf[dest]].context.enqueueCommitted(ev, false);
+		}
+		future.clear();
+		pending = new PendingEventIndex();
+
+		iter = deferred.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			lps[lpOf[ev.getDestination()]].context.deferred.addEvent(ev);
+		}
+		deferred.clear();
+
+		for (Map.Entry<Integer, Predicate> entry : waitPredicates.entrySet()) {
+			lps[lpOf[entry.getKey()]].context.waitPredicates.put(entry.getKey(), entry.getValue());
+		}
+		waitPredicates.clear();
+
+		for (int id = runnable.nextSetBit(0); id >= 0; id = runnable.nextSetBit(id + 1)) {
+			lps[lpOf[id]].context.runnable.set(id);
+		}
+		runnable.clear();
+
+		for (SimEntity ent : entities) {
+			ent.setSimulationContext(lps[lpOf[ent.getId()]].context);
+		}
+	}
+
+	/**
+	 * Gives the state of the logical processes back to this context at the end of a parallel run.
+	 * The events still in their future queues are dropped, as the simulation is over.
+	 */
+	private void merge(LogicalProcess[] lps) {
+		for (LogicalProcess lp : lps) {
+			SimulationContext context = lp.context;
+			Iterator<SimEvent> iter = context.deferred.iterator();
+			while (iter.hasNext()) {
+				deferred.addEvent(iter.next());
+			}
+			waitPredicates.putAll(context.waitPredicates);
+			runnable.or(context.runnable);
+			eventsProcessed += context.eventsProcessed;
+			entitiesRun += context.entitiesRun;
+			clock = Math.max(clock, context.clock);
+		}
+		for (SimEntity ent : entities) {
+			ent.setSimulationContext(this);
+		}
+		lpOf = null;
+	}
+
+	/**
+	 * Runs a time window of a logical process in the calling thread.
+	 */
+	private static void runWindow(LogicalProcess lp, double end, boolean bounded, double boundTime,
+			int boundRound) {
+		SimulationContext previous = CloudSim.bindContext(lp.context);
+		OutputStream previousLog = Log.getThreadOutput();
+		Log.setThreadOutput(lp.getLog());
+		long started = System.nanoTime();
+		try {
+			lp.context.runProcessWindow(end, bounded, boundTime, boundRound);
+		} finally {
+			lp.busyTime += System.nanoTime() - started;
+			Log.setThreadOutput(previousLog);
+			CloudSim.bindContext(previous);
+		}
+	}
+
+	/**
+	 * Runs the entities of a logical process and the batches of events of its future queue until
+	 * the end of a time window. When the main logical process has stopped the simulation, the
+	 * batches up to the one after which it stopped are run instead.
+	 * 
+	 * @param end the end of the window
+	 * @param bounded whether the simulation has been stopped
+	 * @param boundTime the time of the last batch to run, when the simulation has been stopped
+	 * @param boundRound the round of the last batch to run, when the simulation has been stopped
+	 */
+	private void runProcessWindow(double end, boolean bounded, double boundTime, int boundRound) {
+		windowEnd = end;
+		while (true) {
+			int run = 0;
+			for (int id = runnable.nextSetBit(0); id >= 0; id = runnable.nextSetBit(id + 1)) {
+				runnable.clear(id);
+				SimEntity ent = entities.get(id);
+				if (ent.getState() == SimEntity.RUNNABLE) {
+					runningEntity = id;
+					process.startSegment(lastBatchTime, lastBatchRound, id);
+					ent.run();
+					run++;
+				}
+			}
+			runningEntity = -1;
+			if (run > 0) {
+				process.addTick(lastBatchTime, lastBatchRound, false, run);
+				entitiesRun += run;
+			}
+			if (abruptTerminate) {
+				return;
+			}
+
+			SimEvent first = future.first();
+			if (first == null) {
+				return;
+			}
+			double time = first.eventTime();
+			int round = time == lastBatchTime ? lastBatchRound + 1 : 0;
+			if (bounded ? time > boundTime || time == boundTime && round > boundRound : time >= end) {
+				return;
+			}
+			runBatch(time, round);
+		}
+	}
+
+	/**
+	 * Takes the first batch of events from the future queue of a logical process and processes it.
+	 */
+	private void runBatch(double time, int round) {
+		lastBatchTime = time;
+		lastBatchRound = round;
+		process.addTick(time, round, true, 0);
+		eventsProcessed += future.pollFirstBatch(currentEvents);
+		for (int i = 0; i < currentEvents.size(); i++) {
+			pending.remove(currentEvents.get(i));
+		}
+		for (int i = 0; i < currentEvents.size(); i++) {
+			processEvent(currentEvents.get(i));
+		}
+		currentEvents.clear();
+	}
+
+	/**
+	 * Processes the batch of events that follows the stop of a parallel run, as the sequential run
+	 * does in the clock tick during which the simulation is stopped.
+	 */
+	private void runNextBatch(LogicalProcess[] lps) {
+		double time = Double.POSITIVE_INFINITY;
+		int round = 0;
+		for (LogicalProcess lp : lps) {
+			SimEvent first = lp.context.future.first();
+			if (first != null) {
+				double t = first.eventTime();
+				int r = t == lp.context.lastBatchTime ? lp.context.lastBatchRound + 1 : 0;
+				if (t < time || t == time && r < round) {
+					time = t;
+					round = r;
+				}
+			}
+		}
+		ticks++;
+		if (time == Double.POSITIVE_INFINITY) {
+			running = false;
+			printMessage("Simulation: No more future events");
+			return;
+		}
+		for (LogicalProcess lp : lps) {
+			SimEvent first = lp.context.future.first();
+			if (first != null && first.eventTime() == time
+					&& (time == lp.context.lastBatchTime ? lp.context.lastBatchRound + 1 : 0) == round) {
+				lp.context.runBatch(time, round);
+			}
+		}
+	}
+
+	/**
+	 * Puts an event sent by an entity of a logical process in the future queue, or keeps it until
+	 * the end of the window if it is sent to another logical process or beyond the window.
+	 */
+	private void enqueueInProcess(SimEvent e, boolean first) {
+		if (e.getType() == SimEvent.CREATE) {
+			throw new IllegalStateException("Entities cannot be created during a parallel run.");
+		}
+		int dest = e.getType() == SimEvent.HOLD_DONE ? e.getSource() : e.getDestination();
+		boolean local = dest < 0 || lpOf[dest] == process.index;
+		if (e.eventTime() < windowEnd) {
+			if (!local) {
+				throw new IllegalStateException("Event " + e.getTag() + " from entity " + e.getSource()
+						+ " to entity " + dest + " is not delayed by the lookahead of the parallel run.");
+			}
+			if (first) {
+				future.addEventFirst(e);
+			} else {
+				future.addEvent(e);
+			}
+		} else {
+			process.addOutgoing(e, first, lastBatchTime, lastBatchRound, runningEntity);
+		}
+		pending.add(e);
+	}
+
+	/**
+	 * Puts an event kept by a logical process until the end of a window in the future queue.
+	 */
+	void enqueueCommitted(SimEvent e, boolean first) {
+		if (first) {
+			future.addEventFirst(e);
+		} else {
+			future.addEvent(e);
+		}
+		pending.add(e);
+	}
+
+	/**
+	 * Removes an event from the index of the pending events.
+	 */
+	void unindex(SimEvent e) {
+		pending.remove(e);
+	}
+
+	/**
+	 * Checks that an operation is not called during a parallel run.
+	 */
+	private void checkSequential(String operation) {
+		if (process != null) {
+			throw new IllegalStateException(operation + " cannot be called during a parallel run.");
+		}
+	}
+
+	/**
+	 * Internal method that allows the entities to terminate. This method should <b>not</b> be used
+	 * in user simulations.
+	 */
+	public void finishSimulation() {
+		// Allow all entities to exit their body method
+		if (!abruptTerminate) {
+			for (SimEntity ent : entities) {
+				if (ent.getState() != SimEntity.FINISHED) {
+					ent.run();
+				}
+			}
+		}
+
+		for (SimEntity ent : entities) {
+			ent.shutdownEntity();
+		}
+
+		// reset the simulation variables
+		entities = null;
+		entitiesByName = null;
+		future = null;
+		deferred = null;
+		pending = null;
+		runnable = null;
+		clock = 0L;
+		running = false;
+
+		waitPredicates = null;
+		paused = false;
+		pauseAt = -1;
+		abruptTerminate = false;
+	}
+
+	/**
+	 * Abruptally terminate.
+	 */
+	public void abruptallyTerminate() {
+		abruptTerminate = true;
+	}
+
+	/**
+	 * Prints a message about the progress of the simulation.
+	 * 
+	 * @param message the message
+	 */
+	private void printMessage(String message) {
+		Log.printLine(message);
+	}
+
+	/**
+	 * Gets an attribute of this context. Attributes let other modules keep their state per
+	 * simulation context instead of in static fields; they are kept when the context is
+	 * re-initialised.
+	 * 
+	 * @param name the attribute name
+	 * @return the attribute value, or <tt>null</tt> if it is not set
+	 */
+	public Object getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	/**
+	 * Sets an attribute of this context.
+	 * 
+	 * @param name the attribute name
+	 * @param value the attribute value; <tt>null</tt> removes the attribute
+	 */
+	public void setAttribute(String name, Object value) {
+		if (value == null) {
+			attributes.remove(name);
+		} else {
+			attributes.put(name, value);
+		}
+	}
+
+	/**
+	 * Checks whether this context runs a logical process of a parallel run.
+	 * 
+	 * @return true during a parallel run
+	 * @see #updateShared(Runnable)
+	 */
+	public boolean isLogicalProcess() {
+		return process != null;
+	}
+
+	/**
+	 * Updates the state shared by the entities of all the logical processes, such as a catalog kept
+	 * in an attribute. During a parallel run the update is kept until the end of the time window,
+	 * then applied after the updates that come before it in a sequential run, while no logical
+	 * process runs; until then, the logical process that made it has to keep its own view of it.
+	 * Otherwise it is applied at once.
+	 * 
+	 * @param update the update
+	 */
+	public void updateShared(Runnable update) {
+		if (process == null) {
+			update.run();
+		} else {
+			process.addUpdate(update, lastBatchTime, lastBatchRound, runningEntity);
+		}
+	}
+
+	/**
+	 * Checks if is paused.
+	 * 
+	 * @return true, if is paused
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+}
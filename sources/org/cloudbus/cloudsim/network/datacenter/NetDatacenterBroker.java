@@ -23,7 +23,7 @@ import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.distributions.UniformDistr;
-import org.cloudbus.cloudsim.lists.VmList;
+import org.cloudbus.cloudsim.util.IdMap;
 
 /**
  * NetDatacentreBroker represents a broker acting on behalf of Datacenter provider. It hides VM
@@ -36,6 +36,9 @@ import org.cloudbus.cloudsim.lists.VmList;
  */
 public class NetDatacenterBroker extends SimEntity {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	// TODO: remove unnecessary variables
 
 	/** The vm list. */
@@ -363,6 +366,10 @@ public class NetDatacenterBroker extends SimEntity {
 	private void CreateVMs(int datacenterId) {
 		// two VMs per host
 		int numVM = linkDC.getHostList().size() * NetworkConstants.maxhostVM;
+		IdMap<Vm> vmsById = new IdMap<Vm>();
+		for (Vm vm : getVmList()) {
+			vmsById.putIfAbsent(vm.getId(), vm);
+		}
 		for (int i = 0; i < numVM; i++) {
 			int vmid = i;
 			int mips = 1;
@@ -387,7 +394,7 @@ public class NetDatacenterBroker extends SimEntity {
 			// add the VM to the vmList
 			getVmList().add(vm);
 			getVmsToDatacentersMap().put(vmid, datacenterId);
-			getVmsCreatedList().add(VmList.getById(getVmList(), vmid));
+			getVmsCreatedList().add(vmsById.putIfAbsent(vmid, vm));
 		}
 	}
 
@@ -0,0 +1,225 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A map from ids, or from pairs of ids such as (user id, vm id), to objects. The keys are kept as
+ * primitive longs in an open addressing table with linear probing, so a lookup neither boxes the
+ * key nor walks a list. Null values are not allowed.
+ *
+ * @param <T> the type of the values
+ * @since CloudSim Toolkit 3.0
+ */
+public class IdMap<T> implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	private long[] keys;
+
+	private Object[] values;
+
+	private int size;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public IdMap() {
+		keys = new long[16];
+		values = new Object[16];
+	}
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all the entries.
+	 */
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * Gets the value of an id.
+	 *
+	 * @param id the id
+	 * @return the value, or <tt>null</tt> if there is none
+	 */
+	public T get(int id) {
+		return getKey(id & 0xffffffffL);
+	}
+
+	/**
+	 * Gets the value of a pair of ids.
+	 *
+	 * @param first the first id, e.g. the user id
+	 * @param second the second id
+	 * @return the value, or <tt>null</tt> if there is none
+	 */
+	public T get(int first, int second) {
+		return getKey(key(first, second));
+	}
+
+	/**
+	 * Sets the value of an id.
+	 *
+	 * @param id the id
+	 * @param value the value
+	 * @return the previous value, or <tt>null</tt> if there was none
+	 */
+	public T put(int id, T value) {
+		return putKey(id & 0xffffffffL, value);
+	}
+
+	/**
+	 * Sets the value of a pair of ids.
+	 *
+	 * @param first the first id
+	 * @param second the second id
+	 * @param value the value
+	 * @return the previous value, or <tt>null</tt> if there was none
+	 */
+	public T put(int first, int second, T value) {
+		return putKey(key(first, second), value);
+	}
+
+	/**
+	 * Sets the value of an id, unless it already has one.
+	 *
+	 * @param id the id
+	 * @param value the value
+	 * @return the value of the id, which is the given one if there was none
+	 */
+	public T putIfAbsent(int id, T value) {
+		T current = get(id);
+		if (current != null) {
+			return current;
+		}
+		put(id, value);
+		return value;
+	}
+
+	/**
+	 * Removes the value of an id.
+	 *
+	 * @param id the id
+	 * @return the removed value, or <tt>null</tt> if there was none
+	 */
+	public T remove(int id) {
+		return removeKey(id & 0xffffffffL);
+	}
+
+	/**
+	 * Removes the value of a pair of ids.
+	 *
+	 * @param first the first id
+	 * @param second the second id
+	 * @return the removed value, or <tt>null</tt> if there was none
+	 */
+	public T remove(int first, int second) {
+		return removeKey(key(first, second));
+	}
+
+	private static long key(int first, int second) {
+		return ((long) first << 32) | (second & 0xffffffffL);
+	}
+
+	private int slot(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 40) & (keys.length - 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private T getKey(long key) {
+		int mask = keys.length - 1;
+		for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return (T) values[i];
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T putKey(long key, T value) {
+		if (value == null) {
+			throw new IllegalArgumentException("IdMap does not allow null values");
+		}
+		int mask = keys.length - 1;
+		int i = slot(key);
+		for (; values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				T previous = (T) values[i];
+				values[i] = value;
+				return previous;
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size * 2 > keys.length) {
+			grow();
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T removeKey(long key) {
+		int mask = keys.length - 1;
+		int i = slot(key);
+		while (values[i] != null && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		if (values[i] == null) {
+			return null;
+		}
+		T removed = (T) values[i];
+		values[i] = null;
+		size--;
+		// shift back the entries of the same probe sequence
+		for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+			int home = slot(keys[j]);
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				values[j] = null;
+				i = j;
+			}
+		}
+		return removed;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new Object[oldValues.length * 2];
+		int mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldValues[j] != null) {
+				int i = slot(oldKeys[j]);
+				while (values[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+}
@@ -42,6 +42,8 @@ import org.workflowsim.utils.ReplicaCatalog;
  */
 public final class ClusteringEngine extends SimEntity {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The task list
      */
@@ -205,14 +207,12 @@ public final class ClusteringEngine extends SimEntity {
          * WorkflowSim will transfers them when this job is executed
          */
         List<FileItem> fileList = new ArrayList<>();
-        for (FileItem file : list) {
-            /**
-             * To avoid duplicate files
-             */
-            if (file.isRealInputFile(list)) {
-                ReplicaCatalog.addFileToStorage(file.getName(), Parameters.SOURCE);
-                fileList.add(file);
-            }
+        /**
+         * To avoid duplicate files
+         */
+        for (FileItem file : FileItem.getRealInputFiles(list)) {
+            ReplicaCatalog.addFileToStorage(file.getName(), Parameters.SOURCE);
+            fileList.add(file);
         }
         job.setFileList(fileList);
         job.setClassType(ClassType.STAGE_IN.value);
@@ -272,6 +272,11 @@ public final class ClusteringEngine extends SimEntity {
                  * the workflow execution
                  */
                 processDatastaging();
+                /**
+                 * The jobs keep their dependencies and files in a graph
+                 * until a failed job is reclustered
+                 */
+                TaskGraph.attach(getJobList());
                 sendNow(this.workflowEngineId, WorkflowSimTags.JOB_SUBMIT, getJobList());
                 break;
             case CloudSimTags.END_OF_SIMULATION:
@@ -15,7 +15,11 @@
  */
 package org.workflowsim;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.workflowsim.utils.Parameters.FileType;
 
 /**
@@ -29,7 +33,9 @@ import org.workflowsim.utils.Parameters.FileType;
  *
  * @author weiweich
  */
-public class FileItem {
+public class FileItem implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String name;
 
@@ -91,4 +97,29 @@ public class FileItem {
         }
         return false;
     }
+
+    /**
+     * Gets the files of a list that are real input files, in the order of the
+     * list. It gives the same files as isRealInputFile on each file of the
+     * list, but looks up the names of the output files in a set instead of
+     * going through the whole list for each file.
+     *
+     * @param list the files
+     * @return the real input files
+     */
+    public static List<FileItem> getRealInputFiles(List<FileItem> list) {
+        Set<String> outputNames = new HashSet<>();
+        for (FileItem file : list) {
+            if (file.getType() == FileType.OUTPUT) {
+                outputNames.add(file.getName());
+            }
+        }
+        List<FileItem> inputs = new ArrayList<>();
+        for (FileItem file : list) {
+            if (file.getType() == FileType.INPUT && !outputNames.contains(file.getName())) {
+                inputs.add(file);
+            }
+        }
+        return inputs;
+    }
 }
@@ -30,6 +30,8 @@ import java.util.List;
  */
 public class Job extends Task {
 
+    private static final long serialVersionUID = 1L;
+
     /*
      * The list of tasks a job has. It is the only difference between Job and Task. 
      */
@@ -27,6 +27,10 @@ import org.cloudbus.cloudsim.UtilizationModelFull;
  * list of child tasks that it has. In WorkflowSim, the Workflow Engine assure
  * that a task is released to the scheduler (ready to run) when all of its
  * parent tasks have completed successfully
+ * <p>
+ * The lists of a task attached to a TaskGraph are views of the graph, and its
+ * depth and length are kept in the graph as well. The task leaves the graph
+ * when one of its lists is changed.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -34,6 +38,8 @@ import org.cloudbus.cloudsim.UtilizationModelFull;
  */
 public class Task extends Cloudlet {
 
+    private static final long serialVersionUID = 1L;
+
     /*
      * The list of parent tasks. 
      */
@@ -72,6 +78,22 @@ public class Task extends Cloudlet {
      */
     private double taskFinishTime;
 
+    /**
+     * The utilization model of all the tasks. UtilizationModelFull has no
+     * state, so a single instance serves every task.
+     */
+    private static final UtilizationModelFull UTILIZATION_MODEL = new UtilizationModelFull();
+
+    /**
+     * The graph this task is attached to, or null
+     */
+    private TaskGraph graph;
+
+    /**
+     * The index of this task in its graph
+     */
+    private int graphIndex;
+
     /**
      * Allocates a new Task object. The task length should be greater than or
      * equal to 1.
@@ -93,7 +115,7 @@ public class Task extends Cloudlet {
          * and utilizationModelBw are just set to be the default mode. You can
          * change it for your own purpose.
          */
-        super(taskId, taskLength, 1, 0, 0, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+        super(taskId, taskLength, 1, 0, 0, UTILIZATION_MODEL, UTILIZATION_MODEL, UTILIZATION_MODEL);
 
         this.childList = new ArrayList<>();
         this.parentList = new ArrayList<>();
@@ -135,6 +157,9 @@ public class Task extends Cloudlet {
      * @param depth the depth
      */
     public void setDepth(int depth) {
+        if (this.graph != null) {
+            this.graph.setDepth(this.graphIndex, depth);
+        }
         this.depth = depth;
     }
 
@@ -164,6 +189,9 @@ public class Task extends Cloudlet {
      * @return the list of the children
      */
     public List<Task> getChildList() {
+        if (this.graph != null) {
+            return new TaskGraph.View<Task>(this, TaskGraph.CHILDREN);
+        }
         return this.childList;
     }
 
@@ -173,6 +201,7 @@ public class Task extends Cloudlet {
      * @param list, child list of the task
      */
     public void setChildList(List<Task> list) {
+        detach();
         this.childList = list;
     }
 
@@ -182,6 +211,7 @@ public class Task extends Cloudlet {
      * @param list, parent list of the task
      */
     public void setParentList(List<Task> list) {
+        detach();
         this.parentList = list;
     }
 
@@ -191,7 +221,7 @@ public class Task extends Cloudlet {
      * @param list, the child list to be added
      */
     public void addChildList(List<Task> list) {
-        this.childList.addAll(list);
+        getChildList().addAll(list);
     }
 
     /**
@@ -200,7 +230,7 @@ public class Task extends Cloudlet {
      * @param list, the parent list to be added
      */
     public void addParentList(List<Task> list) {
-        this.parentList.addAll(list);
+        getParentList().addAll(list);
     }
 
     /**
@@ -209,6 +239,9 @@ public class Task extends Cloudlet {
      * @return the list of the parents
      */
     public List<Task> getParentList() {
+        if (this.graph != null) {
+            return new TaskGraph.View<Task>(this, TaskGraph.PARENTS);
+        }
         return this.parentList;
     }
 
@@ -218,7 +251,7 @@ public class Task extends Cloudlet {
      * @param task, the child task to be added
      */
     public void addChild(Task task) {
-        this.childList.add(task);
+        getChildList().add(task);
     }
 
     /**
@@ -227,7 +260,7 @@ public class Task extends Cloudlet {
      * @param task, the parent task to be added
      */
     public void addParent(Task task) {
-        this.parentList.add(task);
+        getParentList().add(task);
     }
 
     /**
@@ -238,6 +271,9 @@ public class Task extends Cloudlet {
      * @post $none
      */
     public List<FileItem> getFileList() {
+        if (this.graph != null) {
+            return new TaskGraph.View<FileItem>(this, TaskGraph.FILES);
+        }
         return this.fileList;
     }
 
@@ -247,7 +283,7 @@ public class Task extends Cloudlet {
      * @param file, the file to be added
      */
     public void addFile(FileItem file) {
-        this.fileList.add(file);
+        getFileList().add(file);
     }
 
     /**
@@ -256,6 +292,7 @@ public class Task extends Cloudlet {
      * @param list, the file list
      */
     public void setFileList(List<FileItem> list) {
+        detach();
         this.fileList = list;
     }
 
@@ -297,6 +334,67 @@ public class Task extends Cloudlet {
         return this.taskFinishTime;
     }
 
+    /**
+     * Sets the length of the task
+     *
+     * @param length the length of the task
+     * @return true if the length is valid
+     */
+    @Override
+    public boolean setCloudletLength(long length) {
+        boolean valid = super.setCloudletLength(length);
+        if (valid && this.graph != null) {
+            this.graph.setLength(this.graphIndex, length);
+        }
+        return valid;
+    }
+
+    /**
+     * Gets the graph the task is attached to
+     *
+     * @return the graph, or null
+     */
+    public TaskGraph getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Gets the index of the task in its graph
+     *
+     * @return the index, meaningless if the task is not attached to a graph
+     */
+    public int getGraphIndex() {
+        return this.graphIndex;
+    }
+
+    /**
+     * Attaches the task to a graph, dropping its own lists
+     *
+     * @param graph the graph, which has a copy of the lists
+     * @param index the index of the task in the graph
+     */
+    void attach(TaskGraph graph, int index) {
+        this.graph = graph;
+        this.graphIndex = index;
+        this.parentList = null;
+        this.childList = null;
+        this.fileList = null;
+    }
+
+    /**
+     * Makes the task leave its graph, copying its lists back from it
+     */
+    void detach() {
+        if (this.graph != null) {
+            TaskGraph old = this.graph;
+            this.parentList = old.copyParents(this.graphIndex);
+            this.childList = old.copyChildren(this.graphIndex);
+            this.fileList = old.copyFiles(this.graphIndex);
+            this.graph = null;
+            old.detach();
+        }
+    }
+
     /**
      * Gets the total cost of processing or executing this task The original
      * getProcessingCost does not take cpu cost into it also the data file in
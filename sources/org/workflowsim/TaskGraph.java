@@ -0,0 +1,536 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * TaskGraph is a compact copy of the dependencies, lengths, depths and files
+ * of a list of tasks. The tasks are numbered by their position in the list.
+ * The parents and the children of the tasks are kept in compressed sparse row
+ * arrays: the parents of task i are getParent(e) for e from getParentStart(i)
+ * to getParentStart(i + 1), in the order of its parent list, and the same goes
+ * for the children and the files. A file is numbered once however many tasks
+ * use it.
+ * <p>
+ * The tasks of the workflow parser and the jobs of the clustering engine are
+ * attached to their graph: their parent, child and file lists are then views
+ * of the arrays, and their depths and lengths are written through to it. The
+ * first change to a list of an attached task copies its lists back into the
+ * task, which leaves the graph. The graph is then no longer intact, and
+ * getGraph builds a new one for the algorithms that index the tasks.
+ * <p>
+ * The graph takes 28 bytes per task, 8 bytes per dependency, 4 bytes per file
+ * use and one reference per file. The bundled workflows, with 1 to 2.5
+ * dependencies and 3 to 7 file uses per task, take 60 to 90 bytes per task,
+ * where the three array lists of a task took about 250. The target is 128
+ * bytes per task, which keeps the graph of a million tasks under 128 MB.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class TaskGraph implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The parents of a task.
+     */
+    static final int PARENTS = 0;
+    /**
+     * The children of a task.
+     */
+    static final int CHILDREN = 1;
+    /**
+     * The files of a task.
+     */
+    static final int FILES = 2;
+
+    /**
+     * The tasks.
+     */
+    private final Task[] tasks;
+    /**
+     * The position of each task in the list, when the tasks are not attached.
+     */
+    private final Map<Task, Integer> indexes;
+    /**
+     * The first parent of each task, and the number of dependencies at the
+     * end.
+     */
+    private final int[] parentStarts;
+    /**
+     * The parents of the tasks.
+     */
+    private final int[] parents;
+    /**
+     * The first child of each task, and the number of dependencies at the
+     * end.
+     */
+    private final int[] childStarts;
+    /**
+     * The children of the tasks.
+     */
+    private final int[] children;
+    /**
+     * The first file use of each task, and the number of uses at the end.
+     */
+    private final int[] fileStarts;
+    /**
+     * The file of each use.
+     */
+    private final int[] fileUses;
+    /**
+     * The files.
+     */
+    private final FileItem[] files;
+    /**
+     * The length of each task.
+     */
+    private final long[] lengths;
+    /**
+     * The depth of each task.
+     */
+    private final int[] depths;
+    /**
+     * Whether all the tasks are still attached to the graph.
+     */
+    private boolean intact;
+
+    /**
+     * Builds the graph of a list of tasks. The parents, children and files of
+     * the tasks are copied, except the parents and children that are not in
+     * the list. A task is only attached if none of them is missing, and if it
+     * is not in the list twice.
+     *
+     * @param list the tasks
+     * @param attached whether the tasks are attached to the graph
+     */
+    private TaskGraph(List<? extends Task> list, boolean attached) {
+        int size = list.size();
+        this.tasks = list.toArray(new Task[size]);
+        Map<Task, Integer> positions = new IdentityHashMap<>(size);
+        for (int i = size - 1; i >= 0; i--) {
+            positions.put(this.tasks[i], i);
+        }
+        this.indexes = attached ? null : positions;
+        boolean[] complete = new boolean[size];
+        this.lengths = new long[size];
+        this.depths = new int[size];
+        this.parentStarts = new int[size + 1];
+        this.childStarts = new int[size + 1];
+        this.fileStarts = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            Task task = this.tasks[i];
+            this.lengths[i] = task.getCloudletLength();
+            this.depths[i] = task.getDepth();
+            int parentCount = count(task.getParentList(), positions);
+            int childCount = count(task.getChildList(), positions);
+            this.parentStarts[i + 1] = this.parentStarts[i] + parentCount;
+            this.childStarts[i + 1] = this.childStarts[i] + childCount;
+            this.fileStarts[i + 1] = this.fileStarts[i] + task.getFileList().size();
+            complete[i] = positions.get(task) == i && parentCount == task.getParentList().size()
+                    && childCount == task.getChildList().size();
+        }
+        this.parents = new int[this.parentStarts[size]];
+        this.children = new int[this.childStarts[size]];
+        this.fileUses = new int[this.fileStarts[size]];
+        Map<FileItem, Integer> fileIds = new IdentityHashMap<>();
+        List<FileItem> fileList = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Task task = this.tasks[i];
+            copy(task.getParentList(), positions, this.parents, this.parentStarts[i]);
+            copy(task.getChildList(), positions, this.children, this.childStarts[i]);
+            int use = this.fileStarts[i];
+            for (FileItem file : task.getFileList()) {
+                Integer id = fileIds.get(file);
+                if (id == null) {
+                    id = fileList.size();
+                    fileIds.put(file, id);
+                    fileList.add(file);
+                }
+                this.fileUses[use++] = id;
+            }
+        }
+        this.files = fileList.toArray(new FileItem[fileList.size()]);
+        this.intact = attached;
+        if (attached) {
+            for (int i = 0; i < size; i++) {
+                if (complete[i]) {
+                    this.tasks[i].attach(this, i);
+                } else {
+                    this.intact = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the tasks of a list that are in the graph
+     */
+    private static int count(List<Task> list, Map<Task, Integer> positions) {
+        int count = 0;
+        for (Task task : list) {
+            if (positions.containsKey(task)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Copies the positions of the tasks of a list that are in the graph
+     */
+    private static void copy(List<Task> list, Map<Task, Integer> positions, int[] array, int start) {
+        for (Task task : list) {
+            Integer position = positions.get(task);
+            if (position != null) {
+                array[start++] = position;
+            }
+        }
+    }
+
+    /**
+     * Builds the graph of a list of tasks and attaches them to it. The lists
+     * of the tasks are dropped, and the tasks read them from the graph from
+     * now on.
+     *
+     * @param list the tasks, whose parents and children should all be in the
+     * list
+     * @return the graph
+     */
+    public static TaskGraph attach(List<? extends Task> list) {
+        return new TaskGraph(list, true);
+    }
+
+    /**
+     * Gets the graph of a list of tasks. It is the graph the tasks are
+     * attached to if it is intact and numbers them by their position in the
+     * list, otherwise a new graph that the tasks are not attached to.
+     *
+     * @param list the tasks
+     * @return the graph, whose task i is the task at position i of the list
+     */
+    public static TaskGraph getGraph(List<? extends Task> list) {
+        if (!list.isEmpty()) {
+            TaskGraph graph = list.get(0).getGraph();
+            if (graph != null && graph.intact && graph.tasks.length == list.size()) {
+                int i = 0;
+                for (Task task : list) {
+                    if (graph.tasks[i] != task) {
+                        break;
+                    }
+                    i++;
+                }
+                if (i == graph.tasks.length) {
+                    return graph;
+                }
+            }
+        }
+        return new TaskGraph(list, false);
+    }
+
+    /**
+     * Gets the number of tasks
+     *
+     * @return the number of tasks
+     */
+    public int size() {
+        return this.tasks.length;
+    }
+
+    /**
+     * Gets a task
+     *
+     * @param index the index of the task
+     * @return the task
+     */
+    public Task getTask(int index) {
+        return this.tasks[index];
+    }
+
+    /**
+     * Gets the index of a task
+     *
+     * @param task the task
+     * @return the index of the task, or -1 if it is not in the graph
+     */
+    public int indexOf(Task task) {
+        if (this.indexes != null) {
+            Integer index = this.indexes.get(task);
+            return index == null ? -1 : index;
+        }
+        return task.getGraph() == this ? task.getGraphIndex() : -1;
+    }
+
+    /**
+     * Gets the first parent of a task
+     *
+     * @param index the index of the task, or the number of tasks
+     * @return the first dependency of the task, or the number of dependencies
+     */
+    public int getParentStart(int index) {
+        return this.parentStarts[index];
+    }
+
+    /**
+     * Gets the parent of a dependency
+     *
+     * @param dependency the dependency, from getParentStart
+     * @return the index of the parent
+     */
+    public int getParent(int dependency) {
+        return this.parents[dependency];
+    }
+
+    /**
+     * Gets the first child of a task
+     *
+     * @param index the index of the task, or the number of tasks
+     * @return the first dependency of the task, or the number of dependencies
+     */
+    public int getChildStart(int index) {
+        return this.childStarts[index];
+    }
+
+    /**
+     * Gets the child of a dependency
+     *
+     * @param dependency the dependency, from getChildStart
+     * @return the index of the child
+     */
+    public int getChild(int dependency) {
+        return this.children[dependency];
+    }
+
+    /**
+     * Gets the first file use of a task
+     *
+     * @param index the index of the task, or the number of tasks
+     * @return the first use of the task, or the number of uses
+     */
+    public int getFileStart(int index) {
+        return this.fileStarts[index];
+    }
+
+    /**
+     * Gets the file of a use
+     *
+     * @param use the use, from getFileStart
+     * @return the id of the file
+     */
+    public int getFile(int use) {
+        return this.fileUses[use];
+    }
+
+    /**
+     * Gets the number of files
+     *
+     * @return the number of files
+     */
+    public int getFileCount() {
+        return this.files.length;
+    }
+
+    /**
+     * Gets a file
+     *
+     * @param id the id of the file
+     * @return the file
+     */
+    public FileItem getFileItem(int id) {
+        return this.files[id];
+    }
+
+    /**
+     * Gets the length of a task
+     *
+     * @param index the index of the task
+     * @return the length
+     */
+    public long getLength(int index) {
+        return this.lengths[index];
+    }
+
+    /**
+     * Gets the depth of a task
+     *
+     * @param index the index of the task
+     * @return the depth
+     */
+    public int getDepth(int index) {
+        return this.depths[index];
+    }
+
+    /**
+     * Sets the length of an attached task
+     */
+    void setLength(int index, long length) {
+        this.lengths[index] = length;
+    }
+
+    /**
+     * Sets the depth of an attached task
+     */
+    void setDepth(int index, int depth) {
+        this.depths[index] = depth;
+    }
+
+    /**
+     * Records that a task has left the graph
+     */
+    void detach() {
+        this.intact = false;
+    }
+
+    /**
+     * Copies the parents of an attached task into a list
+     */
+    List<Task> copyParents(int index) {
+        return copyTasks(this.parents, this.parentStarts[index], this.parentStarts[index + 1]);
+    }
+
+    /**
+     * Copies the children of an attached task into a list
+     */
+    List<Task> copyChildren(int index) {
+        return copyTasks(this.children, this.childStarts[index], this.childStarts[index + 1]);
+    }
+
+    /**
+     * Copies the files of an attached task into a list
+     */
+    List<FileItem> copyFiles(int index) {
+        List<FileItem> list = new ArrayList<>(this.fileStarts[index + 1] - this.fileStarts[index]);
+        for (int use = this.fileStarts[index]; use < this.fileStarts[index + 1]; use++) {
+            list.add(this.files[this.fileUses[use]]);
+        }
+        return list;
+    }
+
+    private List<Task> copyTasks(int[] array, int start, int end) {
+        List<Task> list = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            list.add(this.tasks[array[i]]);
+        }
+        return list;
+    }
+
+    /**
+     * A list of a task: a view of the graph while the task is attached to it,
+     * and of the list of the task once it has left it. A change to the list
+     * makes the task leave the graph first.
+     */
+    static final class View<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Task task;
+        private final int kind;
+
+        View(Task task, int kind) {
+            this.task = task;
+            this.kind = kind;
+        }
+
+        /**
+         * Gets the list of the task, once it has left the graph
+         */
+        @SuppressWarnings("unchecked")
+        private List<E> getList() {
+            switch (this.kind) {
+                case PARENTS:
+                    return (List<E>) this.task.getParentList();
+                case CHILDREN:
+                    return (List<E>) this.task.getChildList();
+                default:
+                    return (List<E>) this.task.getFileList();
+            }
+        }
+
+        /**
+         * Makes the task leave the graph and gets its list
+         */
+        private List<E> detach() {
+            this.task.detach();
+            this.modCount++;
+            return getList();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int i) {
+            TaskGraph graph = this.task.getGraph();
+            if (graph == null) {
+                return getList().get(i);
+            }
+            if (i < 0 || i >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+            }
+            int index = this.task.getGraphIndex();
+            switch (this.kind) {
+                case PARENTS:
+                    return (E) graph.tasks[graph.parents[graph.parentStarts[index] + i]];
+                case CHILDREN:
+                    return (E) graph.tasks[graph.children[graph.childStarts[index] + i]];
+                default:
+                    return (E) graph.files[graph.fileUses[graph.fileStarts[index] + i]];
+            }
+        }
+
+        @Override
+        public int size() {
+            TaskGraph graph = this.task.getGraph();
+            if (graph == null) {
+                return getList().size();
+            }
+            int index = this.task.getGraphIndex();
+            switch (this.kind) {
+                case PARENTS:
+                    return graph.parentStarts[index + 1] - graph.parentStarts[index];
+                case CHILDREN:
+                    return graph.childStarts[index + 1] - graph.childStarts[index];
+                default:
+                    return graph.fileStarts[index + 1] - graph.fileStarts[index];
+            }
+        }
+
+        @Override
+        public E set(int i, E element) {
+            return detach().set(i, element);
+        }
+
+        @Override
+        public void add(int i, E element) {
+            detach().add(i, element);
+        }
+
+        @Override
+        public E remove(int i) {
+            return detach().remove(i);
+        }
+
+        @Override
+        public void clear() {
+            detach().clear();
+        }
+    }
+}
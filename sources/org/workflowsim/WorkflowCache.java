@@ -0,0 +1,458 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.utils.Parameters.FileType;
+
+/**
+ * WorkflowCache keeps the tasks parsed from a DAX in a compact binary file, so
+ * that later runs load them instead of parsing the XML again. A cache file is
+ * named after the MD5 hash of the DAX and the runtime scale, which the task
+ * lengths depend on.
+ * <p>
+ * A cache file holds, after a header with the counts below:
+ * <ul>
+ * <li>the table of task types and the table of files (name and size)
+ * <li>the length, type and depth of each task
+ * <li>the files used by each task, as offsets into a list of (file, type)
+ * <li>the parents and the children of each task, as two CSR lists of task
+ * positions, in the order of the parent and child lists
+ * <li>the log messages printed while parsing the DAX
+ * </ul>
+ * The file is memory mapped and the tasks and files are created as the
+ * parser would create them: the output files are new, the input files are
+ * shared through the replica catalog.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public final class WorkflowCache {
+
+    /**
+     * The first bytes of a cache file.
+     */
+    private static final int MAGIC = 0x57464331;
+    /**
+     * The version of the format.
+     */
+    private static final int VERSION = 1;
+
+    private WorkflowCache() {
+    }
+
+    /**
+     * Gets the cache file of a DAX
+     *
+     * @param directory the cache directory
+     * @param daxPath the DAX file
+     * @param runtimeScale the runtime scale
+     * @return the cache file, or null if the DAX cannot be read
+     */
+    public static File getCacheFile(String directory, String daxPath, double runtimeScale) {
+        try (FileChannel channel = FileChannel.open(new File(daxPath).toPath(), StandardOpenOption.READ)) {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            md5.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            StringBuilder name = new StringBuilder();
+            for (byte b : md5.digest()) {
+                name.append(String.format("%02x", b));
+            }
+            name.append('-').append(Long.toHexString(Double.doubleToLongBits(runtimeScale))).append(".wfc");
+            return new File(directory, name.toString());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the number of tasks of a cache file
+     *
+     * @param cacheFile the cache file
+     * @return the number of tasks, or -1 if the file is not a valid cache file
+     */
+    public static int getTaskCount(File cacheFile) {
+        if (!cacheFile.isFile()) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(13);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+            }
+            header.flip();
+            if (header.remaining() < 13 || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return -1;
+            }
+            header.get();
+            return header.getInt();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Writes the tasks of a DAX to a cache file. The input files of the tasks
+     * must be those of this DAX only, i.e. not shared with other DAX files yet.
+     *
+     * @param cacheFile the cache file
+     * @param tasks the tasks of the DAX
+     * @param log the log messages printed while parsing the DAX
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(File cacheFile, List<Task> tasks, byte[] log) throws IOException {
+        Map<Task, Integer> index = new HashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            index.put(tasks.get(i), i);
+        }
+        List<String> types = new ArrayList<>();
+        Map<String, Integer> typeIndex = new HashMap<>();
+        List<FileItem> files = new ArrayList<>();
+        Map<String, Integer> fileIndex = new HashMap<>();
+        int uses = 0;
+        int parents = 0;
+        int children = 0;
+        for (Task task : tasks) {
+            if (!typeIndex.containsKey(task.getType())) {
+                typeIndex.put(task.getType(), types.size());
+                types.add(task.getType());
+            }
+            for (FileItem file : task.getFileList()) {
+                String key = file.getName() + '\0' + file.getSize();
+                if (!fileIndex.containsKey(key)) {
+                    fileIndex.put(key, files.size());
+                    files.add(file);
+                }
+            }
+            uses += task.getFileList().size();
+            parents += task.getParentList().size();
+            children += task.getChildList().size();
+        }
+
+        File dir = cacheFile.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File tmp = File.createTempFile(cacheFile.getName(), ".tmp", dir);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeBoolean(!Log.isDisabled());
+                out.writeInt(tasks.size());
+                out.writeInt(types.size());
+                out.writeInt(files.size());
+                out.writeInt(uses);
+                out.writeInt(parents);
+                out.writeInt(children);
+                out.writeInt(log.length);
+                for (String type : types) {
+                    writeString(out, type);
+                }
+                for (FileItem file : files) {
+                    writeString(out, file.getName());
+                    out.writeDouble(file.getSize());
+                }
+                for (Task task : tasks) {
+                    out.writeLong(task.getCloudletLength());
+                }
+                for (Task task : tasks) {
+                    out.writeInt(typeIndex.get(task.getType()));
+                }
+                for (Task task : tasks) {
+                    out.writeInt(task.getDepth());
+                }
+                writeOffsets(out, tasks, 0);
+                for (Task task : tasks) {
+                    for (FileItem file : task.getFileList()) {
+                        out.writeInt(fileIndex.get(file.getName() + '\0' + file.getSize()));
+                    }
+                }
+                for (Task task : tasks) {
+                    for (FileItem file : task.getFileList()) {
+                        out.writeByte(file.getType().ordinal());
+                    }
+                }
+                writeOffsets(out, tasks, 1);
+                for (Task task : tasks) {
+                    writeTasks(out, task.getParentList(), index);
+                }
+                writeOffsets(out, tasks, 2);
+                for (Task task : tasks) {
+                    writeTasks(out, task.getChildList(), index);
+                }
+                out.write(log);
+            }
+            Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Loads the tasks of a cache file into a parser. Nothing is loaded if the
+     * file is not a valid cache file, or if it was written with the log
+     * disabled and the log is now enabled. The whole file is checked before
+     * the first task is created, so a corrupt file leaves the parser, its task
+     * ids and the replica catalog as they were.
+     *
+     * @param cacheFile the cache file
+     * @param parser the parser
+     * @return true if the tasks have been loaded
+     */
+    public static boolean load(File cacheFile, WorkflowParser parser) {
+        if (!cacheFile.isFile()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return false;
+            }
+            boolean logged = in.get() != 0;
+            if (!logged && !Log.isDisabled()) {
+                return false;
+            }
+            int taskCount = in.getInt();
+            int typeCount = in.getInt();
+            int fileCount = in.getInt();
+            int useCount = in.getInt();
+            int parentCount = in.getInt();
+            int childCount = in.getInt();
+            int logLength = in.getInt();
+            if (taskCount < 0 || typeCount < 0 || fileCount < 0 || useCount < 0 || parentCount < 0
+                    || childCount < 0 || logLength < 0) {
+                return false;
+            }
+            String[] types = new String[typeCount];
+            for (int i = 0; i < typeCount; i++) {
+                types[i] = readString(in);
+            }
+            String[] fileNames = new String[fileCount];
+            double[] fileSizes = new double[fileCount];
+            for (int i = 0; i < fileCount; i++) {
+                fileNames[i] = readString(in);
+                fileSizes[i] = in.getDouble();
+            }
+            long expected = 8L * taskCount + 4L * taskCount + 4L * taskCount + 4L * (taskCount + 1)
+                    + 5L * useCount + 4L * (taskCount + 1) + 4L * parentCount + 4L * (taskCount + 1)
+                    + 4L * childCount + logLength;
+            if (in.remaining() != expected) {
+                return false;
+            }
+
+            int lengths = in.position();
+            int typeIds = lengths + 8 * taskCount;
+            int depths = typeIds + 4 * taskCount;
+            int useOffsets = depths + 4 * taskCount;
+            int useFiles = useOffsets + 4 * (taskCount + 1);
+            int useTypes = useFiles + 4 * useCount;
+            int parentOffsets = useTypes + useCount;
+            int parentList = parentOffsets + 4 * (taskCount + 1);
+            int childOffsets = parentList + 4 * parentCount;
+            int childList = childOffsets + 4 * (taskCount + 1);
+            int logStart = childList + 4 * childCount;
+
+            FileType[] fileTypes = FileType.values();
+            if (!checkIndexes(in, typeIds, taskCount, typeCount)
+                    || !checkOffsets(in, useOffsets, taskCount, useCount)
+                    || !checkIndexes(in, useFiles, useCount, fileCount)
+                    || !checkOffsets(in, parentOffsets, taskCount, parentCount)
+                    || !checkIndexes(in, parentList, parentCount, taskCount)
+                    || !checkOffsets(in, childOffsets, taskCount, childCount)
+                    || !checkIndexes(in, childList, childCount, taskCount)) {
+                return false;
+            }
+            for (int u = 0; u < useCount; u++) {
+                int type = in.get(useTypes + u);
+                if (type < 0 || type >= fileTypes.length) {
+                    return false;
+                }
+            }
+            byte[] log = new byte[logLength];
+            in.position(logStart);
+            in.get(log);
+
+            Task[] tasks = new Task[taskCount];
+            for (int i = 0; i < taskCount; i++) {
+                Task task = parser.createTask(in.getLong(lengths + 8 * i), types[in.getInt(typeIds + 4 * i)]);
+                List<FileItem> mFileList = new ArrayList<>();
+                for (int u = in.getInt(useOffsets + 4 * i); u < in.getInt(useOffsets + 4 * i + 4); u++) {
+                    int file = in.getInt(useFiles + 4 * u);
+                    mFileList.add(parser.createFile(fileNames[file], fileSizes[file], fileTypes[in.get(useTypes + u)]));
+                }
+                parser.setFiles(task, mFileList);
+                task.setDepth(in.getInt(depths + 4 * i));
+                tasks[i] = task;
+            }
+            for (int i = 0; i < taskCount; i++) {
+                tasks[i].addParentList(readTasks(in, tasks, parentOffsets, parentList, i));
+                tasks[i].addChildList(readTasks(in, tasks, childOffsets, childList, i));
+                parser.getTaskList().add(tasks[i]);
+            }
+
+            if (!Log.isDisabled() && logLength > 0) {
+                try {
+                    Log.getOutput().write(log);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            return true;
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks that a list of ints holds positions below a bound
+     *
+     * @param in the cache file
+     * @param list the position of the list in the file
+     * @param count the length of the list
+     * @param bound the bound
+     * @return true if every position is in range
+     */
+    private static boolean checkIndexes(ByteBuffer in, int list, int count, int bound) {
+        for (int i = 0; i < count; i++) {
+            int index = in.getInt(list + 4 * i);
+            if (index < 0 || index >= bound) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the offsets of a CSR list start at 0, do not decrease and end
+     * at the length of the list
+     *
+     * @param in the cache file
+     * @param offsets the position of the offsets in the file
+     * @param taskCount the number of tasks
+     * @param count the length of the list
+     * @return true if the offsets are consistent
+     */
+    private static boolean checkOffsets(ByteBuffer in, int offsets, int taskCount, int count) {
+        int previous = in.getInt(offsets);
+        if (previous != 0) {
+            return false;
+        }
+        for (int i = 1; i <= taskCount; i++) {
+            int offset = in.getInt(offsets + 4 * i);
+            if (offset < previous) {
+                return false;
+            }
+            previous = offset;
+        }
+        return previous == count;
+    }
+
+    /**
+     * Writes a string, or -1 for null
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by writeString
+     */
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the offsets of the files (0), parents (1) or children (2) of
+     * each task
+     */
+    private static void writeOffsets(DataOutputStream out, List<Task> tasks, int list) throws IOException {
+        int offset = 0;
+        out.writeInt(offset);
+        for (Task task : tasks) {
+            switch (list) {
+                case 0:
+                    offset += task.getFileList().size();
+                    break;
+                case 1:
+                    offset += task.getParentList().size();
+                    break;
+                default:
+                    offset += task.getChildList().size();
+                    break;
+            }
+            out.writeInt(offset);
+        }
+    }
+
+    /**
+     * Writes the positions of a list of tasks
+     */
+    private static void writeTasks(DataOutputStream out, List<Task> list, Map<Task, Integer> index)
+            throws IOException {
+        for (Task task : list) {
+            Integer position = index.get(task);
+            if (position == null) {
+                throw new IOException("Task " + task.getCloudletId() + " is not in the workflow");
+            }
+            out.writeInt(position);
+        }
+    }
+
+    /**
+     * Reads the tasks of row i of a CSR list
+     */
+    private static List<Task> readTasks(ByteBuffer in, Task[] tasks, int offsets, int list, int i) {
+        int from = in.getInt(offsets + 4 * i);
+        int to = in.getInt(offsets + 4 * i + 4);
+        List<Task> result = new ArrayList<>(to - from);
+        for (int j = from; j < to; j++) {
+            result.add(tasks[in.getInt(list + 4 * j)]);
+        }
+        return result;
+    }
+}
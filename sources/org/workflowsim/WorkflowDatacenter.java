@@ -33,6 +33,7 @@ import org.cloudbus.cloudsim.core.SimEvent;
 import org.workflowsim.utils.ReplicaCatalog;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.ClassType;
+import org.workflowsim.utils.Parameters.CostModel;
 import org.workflowsim.utils.Parameters.FileType;
 
 /**
@@ -45,12 +46,48 @@ import org.workflowsim.utils.Parameters.FileType;
  */
 public class WorkflowDatacenter extends Datacenter {
 
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The replica catalog of the simulation, looked up once.
+     */
+    private final ReplicaCatalog.Catalog catalog;
+    /**
+     * The cost model of the run, read when the datacenter starts.
+     */
+    private CostModel costModel;
+
     public WorkflowDatacenter(String name,
             DatacenterCharacteristics characteristics,
             VmAllocationPolicy vmAllocationPolicy,
             List<Storage> storageList,
             double schedulingInterval) throws Exception {
         super(name, characteristics, vmAllocationPolicy, storageList, schedulingInterval);
+        catalog = ReplicaCatalog.getCatalog();
+    }
+
+    /**
+     * Reads the parameters used on every job and registers the datacenter.
+     */
+    @Override
+    public void startEntity() {
+        costModel = Parameters.getCostModel();
+        super.startEntity();
+    }
+
+    /**
+     * A workflow datacenter registers the files it stages in the replica
+     * catalog, which the other logical processes see at the end of the time
+     * window. On a shared file system a file is only read by the jobs
+     * submitted after the return of the job that wrote it, so the datacenter
+     * can be isolated. On a local file system the data aware scheduling
+     * compares the replicas of the vms at any time, so it cannot.
+     *
+     * @return whether the file system is shared
+     */
+    @Override
+    protected boolean isIsolated() {
+        return catalog.getFileSystem() == ReplicaCatalog.FileSystem.SHARED;
     }
 
     /**
@@ -85,14 +122,10 @@ public class WorkflowDatacenter extends Datacenter {
                 // Hence, this might cause CloudSim to be hanged since waiting
                 // for this Cloudlet back.
                 if (ack) {
-                    int[] data = new int[3];
-                    data[0] = getId();
-                    data[1] = job.getCloudletId();
-                    data[2] = CloudSimTags.FALSE;
-
                     // unique tag = operation tag
                     int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-                    sendNow(job.getUserId(), tag, data);
+                    sendNowInts(job.getUserId(), tag,
+                            getId(), job.getCloudletId(), CloudSimTags.FALSE);
                 }
 
                 sendNow(job.getUserId(), CloudSimTags.CLOUDLET_RETURN, job);
@@ -102,10 +135,9 @@ public class WorkflowDatacenter extends Datacenter {
 
             int userId = job.getUserId();
             int vmId = job.getVmId();
-            Host host = getVmAllocationPolicy().getHost(vmId, userId);
-            CondorVM vm = (CondorVM) host.getVm(vmId, userId);
+            CondorVM vm = (CondorVM) getVm(vmId, userId);
 
-            switch (Parameters.getCostModel()) {
+            switch (costModel) {
                 case DATACENTER:
                     // process this Cloudlet to this CloudResource
                     job.setResourceParameter(getId(), getCharacteristics().getCostPerSecond(),
@@ -145,13 +177,8 @@ public class WorkflowDatacenter extends Datacenter {
             }
 
             if (ack) {
-                int[] data = new int[3];
-                data[0] = getId();
-                data[1] = job.getCloudletId();
-                data[2] = CloudSimTags.TRUE;
-
                 int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-                sendNow(job.getUserId(), tag, data);
+                sendNowInts(job.getUserId(), tag, getId(), job.getCloudletId(), CloudSimTags.TRUE);
             }
         } catch (ClassCastException c) {
             Log.printLine(getName() + ".processCloudletSubmit(): " + "ClassCastException error.");
@@ -192,13 +219,13 @@ public class WorkflowDatacenter extends Datacenter {
         List<FileItem> fList = job.getFileList();
 
         for (FileItem file : fList) {
-            switch (ReplicaCatalog.getFileSystem()) {
+            switch (catalog.getFileSystem()) {
                 /**
                  * For local file system, add it to local storage (data center
                  * name)
                  */
                 case LOCAL:
-                    ReplicaCatalog.addFileToStorage(file.getName(), this.getName());
+                    catalog.addFileToStorage(file.getName(), this.getName());
                     /**
                      * Is it not really needed currently but it is left for
                      * future usage
@@ -210,7 +237,7 @@ public class WorkflowDatacenter extends Datacenter {
                  * For shared file system, add it to the shared storage
                  */
                 case SHARED:
-                    ReplicaCatalog.addFileToStorage(file.getName(), this.getName());
+                    catalog.addFileToStorage(file.getName(), this.getName());
                     break;
                 default:
                     break;
@@ -227,79 +254,76 @@ public class WorkflowDatacenter extends Datacenter {
      */
     protected double processDataStageInForComputeJob(List<FileItem> requiredFiles, Job job) throws Exception {
         double time = 0.0;
-        for (FileItem file : requiredFiles) {
-            //The input file is not an output File 
-            if (file.isRealInputFile(requiredFiles)) {
-                double maxBwth = 0.0;
-                List siteList = ReplicaCatalog.getStorageList(file.getName());
-                if (siteList.isEmpty()) {
-                    throw new Exception(file.getName() + " does not exist");
-                }
-                switch (ReplicaCatalog.getFileSystem()) {
-                    case SHARED:
-                        //stage-in job
+        //The input file is not an output File 
+        for (FileItem file : FileItem.getRealInputFiles(requiredFiles)) {
+            double maxBwth = 0.0;
+            List siteList = catalog.getStorageList(file.getName());
+            if (siteList.isEmpty()) {
+                throw new Exception(file.getName() + " does not exist");
+            }
+            switch (catalog.getFileSystem()) {
+                case SHARED:
+                    //stage-in job
+                    /**
+                     * Picks up the site that is closest
+                     */
+                    double maxRate = Double.MIN_VALUE;
+                    for (Storage storage : getStorageList()) {
+                        double rate = storage.getMaxTransferRate();
+                        if (rate > maxRate) {
+                            maxRate = rate;
+                        }
+                    }
+                    //Storage storage = getStorageList().get(0);
+                    time += file.getSize() / (double) Consts.MILLION / maxRate;
+                    break;
+                case LOCAL:
+                    int vmId = job.getVmId();
+                    int userId = job.getUserId();
+                    Vm vm = getVm(vmId, userId);
+
+                    boolean requiredFileStagein = true;
+                    for (Iterator it = siteList.iterator(); it.hasNext();) {
+                        //site is where one replica of this data is located at
+                        String site = (String) it.next();
+                        if (site.equals(this.getName())) {
+                            continue;
+                        }
                         /**
-                         * Picks up the site that is closest
+                         * This file is already in the local vm and thus it
+                         * is no need to transfer
                          */
-                        double maxRate = Double.MIN_VALUE;
-                        for (Storage storage : getStorageList()) {
-                            double rate = storage.getMaxTransferRate();
-                            if (rate > maxRate) {
-                                maxRate = rate;
-                            }
+                        if (site.equals(Integer.toString(vmId))) {
+                            requiredFileStagein = false;
+                            break;
                         }
-                        //Storage storage = getStorageList().get(0);
-                        time += file.getSize() / (double) Consts.MILLION / maxRate;
-                        break;
-                    case LOCAL:
-                        int vmId = job.getVmId();
-                        int userId = job.getUserId();
-                        Host host = getVmAllocationPolicy().getHost(vmId, userId);
-                        Vm vm = host.getVm(vmId, userId);
-
-                        boolean requiredFileStagein = true;
-                        for (Iterator it = siteList.iterator(); it.hasNext();) {
-                            //site is where one replica of this data is located at
-                            String site = (String) it.next();
-                            if (site.equals(this.getName())) {
-                                continue;
-                            }
-                            /**
-                             * This file is already in the local vm and thus it
-                             * is no need to transfer
-                             */
-                            if (site.equals(Integer.toString(vmId))) {
-                                requiredFileStagein = false;
-                                break;
-                            }
-                            double bwth;
-                            if (site.equals(Parameters.SOURCE)) {
-                                //transfers from the source to the VM is limited to the VM bw only
-                                bwth = vm.getBw();
-                                //bwth = dcStorage.getBaseBandwidth();
-                            } else {
-                                //transfers between two VMs is limited to both VMs
-                                bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(Integer.parseInt(site), userId).getVm(Integer.parseInt(site), userId).getBw());
-                                //bwth = dcStorage.getBandwidth(Integer.parseInt(site), vmId);
-                            }
-                            if (bwth > maxBwth) {
-                                maxBwth = bwth;
-                            }
+                        double bwth;
+                        if (site.equals(Parameters.SOURCE)) {
+                            //transfers from the source to the VM is limited to the VM bw only
+                            bwth = vm.getBw();
+                            //bwth = dcStorage.getBaseBandwidth();
+                        } else {
+                            //transfers between two VMs is limited to both VMs
+                            bwth = Math.min(vm.getBw(), getVm(Integer.parseInt(site), userId).getBw());
+                            //bwth = dcStorage.getBandwidth(Integer.parseInt(site), vmId);
                         }
-                        if (requiredFileStagein && maxBwth > 0.0) {
-                            time += file.getSize() / (double) Consts.MILLION / maxBwth;
+                        if (bwth > maxBwth) {
+                            maxBwth = bwth;
                         }
+                    }
+                    if (requiredFileStagein && maxBwth > 0.0) {
+                        time += file.getSize() / (double) Consts.MILLION / maxBwth;
+                    }
 
-                        /**
-                         * For the case when storage is too small it is not
-                         * handled here
-                         */
-                        //We should add but since CondorVm has a small capability it often fails
-                        //We currently don't use this storage to do anything meaningful. It is left for future. 
-                        //condorVm.addLocalFile(file);
-                        ReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
-                        break;
-                }
+                    /**
+                     * For the case when storage is too small it is not
+                     * handled here
+                     */
+                    //We should add but since CondorVm has a small capability it often fails
+                    //We currently don't use this storage to do anything meaningful. It is left for future. 
+                    //condorVm.addLocalFile(file);
+                    catalog.addFileToStorage(file.getName(), Integer.toString(vmId));
+                    break;
             }
         }
         return time;
@@ -370,19 +394,18 @@ public class WorkflowDatacenter extends Datacenter {
         for (FileItem file : fList) {
             if (file.getType() == FileType.OUTPUT)//output file
             {
-                switch (ReplicaCatalog.getFileSystem()) {
+                switch (catalog.getFileSystem()) {
                     case SHARED:
-                        ReplicaCatalog.addFileToStorage(file.getName(), this.getName());
+                        catalog.addFileToStorage(file.getName(), this.getName());
                         break;
                     case LOCAL:
                         int vmId = cl.getVmId();
                         int userId = cl.getUserId();
-                        Host host = getVmAllocationPolicy().getHost(vmId, userId);
                         /**
                          * Left here for future work
                          */
-                        CondorVM vm = (CondorVM) host.getVm(vmId, userId);
-                        ReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
+                        CondorVM vm = (CondorVM) getVm(vmId, userId);
+                        catalog.addFileToStorage(file.getName(), Integer.toString(vmId));
                         break;
                 }
             }
@@ -15,11 +15,16 @@
  */
 package org.workflowsim;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
@@ -27,12 +32,18 @@ import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.workflowsim.reclustering.ReclusteringEngine;
+import org.workflowsim.utils.OverheadParameters;
 import org.workflowsim.utils.Parameters;
 
 /**
  * WorkflowEngine represents a engine acting on behalf of a user. It hides VM
  * management, as vm creation, submission of cloudlets to this VMs and
  * destruction of VMs.
+ * <p>
+ * The dependencies of the jobs are tracked incrementally: every job of the job
+ * list counts its parents not received yet, and a received job releases the
+ * jobs waiting for it. Each job return thus costs in the order of the number of
+ * children of the job, rather than a scan of the whole job list.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -40,10 +51,12 @@ import org.workflowsim.utils.Parameters;
  */
 public final class WorkflowEngine extends SimEntity {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The job list.
      */
-    protected List<? extends Cloudlet> jobsList;
+    protected List<Job> jobsList;
     /**
      * The job submitted list.
      */
@@ -62,6 +75,37 @@ public final class WorkflowEngine extends SimEntity {
      */
     private List<Integer> schedulerId;
     private List<WorkflowScheduler> scheduler;
+    /**
+     * The ids of the jobs received so far, whether they failed or not. A job
+     * is ready once the ids of all its parents are in there.
+     */
+    private Set<Integer> receivedIds;
+    /**
+     * The tracked jobs waiting for a parent, by parent id.
+     */
+    private Map<Integer, List<PendingJob>> waitingJobs;
+    /**
+     * The tracked jobs whose parents have all been received, in job list
+     * order.
+     */
+    private PriorityQueue<PendingJob> readyJobs;
+    /**
+     * The submitted jobs that are still in the job list. They are removed in
+     * batches, which keeps the removal linear over a run.
+     */
+    private Set<Job> staleJobs;
+    /**
+     * The number of jobs at the head of the job list that are tracked.
+     */
+    private int trackedJobs;
+    /**
+     * The sequence number of the next tracked job.
+     */
+    private long nextSequence;
+    /**
+     * The overhead parameters of the run, read when the engine starts.
+     */
+    private OverheadParameters overheads;
 
     /**
      * Created a new WorkflowEngine object.
@@ -79,6 +123,10 @@ public final class WorkflowEngine extends SimEntity {
     public WorkflowEngine(String name, int schedulers) throws Exception {
         super(name);
 
+        receivedIds = new HashSet<>();
+        waitingJobs = new HashMap<>();
+        readyJobs = new PriorityQueue<>();
+        staleJobs = Collections.newSetFromMap(new IdentityHashMap<Job, Boolean>());
         setJobsList(new ArrayList<>());
         setJobsSubmittedList(new ArrayList<>());
         setJobsReceivedList(new ArrayList<>());
@@ -118,7 +166,7 @@ public final class WorkflowEngine extends SimEntity {
             return this.vmList;
         }
         else{
-            List list = new ArrayList();
+            List<Vm> list = new ArrayList<>();
             for(int i = 0;i < getSchedulers().size();i ++){
                 list.addAll(getScheduler(i).getVmList());
             }
@@ -201,9 +249,13 @@ public final class WorkflowEngine extends SimEntity {
      *
      * @param ev a SimEvent object
      */
+    @SuppressWarnings("unchecked")
     protected void processJobSubmit(SimEvent ev) {
-        List<? extends Cloudlet> list = (List) ev.getData();
-        setJobsList(list);
+        setJobsList((List<Job>) ev.getData());
+        waitingJobs.clear();
+        readyJobs.clear();
+        staleJobs.clear();
+        trackedJobs = 0;
     }
 
     /**
@@ -218,13 +270,14 @@ public final class WorkflowEngine extends SimEntity {
         Job job = (Job) ev.getData();
         if (job.getCloudletStatus() == Cloudlet.FAILED) {
             // Reclusteringengine will add retry job to jobList
-            int newId = getJobsList().size() + getJobsSubmittedList().size();
-            getJobsList().addAll(ReclusteringEngine.process(job, newId));
+            int newId = getUnsubmittedJobCount() + getJobsSubmittedList().size();
+            jobsList.addAll(ReclusteringEngine.process(job, newId));
         }
 
         getJobsReceivedList().add(job);
+        releaseChildren(job.getCloudletId());
         jobsSubmitted--;
-        if (getJobsList().isEmpty() && jobsSubmitted == 0) {
+        if (getUnsubmittedJobCount() == 0 && jobsSubmitted == 0) {
             //send msg to all the schedulers
             for (int i = 0; i < getSchedulerIds().size(); i++) {
                 sendNow(getSchedulerId(i), CloudSimTags.END_OF_SIMULATION, null);
@@ -250,20 +303,96 @@ public final class WorkflowEngine extends SimEntity {
     }
 
     /**
-     * Checks whether a job list contains a id
+     * Gets the number of jobs in the job list that have not been submitted.
+     *
+     * @return the number of jobs
+     */
+    private int getUnsubmittedJobCount() {
+        return jobsList.size() - staleJobs.size();
+    }
+
+    /**
+     * Tracks the jobs added to the job list since the last call.
+     */
+    private void trackNewJobs() {
+        for (int i = trackedJobs; i < jobsList.size(); i++) {
+            Job job = jobsList.get(i);
+            /**
+             * A job whose id has been received is never submitted.
+             */
+            if (!receivedIds.contains(job.getCloudletId())) {
+                PendingJob pending = new PendingJob(job, nextSequence++);
+                if (!waitForParents(pending)) {
+                    readyJobs.add(pending);
+                }
+            }
+        }
+        trackedJobs = jobsList.size();
+    }
+
+    /**
+     * Registers a job with each of its parents not received yet.
+     *
+     * @param pending the tracked job
+     * @return whether the job has to wait for a parent
+     */
+    private boolean waitForParents(PendingJob pending) {
+        pending.missingParents = 0;
+        Task task = pending.job;
+        for (Task parent : task.getParentList()) {
+            int parentId = parent.getCloudletId();
+            if (!receivedIds.contains(parentId)) {
+                List<PendingJob> waiting = waitingJobs.get(parentId);
+                if (waiting == null) {
+                    waiting = new ArrayList<>();
+                    waitingJobs.put(parentId, waiting);
+                }
+                // a parent id may be listed several times
+                if (waiting.isEmpty() || waiting.get(waiting.size() - 1) != pending) {
+                    waiting.add(pending);
+                    pending.missingParents++;
+                }
+            }
+        }
+        return pending.missingParents > 0;
+    }
+
+    /**
+     * Records a received job id and moves the jobs that were only waiting for
+     * it to the ready jobs.
      *
-     * @param jobList the job list
      * @param id the job id
-     * @return
      */
-    private boolean hasJobListContainsID(List jobList, int id) {
-        for (Iterator it = jobList.iterator(); it.hasNext();) {
-            Job job = (Job) it.next();
-            if (job.getCloudletId() == id) {
-                return true;
+    private void releaseChildren(int id) {
+        if (!receivedIds.add(id)) {
+            return;
+        }
+        List<PendingJob> waiting = waitingJobs.remove(id);
+        if (waiting != null) {
+            for (PendingJob pending : waiting) {
+                if (--pending.missingParents == 0) {
+                    readyJobs.add(pending);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the submitted jobs from the job list.
+     */
+    private void compactJobsList() {
+        if (!staleJobs.isEmpty()) {
+            int kept = 0;
+            for (int i = 0; i < jobsList.size(); i++) {
+                Job job = jobsList.get(i);
+                if (!staleJobs.contains(job)) {
+                    jobsList.set(kept++, job);
+                }
             }
+            trackedJobs -= jobsList.size() - kept;
+            jobsList.subList(kept, jobsList.size()).clear();
+            staleJobs.clear();
         }
-        return false;
     }
 
     /**
@@ -274,41 +403,38 @@ public final class WorkflowEngine extends SimEntity {
      */
     protected void submitJobs() {
 
-        List<Job> list = getJobsList();
+        trackNewJobs();
         Map<Integer, List> allocationList = new HashMap<>();
         for (int i = 0; i < getSchedulers().size(); i++) {
             List<Job> submittedList = new ArrayList<>();
             allocationList.put(getSchedulerId(i), submittedList);
         }
-        int num = list.size();
-        for (int i = 0; i < num; i++) {
-            //at the beginning
-            Job job = list.get(i);
+        while (!readyJobs.isEmpty()) {
+            PendingJob pending = readyJobs.poll();
+            Job job = pending.job;
             //Dont use job.isFinished() it is not right
-            if (!hasJobListContainsID(this.getJobsReceivedList(), job.getCloudletId())) {
-                List<Job> parentList = job.getParentList();
-                boolean flag = true;
-                for (Job parent : parentList) {
-                    if (!hasJobListContainsID(this.getJobsReceivedList(), parent.getCloudletId())) {
-                        flag = false;
-                        break;
-                    }
-                }
-                /**
-                 * This job's parents have all completed successfully. Should
-                 * submit.
-                 */
-                if (flag) {
-                    List submittedList = allocationList.get(job.getUserId());
-                    submittedList.add(job);
-                    jobsSubmitted++;
-                    getJobsSubmittedList().add(job);
-                    list.remove(job);
-                    i--;
-                    num--;
-                }
+            if (receivedIds.contains(job.getCloudletId())) {
+                continue;
             }
-
+            /**
+             * The parent list grows when a parent fails and is retried, so it
+             * is checked again.
+             */
+            if (waitForParents(pending)) {
+                continue;
+            }
+            /**
+             * This job's parents have all completed successfully. Should
+             * submit.
+             */
+            List submittedList = allocationList.get(job.getUserId());
+            submittedList.add(job);
+            jobsSubmitted++;
+            getJobsSubmittedList().add(job);
+            staleJobs.add(job);
+        }
+        if (staleJobs.size() > jobsList.size() / 2) {
+            compactJobsList();
         }
         /**
          * If we have multiple schedulers. Divide them equally.
@@ -318,10 +444,10 @@ public final class WorkflowEngine extends SimEntity {
             List submittedList = allocationList.get(getSchedulerId(i));
             //divid it into sublist
 
-            int interval = Parameters.getOverheadParams().getWEDInterval();
+            int interval = overheads.getWEDInterval();
             double delay = 0.0;
-            if(Parameters.getOverheadParams().getWEDDelay()!=null){
-                delay = Parameters.getOverheadParams().getWEDDelay(submittedList);
+            if(overheads.getWEDDelay()!=null){
+                delay = overheads.getWEDDelay(submittedList);
             }
 
             double delaybase = delay;
@@ -365,27 +491,28 @@ public final class WorkflowEngine extends SimEntity {
     @Override
     public void startEntity() {
         Log.printLine(getName() + " is starting...");
+        overheads = Parameters.getOverheadParams();
         schedule(getId(), 0, CloudSimTags.RESOURCE_CHARACTERISTICS_REQUEST);
     }
 
     /**
-     * Gets the job list.
+     * Gets the job list, the jobs that have not been submitted yet.
      *
      * @param <T> the generic type
      * @return the job list
      */
     @SuppressWarnings("unchecked")
     public <T extends Cloudlet> List<T> getJobsList() {
+        compactJobsList();
         return (List<T>) jobsList;
     }
 
     /**
      * Sets the job list.
      *
-     * @param <T> the generic type
-     * @param cloudletList the new job list
+     * @param jobsList the new job list
      */
-    private <T extends Cloudlet> void setJobsList(List<T> jobsList) {
+    private void setJobsList(List<Job> jobsList) {
         this.jobsList = jobsList;
     }
 
@@ -515,4 +642,31 @@ public final class WorkflowEngine extends SimEntity {
         }
         return null;
     }
+
+    /**
+     * A job of the job list tracked by submitJobs(), with the number of its
+     * parents that have not been received.
+     */
+    private static final class PendingJob implements Comparable<PendingJob>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Job job;
+        /**
+         * The position of the job in the job list, jobs are submitted in list
+         * order.
+         */
+        private final long sequence;
+        private int missingParents;
+
+        PendingJob(Job job, long sequence) {
+            this.job = job;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PendingJob other) {
+            return Long.compare(sequence, other.sequence);
+        }
+    }
 }
@@ -0,0 +1,1048 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * WorkflowGenerator generates synthetic workflows shaped like the Montage,
+ * CyberShake, Epigenomics, Inspiral and SIPHT workflows of the bundled DAX
+ * files, with any number of jobs. The levels of each workflow grow with its
+ * size as they do in the real workflows: the number of images of Montage, of
+ * sites and rupture variations of CyberShake, of lanes and chunks of
+ * Epigenomics, of groups and templates of Inspiral and of replicons and
+ * matrices of SIPHT.
+ * <p>
+ * The runtimes of the jobs and the sizes of the files are drawn from
+ * log-normal distributions, with the mean and the deviation measured on the
+ * bundled DAX files of about 1000 jobs. The jobs that gather a whole level run
+ * for longer and write more as the level grows. The same shape, size and seed
+ * always give the same workflow.
+ * <p>
+ * A generated workflow can be written to a DAX file, or handed to
+ * WorkflowParser through Parameters.setWorkflowGenerator, which then builds
+ * the same tasks as parsing the DAX would, without going through XML.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class WorkflowGenerator implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The shapes of the generated workflows
+     */
+    public enum WorkflowShape {
+
+        MONTAGE, CYBERSHAKE, EPIGENOMICS, INSPIRAL, SIPHT
+    }
+    /**
+     * The relative deviation of the file sizes.
+     */
+    private static final double SIZE_DEVIATION = 0.2;
+    /**
+     * The shape of the workflow.
+     */
+    private final WorkflowShape shape;
+    /**
+     * The seed of the random numbers.
+     */
+    private final long seed;
+    /**
+     * The random numbers, only used while generating.
+     */
+    private transient Random random;
+    /**
+     * The job types.
+     */
+    private final List<JobType> types;
+    /**
+     * The number of jobs.
+     */
+    private int jobs;
+    /**
+     * The type of each job.
+     */
+    private int[] jobTypes;
+    /**
+     * The runtime of each job in seconds.
+     */
+    private double[] runtimes;
+    /**
+     * The first use of each job, and the number of uses at the end.
+     */
+    private int[] useStarts;
+    /**
+     * The number of file uses.
+     */
+    private int uses;
+    /**
+     * The file of each use, or its complement for an output.
+     */
+    private int[] useFiles;
+    /**
+     * The number of files.
+     */
+    private int files;
+    /**
+     * The size of each file in bytes.
+     */
+    private long[] fileSizes;
+    /**
+     * The first parent of each job, and the number of dependencies at the
+     * end.
+     */
+    private int[] parentStarts;
+    /**
+     * The number of dependencies.
+     */
+    private int dependencies;
+    /**
+     * The parents of the jobs.
+     */
+    private int[] parents;
+
+    /**
+     * Generates a workflow
+     *
+     * @param shape the shape of the workflow
+     * @param size the number of jobs. The workflow has fewer jobs if the shape
+     * does not allow this number, but as many as it allows.
+     * @param seed the seed of the random numbers
+     * @throws IllegalArgumentException if the size is too small for the shape
+     */
+    public WorkflowGenerator(WorkflowShape shape, int size, long seed) {
+        int minSize = getMinSize(shape);
+        if (size < minSize) {
+            throw new IllegalArgumentException("A " + shape + " workflow has at least " + minSize + " jobs");
+        }
+        this.shape = shape;
+        this.seed = seed;
+        this.types = new ArrayList<>();
+        this.jobTypes = new int[size];
+        this.runtimes = new double[size];
+        this.useStarts = new int[size + 1];
+        this.useFiles = new int[4 * size];
+        this.fileSizes = new long[3 * size];
+        this.parentStarts = new int[size + 1];
+        this.parents = new int[2 * size];
+        this.random = new Random(seed);
+
+        switch (shape) {
+            case MONTAGE:
+                generateMontage(size);
+                break;
+            case CYBERSHAKE:
+                generateCyberShake(size);
+                break;
+            case EPIGENOMICS:
+                generateEpigenomics(size);
+                break;
+            case INSPIRAL:
+                generateInspiral(size);
+                break;
+            case SIPHT:
+                generateSipht(size);
+                break;
+        }
+        this.random = null;
+    }
+
+    /**
+     * Gets the smallest number of jobs of a shape
+     *
+     * @param shape the shape
+     * @return the number of jobs
+     */
+    public static int getMinSize(WorkflowShape shape) {
+        switch (shape) {
+            case MONTAGE:
+                return 8;
+            case CYBERSHAKE:
+                return 5;
+            case EPIGENOMICS:
+                return 9;
+            case INSPIRAL:
+                return 6;
+            default:
+                return 13;
+        }
+    }
+
+    /**
+     * Gets the shape of the workflow
+     *
+     * @return the shape
+     */
+    public WorkflowShape getShape() {
+        return this.shape;
+    }
+
+    /**
+     * Gets the seed of the workflow
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Gets the number of jobs
+     *
+     * @return the number of jobs
+     */
+    public int getJobCount() {
+        return this.jobs;
+    }
+
+    /**
+     * Gets the number of dependencies
+     *
+     * @return the number of dependencies
+     */
+    public int getDependencyCount() {
+        return this.dependencies;
+    }
+
+    /**
+     * Gets the name of a job, its type
+     */
+    String getType(int job) {
+        return this.types.get(this.jobTypes[job]).name;
+    }
+
+    /**
+     * Gets the runtime of a job in seconds
+     */
+    double getRuntime(int job) {
+        return this.runtimes[job];
+    }
+
+    /**
+     * Gets the first use of a job, or the number of uses for the job after
+     * the last one
+     */
+    int getUseStart(int job) {
+        return this.useStarts[job];
+    }
+
+    /**
+     * Gets the name of the file of a use
+     */
+    String getFileName(int use) {
+        int file = this.useFiles[use];
+        return this.shape.name().toLowerCase() + "_f" + (file < 0 ? ~file : file) + ".dat";
+    }
+
+    /**
+     * Gets the size of the file of a use
+     */
+    long getFileSize(int use) {
+        int file = this.useFiles[use];
+        return this.fileSizes[file < 0 ? ~file : file];
+    }
+
+    /**
+     * Checks whether the file of a use is an output of the job
+     */
+    boolean isOutput(int use) {
+        return this.useFiles[use] < 0;
+    }
+
+    /**
+     * Gets the first parent of a job, or the number of dependencies for the
+     * job after the last one
+     */
+    int getParentStart(int job) {
+        return this.parentStarts[job];
+    }
+
+    /**
+     * Gets a parent of a job
+     */
+    int getParent(int dependency) {
+        return this.parents[dependency];
+    }
+
+    /**
+     * Writes the workflow as a DAX file. The jobs are written one after
+     * another, without building the document in memory.
+     *
+     * @param file the DAX file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeDax(File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+            try {
+                writeDax(writer);
+            } finally {
+                writer.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not write " + file, e);
+        }
+    }
+
+    /**
+     * Writes the workflow as a DAX document
+     */
+    private void writeDax(XMLStreamWriter writer) throws XMLStreamException {
+        String namespace = this.shape.name().toLowerCase();
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeCharacters("\n");
+        writer.writeStartElement("adag");
+        writer.writeDefaultNamespace("http://pegasus.isi.edu/schema/DAX");
+        writer.writeAttribute("version", "2.1");
+        writer.writeAttribute("count", "1");
+        writer.writeAttribute("index", "0");
+        writer.writeAttribute("name", namespace);
+        writer.writeAttribute("jobCount", Integer.toString(this.jobs));
+        writer.writeAttribute("fileCount", "0");
+        writer.writeAttribute("childCount", Integer.toString(getChildCount()));
+        for (int job = 0; job < this.jobs; job++) {
+            writer.writeCharacters("\n  ");
+            writer.writeStartElement("job");
+            writer.writeAttribute("id", getJobId(job));
+            writer.writeAttribute("namespace", namespace);
+            writer.writeAttribute("name", getType(job));
+            writer.writeAttribute("version", "1.0");
+            writer.writeAttribute("runtime", Double.toString(getRuntime(job)));
+            for (int use = getUseStart(job); use < getUseStart(job + 1); use++) {
+                writer.writeCharacters("\n    ");
+                writer.writeEmptyElement("uses");
+                writer.writeAttribute("file", getFileName(use));
+                writer.writeAttribute("link", isOutput(use) ? "output" : "input");
+                writer.writeAttribute("register", "true");
+                writer.writeAttribute("transfer", "true");
+                writer.writeAttribute("optional", "false");
+                writer.writeAttribute("type", "data");
+                writer.writeAttribute("size", Long.toString(getFileSize(use)));
+            }
+            writer.writeCharacters("\n  ");
+            writer.writeEndElement();
+        }
+        for (int job = 0; job < this.jobs; job++) {
+            if (getParentStart(job) == getParentStart(job + 1)) {
+                continue;
+            }
+            writer.writeCharacters("\n  ");
+            writer.writeStartElement("child");
+            writer.writeAttribute("ref", getJobId(job));
+            for (int dependency = getParentStart(job); dependency < getParentStart(job + 1); dependency++) {
+                writer.writeCharacters("\n    ");
+                writer.writeEmptyElement("parent");
+                writer.writeAttribute("ref", getJobId(getParent(dependency)));
+            }
+            writer.writeCharacters("\n  ");
+            writer.writeEndElement();
+        }
+        writer.writeCharacters("\n");
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+        writer.writeEndDocument();
+    }
+
+    /**
+     * Gets the number of jobs with a parent
+     */
+    private int getChildCount() {
+        int children = 0;
+        for (int job = 0; job < this.jobs; job++) {
+            if (getParentStart(job) < getParentStart(job + 1)) {
+                children++;
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Gets the id of a job in the DAX, padded like the ids of the bundled
+     * DAX files
+     */
+    private String getJobId(int job) {
+        String id = Integer.toString(job);
+        StringBuilder sb = new StringBuilder("ID");
+        for (int i = id.length(); i < 5; i++) {
+            sb.append('0');
+        }
+        return sb.append(id).toString();
+    }
+
+    /**
+     * Generates a Montage workflow: the images are projected, the overlaps
+     * of neighbouring images are fitted, the background model is computed
+     * from all the fits and applied to each image, and the images are added
+     * into a mosaic.
+     */
+    private void generateMontage(int size) {
+        // each image has up to four overlaps with the images after it on a grid
+        int images = Math.max(1, (size - 6) / 6);
+        while (getMontageOverlaps(images) < size - 2 * images - 6 && size - 2 * (images + 1) - 6 >= 0) {
+            images++;
+        }
+        int overlaps = Math.min(getMontageOverlaps(images), size - 2 * images - 6);
+        int width = (int) Math.ceil(Math.sqrt(images));
+        double scale = images / 166.0;
+
+        int mProjectPP = addType("mProjectPP", 13.58, 0.24);
+        int mDiffFit = addType("mDiffFit", 10.59, 0.10);
+        int mConcatFit = addType("mConcatFit", 52.96 * overlaps / 662.0, 0);
+        int mBgModel = addType("mBgModel", 89.12 * scale, 0);
+        int mBackground = addType("mBackground", 10.74, 0.17);
+        int mImgTbl = addType("mImgTbl", 65.91 * scale, 0);
+        int mAdd = addType("mAdd", 99.53 * scale, 0);
+        int mShrink = addType("mShrink", 22.25 * scale, 0);
+        int mJPEG = addType("mJPEG", 2.52 * scale, 0);
+
+        int header = addFile(304);
+        int[] projects = new int[images];
+        int[] projected = new int[images];
+        for (int i = 0; i < images; i++) {
+            projects[i] = addJob(mProjectPP);
+            addInput(header);
+            addInput(addFile(4222080));
+            projected[i] = addOutput(4167312);
+            addOutput(4167312);
+        }
+
+        int[] fits = new int[overlaps];
+        int[] diffs = new int[overlaps];
+        int[] offsets = {1, width, width + 1, width - 1};
+        int overlap = 0;
+        for (int i = 0; i < images && overlap < overlaps; i++) {
+            for (int k = 0; k < offsets.length && overlap < overlaps; k++) {
+                int j = i + offsets[k];
+                if (isMontageOverlap(i, j, k, width, images)) {
+                    diffs[overlap] = addJob(mDiffFit);
+                    addInput(header);
+                    addInput(projected[i]);
+                    addInput(projected[i] + 1);
+                    addInput(projected[j]);
+                    addInput(projected[j] + 1);
+                    fits[overlap] = addOutput(300);
+                    addOutput(288400);
+                    addParent(projects[i]);
+                    addParent(projects[j]);
+                    overlap++;
+                }
+            }
+        }
+
+        addJob(mConcatFit);
+        for (int i = 0; i < overlaps; i++) {
+            addInput(fits[i]);
+        }
+        int fitsTable = addOutput(138988 * Math.max(1, overlaps / 662.0));
+        for (int i = 0; i < overlaps; i++) {
+            addParent(diffs[i]);
+        }
+        int concat = this.jobs - 1;
+
+        addJob(mBgModel);
+        addInput(fitsTable);
+        int corrections = addOutput(8827 * scale);
+        addParent(concat);
+        int model = this.jobs - 1;
+
+        int[] backgrounds = new int[images];
+        int[] corrected = new int[images];
+        for (int i = 0; i < images; i++) {
+            backgrounds[i] = addJob(mBackground);
+            addInput(projected[i]);
+            addInput(projected[i] + 1);
+            addInput(corrections);
+            corrected[i] = addOutput(4161141);
+            addOutput(4161141);
+            addParent(model);
+            addParent(projects[i]);
+        }
+
+        addJob(mImgTbl);
+        addInput(header);
+        for (int i = 0; i < images; i++) {
+            addInput(corrected[i]);
+            addInput(corrected[i] + 1);
+        }
+        int table = addOutput(67432 * scale);
+        for (int i = 0; i < images; i++) {
+            addParent(backgrounds[i]);
+        }
+
+        addJob(mAdd);
+        addInput(header);
+        addInput(table);
+        int mosaic = addOutput(304769496 * scale);
+        addOutput(304769496 * scale);
+        addParent(this.jobs - 2);
+
+        addJob(mShrink);
+        addInput(mosaic);
+        int shrunk = addOutput(12195658 * scale);
+        addParent(this.jobs - 2);
+
+        addJob(mJPEG);
+        addInput(shrunk);
+        addOutput(1422913 * scale);
+        addParent(this.jobs - 2);
+    }
+
+    /**
+     * Gets the number of overlaps of the images of a Montage workflow
+     */
+    private static int getMontageOverlaps(int images) {
+        int width = (int) Math.ceil(Math.sqrt(images));
+        int right = images / width * (width - 1) + Math.max(images % width - 1, 0);
+        int down = Math.max(images - width, 0);
+        int downRight = Math.max(images - width - 1, 0);
+        downRight -= downRight / width;
+        int downLeft = Math.max(images - width + 1, 0);
+        downLeft -= (downLeft + width - 1) / width;
+        return right + down + downRight + downLeft;
+    }
+
+    /**
+     * Checks whether two images of a Montage workflow overlap: the image
+     * after it, below it, or below it on the right or on the left
+     */
+    private static boolean isMontageOverlap(int i, int j, int direction, int width, int images) {
+        if (j >= images) {
+            return false;
+        }
+        int column = i % width;
+        switch (direction) {
+            case 0:
+            case 2:
+                return column + 1 < width;
+            case 1:
+                return true;
+            default:
+                return column > 0;
+        }
+    }
+
+    /**
+     * Generates a CyberShake workflow: the strain Green tensors of each site
+     * are extracted, a seismogram is synthesized for each rupture variation
+     * and its peak value is computed, and the seismograms and the peak values
+     * are zipped.
+     */
+    private void generateCyberShake(int size) {
+        int sites = Math.max(1, (int) Math.round(size / 250.0));
+        if ((size - 2 - sites) / 2 < sites) {
+            sites = Math.max(1, (size - 2) / 3);
+        }
+        int variations = (size - 2 - sites) / 2;
+        double scale = variations / 497.0;
+
+        int extractSGT = addType("ExtractSGT", 126.12, 32.17);
+        int seismogramSynthesis = addType("SeismogramSynthesis", 43.65, 12.35);
+        int peakValCalcOkaya = addType("PeakValCalcOkaya", 1.08, 0.31);
+        int zipSeis = addType("ZipSeis", 9.38 * scale, 0);
+        int zipPSA = addType("ZipPSA", 3.81 * scale, 0);
+
+        int[] synthesis = new int[variations];
+        int[] seismograms = new int[variations];
+        int[] peaks = new int[variations];
+        int[] peakValues = new int[variations];
+        int variation = 0;
+        for (int site = 0; site < sites; site++) {
+            int extract = addJob(extractSGT);
+            addInput(addFile(20000000000L));
+            addInput(addFile(20000000000L));
+            addInput(addFile(1024));
+            int sgt = addOutput(267567242);
+            addOutput(267567242);
+            int count = variations / sites + (site < variations % sites ? 1 : 0);
+            for (int i = 0; i < count; i++, variation++) {
+                synthesis[variation] = addJob(seismogramSynthesis);
+                addInput(sgt);
+                addInput(sgt + 1);
+                addInput(addFile(3588689));
+                seismograms[variation] = addOutput(24000);
+                addParent(extract);
+
+                peaks[variation] = addJob(peakValCalcOkaya);
+                addInput(seismograms[variation]);
+                peakValues[variation] = addOutput(216);
+                addParent(synthesis[variation]);
+            }
+        }
+
+        addJob(zipSeis);
+        for (int i = 0; i < variations; i++) {
+            addInput(seismograms[i]);
+        }
+        addOutput(2139449 * scale);
+        for (int i = 0; i < variations; i++) {
+            addParent(synthesis[i]);
+        }
+
+        addJob(zipPSA);
+        for (int i = 0; i < variations; i++) {
+            addInput(peakValues[i]);
+        }
+        addOutput(10608 * scale);
+        for (int i = 0; i < variations; i++) {
+            addParent(peaks[i]);
+        }
+    }
+
+    /**
+     * Generates an Epigenomics workflow: the sequences of each lane are split
+     * into chunks, each chunk is filtered, converted and mapped on the
+     * reference genome, the maps are merged by lane and then all together,
+     * and the sequence density is computed from the merged map.
+     */
+    private void generateEpigenomics(int size) {
+        int lanes = Math.max(1, (int) Math.round(size / 143.0));
+        if ((size - 2 * lanes - 3) / 4 < lanes) {
+            lanes = Math.max(1, (size - 3) / 6);
+        }
+        int chunks = (size - 2 * lanes - 3) / 4;
+        double chunkScale = chunks / (35.0 * lanes);
+        double scale = chunks / 245.0;
+
+        int fastqSplit = addType("fastqSplit_chr21", 54.53 * chunkScale, 17.11 * chunkScale);
+        int filterContams = addType("filterContams_chr21", 1.46, 1.09);
+        int sol2sanger = addType("sol2sanger_chr21", 0.40, 0.28);
+        int fastq2bfq = addType("fastq2bfq_chr21", 0.68, 0.57);
+        int map = addType("map_chr21", 15703.99, 4072.09);
+        int laneMerge = addType("mapMerge_chr21", 19.25 * chunkScale, 0);
+        int mapMerge = addType("mapMerge_chr21", 147.74 * lanes / 7.0, 0);
+        int maqIndex = addType("maqindex_chr21", 0.21 * scale, 0);
+        int pileup = addType("pileup_chr21", 6034.50 * scale, 0);
+
+        int reference = addFile(5305697978L);
+        int[] merges = new int[lanes];
+        int[] merged = new int[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            int count = chunks / lanes + (lane < chunks % lanes ? 1 : 0);
+            int split = addJob(fastqSplit);
+            addInput(addFile(10548705L * count));
+            int first = this.files;
+            for (int i = 0; i < count; i++) {
+                addOutput(11425624);
+            }
+            int[] maps = new int[count];
+            int[] mapped = new int[count];
+            for (int i = 0; i < count; i++) {
+                int filter = addJob(filterContams);
+                addInput(first + i);
+                int filtered = addOutput(5712812);
+                addOutput(5712812);
+                addParent(split);
+
+                int sanger = addJob(sol2sanger);
+                addInput(filtered);
+                int converted = addOutput(4583700);
+                addParent(filter);
+
+                int bfq = addJob(fastq2bfq);
+                addInput(converted);
+                int binary = addOutput(1089804);
+                addParent(sanger);
+
+                maps[i] = addJob(map);
+                addInput(binary);
+                addInput(reference);
+                mapped[i] = addOutput(1184569);
+                addParent(bfq);
+            }
+            merges[lane] = addJob(laneMerge);
+            for (int i = 0; i < count; i++) {
+                addInput(mapped[i]);
+            }
+            merged[lane] = addOutput(41459915L * count / 35);
+            for (int i = 0; i < count; i++) {
+                addParent(maps[i]);
+            }
+        }
+
+        addJob(mapMerge);
+        for (int lane = 0; lane < lanes; lane++) {
+            addInput(merged[lane]);
+        }
+        int genome = addOutput(240227850 * scale);
+        for (int lane = 0; lane < lanes; lane++) {
+            addParent(merges[lane]);
+        }
+
+        addJob(maqIndex);
+        addInput(genome);
+        int index = addOutput(4291370 * scale);
+        addParent(this.jobs - 2);
+
+        addJob(pileup);
+        addInput(index);
+        addInput(reference);
+        addOutput(9441894 * scale);
+        addParent(this.jobs - 2);
+    }
+
+    /**
+     * Generates an Inspiral workflow: in each group, template banks are made
+     * from the data segments, the inspirals are searched with them and their
+     * coincidences found, and the search is done again with the trigger banks
+     * of the coincidences.
+     */
+    private void generateInspiral(int size) {
+        int groups = Math.max(1, (int) Math.round(size / 50.0));
+        if ((size - 2 * groups) / 4 < groups) {
+            groups = Math.max(1, size / 6);
+        }
+        int templates = (size - 2 * groups) / 4;
+
+        int tmpltBank = addType("TmpltBank", 18.14, 0.43);
+        int inspiral = addType("Inspiral", 462.60, 128.73);
+        int thinca = addType("Thinca", 5.35 * templates / (12.0 * groups), 0.21);
+        int trigBank = addType("TrigBank", 5.12, 0.32);
+
+        for (int group = 0; group < groups; group++) {
+            int count = templates / groups + (group < templates % groups ? 1 : 0);
+            int[] banks = new int[count];
+            int[] segments = new int[count];
+            for (int i = 0; i < count; i++) {
+                banks[i] = addJob(tmpltBank);
+                segments[i] = this.files;
+                for (int k = 0; k < 4; k++) {
+                    addInput(addFile(10127520));
+                }
+                addOutput(987525);
+            }
+            int[] searches = addInspirals(inspiral, banks, segments);
+            int[] triggers = new int[count];
+            int coincidence = addThinca(thinca, searches);
+            for (int i = 0; i < count; i++) {
+                triggers[i] = addJob(trigBank);
+                addInput(getOutput(coincidence));
+                addOutput(12895);
+                addParent(coincidence);
+            }
+            addThinca(thinca, addInspirals(inspiral, triggers, segments));
+        }
+    }
+
+    /**
+     * Adds an Inspiral job for each bank of a group
+     *
+     * @return the jobs
+     */
+    private int[] addInspirals(int type, int[] banks, int[] segments) {
+        int[] searches = new int[banks.length];
+        for (int i = 0; i < banks.length; i++) {
+            searches[i] = addJob(type);
+            addInput(getOutput(banks[i]));
+            for (int k = 0; k < 4; k++) {
+                addInput(segments[i] + k);
+            }
+            addOutput(311199);
+            addParent(banks[i]);
+        }
+        return searches;
+    }
+
+    /**
+     * Adds a Thinca job of the searches of a group
+     *
+     * @return the job
+     */
+    private int addThinca(int type, int[] searches) {
+        int job = addJob(type);
+        for (int search : searches) {
+            addInput(getOutput(search));
+        }
+        addOutput(36164);
+        for (int search : searches) {
+            addParent(search);
+        }
+        return job;
+    }
+
+    /**
+     * Generates a SIPHT workflow: for each replicon, the candidate sRNAs are
+     * predicted from the terminators, motifs and conserved regions of its
+     * genome, and annotated with the searches of their homologs and with the
+     * transcription factor sites found by Patser.
+     */
+    private void generateSipht(int size) {
+        int replicons = Math.max(1, (int) Math.round(size / 32.0));
+        if (size - 12 * replicons < replicons) {
+            replicons = size / 13;
+        }
+        int matrices = size - 12 * replicons;
+
+        int patser = addType("Patser", 1.28, 0.24);
+        int patserConcate = addType("Patser_concate", 0.10, 0);
+        int findterm = addType("Findterm", 1576.42, 197.35);
+        int rnaMotif = addType("RNAMotif", 32.18, 6.23);
+        int transterm = addType("Transterm", 55.60, 4.94);
+        int blast = addType("Blast", 2312.50, 357.45);
+        int srna = addType("SRNA", 444.05, 69.21);
+        int ffnParse = addType("FFN_Parse", 1.50, 0.18);
+        int blastSynteny = addType("Blast_synteny", 33.00, 0);
+        int blastCandidate = addType("Blast_candidate", 5.14, 0.73);
+        int blastQRNA = addType("Blast_QRNA", 1301.29, 35.23);
+        int blastParalogues = addType("Blast_paralogues", 4.10, 1.23);
+        int srnaAnnotate = addType("SRNA_annotate", 1.42, 0.13);
+
+        int database = addFile(260841218);
+        for (int replicon = 0; replicon < replicons; replicon++) {
+            int count = matrices / replicons + (replicon < matrices % replicons ? 1 : 0);
+            int genome = addFile(5026458);
+            int table = addFile(927040);
+
+            int[] patsers = new int[count];
+            for (int i = 0; i < count; i++) {
+                patsers[i] = addJob(patser);
+                addInput(genome);
+                addInput(addFile(26436));
+                addOutput(90793);
+            }
+            int concate = addJob(patserConcate);
+            for (int i = 0; i < count; i++) {
+                addInput(getOutput(patsers[i]));
+            }
+            addOutput(1846121);
+            for (int i = 0; i < count; i++) {
+                addParent(patsers[i]);
+            }
+
+            int[] predictions = new int[4];
+            predictions[0] = addJob(findterm);
+            addInput(genome);
+            addInput(table);
+            addOutput(33402760);
+            predictions[1] = addJob(rnaMotif);
+            addInput(genome);
+            addInput(addFile(352656));
+            addOutput(1074892);
+            predictions[2] = addJob(transterm);
+            addInput(genome);
+            addInput(table);
+            addOutput(434324);
+            predictions[3] = addJob(blast);
+            addInput(genome);
+            addInput(database);
+            addOutput(5253393);
+
+            int candidates = addJob(srna);
+            for (int prediction : predictions) {
+                addInput(getOutput(prediction));
+            }
+            addOutput(6895420);
+            for (int prediction : predictions) {
+                addParent(prediction);
+            }
+
+            int ffn = addJob(ffnParse);
+            addInput(getOutput(candidates));
+            addInput(table);
+            addOutput(748786);
+            addParent(candidates);
+
+            int[] annotations = new int[6];
+            annotations[0] = addJob(blastCandidate);
+            addInput(getOutput(candidates));
+            addOutput(16470);
+            addParent(candidates);
+            annotations[1] = addJob(blastQRNA);
+            addInput(getOutput(candidates));
+            addInput(database);
+            addOutput(3644912);
+            addParent(candidates);
+            annotations[2] = addJob(blastParalogues);
+            addInput(getOutput(candidates));
+            addOutput(798502);
+            addParent(candidates);
+            annotations[3] = addJob(blastSynteny);
+            addInput(getOutput(ffn));
+            addInput(getOutput(candidates));
+            addOutput(900369);
+            addParent(ffn);
+            addParent(candidates);
+            annotations[4] = concate;
+            annotations[5] = candidates;
+
+            addJob(srnaAnnotate);
+            for (int annotation : annotations) {
+                addInput(getOutput(annotation));
+            }
+            addOutput(1365301);
+            for (int annotation : annotations) {
+                addParent(annotation);
+            }
+        }
+    }
+
+    /**
+     * Adds a job type
+     *
+     * @param name the name of the jobs
+     * @param runtime the mean runtime of the jobs
+     * @param deviation the standard deviation of the runtime
+     * @return the type
+     */
+    private int addType(String name, double runtime, double deviation) {
+        this.types.add(new JobType(name, runtime, deviation));
+        return this.types.size() - 1;
+    }
+
+    /**
+     * Adds a job. Its files and parents are added next.
+     *
+     * @param type the type of the job
+     * @return the job
+     */
+    private int addJob(int type) {
+        if (this.jobs == this.jobTypes.length) {
+            int capacity = 2 * this.jobs;
+            this.jobTypes = Arrays.copyOf(this.jobTypes, capacity);
+            this.runtimes = Arrays.copyOf(this.runtimes, capacity);
+            this.useStarts = Arrays.copyOf(this.useStarts, capacity + 1);
+            this.parentStarts = Arrays.copyOf(this.parentStarts, capacity + 1);
+        }
+        JobType jobType = this.types.get(type);
+        // the runtimes of the DAX files have two decimals
+        double runtime = Math.round(sample(jobType.runtime, jobType.deviation) * 100) / 100.0;
+        this.jobTypes[this.jobs] = type;
+        this.runtimes[this.jobs] = Math.max(runtime, 0.01);
+        this.jobs++;
+        this.useStarts[this.jobs] = this.uses;
+        this.parentStarts[this.jobs] = this.dependencies;
+        return this.jobs - 1;
+    }
+
+    /**
+     * Adds a file
+     *
+     * @param size the size of the file
+     * @return the file
+     */
+    private int addFile(long size) {
+        if (this.files == this.fileSizes.length) {
+            this.fileSizes = Arrays.copyOf(this.fileSizes, 2 * this.files);
+        }
+        this.fileSizes[this.files] = Math.max(size, 1);
+        return this.files++;
+    }
+
+    /**
+     * Adds an input file to the last job
+     *
+     * @param file the file
+     */
+    private void addInput(int file) {
+        addUse(file);
+    }
+
+    /**
+     * Adds an output file to the last job
+     *
+     * @param size the mean size of the file
+     * @return the file
+     */
+    private int addOutput(double size) {
+        int file = addFile(Math.round(sample(size, size * SIZE_DEVIATION)));
+        addUse(~file);
+        return file;
+    }
+
+    /**
+     * Gets the first output file of a job
+     *
+     * @param job the job
+     * @return the file
+     */
+    private int getOutput(int job) {
+        for (int use = this.useStarts[job]; use < this.useStarts[job + 1]; use++) {
+            if (this.useFiles[use] < 0) {
+                return ~this.useFiles[use];
+            }
+        }
+        throw new IllegalStateException("Job " + job + " has no output");
+    }
+
+    /**
+     * Adds a use of a file to the last job
+     */
+    private void addUse(int file) {
+        if (this.uses == this.useFiles.length) {
+            this.useFiles = Arrays.copyOf(this.useFiles, 2 * this.uses);
+        }
+        this.useFiles[this.uses++] = file;
+        this.useStarts[this.jobs] = this.uses;
+    }
+
+    /**
+     * Adds a parent to the last job
+     *
+     * @param parent the parent
+     */
+    private void addParent(int parent) {
+        if (this.dependencies == this.parents.length) {
+            this.parents = Arrays.copyOf(this.parents, 2 * this.dependencies);
+        }
+        this.parents[this.dependencies++] = parent;
+        this.parentStarts[this.jobs] = this.dependencies;
+    }
+
+    /**
+     * Draws a positive number from a log-normal distribution
+     *
+     * @param mean the mean of the distribution
+     * @param deviation the standard deviation of the distribution
+     * @return the number
+     */
+    private double sample(double mean, double deviation) {
+        if (deviation <= 0 || mean <= 0) {
+            return mean;
+        }
+        double variance = Math.log(1 + deviation * deviation / (mean * mean));
+        return mean * Math.exp(Math.sqrt(variance) * this.random.nextGaussian() - variance / 2);
+    }
+
+    /**
+     * A type of jobs, with the distribution of their runtime
+     */
+    private static class JobType implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final double runtime;
+        private final double deviation;
+
+        public JobType(String name, double runtime, double deviation) {
+            this.name = name;
+            this.runtime = runtime;
+            this.deviation = deviation;
+        }
+    }
+}
@@ -15,20 +15,44 @@
  */
 package org.workflowsim;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.FileType;
+import org.workflowsim.utils.Parameters.ParsingMode;
 import org.workflowsim.utils.ReplicaCatalog;
 
 /**
@@ -39,7 +63,9 @@ import org.workflowsim.utils.ReplicaCatalog;
  * @date Aug 23, 2013
  * @date Nov 9, 2014
  */
-public final class WorkflowParser {
+public final class WorkflowParser implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * The path to DAX file.
@@ -63,6 +89,43 @@ public final class WorkflowParser {
      */
     private int jobIdStartsFrom;
 
+    /**
+     * The parser of DAX files, jdom or StAX.
+     */
+    private final ParsingMode parsingMode;
+
+    /**
+     * The number of threads parsing the DAX files of an ensemble.
+     */
+    private final int parsingThreads;
+
+    /**
+     * The input files of a DAX parsed on its own thread, by name. They are
+     * added to the replica catalog when the DAX is merged. Null when the
+     * replica catalog is used directly.
+     */
+    private final Map<String, FileItem> files;
+
+    /**
+     * The log messages of a DAX parsed on its own thread.
+     */
+    private transient ByteArrayOutputStream log;
+
+    /**
+     * The directory of the workflow cache, or null.
+     */
+    private final String cacheDirectory;
+
+    /**
+     * The generator of the workflow, or null to parse the DAX files.
+     */
+    private final WorkflowGenerator generator;
+
+    /**
+     * Whether the tasks keep no required files, see Parameters.setSlimTasks.
+     */
+    private final boolean slimTasks;
+
     /**
      * Gets the task list
      *
@@ -98,42 +161,311 @@ public final class WorkflowParser {
         this.daxPath = Parameters.getDaxPath();
         this.daxPaths = Parameters.getDAXPaths();
         this.jobIdStartsFrom = 1;
+        this.parsingMode = Parameters.getParsingMode();
+        this.parsingThreads = Parameters.getParsingThreads();
+        this.files = null;
+        this.cacheDirectory = Parameters.getWorkflowCache();
+        this.generator = Parameters.getWorkflowGenerator();
+        this.slimTasks = Parameters.isSlimTasks();
+
+        setTaskList(new ArrayList<>());
+    }
+
+    /**
+     * Initialize a WorkflowParser of one DAX of an ensemble
+     *
+     * @param userId the user id
+     * @param daxPath the DAX file
+     * @param parsingMode the parser of the DAX file
+     * @param jobIdStartsFrom the id of the first task
+     * @param cacheDirectory the directory of the workflow cache, or null
+     */
+    private WorkflowParser(int userId, String daxPath, ParsingMode parsingMode, int jobIdStartsFrom,
+            String cacheDirectory) {
+        this.userId = userId;
+        this.mName2Task = new HashMap<>();
+        this.daxPath = daxPath;
+        this.daxPaths = null;
+        this.jobIdStartsFrom = jobIdStartsFrom;
+        this.parsingMode = parsingMode;
+        this.parsingThreads = 1;
+        this.files = new HashMap<>();
+        this.log = new ByteArrayOutputStream();
+        this.cacheDirectory = cacheDirectory;
+        this.generator = null;
+        this.slimTasks = Parameters.isSlimTasks();
 
         setTaskList(new ArrayList<>());
     }
 
     /**
-     * Start to parse a workflow which is a xml file(s).
+     * Start to parse a workflow which is a xml file(s), or to build the tasks
+     * of a generated workflow. The tasks are then attached to a TaskGraph,
+     * which keeps their lists.
      */
     public void parse() {
-        if (this.daxPath != null) {
-            parseXmlFile(this.daxPath);
+        if (this.generator != null) {
+            generate(this.generator);
+        } else if (this.daxPath != null) {
+            parse(this.daxPath);
         } else if (this.daxPaths != null) {
-            for (String path : this.daxPaths) {
-                parseXmlFile(path);
+            if (this.parsingThreads > 1 && this.daxPaths.size() > 1) {
+                parseConcurrently(this.daxPaths);
+            } else {
+                for (String path : this.daxPaths) {
+                    parse(path);
+                }
+            }
+        }
+        TaskGraph.attach(getTaskList());
+    }
+
+    /**
+     * Parse DAX files on a thread pool. The jobs of each file are counted
+     * first, so that each file gets the range of task ids it would get if the
+     * files were parsed one after another. Each file is then parsed with its
+     * own name map and input files, and the tasks, files and log messages are
+     * merged in the order of the files. A file that does not give as many
+     * tasks as counted, e.g. an invalid one, is parsed again with all the
+     * files after it, one after another.
+     */
+    private void parseConcurrently(List<String> paths) {
+        final SimulationContext context = CloudSim.getContext();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.parsingThreads, paths.size()),
+                new ThreadFactory() {
+
+                    private int threads = 0;
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "WorkflowParser-" + (++threads));
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        try {
+            List<Callable<Integer>> counts = new ArrayList<>();
+            final double runtimeScale = Parameters.getRuntimeScale();
+            for (final String path : paths) {
+                counts.add(new Callable<Integer>() {
+
+                    @Override
+                    public Integer call() {
+                        if (cacheDirectory != null) {
+                            File cacheFile = WorkflowCache.getCacheFile(cacheDirectory, path, runtimeScale);
+                            int tasks = cacheFile == null ? -1 : WorkflowCache.getTaskCount(cacheFile);
+                            if (tasks >= 0) {
+                                return tasks;
+                            }
+                        }
+                        return countJobs(path);
+                    }
+                });
+            }
+            List<Future<Integer>> jobCounts = executor.invokeAll(counts);
+
+            List<Callable<WorkflowParser>> parts = new ArrayList<>();
+            int first = this.jobIdStartsFrom;
+            for (int i = 0; i < paths.size(); i++) {
+                final WorkflowParser part = new WorkflowParser(this.userId, paths.get(i), this.parsingMode, first,
+                        this.cacheDirectory);
+                parts.add(new Callable<WorkflowParser>() {
+
+                    @Override
+                    public WorkflowParser call() {
+                        part.parseAlone(context);
+                        return part;
+                    }
+                });
+                first += Math.max(0, jobCounts.get(i).get());
+            }
+            List<Future<WorkflowParser>> results = executor.invokeAll(parts);
+
+            boolean merging = true;
+            for (int i = 0; i < paths.size(); i++) {
+                WorkflowParser part = results.get(i).get();
+                merging = merging && part.mName2Task.isEmpty()
+                        && part.getTaskList().size() == jobCounts.get(i).get();
+                if (merging) {
+                    merge(part);
+                } else {
+                    parse(paths.get(i));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.printLine("Parsing interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parse the DAX of this parser on the calling thread, in the given
+     * simulation context, keeping the log messages
+     */
+    private void parseAlone(SimulationContext context) {
+        CloudSim.setContext(context);
+        Log.setThreadOutput(this.log);
+        try {
+            parse(this.daxPath);
+        } finally {
+            Log.setThreadOutput(null);
+            CloudSim.setContext(null);
+        }
+    }
+
+    /**
+     * Adds the tasks of a DAX parsed on its own thread. Its input files are
+     * replaced by the files of the same name already in the replica catalog,
+     * and the others are added to it, as if the DAX had been parsed here.
+     */
+    private void merge(WorkflowParser part) {
+        for (Task task : part.getTaskList()) {
+            List<FileItem> fileList = task.getFileList();
+            for (int i = 0; i < fileList.size(); i++) {
+                FileItem file = fileList.get(i);
+                if (file.getType() != FileType.OUTPUT) {
+                    FileItem shared = ReplicaCatalog.setFileIfAbsent(file.getName(), file);
+                    if (shared != file) {
+                        shared.setType(file.getType());
+                        fileList.set(i, shared);
+                    }
+                }
             }
+            this.getTaskList().add(task);
+        }
+        this.jobIdStartsFrom += part.getTaskList().size();
+        // the jobs of a DAX that could not be parsed, as if it had been parsed here
+        this.mName2Task.putAll(part.mName2Task);
+        try {
+            part.log.writeTo(Log.getOutput());
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
     /**
-     * Sets the depth of a task
+     * Counts the jobs of a DAX file with StAX
      *
-     * @param task the task
-     * @param depth the depth
+     * @return the number of jobs, or -1 if the file cannot be read
      */
-    private void setDepth(Task task, int depth) {
-        if (depth > task.getDepth()) {
-            task.setDepth(depth);
+    private static int countJobs(String path) {
+        InputStream in = null;
+        XMLStreamReader reader = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(path));
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            reader = factory.createXMLStreamReader(in);
+            int level = 0;
+            int jobs = 0;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        level++;
+                        if (level == 2 && reader.getLocalName().toLowerCase().equals("job")) {
+                            jobs++;
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        level--;
+                        break;
+                }
+            }
+            return jobs;
+        } catch (XMLStreamException | IOException e) {
+            return -1;
+        } finally {
+            try {
+                if (reader != null) {
+                    reader.close();
+                }
+                if (in != null) {
+                    in.close();
+                }
+            } catch (XMLStreamException | IOException e) {
+                Log.printLine("IO Exception;Could not close " + path);
+            }
+        }
+    }
+
+    /**
+     * Parse a DAX file, or load its tasks from the workflow cache. A DAX
+     * missing from the cache is parsed on its own, with its own input files
+     * and log messages, so that they can be saved and then merged. The jobs
+     * left by a DAX that could not be parsed are still known by name to the
+     * next DAX, which is then parsed here.
+     */
+    private void parse(String path) {
+        File cacheFile = null;
+        if (this.cacheDirectory != null && this.mName2Task.isEmpty()) {
+            cacheFile = WorkflowCache.getCacheFile(this.cacheDirectory, path, Parameters.getRuntimeScale());
         }
-        for (Task cTask : task.getChildList()) {
-            setDepth(cTask, task.getDepth() + 1);
+        if (cacheFile == null) {
+            parseFile(path);
+        } else if (this.files != null) {
+            parseCached(path, cacheFile);
+        } else {
+            WorkflowParser part = new WorkflowParser(this.userId, path, this.parsingMode, this.jobIdStartsFrom,
+                    this.cacheDirectory);
+            OutputStream output = Log.getThreadOutput();
+            Log.setThreadOutput(part.log);
+            try {
+                part.parseCached(path, cacheFile);
+            } finally {
+                Log.setThreadOutput(output);
+            }
+            merge(part);
+        }
+    }
+
+    /**
+     * Load the tasks of a DAX from its cache file, or parse the DAX and save
+     * them to it. Only a parser of a single DAX can save its tasks, since its
+     * input files are not shared with other DAX files yet.
+     */
+    private void parseCached(String path, File cacheFile) {
+        if (WorkflowCache.load(cacheFile, this)) {
+            return;
+        }
+        int first = getTaskList().size();
+        if (parseFile(path)) {
+            try {
+                WorkflowCache.save(cacheFile, getTaskList().subList(first, getTaskList().size()),
+                        this.log.toByteArray());
+            } catch (IOException e) {
+                Log.printLine("IO Exception;Could not write the workflow cache " + cacheFile);
+            }
+        }
+    }
+
+    /**
+     * Parse a DAX file with the parser of the parsing mode
+     *
+     * @return true if the whole file has been parsed
+     */
+    private boolean parseFile(String path) {
+        if (this.parsingMode == ParsingMode.STREAMING) {
+            return parseXmlStream(path);
+        } else {
+            return parseXmlFile(path);
         }
     }
 
     /**
      * Parse a DAX file with jdom
      */
-    private void parseXmlFile(String path) {
+    private boolean parseXmlFile(String path) {
 
         try {
 
@@ -145,26 +477,9 @@ public final class WorkflowParser {
             for (Element node : list) {
                 switch (node.getName().toLowerCase()) {
                     case "job":
-                        long length = 0;
                         String nodeName = node.getAttributeValue("id");
                         String nodeType = node.getAttributeValue("name");
-                        /**
-                         * capture runtime. If not exist, by default the runtime
-                         * is 0.1. Otherwise CloudSim would ignore this task.
-                         * BUG/#11
-                         */
-                        double runtime;
-                        if (node.getAttributeValue("runtime") != null) {
-                            String nodeTime = node.getAttributeValue("runtime");
-                            runtime = 1000 * Double.parseDouble(nodeTime);
-                            if (runtime < 100) {
-                                runtime = 100;
-                            }
-                            length = (long) runtime;
-                        } else {
-                            Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
-                        }   //multiple the scale, by default it is 1.0
-                        length *= Parameters.getRuntimeScale();
+                        long length = getLength(nodeName, node.getAttributeValue("runtime"));
                         List<Element> fileList = node.getChildren();
                         List<FileItem> mFileList = new ArrayList<>();
                         for (Element file : fileList) {
@@ -173,89 +488,11 @@ public final class WorkflowParser {
                                 if (fileName == null) {
                                     fileName = file.getAttributeValue("file");//DAX version 3.0
                                 }
-                                if (fileName == null) {
-                                    Log.print("Error in parsing xml");
-                                }
-
-                                String inout = file.getAttributeValue("link");
-                                double size = 0.0;
-
-                                String fileSize = file.getAttributeValue("size");
-                                if (fileSize != null) {
-                                    size = Double.parseDouble(fileSize) /*/ 1024*/;
-                                } else {
-                                    Log.printLine("File Size not found for " + fileName);
-                                }
-
-                                /**
-                                 * a bug of cloudsim, size 0 causes a problem. 1
-                                 * is ok.
-                                 */
-                                if (size == 0) {
-                                    size++;
-                                }
-                                /**
-                                 * Sets the file type 1 is input 2 is output
-                                 */
-                                FileType type = FileType.NONE;
-                                switch (inout) {
-                                    case "input":
-                                        type = FileType.INPUT;
-                                        break;
-                                    case "output":
-                                        type = FileType.OUTPUT;
-                                        break;
-                                    default:
-                                        Log.printLine("Parsing Error");
-                                        break;
-                                }
-                                FileItem tFile;
-                                /*
-                                 * Already exists an input file (forget output file)
-                                 */
-                                if (size < 0) {
-                                    /*
-                                     * Assuming it is a parsing error
-                                     */
-                                    size = 0 - size;
-                                    Log.printLine("Size is negative, I assume it is a parser error");
-                                }
-                                /*
-                                 * Note that CloudSim use size as MB, in this case we use it as Byte
-                                 */
-                                if (type == FileType.OUTPUT) {
-                                    /**
-                                     * It is good that CloudSim does tell
-                                     * whether a size is zero
-                                     */
-                                    tFile = new FileItem(fileName, size);
-                                } else if (ReplicaCatalog.containsFile(fileName)) {
-                                    tFile = ReplicaCatalog.getFile(fileName);
-                                } else {
-
-                                    tFile = new FileItem(fileName, size);
-                                    ReplicaCatalog.setFile(fileName, tFile);
-                                }
-
-                                tFile.setType(type);
-                                mFileList.add(tFile);
-
+                                mFileList.add(getFile(fileName, file.getAttributeValue("link"),
+                                        file.getAttributeValue("size")));
                             }
                         }
-                        Task task;
-                        //In case of multiple workflow submission. Make sure the jobIdStartsFrom is consistent.
-                        synchronized (this) {
-                            task = new Task(this.jobIdStartsFrom, length);
-                            this.jobIdStartsFrom++;
-                        }
-                        task.setType(nodeType);
-                        task.setUserId(userId);
-                        mName2Task.put(nodeName, task);
-                        for (FileItem file : mFileList) {
-                            task.addRequiredFile(file.getName());
-                        }
-                        task.setFileList(mFileList);
-                        this.getTaskList().add(task);
+                        addTask(nodeName, nodeType, length, mFileList);
 
                         /**
                          * Add dependencies info.
@@ -269,43 +506,99 @@ public final class WorkflowParser {
                             Task childTask = (Task) mName2Task.get(childName);
 
                             for (Element parent : pList) {
-                                String parentName = parent.getAttributeValue("ref");
-                                if (mName2Task.containsKey(parentName)) {
-                                    Task parentTask = (Task) mName2Task.get(parentName);
-                                    parentTask.addChild(childTask);
-                                    childTask.addParent(parentTask);
-                                }
+                                addDependency(parent.getAttributeValue("ref"), childTask);
                             }
                         }
                         break;
                 }
             }
-            /**
-             * If a task has no parent, then it is root task.
-             */
-            ArrayList roots = new ArrayList<>();
-            for (Task task : mName2Task.values()) {
-                task.setDepth(0);
-                if (task.getParentList().isEmpty()) {
-                    roots.add(task);
-                }
-            }
+            setDepths();
+            return true;
+
+        } catch (JDOMException jde) {
+            Log.printLine("JDOM Exception;Please make sure your dax file is valid");
+
+        } catch (IOException ioe) {
+            Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("Parsing Exception");
+        }
+        return false;
+    }
+
+    /**
+     * Parse a DAX file with StAX. The tasks, files and dependencies are
+     * created while the file is read, in the order of the file, so that only
+     * the workflow is kept in memory and not the document. The result is the
+     * same as with jdom.
+     */
+    private boolean parseXmlStream(String path) {
+        InputStream in = null;
+        XMLStreamReader reader = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(path));
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            reader = factory.createXMLStreamReader(in);
 
             /**
-             * Add depth from top to bottom.
+             * Jobs and dependencies are the children of the root (level 2),
+             * their files and parents are at level 3.
              */
-            for (Iterator it = roots.iterator(); it.hasNext();) {
-                Task task = (Task) it.next();
-                setDepth(task, 1);
+            int level = 0;
+            String nodeName = null;
+            String nodeType = null;
+            long length = 0;
+            List<FileItem> mFileList = null;
+            Task childTask = null;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        level++;
+                        if (level == 2) {
+                            switch (reader.getLocalName().toLowerCase()) {
+                                case "job":
+                                    nodeName = reader.getAttributeValue(null, "id");
+                                    nodeType = reader.getAttributeValue(null, "name");
+                                    length = getLength(nodeName, reader.getAttributeValue(null, "runtime"));
+                                    mFileList = new ArrayList<>();
+                                    break;
+                                case "child":
+                                    childTask = mName2Task.get(reader.getAttributeValue(null, "ref"));
+                                    break;
+                            }
+                        } else if (level == 3) {
+                            if (mFileList != null && reader.getLocalName().toLowerCase().equals("uses")) {
+                                String fileName = reader.getAttributeValue(null, "name");//DAX version 3.3
+                                if (fileName == null) {
+                                    fileName = reader.getAttributeValue(null, "file");//DAX version 3.0
+                                }
+                                mFileList.add(getFile(fileName, reader.getAttributeValue(null, "link"),
+                                        reader.getAttributeValue(null, "size")));
+                            } else if (childTask != null) {
+                                addDependency(reader.getAttributeValue(null, "ref"), childTask);
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (level == 2) {
+                            if (mFileList != null) {
+                                addTask(nodeName, nodeType, length, mFileList);
+                            }
+                            mFileList = null;
+                            childTask = null;
+                        }
+                        level--;
+                        break;
+                }
             }
-            /**
-             * Clean them so as to save memory. Parsing workflow may take much
-             * memory
-             */
-            this.mName2Task.clear();
+            setDepths();
+            return true;
 
-        } catch (JDOMException jde) {
-            Log.printLine("JDOM Exception;Please make sure your dax file is valid");
+        } catch (XMLStreamException xse) {
+            Log.printLine("StAX Exception;Please make sure your dax file is valid");
 
         } catch (IOException ioe) {
             Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
@@ -313,6 +606,306 @@ public final class WorkflowParser {
         } catch (Exception e) {
             e.printStackTrace();
             Log.printLine("Parsing Exception");
+        } finally {
+            try {
+                if (reader != null) {
+                    reader.close();
+                }
+                if (in != null) {
+                    in.close();
+                }
+            } catch (XMLStreamException | IOException e) {
+                Log.printLine("IO Exception;Could not close " + path);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build the tasks of a generated workflow, as parsing its DAX would. The
+     * jobs are known by their position instead of their name.
+     */
+    private void generate(WorkflowGenerator generator) {
+        Task[] tasks = new Task[generator.getJobCount()];
+        for (int job = 0; job < tasks.length; job++) {
+            List<FileItem> mFileList = new ArrayList<>();
+            for (int use = generator.getUseStart(job); use < generator.getUseStart(job + 1); use++) {
+                mFileList.add(createFile(generator.getFileName(use), generator.getFileSize(use),
+                        generator.isOutput(use) ? FileType.OUTPUT : FileType.INPUT));
+            }
+            Task task = createTask(getLength(generator.getRuntime(job)), generator.getType(job));
+            setFiles(task, mFileList);
+            this.getTaskList().add(task);
+            tasks[job] = task;
+        }
+        for (int job = 0; job < tasks.length; job++) {
+            for (int dependency = generator.getParentStart(job); dependency < generator.getParentStart(job + 1);
+                    dependency++) {
+                Task parentTask = tasks[generator.getParent(dependency)];
+                parentTask.addChild(tasks[job]);
+                tasks[job].addParent(parentTask);
+            }
+        }
+        setDepths(Arrays.asList(tasks));
+    }
+
+    /**
+     * Gets the length of a job from its runtime attribute
+     *
+     * @param nodeName the id of the job
+     * @param nodeTime the runtime of the job in seconds, may be null
+     * @return the length of the job
+     */
+    private long getLength(String nodeName, String nodeTime) {
+        if (nodeTime == null) {
+            Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
+            return 0;
+        }
+        return getLength(Double.parseDouble(nodeTime));
+    }
+
+    /**
+     * Gets the length of a job from its runtime
+     *
+     * @param seconds the runtime of the job in seconds
+     * @return the length of the job
+     */
+    private long getLength(double seconds) {
+        /**
+         * capture runtime. If not exist, by default the runtime is 0.1.
+         * Otherwise CloudSim would ignore this task. BUG/#11
+         */
+        double runtime = 1000 * seconds;
+        if (runtime < 100) {
+            runtime = 100;
+        }
+        long length = (long) runtime;
+        //multiple the scale, by default it is 1.0
+        length *= Parameters.getRuntimeScale();
+        return length;
+    }
+
+    /**
+     * Gets the file used by a job. Input files are shared through the replica
+     * catalog.
+     *
+     * @param fileName the name of the file
+     * @param inout the link of the file, input or output
+     * @param fileSize the size of the file, may be null
+     * @return the file
+     */
+    private FileItem getFile(String fileName, String inout, String fileSize) {
+        if (fileName == null) {
+            Log.print("Error in parsing xml");
+        }
+
+        double size = 0.0;
+
+        if (fileSize != null) {
+            size = Double.parseDouble(fileSize) /*/ 1024*/;
+        } else {
+            Log.printLine("File Size not found for " + fileName);
+        }
+
+        /**
+         * a bug of cloudsim, size 0 causes a problem. 1 is ok.
+         */
+        if (size == 0) {
+            size++;
+        }
+        /**
+         * Sets the file type 1 is input 2 is output
+         */
+        FileType type = FileType.NONE;
+        switch (inout) {
+            case "input":
+                type = FileType.INPUT;
+                break;
+            case "output":
+                type = FileType.OUTPUT;
+                break;
+            default:
+                Log.printLine("Parsing Error");
+                break;
+        }
+        /*
+         * Already exists an input file (forget output file)
+         */
+        if (size < 0) {
+            /*
+             * Assuming it is a parsing error
+             */
+            size = 0 - size;
+            Log.printLine("Size is negative, I assume it is a parser error");
+        }
+        return createFile(fileName, size, type);
+    }
+
+    /**
+     * Creates a file used by a job. Input files are shared through the
+     * replica catalog.
+     *
+     * @param fileName the name of the file
+     * @param size the size of the file
+     * @param type the type of the file
+     * @return the file
+     */
+    FileItem createFile(String fileName, double size, FileType type) {
+        FileItem tFile;
+        /*
+         * Note that CloudSim use size as MB, in this case we use it as Byte
+         */
+        if (type == FileType.OUTPUT) {
+            /**
+             * It is good that CloudSim does tell whether a size is zero
+             */
+            tFile = new FileItem(fileName, size);
+        } else if (this.files != null) {
+            /**
+             * A DAX of an ensemble keeps its own input files until it is
+             * merged
+             */
+            tFile = this.files.get(fileName);
+            if (tFile == null) {
+                tFile = new FileItem(fileName, size);
+                this.files.put(fileName, tFile);
+            }
+        } else if (ReplicaCatalog.containsFile(fileName)) {
+            tFile = ReplicaCatalog.getFile(fileName);
+        } else {
+
+            tFile = new FileItem(fileName, size);
+            ReplicaCatalog.setFile(fileName, tFile);
+        }
+
+        tFile.setType(type);
+        return tFile;
+    }
+
+    /**
+     * Creates the task of a job and adds it to the task list
+     *
+     * @param nodeName the id of the job
+     * @param nodeType the name of the job
+     * @param length the length of the job
+     * @param mFileList the files used by the job
+     */
+    private void addTask(String nodeName, String nodeType, long length, List<FileItem> mFileList) {
+        Task task = createTask(length, nodeType);
+        mName2Task.put(nodeName, task);
+        setFiles(task, mFileList);
+        this.getTaskList().add(task);
+    }
+
+    /**
+     * Sets the files used by a task, and requires each of them once. The
+     * names are checked with a set, as Cloudlet.addRequiredFile would scan
+     * the whole list for each of the thousands of files of a task gathering
+     * a large workflow. Slim tasks keep no required files at all.
+     *
+     * @param task the task
+     * @param mFileList the files used by the task
+     */
+    void setFiles(Task task, List<FileItem> mFileList) {
+        task.setFileList(mFileList);
+        if (this.slimTasks) {
+            return;
+        }
+        List<String> requiredFiles = task.getRequiredFiles();
+        Set<String> names = new HashSet<>(requiredFiles);
+        for (FileItem file : mFileList) {
+            if (names.add(file.getName())) {
+                requiredFiles.add(file.getName());
+            }
+        }
+    }
+
+    /**
+     * Creates a task with the next task id
+     *
+     * @param length the length of the task
+     * @param nodeType the name of the job
+     * @return the task
+     */
+    Task createTask(long length, String nodeType) {
+        Task task;
+        //In case of multiple workflow submission. Make sure the jobIdStartsFrom is consistent.
+        synchronized (this) {
+            task = new Task(this.jobIdStartsFrom, length);
+            this.jobIdStartsFrom++;
+        }
+        task.setType(nodeType);
+        task.setUserId(userId);
+        return task;
+    }
+
+    /**
+     * Adds a parent to a task, if the parent is a known job
+     *
+     * @param parentName the id of the parent job
+     * @param childTask the child task
+     */
+    private void addDependency(String parentName, Task childTask) {
+        if (mName2Task.containsKey(parentName)) {
+            Task parentTask = (Task) mName2Task.get(parentName);
+            parentTask.addChild(childTask);
+            childTask.addParent(parentTask);
+        }
+    }
+
+    /**
+     * Sets the depth of the tasks of the parsed file and forgets their names.
+     * The depth of a task is the number of tasks on the longest path from a
+     * root task to it, itself included.
+     */
+    private void setDepths() {
+        setDepths(mName2Task.values());
+        /**
+         * Clean them so as to save memory. Parsing workflow may take much
+         * memory
+         */
+        this.mName2Task.clear();
+    }
+
+    /**
+     * Sets the depth of tasks whose parents are all among them
+     *
+     * @param tasks the tasks
+     */
+    private void setDepths(Collection<Task> tasks) {
+        /**
+         * If a task has no parent, then it is root task.
+         */
+        Deque<Task> ready = new ArrayDeque<>();
+        Map<Task, Integer> waiting = new HashMap<>();
+        for (Task task : tasks) {
+            if (task.getParentList().isEmpty()) {
+                task.setDepth(1);
+                ready.add(task);
+            } else {
+                task.setDepth(0);
+                waiting.put(task, task.getParentList().size());
+            }
+        }
+
+        /**
+         * Add depth from top to bottom. A task is reached once all its
+         * parents have their depth, so each edge is followed once.
+         */
+        while (!ready.isEmpty()) {
+            Task task = ready.poll();
+            for (Task cTask : task.getChildList()) {
+                if (task.getDepth() + 1 > cTask.getDepth()) {
+                    cTask.setDepth(task.getDepth() + 1);
+                }
+                int parents = waiting.get(cTask) - 1;
+                if (parents == 0) {
+                    waiting.remove(cTask);
+                    ready.add(cTask);
+                } else {
+                    waiting.put(cTask, parents);
+                }
+            }
         }
     }
 }
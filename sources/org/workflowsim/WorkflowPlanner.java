@@ -16,6 +16,7 @@
 package org.workflowsim;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSimTags;
@@ -40,6 +41,14 @@ import org.workflowsim.utils.Parameters.PlanningAlgorithm;
  */
 public final class WorkflowPlanner extends SimEntity {
 
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of task visits up to which the impact factors are added
+     * path by path.
+     */
+    private static final long MAX_IMPACT_PATHS = 1L << 24;
+
     /**
      * The task list.
      */
@@ -185,7 +194,7 @@ public final class WorkflowPlanner extends SimEntity {
                 planner = new RandomPlanningAlgorithm();
                 break;
             case HEFT:
-                planner = new HEFTPlanningAlgorithm();
+                planner = new HEFTPlanningAlgorithm(Parameters.getPlanningThreads());
                 break;
             case DHEFT:
                 planner = new DHEFTPlanningAlgorithm();
@@ -200,36 +209,102 @@ public final class WorkflowPlanner extends SimEntity {
     /**
      * Add impact factor for each task. This is useful in task balanced
      * clustering algorithm It is for research purpose and thus it is optional.
+     * <p>
+     * Each exit task gets an equal share of 1, and a task passes the impact
+     * it gets on to its parents, split equally among them. The tasks are
+     * first visited from the bottom up, once all their children have been,
+     * which gives the impact factors and the number of paths to follow to add
+     * them path by path. Summing path by path gives the same rounding as
+     * before, so it is kept while there are at most MAX_IMPACT_PATHS visits;
+     * the impact factors of the bottom up visit, which are equal up to
+     * rounding, are used beyond.
      *
      * @param taskList all the tasks
      */
     private void processImpactFactors(List<Task> taskList) {
+        TaskGraph graph = TaskGraph.getGraph(taskList);
+        int[] waiting = new int[graph.size()];
+        double[] impacts = new double[graph.size()];
+        long[] paths = new long[graph.size()];
+        // the tasks in the order they are ready, each once
+        int[] ready = new int[graph.size()];
+        int readyCount = 0;
         List<Task> exits = new ArrayList<>();
-        for (Task task : taskList) {
-            if (task.getChildList().isEmpty()) {
-                exits.add(task);
+        for (int i = 0; i < graph.size(); i++) {
+            waiting[i] = graph.getChildStart(i + 1) - graph.getChildStart(i);
+            if (waiting[i] == 0) {
+                exits.add(graph.getTask(i));
+                ready[readyCount++] = i;
             }
         }
         double avg = 1.0 / exits.size();
-        for (Task task : exits) {
-            addImpact(task, avg);
+        for (int k = 0; k < readyCount; k++) {
+            impacts[ready[k]] = avg;
+            paths[ready[k]] = 1;
+        }
+
+        int visited = 0;
+        long visits = 0;
+        while (visited < readyCount) {
+            int i = ready[visited];
+            visited++;
+            visits = Math.min(visits + paths[i], MAX_IMPACT_PATHS + 1);
+            int size = graph.getParentStart(i + 1) - graph.getParentStart(i);
+            if (size > 0) {
+                double share = impacts[i] / size;
+                for (int e = graph.getParentStart(i); e < graph.getParentStart(i + 1); e++) {
+                    int j = graph.getParent(e);
+                    impacts[j] += share;
+                    paths[j] = Math.min(paths[j] + paths[i], MAX_IMPACT_PATHS + 1);
+                    if (--waiting[j] == 0) {
+                        ready[readyCount++] = j;
+                    }
+                }
+            }
+        }
+
+        if (visited == taskList.size() && visits <= MAX_IMPACT_PATHS) {
+            addImpact(exits, avg);
+        } else {
+            for (int i = 0; i < taskList.size(); i++) {
+                Task task = taskList.get(i);
+                task.setImpact(task.getImpact() + impacts[i]);
+            }
         }
     }
 
     /**
-     * Add impact factor for one particular task
+     * Add impact factor for the exit tasks and, path by path, for their
+     * ancestors. The paths are followed depth first with a stack, in the
+     * order of the exit tasks and of the parents.
      *
-     * @param task, the task
-     * @param impact , the impact factor
+     * @param exits, the exit tasks
+     * @param impact , the impact factor of each exit task
      */
-    private void addImpact(Task task, double impact) {
-
-        task.setImpact(task.getImpact() + impact);
-        int size = task.getParentList().size();
-        if (size > 0) {
-            double avg = impact / size;
-            for (Task parent : task.getParentList()) {
-                addImpact(parent, avg);
+    private void addImpact(List<Task> exits, double impact) {
+        Task[] tasks = new Task[Math.max(16, exits.size())];
+        double[] impacts = new double[tasks.length];
+        int top = 0;
+        for (int i = exits.size() - 1; i >= 0; i--) {
+            tasks[top] = exits.get(i);
+            impacts[top++] = impact;
+        }
+        while (top > 0) {
+            Task task = tasks[--top];
+            double taskImpact = impacts[top];
+            task.setImpact(task.getImpact() + taskImpact);
+            List<Task> parents = task.getParentList();
+            int size = parents.size();
+            if (size > 0) {
+                double avg = taskImpact / size;
+                if (top + size > tasks.length) {
+                    tasks = Arrays.copyOf(tasks, Math.max(2 * tasks.length, top + size));
+                    impacts = Arrays.copyOf(impacts, tasks.length);
+                }
+                for (int i = size - 1; i >= 0; i--) {
+                    tasks[top] = parents.get(i);
+                    impacts[top++] = avg;
+                }
             }
         }
     }
@@ -20,10 +20,10 @@ import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
-import org.cloudbus.cloudsim.lists.VmList;
 import org.workflowsim.failure.FailureGenerator;
 import org.workflowsim.scheduling.DataAwareSchedulingAlgorithm;
 import org.workflowsim.scheduling.BaseSchedulingAlgorithm;
@@ -33,6 +33,7 @@ import org.workflowsim.scheduling.MaxMinSchedulingAlgorithm;
 import org.workflowsim.scheduling.MinMinSchedulingAlgorithm;
 import org.workflowsim.scheduling.RoundRobinSchedulingAlgorithm;
 import org.workflowsim.scheduling.StaticSchedulingAlgorithm;
+import org.workflowsim.utils.OverheadParameters;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
 
@@ -40,6 +41,8 @@ import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
  * WorkflowScheduler represents a algorithm acting on behalf of a user. It hides
  * VM management, as vm creation, sumbission of jobs to this VMs and destruction
  * of VMs. It picks up a scheduling algorithm based on the configuration
+ * and keeps it for the whole simulation, telling it about the jobs that
+ * arrive and the VMs that become idle between two scheduling rounds.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -47,10 +50,20 @@ import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
  */
 public class WorkflowScheduler extends DatacenterBroker {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The workflow engine id associated with this workflow algorithm.
      */
     private int workflowEngineId;
+    /**
+     * The scheduling algorithm, created at the first scheduling round.
+     */
+    private BaseSchedulingAlgorithm algorithm;
+    /**
+     * The overhead parameters of the run, read when the scheduler starts.
+     */
+    private OverheadParameters overheads;
 
     /**
      * Created a new WorkflowScheduler object.
@@ -171,6 +184,48 @@ public class WorkflowScheduler extends DatacenterBroker {
         return algorithm;
     }
 
+    /**
+     * Gets the scheduling algorithm, which keeps the statistics of the
+     * scheduling rounds.
+     *
+     * @return the algorithm, or null before the first scheduling round
+     */
+    public BaseSchedulingAlgorithm getSchedulingAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Gets the scheduling algorithm, and gives it the created VMs when they
+     * have changed.
+     *
+     * @return the algorithm that extends BaseSchedulingAlgorithm
+     */
+    private BaseSchedulingAlgorithm prepareSchedulingAlgorithm() {
+        if (algorithm == null) {
+            algorithm = getScheduler(Parameters.getSchedulingAlgorithm());
+            algorithm.setCloudletList(super.getCloudletList());
+        }
+        if (algorithm.getVmList() == null || algorithm.getVmList().size() != getVmsCreatedList().size()) {
+            algorithm.setVmList(getVmsCreatedList());
+        }
+        return algorithm;
+    }
+
+    /**
+     * Gets the jobs waiting to be scheduled.
+     *
+     * @param <T> the generic type
+     * @return the job list
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Cloudlet> List<T> getCloudletList() {
+        if (algorithm != null) {
+            return algorithm.getCloudletList();
+        }
+        return super.getCloudletList();
+    }
+
     /**
      * Process the ack received due to a request for VM creation.
      *
@@ -180,10 +235,9 @@ public class WorkflowScheduler extends DatacenterBroker {
      */
     @Override
     protected void processVmCreate(SimEvent ev) {
-        int[] data = (int[]) ev.getData();
-        int datacenterId = data[0];
-        int vmId = data[1];
-        int result = data[2];
+        int datacenterId = ev.getIntData(0);
+        int vmId = ev.getIntData(1);
+        int result = ev.getIntData(2);
 
         if (result == CloudSimTags.TRUE) {
             getVmsToDatacentersMap().put(vmId, datacenterId);
@@ -191,11 +245,12 @@ public class WorkflowScheduler extends DatacenterBroker {
              * Fix a bug of cloudsim Don't add a null to getVmsCreatedList()
              * June 15, 2013
              */
-            if (VmList.getById(getVmList(), vmId) != null) {
-                getVmsCreatedList().add(VmList.getById(getVmList(), vmId));
+            Vm vm = getVmById(vmId);
+            if (vm != null) {
+                getVmsCreatedList().add(vm);
                 Log.printLine(CloudSim.clock() + ": " + getName() + ": VM #" + vmId
                         + " has been created in Datacenter #" + datacenterId + ", Host #"
-                        + VmList.getById(getVmsCreatedList(), vmId).getHost().getId());
+                        + getCreatedVmById(vmId).getHost().getId());
             }
         } else {
             Log.printLine(CloudSim.clock() + ": " + getName() + ": Creation of VM #" + vmId
@@ -237,12 +292,10 @@ public class WorkflowScheduler extends DatacenterBroker {
      */
     protected void processCloudletUpdate(SimEvent ev) {
 
-        BaseSchedulingAlgorithm scheduler = getScheduler(Parameters.getSchedulingAlgorithm());
-        scheduler.setCloudletList(getCloudletList());
-        scheduler.setVmList(getVmsCreatedList());
+        BaseSchedulingAlgorithm scheduler = prepareSchedulingAlgorithm();
 
         try {
-            scheduler.run();
+            scheduler.schedule();
         } catch (Exception e) {
             Log.printLine("Error in configuring scheduler_method");
             e.printStackTrace();
@@ -252,12 +305,12 @@ public class WorkflowScheduler extends DatacenterBroker {
         for (Cloudlet cloudlet : scheduledList) {
             int vmId = cloudlet.getVmId();
             double delay = 0.0;
-            if (Parameters.getOverheadParams().getQueueDelay() != null) {
-                delay = Parameters.getOverheadParams().getQueueDelay(cloudlet);
+            if (overheads.getQueueDelay() != null) {
+                delay = overheads.getQueueDelay(cloudlet);
             }
-            schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
+            // delayed by the network topology, as the jobs the datacenters return
+            send(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
         }
-        getCloudletList().removeAll(scheduledList);
         getCloudletSubmittedList().addAll(scheduledList);
         cloudletsSubmitted += scheduledList.size();
     }
@@ -285,10 +338,13 @@ public class WorkflowScheduler extends DatacenterBroker {
         CondorVM vm = (CondorVM) getVmsCreatedList().get(cloudlet.getVmId());
         //so that this resource is released
         vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+        if (algorithm != null) {
+            algorithm.vmIdle(vm);
+        }
 
         double delay = 0.0;
-        if (Parameters.getOverheadParams().getPostDelay() != null) {
-            delay = Parameters.getOverheadParams().getPostDelay(job);
+        if (overheads.getPostDelay() != null) {
+            delay = overheads.getPostDelay(job);
         }
         schedule(this.workflowEngineId, delay, CloudSimTags.CLOUDLET_RETURN, cloudlet);
 
@@ -304,6 +360,7 @@ public class WorkflowScheduler extends DatacenterBroker {
     @Override
     public void startEntity() {
         Log.printLine(getName() + " is starting...");
+        overheads = Parameters.getOverheadParams();
         // this resource should register to regional GIS.
         // However, if not specified, then register to system GIS (the
         // default CloudInformationService) entity.
@@ -345,7 +402,10 @@ public class WorkflowScheduler extends DatacenterBroker {
      */
     protected void processCloudletSubmit(SimEvent ev) {
         List<Job> list = (List) ev.getData();
-        getCloudletList().addAll(list);
+        super.getCloudletList().addAll(list);
+        if (algorithm != null) {
+            algorithm.cloudletsArrived(list);
+        }
 
         sendNow(this.getId(), WorkflowSimTags.CLOUDLET_UPDATE);
         if (!processCloudletSubmitHasShown) {
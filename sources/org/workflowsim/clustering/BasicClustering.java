@@ -16,12 +16,16 @@
 package org.workflowsim.clustering;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.workflowsim.FileItem;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
+import org.workflowsim.TaskGraph;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.ClassType;
 import org.workflowsim.utils.Parameters.FileType;
@@ -35,6 +39,8 @@ import org.workflowsim.utils.Parameters.FileType;
  */
 public class BasicClustering implements ClusteringInterface {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The task list.
      */
@@ -51,6 +57,10 @@ public class BasicClustering implements ClusteringInterface {
      * All the files.
      */
     private final List<FileItem> allFileList;
+    /**
+     * The input files in allFileList.
+     */
+    private final Set<FileItem> allInputFiles;
     /**
      * The root task.
      */
@@ -78,6 +88,7 @@ public class BasicClustering implements ClusteringInterface {
         this.taskList = new ArrayList<>();
         this.mTask2Job = new HashMap<>();
         this.allFileList = new ArrayList<>();
+        this.allInputFiles = new HashSet<>();
         this.idIndex = 0;
         this.root = null;
     }
@@ -169,6 +180,9 @@ public class BasicClustering implements ClusteringInterface {
             /// a bug of cloudsim makes it final of input file size and output file size
             Job job = new Job(idIndex, length/*, inputFileSize, outputFileSize*/);
             job.setClassType(ClassType.COMPUTE.value);
+            // the files and names already in the job, which may gather many tasks
+            Set<FileItem> jobFiles = new HashSet<>();
+            Set<String> jobFileNames = new HashSet<>();
             for (Task task : taskList) {
                 length += task.getCloudletLength();
 
@@ -180,12 +194,12 @@ public class BasicClustering implements ClusteringInterface {
 
                 getTask2Job().put(task, job);
                 for (FileItem file : fileList) {
-                    boolean hasFile = job.getFileList().contains(file);
+                    boolean hasFile = !jobFiles.add(file);
                     if (!hasFile) {
                         job.getFileList().add(file);
                         if (file.getType() == FileType.INPUT) {
                             //for stag-in jobs to be used
-                            if (!this.allFileList.contains(file)) {
+                            if (this.allInputFiles.add(file)) {
                                 this.allFileList.add(file);
                             }
                         } else if (file.getType() == FileType.OUTPUT) {
@@ -193,9 +207,11 @@ public class BasicClustering implements ClusteringInterface {
                         }
                     }
                 }
-                for (String fileName : task.getRequiredFiles()) {
-                    if (!job.getRequiredFiles().contains(fileName)) {
-                        job.getRequiredFiles().add(fileName);
+                if (task.requiresFiles()) {
+                    for (String fileName : task.getRequiredFiles()) {
+                        if (jobFileNames.add(fileName)) {
+                            job.getRequiredFiles().add(fileName);
+                        }
                     }
                 }
             }
@@ -229,21 +245,66 @@ public class BasicClustering implements ClusteringInterface {
     }
 
     /**
-     * Update the dependency issues between tasks/jobs
+     * Update the dependency issues between tasks/jobs. The dependencies are
+     * read from the graph of the task list, and the tasks of each job are
+     * visited in the order of the task list, so that the parents and children
+     * of a job are in the order of their first dependency.
      */
     protected final void updateDependencies() {
-        for (Task task : getTaskList()) {
-            Job job = (Job) getTask2Job().get(task);
-            for (Task parentTask : task.getParentList()) {
-                Job parentJob = (Job) getTask2Job().get(parentTask);
-                if (!job.getParentList().contains(parentJob) && parentJob != job) {//avoid dublicate
-                    job.addParent(parentJob);
+        TaskGraph graph = TaskGraph.getGraph(getTaskList());
+        int size = graph.size();
+        int jobs = getJobList().size();
+        // the job of each task, by position in the job list
+        int[] taskJobs = new int[size];
+        Arrays.fill(taskJobs, -1);
+        for (int i = 0; i < jobs; i++) {
+            for (Task task : getJobList().get(i).getTaskList()) {
+                int index = graph.indexOf(task);
+                if (index >= 0) {
+                    taskJobs[index] = i;
                 }
             }
-            for (Task childTask : task.getChildList()) {
-                Job childJob = (Job) getTask2Job().get(childTask);
-                if (!job.getChildList().contains(childJob) && childJob != job) {//avoid dublicate
-                    job.addChild(childJob);
+        }
+        // the tasks of each job, in the order of the task list
+        int[] jobStarts = new int[jobs + 1];
+        for (int index = 0; index < size; index++) {
+            if (taskJobs[index] >= 0) {
+                jobStarts[taskJobs[index] + 1]++;
+            }
+        }
+        for (int i = 0; i < jobs; i++) {
+            jobStarts[i + 1] += jobStarts[i];
+        }
+        int[] jobTasks = new int[jobStarts[jobs]];
+        int[] next = Arrays.copyOf(jobStarts, jobs);
+        for (int index = 0; index < size; index++) {
+            if (taskJobs[index] >= 0) {
+                jobTasks[next[taskJobs[index]]++] = index;
+            }
+        }
+
+        // the last job each job has been added to as a parent or a child, to avoid duplicates
+        int[] parentOf = new int[jobs];
+        int[] childOf = new int[jobs];
+        Arrays.fill(parentOf, -1);
+        Arrays.fill(childOf, -1);
+        for (int i = 0; i < jobs; i++) {
+            Job job = getJobList().get(i);
+            for (int t = jobStarts[i]; t < jobStarts[i + 1]; t++) {
+                int index = jobTasks[t];
+                for (int e = graph.getParentStart(index); e < graph.getParentStart(index + 1); e++) {
+                    int parentJob = taskJobs[graph.getParent(e)];
+                    if (parentJob >= 0 && parentJob != i && parentOf[parentJob] != i) {
+                        parentOf[parentJob] = i;
+                        job.addParent(getJobList().get(parentJob));
+                    }
+                }
+                for (int e = graph.getChildStart(index); e < graph.getChildStart(index + 1); e++) {
+                    int childJob = taskJobs[graph.getChild(e)];
+                    if (childJob >= 0 && childJob != i && childOf[childJob] != i) {
+                        childOf[childJob] = i;
+                        job.addChild(getJobList().get(childJob));
+                    }
                 }
             }
         }
@@ -17,8 +17,10 @@ package org.workflowsim.clustering;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.workflowsim.Task;
 
 /**
@@ -30,6 +32,8 @@ import org.workflowsim.Task;
  */
 public class BlockClustering extends BasicClustering {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The number of clustered jobs per level.
      */
@@ -94,13 +98,15 @@ public class BlockClustering extends BasicClustering {
 
         // level by level
         if (clusterNum > 0 || clusterSize > 0) {
+            // the tasks already in a level, which may be a large one
+            Set<Task> levelTasks = new HashSet<>();
             for (Task task : getTaskList()) {
                 int depth = task.getDepth();
                 if (!mDepth2Task.containsKey(depth)) {
                     mDepth2Task.put(depth, new ArrayList<>());
                 }
                 List list = mDepth2Task.get(depth);
-                if (!list.contains(task)) {
+                if (levelTasks.add(task)) {
                     list.add(task);
                 }
             }
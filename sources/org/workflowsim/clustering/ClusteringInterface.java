@@ -15,6 +15,7 @@
  */
 package org.workflowsim.clustering;
 
+import java.io.Serializable;
 import java.util.List;
 import org.workflowsim.FileItem;
 import org.workflowsim.Job;
@@ -27,7 +28,7 @@ import org.workflowsim.Task;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public interface ClusteringInterface {
+public interface ClusteringInterface extends Serializable {
 
     /**
      * set the task list.
@@ -18,10 +18,12 @@ package org.workflowsim.clustering;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 
@@ -34,6 +36,8 @@ import org.workflowsim.Task;
  */
 public class HorizontalClustering extends BasicClustering {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The number of clustered jobs per level.
      */
@@ -68,6 +72,8 @@ public class HorizontalClustering extends BasicClustering {
     @Override
     public void run() {
         if (clusterNum > 0 || clusterSize > 0) {
+            // the tasks already in a level, which may be a large one
+            Set<Task> levelTasks = new HashSet<>();
             for (Iterator it = getTaskList().iterator(); it.hasNext();) {
                 Task task = (Task) it.next();
                 int depth = task.getDepth();
@@ -75,7 +81,7 @@ public class HorizontalClustering extends BasicClustering {
                     mDepth2Task.put(depth, new ArrayList<>());
                 }
                 List list = mDepth2Task.get(depth);
-                if (!list.contains(task)) {
+                if (levelTasks.add(task)) {
                     list.add(task);
                 }
 
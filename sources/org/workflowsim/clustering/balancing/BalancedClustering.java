@@ -47,6 +47,8 @@ import org.workflowsim.utils.Parameters;
  */
 public class BalancedClustering extends BasicClustering {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Number of clustered jobs per level.
      */
@@ -17,6 +17,7 @@
  */
 package org.workflowsim.clustering.balancing.methods;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -31,7 +32,9 @@ import org.workflowsim.clustering.TaskSet;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public class BalancingMethod {
+public class BalancingMethod implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /** Task Map */
     private final Map<Task, TaskSet> taskMap;
@@ -35,6 +35,8 @@ import org.workflowsim.clustering.TaskSet;
  */
 public class ChildAwareHorizontalClustering extends BalancingMethod {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Initialize a ChildAwareHorizontalClustering object
      * @param levelMap the level map
@@ -36,6 +36,8 @@ import org.workflowsim.clustering.TaskSet;
  */
 public class HorizontalDistanceBalancing extends HorizontalImpactBalancing {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Initialize a HorizontalDistanceBalancing object
      *
@@ -35,6 +35,8 @@ import org.workflowsim.clustering.TaskSet;
  */
 public class HorizontalImpactBalancing extends BalancingMethod {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Initialize a HorizontalImpactBalancing object
      * @param levelMap the level map
@@ -33,6 +33,8 @@ import org.workflowsim.clustering.TaskSet;
  */
 public class HorizontalRandomClustering extends BalancingMethod {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Initialize a HorizontalRuntimeBalancing object
      * @param levelMap the level map
@@ -34,6 +34,8 @@ import org.workflowsim.clustering.TaskSet;
  */
 public class HorizontalRuntimeBalancing extends BalancingMethod {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Initialize a HorizontalRuntimeBalancing object
      * @param levelMap the level map
@@ -31,6 +31,8 @@ import org.workflowsim.clustering.TaskSet;
  */
 public class VerticalBalancing extends BalancingMethod {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Initialize a VerticalBalancing object
      * @param levelMap the level map
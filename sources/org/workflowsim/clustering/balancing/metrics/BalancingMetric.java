@@ -17,6 +17,7 @@
  */
 package org.workflowsim.clustering.balancing.metrics;
 
+import java.io.Serializable;
 import java.util.List;
 import org.workflowsim.clustering.TaskSet;
 
@@ -26,7 +27,7 @@ import org.workflowsim.clustering.TaskSet;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public interface BalancingMetric {
+public interface BalancingMetric extends Serializable {
     /** Gets the metric value.
      * @param list
      * @return  */
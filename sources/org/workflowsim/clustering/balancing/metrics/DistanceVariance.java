@@ -30,6 +30,8 @@ import org.workflowsim.clustering.TaskSet;
  */
 public class DistanceVariance implements BalancingMetric {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Returns the distance variance of a list of taskSets
      * @param list the list to be checked
@@ -28,6 +28,8 @@ import org.workflowsim.clustering.TaskSet;
  */
 public class HorizontalRuntimeVariance implements BalancingMetric {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Returns the standard deviation of runtime
      * @param list taskSets to be checked
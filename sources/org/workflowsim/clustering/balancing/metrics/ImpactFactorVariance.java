@@ -29,6 +29,8 @@ import org.workflowsim.clustering.TaskSet;
  */
 public class ImpactFactorVariance implements BalancingMetric {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Returns the standard deviation of their impact factors
      * @param list the TaskSets to be checked
@@ -29,6 +29,8 @@ import org.workflowsim.clustering.TaskSet;
  */
 public class PipelineRuntimeVariance implements BalancingMetric {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Returns the standard deviation of the pipeline runtime
      * @param list TaskSets to be checked
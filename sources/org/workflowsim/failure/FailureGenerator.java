@@ -15,11 +15,15 @@
  */
 package org.workflowsim.failure;
 
+import java.io.Serializable;
+
 import org.apache.commons.math3.distribution.GammaDistribution;
 import org.apache.commons.math3.distribution.LogNormalDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.distribution.RealDistribution;
 import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 import org.apache.commons.math3.distribution.WeibullDistribution;
@@ -40,8 +44,39 @@ public class FailureGenerator {
      * is too high for this workflow
      */
     private static final int maxFailureSizeExtension = 50;
-    private static int failureSizeExtension = 0;
     private static final boolean hasChangeTime = false;
+
+    /**
+     * The name of the simulation context attribute holding the sample
+     * extension counter
+     */
+    private static final String EXTENSIONS_ATTRIBUTE = FailureGenerator.class.getName();
+
+    /**
+     * The number of times the distribution samples were extended in one
+     * simulation.
+     */
+    private static class Extensions implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private int failureSizeExtension = 0;
+    }
+
+    /**
+     * Gets the sample extension counter of the current simulation context.
+     *
+     * @return the sample extension counter
+     */
+    private static Extensions getExtensions() {
+        SimulationContext context = CloudSim.getContext();
+        Extensions extensions = (Extensions) context.getAttribute(EXTENSIONS_ATTRIBUTE);
+        if (extensions == null) {
+            extensions = new Extensions();
+            context.setAttribute(EXTENSIONS_ATTRIBUTE, extensions);
+        }
+        return extensions;
+    }
     /**
      *
      * @param alpha
@@ -123,8 +158,9 @@ public class FailureGenerator {
         while (samples[samples.length - 1] < start) {
             generator.extendSamples();
             samples = generator.getCumulativeSamples();
-            failureSizeExtension++;
-            if (failureSizeExtension >= maxFailureSizeExtension) {
+            Extensions extensions = getExtensions();
+            extensions.failureSizeExtension++;
+            if (extensions.failureSizeExtension >= maxFailureSizeExtension) {
                 throw new Exception("Error rate is too high such that the simulator terminates");
 
             }
@@ -15,11 +15,14 @@
  */
 package org.workflowsim.failure;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * FailureMonitor collects failure information
@@ -31,21 +34,51 @@ import org.cloudbus.cloudsim.Log;
 public class FailureMonitor {
 
     /**
-     * VM ID to a Failure Record. *
+     * The name of the simulation context attribute holding the failure records
      */
-    protected static Map<Integer, List<FailureRecord>> vm2record;
-    /**
-     * Type to a Failure Record. *
-     */
-    protected static Map<Integer, List<FailureRecord>> type2record;
+    private static final String RECORDS_ATTRIBUTE = FailureMonitor.class.getName();
+
     /**
-     * JobID to a Failure Record. *
+     * The failure records collected during one simulation, kept in its
+     * simulation context.
      */
-    protected static Map<Integer, FailureRecord> jobid2record;
+    private static class Records implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * VM ID to a Failure Record. *
+         */
+        private Map<Integer, List<FailureRecord>> vm2record;
+        /**
+         * Type to a Failure Record. *
+         */
+        private Map<Integer, List<FailureRecord>> type2record;
+        /**
+         * JobID to a Failure Record. *
+         */
+        private Map<Integer, FailureRecord> jobid2record;
+        /**
+         * All the record list.
+         */
+        private List<FailureRecord> recordList;
+    }
+
     /**
-     * All the record list.
+     * Gets the failure records of the current simulation context.
+     *
+     * @return the failure records
      */
-    protected static List<FailureRecord> recordList;
+    private static Records getRecords() {
+        SimulationContext context = CloudSim.getContext();
+        Records records = (Records) context.getAttribute(RECORDS_ATTRIBUTE);
+        if (records == null) {
+            records = new Records();
+            context.setAttribute(RECORDS_ATTRIBUTE, records);
+        }
+        return records;
+    }
+
     /**
      * Id to a Job.
      */
@@ -55,10 +88,11 @@ public class FailureMonitor {
      * Initialize a FailureMonitor object.
      */
     public static void init() {
-        vm2record = new HashMap<>();
-        type2record = new HashMap<>();
-        jobid2record = new HashMap<>();
-        recordList = new ArrayList<>();
+        Records records = getRecords();
+        records.vm2record = new HashMap<>();
+        records.type2record = new HashMap<>();
+        records.jobid2record = new HashMap<>();
+        records.recordList = new ArrayList<>();
     }
 
     /**
@@ -118,6 +152,7 @@ public class FailureMonitor {
      * @param record a failure record
      */
     public static void postFailureRecord(FailureRecord record) {
+        Records records = getRecords();
 
         if (record.workflowId < 0 || record.jobId < 0 || record.vmId < 0) {
             Log.printLine("Error in receiving failure record");
@@ -127,25 +162,25 @@ public class FailureMonitor {
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_VM:
 
-                if (!vm2record.containsKey(record.vmId)) {
-                    vm2record.put(record.vmId, new ArrayList<>());
+                if (!records.vm2record.containsKey(record.vmId)) {
+                    records.vm2record.put(record.vmId, new ArrayList<>());
                 }
-                vm2record.get(record.vmId).add(record);
+                records.vm2record.get(record.vmId).add(record);
 
                 break;
             case MONITOR_JOB:
 
-                if (!type2record.containsKey(record.depth)) {
-                    type2record.put(record.depth, new ArrayList<>());
+                if (!records.type2record.containsKey(record.depth)) {
+                    records.type2record.put(record.depth, new ArrayList<>());
                 }
-                type2record.get(record.depth).add(record);
+                records.type2record.get(record.depth).add(record);
 
                 break;
             case MONITOR_NONE:
                 break;
         }
 
-        recordList.add(record);
+        records.recordList.add(record);
     }
 
     /**
@@ -156,6 +191,7 @@ public class FailureMonitor {
      * @return task failure rate
      */
     public static double analyze(int workflowId, int type) {
+        Records records = getRecords();
 
         /**
          * workflow level : all jobs together *
@@ -165,7 +201,7 @@ public class FailureMonitor {
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_ALL:
 
-                for (FailureRecord record : recordList) {
+                for (FailureRecord record : records.recordList) {
                     sumFailures += record.failedTasksNum;
                     sumJobs += record.allTaskNum;
                 }
@@ -174,8 +210,8 @@ public class FailureMonitor {
 
             case MONITOR_JOB:
 
-                if (type2record.containsKey(type)) {
-                    for (FailureRecord record : type2record.get(type)) {
+                if (records.type2record.containsKey(type)) {
+                    for (FailureRecord record : records.type2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
@@ -185,8 +221,8 @@ public class FailureMonitor {
                 break;
             case MONITOR_VM:
 
-                if (vm2record.containsKey(type)) {
-                    for (FailureRecord record : vm2record.get(type)) {
+                if (records.vm2record.containsKey(type)) {
+                    for (FailureRecord record : records.vm2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
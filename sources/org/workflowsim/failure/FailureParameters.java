@@ -17,7 +17,11 @@
  */
 package org.workflowsim.failure;
 
+import java.io.Serializable;
+
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.utils.DistributionGenerator;
 import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
 
@@ -27,15 +31,6 @@ import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
  */
 public class FailureParameters {
 
-    /**
-     * Task Failure Rate 
-     * first index is vmId ;second index is task depth
-     * If FAILURE_JOB is specified first index is 0 only
-     * If FAILURE_VM is specified second index is 0 only
-     *
-     * @pre 0.0<= value <= 1.0
-     */
-    private static DistributionGenerator[][] generators;
     /**
      * Fault Tolerant Clustering algorithm
      */
@@ -62,22 +57,61 @@ public class FailureParameters {
     }
 
     /**
-     * Fault Tolerant Clustering method
+     * The name of the simulation context attribute holding the failure settings
      */
-    private static FTCluteringAlgorithm FTClusteringAlgorithm = FTCluteringAlgorithm.FTCLUSTERING_NOOP;
-    /**
-     * Fault Tolerant Clustering monitor mode
-     */
-    private static FTCMonitor monitorMode = FTCMonitor.MONITOR_NONE;
+    private static final String SETTINGS_ATTRIBUTE = FailureParameters.class.getName();
+
     /**
-     * Fault Tolerant Clustering failure generation mode
+     * The failure settings of one simulation. Each simulation context has its
+     * own, so concurrent simulations may use different failure models.
      */
-    private static FTCFailure failureMode = FTCFailure.FAILURE_NONE;
-    
+    private static class Settings implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Fault Tolerant Clustering method
+         */
+        private FTCluteringAlgorithm FTClusteringAlgorithm = FTCluteringAlgorithm.FTCLUSTERING_NOOP;
+        /**
+         * Fault Tolerant Clustering monitor mode
+         */
+        private FTCMonitor monitorMode = FTCMonitor.MONITOR_NONE;
+        /**
+         * Fault Tolerant Clustering failure generation mode
+         */
+        private FTCFailure failureMode = FTCFailure.FAILURE_NONE;
+
+        /**
+         * The distribution of the failure 
+         */
+        private DistributionFamily distribution = DistributionFamily.WEIBULL;
+        /**
+         * Task Failure Rate 
+         * first index is vmId ;second index is task depth
+         * If FAILURE_JOB is specified first index is 0 only
+         * If FAILURE_VM is specified second index is 0 only
+         *
+         * @pre 0.0<= value <= 1.0
+         */
+        private DistributionGenerator[][] generators;
+    }
+
     /**
-     * The distribution of the failure 
-     */
-    private static DistributionFamily distribution = DistributionFamily.WEIBULL;
+     * Gets the failure settings of the current simulation context.
+     *
+     * @return the failure settings
+     */
+    private static Settings getSettings() {
+        SimulationContext context = CloudSim.getContext();
+        Settings settings = (Settings) context.getAttribute(SETTINGS_ATTRIBUTE);
+        if (settings == null) {
+            settings = new Settings();
+            context.setAttribute(SETTINGS_ATTRIBUTE, settings);
+        }
+        return settings;
+    }
+
     /**
      * Invalid return value
      */
@@ -94,10 +128,11 @@ public class FailureParameters {
      */
     public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor, 
             FTCFailure failure, DistributionGenerator[][] failureGenerators) {
-        FTClusteringAlgorithm = fMethod;
-        monitorMode = monitor;
-        failureMode = failure;
-        generators = failureGenerators;
+        Settings settings = getSettings();
+        settings.FTClusteringAlgorithm = fMethod;
+        settings.monitorMode = monitor;
+        settings.failureMode = failure;
+        settings.generators = failureGenerators;
     }
 
     /**
@@ -112,7 +147,7 @@ public class FailureParameters {
     public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor, 
             FTCFailure failure, DistributionGenerator[][] failureGenerators, 
             DistributionFamily dist) {
-        distribution = dist;
+        getSettings().distribution = dist;
         init(fMethod, monitor, failure, failureGenerators);
     }
     /**
@@ -123,10 +158,11 @@ public class FailureParameters {
      * @post $none
      */
     public static DistributionGenerator[][] getFailureGenerators() {
-        if(generators==null){
+        Settings settings = getSettings();
+        if(settings.generators==null){
             Log.printLine("ERROR: alpha is not initialized");
         }
-        return generators;
+        return settings.generators;
     }
     
     /**
@@ -134,11 +170,12 @@ public class FailureParameters {
      * @return max
      */
     public static int getFailureGeneratorsMaxFirstIndex(){
-        if(generators==null || generators.length == 0){
+        Settings settings = getSettings();
+        if(settings.generators==null || settings.generators.length == 0){
             Log.printLine("ERROR: alpha is not initialized");
             return INVALID;
         }
-        return generators.length;
+        return settings.generators.length;
     }
     
     /**
@@ -146,13 +183,14 @@ public class FailureParameters {
      * @return max
      */
     public static int getFailureGeneratorsMaxSecondIndex(){
+        Settings settings = getSettings();
         //Test whether it is valid
         getFailureGeneratorsMaxFirstIndex();
-        if(generators[0]==null || generators[0].length == 0){
+        if(settings.generators[0]==null || settings.generators[0].length == 0){
             Log.printLine("ERROR: alpha is not initialized");
             return INVALID;
         }
-        return generators[0].length;
+        return settings.generators[0].length;
     }
     
 
@@ -163,7 +201,7 @@ public class FailureParameters {
      * @return task failure rate
      */
     public static DistributionGenerator getGenerator(int vmIndex, int taskDepth) {
-        return generators[vmIndex][taskDepth];
+        return getSettings().generators[vmIndex][taskDepth];
     }
     
     /**
@@ -174,7 +212,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCFailure getFailureGeneratorMode() {
-        return failureMode;
+        return getSettings().failureMode;
     }
 
     /**
@@ -185,7 +223,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCMonitor getMonitorMode() {
-        return monitorMode;
+        return getSettings().monitorMode;
     }
 
     /**
@@ -196,7 +234,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCluteringAlgorithm getFTCluteringAlgorithm() {
-        return FTClusteringAlgorithm;
+        return getSettings().FTClusteringAlgorithm;
     }
     
     /**
@@ -204,6 +242,6 @@ public class FailureParameters {
      * @return distribution
      */
     public static DistributionFamily getFailureDistribution(){
-        return distribution;
+        return getSettings().distribution;
     }
 }
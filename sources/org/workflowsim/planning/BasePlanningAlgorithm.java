@@ -31,6 +31,8 @@ import org.workflowsim.Task;
  */
 public abstract class BasePlanningAlgorithm implements PlanningAlgorithmInterface {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * the task list.
      */
@@ -15,11 +15,14 @@
  */
 package org.workflowsim.planning;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.FileItem;
 import org.workflowsim.Task;
+import org.workflowsim.TaskGraph;
 import org.workflowsim.utils.Parameters;
 
 /**
@@ -29,6 +32,13 @@ import org.workflowsim.utils.Parameters;
  * bandwidths of Parameters. 
  * 2. Instead of using the average communication cost in HEFT, we also aim to 
  * optimize the communication cost
+ * 
+ * The tasks are planned in waves, a task joining the wave after the last of
+ * its parents, and in the order of the task list within a wave. The waves
+ * are found from the TaskGraph of the task list in one pass over the
+ * dependencies, and the files a parent sends to a child by looking up the
+ * outputs of the workflow by name. Each task is appended to the vm it
+ * finishes first on, so a vm only needs the time it becomes available.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -36,6 +46,8 @@ import org.workflowsim.utils.Parameters;
  */
 public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The main function
      */
@@ -50,90 +62,145 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
                 bandwidths[i][j] = bandwidths [j][i] = Math.min(vmList.get(i).getBw(), vmList.get(j).getBw());
             }
         }
-        for (Object vmObject : getVmList()) {
-            Vm vm =  (Vm)vmObject;
-            vm.getBw();
-        }
         
         int vmNum = getVmList().size();
-        int taskNum = getTaskList().size();
+        TaskGraph graph = TaskGraph.getGraph(getTaskList());
+        int taskNum = graph.size();
         double [] availableTime = new double[vmNum];
-        //cloudlet id starts from 1
-        double [][] earliestStartTime = new double[taskNum + 1][vmNum];
-        double [][] earliestFinishTime = new double[taskNum + 1][vmNum];
-        int [] allocation = new int[taskNum + 1];
+        //the finish time of a task on each vm, by vm id
+        double [] earliestFinishTime = new double[vmNum];
+        //the finish time of a task on its vm, by task
+        double [] actualFinishTimes = new double[taskNum];
+        int [] allocation = new int[taskNum];
         
-        List<Task> taskList = new ArrayList(getTaskList());
-        List<Task> readyList = new ArrayList<>();
-        while(!taskList.isEmpty()){
-            readyList.clear();
-            for(Task task : taskList){
-                boolean ready = true;
-                for(Task parent: task.getParentList()){
-                    if(taskList.contains(parent)){
-                        ready = false;
-                        break;
-                    }
-                }
-                if(ready){
-                    readyList.add(task);
+        //the output files of all the tasks, chained by name
+        int useNum = graph.getFileStart(taskNum);
+        int [] useTasks = new int[useNum];
+        int [] nextOutputs = new int[useNum];
+        Map<String, Integer> lastOutputs = new HashMap<>();
+        for(int i = 0; i < taskNum; i++){
+            for(int use = graph.getFileStart(i); use < graph.getFileStart(i + 1); use++){
+                useTasks[use] = i;
+                FileItem file2 = graph.getFileItem(graph.getFile(use));
+                if(file2.getType() == Parameters.FileType.OUTPUT){
+                    Integer last = lastOutputs.put(file2.getName(), use);
+                    nextOutputs[use] = last == null ? -1 : last;
                 }
             }
-            taskList.removeAll(readyList);
-            //schedule readylist
-            for(Task task: readyList){
-                long [] fileSizes = new long[task.getParentList().size()];
-                int parentIndex = 0;
-                for(Task parent: task.getParentList()){
-                    long fileSize = 0;
-                    for(FileItem file : task.getFileList()){
-                        if(file.getType()==Parameters.FileType.INPUT){
-                            for(FileItem file2 : parent.getFileList()){
-                                if(file2.getType() == Parameters.FileType.OUTPUT && file2.getName().equals(file.getName()))
-                                {
-                                    fileSize += file.getSize();
-                                }
-                            }
-                        }
-                    }
-                    fileSizes[parentIndex] = fileSize;
-                    parentIndex ++;
-                }     
-                
-                double minTime = Double.MAX_VALUE;
-                int minTimeIndex = 0;
-                
-                for(int vmIndex = 0; vmIndex < getVmList().size(); vmIndex++){
-                    Vm vm = (Vm)getVmList().get(vmIndex);
-                    double startTime = availableTime[vm.getId()];
-                    parentIndex = 0;
-                    for(Task parent: task.getParentList()){
-                        int allocatedVmId = allocation[parent.getCloudletId()];
-                        double actualFinishTime = earliestFinishTime[parent.getCloudletId()][allocatedVmId];
-                        double communicationTime = fileSizes[parentIndex] / bandwidths[allocatedVmId][vm.getId()];
-                        
-                        if(actualFinishTime + communicationTime > startTime){
-                            startTime = actualFinishTime + communicationTime;
+        }
+        //the first dependency of a parent, stamped with its child
+        int [] parentStamps = new int[taskNum];
+        int [] parentDependencies = new int[taskNum];
+        Arrays.fill(parentStamps, -1);
+        
+        for(int taskIndex : getWaveOrder(graph)){
+            Task task = graph.getTask(taskIndex);
+            int parentStart = graph.getParentStart(taskIndex);
+            int parentEnd = graph.getParentStart(taskIndex + 1);
+            for(int dependency = parentEnd - 1; dependency >= parentStart; dependency--){
+                parentStamps[graph.getParent(dependency)] = taskIndex;
+                parentDependencies[graph.getParent(dependency)] = dependency - parentStart;
+            }
+            //each input file counts once per output file of a parent with its name
+            long [] fileSizes = new long[parentEnd - parentStart];
+            for(int use = graph.getFileStart(taskIndex); parentEnd > parentStart && use < graph.getFileStart(taskIndex + 1); use++){
+                FileItem file = graph.getFileItem(graph.getFile(use));
+                if(file.getType()==Parameters.FileType.INPUT){
+                    Integer output = lastOutputs.get(file.getName());
+                    for(int use2 = output == null ? -1 : output; use2 >= 0; use2 = nextOutputs[use2]){
+                        if(parentStamps[useTasks[use2]] == taskIndex){
+                            fileSizes[parentDependencies[useTasks[use2]]] += file.getSize();
                         }
-                        parentIndex ++;
                     }
-                    earliestStartTime[task.getCloudletId()][vm.getId()] = startTime;
-                    double runtime = task.getCloudletLength() / vm.getMips();
-                    earliestFinishTime[task.getCloudletId()][vm.getId()] = runtime + startTime;
+                }
+            }
+            for(int dependency = parentStart; dependency < parentEnd; dependency++){
+                fileSizes[dependency - parentStart] = fileSizes[parentDependencies[graph.getParent(dependency)]];
+            }
+            
+            double minTime = Double.MAX_VALUE;
+            int minTimeIndex = 0;
+            
+            for(int vmIndex = 0; vmIndex < getVmList().size(); vmIndex++){
+                Vm vm = (Vm)getVmList().get(vmIndex);
+                double startTime = availableTime[vm.getId()];
+                for(int dependency = parentStart; dependency < parentEnd; dependency++){
+                    int parent = graph.getParent(dependency);
+                    int allocatedVmId = allocation[parent];
+                    double actualFinishTime = actualFinishTimes[parent];
+                    double communicationTime = fileSizes[dependency - parentStart] / bandwidths[allocatedVmId][vm.getId()];
                     
-                    if(runtime + startTime < minTime){
-                        minTime = runtime + startTime;
-                        minTimeIndex = vmIndex;
+                    if(actualFinishTime + communicationTime > startTime){
+                        startTime = actualFinishTime + communicationTime;
                     }
                 }
+                double runtime = task.getCloudletLength() / vm.getMips();
+                earliestFinishTime[vm.getId()] = runtime + startTime;
                 
-                allocation[task.getCloudletId()] = minTimeIndex;//we do not really need it use task.getVmId
-                task.setVmId(minTimeIndex);
-                availableTime[minTimeIndex] = minTime;
+                if(runtime + startTime < minTime){
+                    minTime = runtime + startTime;
+                    minTimeIndex = vmIndex;
+                }
             }
+            
+            allocation[taskIndex] = minTimeIndex;//we do not really need it use task.getVmId
+            actualFinishTimes[taskIndex] = earliestFinishTime[minTimeIndex];
+            task.setVmId(minTimeIndex);
+            availableTime[minTimeIndex] = minTime;
         }
         
     }
 
+    /**
+     * Orders the tasks by wave, and by their position in the task list
+     * within a wave. The roots are the first wave, and a task is in the wave
+     * after the last of its parents.
+     *
+     * @param graph the graph of the task list
+     * @return the indexes of the tasks in planning order
+     */
+    private int[] getWaveOrder(TaskGraph graph) {
+        int taskNum = graph.size();
+        int[] waves = new int[taskNum];
+        int[] pendingParents = new int[taskNum];
+        for (int dependency = 0; dependency < graph.getChildStart(taskNum); dependency++) {
+            pendingParents[graph.getChild(dependency)]++;
+        }
+        int[] ready = new int[taskNum];
+        int head = 0, tail = 0;
+        for (int i = 0; i < taskNum; i++) {
+            if (pendingParents[i] == 0) {
+                ready[tail++] = i;
+            }
+        }
+        int waveNum = 0;
+        while (head < tail) {
+            int task = ready[head++];
+            waveNum = Math.max(waveNum, waves[task] + 1);
+            for (int dependency = graph.getChildStart(task); dependency < graph.getChildStart(task + 1);
+                    dependency++) {
+                int child = graph.getChild(dependency);
+                waves[child] = Math.max(waves[child], waves[task] + 1);
+                if (--pendingParents[child] == 0) {
+                    ready[tail++] = child;
+                }
+            }
+        }
 
+        // counting sort of the ordered tasks by wave, keeping the list order
+        int[] waveStarts = new int[waveNum + 1];
+        for (int i = 0; i < tail; i++) {
+            waveStarts[waves[ready[i]] + 1]++;
+        }
+        for (int wave = 0; wave < waveNum; wave++) {
+            waveStarts[wave + 1] += waveStarts[wave];
+        }
+        int[] order = new int[tail];
+        for (int i = 0; i < taskNum; i++) {
+            if (pendingParents[i] == 0) {
+                order[waveStarts[waves[i]]++] = i;
+            }
+        }
+        return order;
+    }
 }
@@ -16,65 +16,104 @@
 package org.workflowsim.planning;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 import org.cloudbus.cloudsim.Consts;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
 import org.workflowsim.FileItem;
 import org.workflowsim.Task;
+import org.workflowsim.TaskGraph;
 import org.workflowsim.utils.Parameters;
 
 /**
  * The HEFT planning algorithm.
+ * <p>
+ * The tasks and the vms are numbered by their position in their lists, the
+ * tasks through the TaskGraph of the task list. The computation costs are a
+ * task by vm array and the transfer costs are kept per dependency, next to
+ * the parents of the graph, so planning takes O(E + V.VMs) memory and time
+ * besides the search of the time slots. The slots reserved on each vm are
+ * kept in a Timeline, which finds the earliest idle gap a task fits in.
+ * <p>
+ * Given more than one thread, the planner calculates the costs and the ranks
+ * on a fork join pool, and evaluates the finish time of a task on the vms in
+ * parallel when there are many of them. The reductions keep the order of the
+ * sequential planner, so the plan is the same.
  *
  * @author Pedro Paulo Vezzá Campos
  * @date Oct 12, 2013
  */
 public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
-    private Map<Task, Map<CondorVM, Double>> computationCosts;
-    private Map<Task, Map<Task, Double>> transferCosts;
-    private Map<Task, Double> rank;
-    private Map<CondorVM, List<Event>> schedules;
-    private Map<Task, Double> earliestFinishTimes;
-    private double averageBandwidth;
-
-    private class Event {
+    private static final long serialVersionUID = 1L;
 
-        public double start;
-        public double finish;
+    private TaskGraph graph;
+    private CondorVM[] vms;
+    private double[][] computationCosts;
+    private double[] transferCosts;
+    private double[] averageComputationCosts;
+    private double[] rank;
+    private Timeline[] schedules;
+    private double[] earliestFinishTimes;
+    private double averageBandwidth;
+    /**
+     * The number of threads planning, 1 to plan on the calling thread
+     */
+    private final int threads;
+    /**
+     * The pool of the threads during a parallel run, or null
+     */
+    private ForkJoinPool pool;
 
-        public Event(double start, double finish) {
-            this.start = start;
-            this.finish = finish;
-        }
-    }
+    /**
+     * The number of tasks a thread takes at once
+     */
+    private static final int TASK_GRAIN = 64;
+    /**
+     * The number of vms a thread evaluates at once
+     */
+    private static final int VM_GRAIN = 256;
 
     private class TaskRank implements Comparable<TaskRank> {
 
-        public Task task;
-        public Double rank;
+        public int task;
+        public double rank;
 
-        public TaskRank(Task task, Double rank) {
+        public TaskRank(int task, double rank) {
             this.task = task;
             this.rank = rank;
         }
 
         @Override
         public int compareTo(TaskRank o) {
-            return o.rank.compareTo(rank);
+            return Double.compare(o.rank, rank);
         }
     }
 
     public HEFTPlanningAlgorithm() {
-        computationCosts = new HashMap<>();
-        transferCosts = new HashMap<>();
-        rank = new HashMap<>();
-        earliestFinishTimes = new HashMap<>();
-        schedules = new HashMap<>();
+        this(1);
+    }
+
+    /**
+     * Initializes a HEFT planner that runs on a number of threads. The costs
+     * and the ranks of the tasks of a level are then calculated in parallel,
+     * and so are the finish times of a task on the vms. The plan is the same
+     * whatever the number of threads.
+     *
+     * @param threads the number of threads, 1 to plan on the calling thread
+     */
+    public HEFTPlanningAlgorithm(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        }
+        this.threads = threads;
     }
 
     /**
@@ -85,11 +124,31 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
         Log.printLine("HEFT planner running with " + getTaskList().size()
                 + " tasks.");
 
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            plan();
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
+    }
+
+    /**
+     * Plans the tasks
+     */
+    private void plan() {
+        graph = TaskGraph.getGraph(getTaskList());
+        vms = new CondorVM[getVmList().size()];
+        for (int i = 0; i < vms.length; i++) {
+            vms[i] = (CondorVM) getVmList().get(i);
+        }
         averageBandwidth = calculateAverageBandwidth();
 
-        for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
-            schedules.put(vm, new ArrayList<>());
+        schedules = new Timeline[vms.length];
+        for (int i = 0; i < vms.length; i++) {
+            schedules[i] = new Timeline();
         }
 
         // Prioritization phase
@@ -108,11 +167,10 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      */
     private double calculateAverageBandwidth() {
         double avg = 0.0;
-        for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
+        for (CondorVM vm : vms) {
             avg += vm.getBw();
         }
-        return avg / getVmList().size();
+        return avg / vms.length;
     }
 
     /**
@@ -120,40 +178,50 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * a task in a vm.
      */
     private void calculateComputationCosts() {
-        for (Task task : getTaskList()) {
-            Map<CondorVM, Double> costsVm = new HashMap<>();
-            for (Object vmObject : getVmList()) {
-                CondorVM vm = (CondorVM) vmObject;
-                if (vm.getNumberOfPes() < task.getNumberOfPes()) {
-                    costsVm.put(vm, Double.MAX_VALUE);
-                } else {
-                    costsVm.put(vm,
-                            task.getCloudletTotalLength() / vm.getMips());
+        computationCosts = new double[graph.size()][vms.length];
+        averageComputationCosts = new double[graph.size()];
+        forEach(0, graph.size(), TASK_GRAIN, new IndexAction() {
+
+            @Override
+            public void run(int i) {
+                Task task = graph.getTask(i);
+                for (int j = 0; j < vms.length; j++) {
+                    CondorVM vm = vms[j];
+                    if (vm.getNumberOfPes() < task.getNumberOfPes()) {
+                        computationCosts[i][j] = Double.MAX_VALUE;
+                    } else {
+                        computationCosts[i][j] = task.getCloudletTotalLength() / vm.getMips();
+                    }
                 }
+                averageComputationCosts[i] = calculateAverageComputationCost(i);
             }
-            computationCosts.put(task, costsVm);
-        }
+        });
     }
 
     /**
-     * Populates the transferCosts map with the time in seconds to transfer all
-     * files from each parent to each child
+     * Populates the transferCosts field with the time in seconds to transfer
+     * all files from each parent to each child. The cost of a dependency is at
+     * the same position as its parent in the graph.
      */
     private void calculateTransferCosts() {
-        // Initializing the matrix
-        for (Task task1 : getTaskList()) {
-            Map<Task, Double> taskTransferCosts = new HashMap<>();
-            for (Task task2 : getTaskList()) {
-                taskTransferCosts.put(task2, 0.0);
+        transferCosts = new double[graph.getParentStart(graph.size())];
+        Map<String, FileItem> inputs = new HashMap<>();
+        for (int child = 0; child < graph.size(); child++) {
+            if (graph.getParentStart(child) == graph.getParentStart(child + 1)) {
+                continue;
             }
-            transferCosts.put(task1, taskTransferCosts);
-        }
-
-        // Calculating the actual values
-        for (Task parent : getTaskList()) {
-            for (Task child : parent.getChildList()) {
-                transferCosts.get(parent).put(child,
-                        calculateTransferCost(parent, child));
+            // The first input file of each name, as a scan of the files of
+            // the child would find
+            inputs.clear();
+            for (int use = graph.getFileStart(child); use < graph.getFileStart(child + 1); use++) {
+                FileItem file = graph.getFileItem(graph.getFile(use));
+                if (file.getType() == Parameters.FileType.INPUT && !inputs.containsKey(file.getName())) {
+                    inputs.put(file.getName(), file);
+                }
+            }
+            for (int dependency = graph.getParentStart(child); dependency < graph.getParentStart(child + 1);
+                    dependency++) {
+                transferCosts[dependency] = calculateTransferCost(graph.getParent(dependency), inputs);
             }
         }
     }
@@ -162,27 +230,22 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * Accounts the time in seconds necessary to transfer all files described
      * between parent and child
      *
-     * @param parent
-     * @param child
+     * @param parent the index of the parent
+     * @param inputs the input files of the child, by name
      * @return Transfer cost in seconds
      */
-    private double calculateTransferCost(Task parent, Task child) {
-        List<FileItem> parentFiles = parent.getFileList();
-        List<FileItem> childFiles = child.getFileList();
-
+    private double calculateTransferCost(int parent, Map<String, FileItem> inputs) {
         double acc = 0.0;
 
-        for (FileItem parentFile : parentFiles) {
+        for (int use = graph.getFileStart(parent); use < graph.getFileStart(parent + 1); use++) {
+            FileItem parentFile = graph.getFileItem(graph.getFile(use));
             if (parentFile.getType() != Parameters.FileType.OUTPUT) {
                 continue;
             }
 
-            for (FileItem childFile : childFiles) {
-                if (childFile.getType() == Parameters.FileType.INPUT
-                        && childFile.getName().equals(parentFile.getName())) {
-                    acc += childFile.getSize();
-                    break;
-                }
+            FileItem childFile = inputs.get(parentFile.getName());
+            if (childFile != null) {
+                acc += childFile.getSize();
             }
         }
 
@@ -193,186 +256,418 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     }
 
     /**
-     * Invokes calculateRank for each task to be scheduled
+     * Populates the rank field with the rank of each task as defined in the
+     * HEFT paper. The tasks are leveled by their height above the exit tasks,
+     * and the ranks are calculated one level after the other, the tasks of a
+     * level in parallel as their children are all ranked.
      */
     private void calculateRanks() {
-        for (Task task : getTaskList()) {
-            calculateRank(task);
+        int size = graph.size();
+        final int[] childDependencies = new int[transferCosts.length];
+        final int[] childDependencyStarts = new int[size + 1];
+        final int[] dependencyChildren = new int[transferCosts.length];
+        for (int child = 0; child < size; child++) {
+            for (int dependency = graph.getParentStart(child); dependency < graph.getParentStart(child + 1);
+                    dependency++) {
+                childDependencyStarts[graph.getParent(dependency) + 1]++;
+                dependencyChildren[dependency] = child;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            childDependencyStarts[i + 1] += childDependencyStarts[i];
+        }
+        int[] next = Arrays.copyOf(childDependencyStarts, size);
+        for (int dependency = 0; dependency < transferCosts.length; dependency++) {
+            childDependencies[next[graph.getParent(dependency)]++] = dependency;
+        }
+
+        // The height of each task, from the exit tasks up
+        int[] heights = new int[size];
+        int[] pendingChildren = new int[size];
+        for (int i = 0; i < size; i++) {
+            pendingChildren[i] = childDependencyStarts[i + 1] - childDependencyStarts[i];
+        }
+        int[] ready = new int[size];
+        int head = 0, tail = 0;
+        for (int i = 0; i < size; i++) {
+            if (pendingChildren[i] == 0) {
+                ready[tail++] = i;
+            }
+        }
+        int levelNum = 0;
+        while (head < tail) {
+            int task = ready[head++];
+            levelNum = Math.max(levelNum, heights[task] + 1);
+            for (int dependency = graph.getParentStart(task); dependency < graph.getParentStart(task + 1);
+                    dependency++) {
+                int parent = graph.getParent(dependency);
+                heights[parent] = Math.max(heights[parent], heights[task] + 1);
+                if (--pendingChildren[parent] == 0) {
+                    ready[tail++] = parent;
+                }
+            }
+        }
+
+        int[] levelStarts = new int[levelNum + 1];
+        for (int i = 0; i < tail; i++) {
+            levelStarts[heights[ready[i]] + 1]++;
+        }
+        for (int level = 0; level < levelNum; level++) {
+            levelStarts[level + 1] += levelStarts[level];
+        }
+        final int[] levels = new int[tail];
+        next = Arrays.copyOf(levelStarts, levelNum);
+        for (int i = 0; i < tail; i++) {
+            levels[next[heights[ready[i]]]++] = ready[i];
+        }
+
+        rank = new double[size];
+        IndexAction rankTask = new IndexAction() {
+
+            @Override
+            public void run(int i) {
+                int task = levels[i];
+                double maxChildCost = 0.0;
+                for (int j = childDependencyStarts[task]; j < childDependencyStarts[task + 1]; j++) {
+                    int dependency = childDependencies[j];
+                    maxChildCost = Math.max(maxChildCost,
+                            transferCosts[dependency] + rank[dependencyChildren[dependency]]);
+                }
+                rank[task] = averageComputationCosts[task] + maxChildCost;
+            }
+        };
+        for (int level = 0; level < levelNum; level++) {
+            forEach(levelStarts[level], levelStarts[level + 1], TASK_GRAIN, rankTask);
         }
     }
 
     /**
-     * Populates rank.get(task) with the rank of task as defined in the HEFT
-     * paper.
+     * Averages the computation costs of a task over the vms
      *
-     * @param task The task have the rank calculates
-     * @return The rank
+     * @param task the index of the task
+     * @return the average computation cost
      */
-    private double calculateRank(Task task) {
-        if (rank.containsKey(task)) {
-            return rank.get(task);
-        }
-
+    private double calculateAverageComputationCost(int task) {
         double averageComputationCost = 0.0;
-
-        for (Double cost : computationCosts.get(task).values()) {
+        for (double cost : computationCosts[task]) {
             averageComputationCost += cost;
         }
-
-        averageComputationCost /= computationCosts.get(task).size();
-
-        double max = 0.0;
-        for (Task child : task.getChildList()) {
-            double childCost = transferCosts.get(task).get(child)
-                    + calculateRank(child);
-            max = Math.max(max, childCost);
-        }
-
-        rank.put(task, averageComputationCost + max);
-
-        return rank.get(task);
+        return averageComputationCost / vms.length;
     }
 
     /**
-     * Allocates all tasks to be scheduled in non-ascending order of schedule.
+     * Allocates all tasks to be scheduled in non-ascending order of rank,
+     * tasks of the same rank in the order of the task list.
      */
     private void allocateTasks() {
-        List<TaskRank> taskRank = new ArrayList<>();
-        for (Task task : rank.keySet()) {
-            taskRank.add(new TaskRank(task, rank.get(task)));
+        List<TaskRank> taskRank = new ArrayList<>(graph.size());
+        for (int i = 0; i < graph.size(); i++) {
+            taskRank.add(new TaskRank(i, rank[i]));
         }
 
         // Sorting in non-ascending order of rank
         Collections.sort(taskRank);
+
+        earliestFinishTimes = new double[graph.size()];
+        ReadyTimes readyTimes = new ReadyTimes();
         for (TaskRank rank : taskRank) {
-            allocateTask(rank.task);
+            allocateTask(rank.task, readyTimes);
         }
-
     }
 
     /**
      * Schedules the task given in one of the VMs minimizing the earliest finish
      * time
      *
-     * @param task The task to be scheduled
+     * @param task The index of the task to be scheduled
+     * @param readyTimes The ready times of the task
      * @pre All parent tasks are already scheduled
      */
-    private void allocateTask(Task task) {
-        CondorVM chosenVM = null;
-        double earliestFinishTime = Double.MAX_VALUE;
-        double bestReadyTime = 0.0;
-        double finishTime;
-
-        for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
-            double minReadyTime = 0.0;
-
-            for (Task parent : task.getParentList()) {
-                double readyTime = earliestFinishTimes.get(parent);
-                if (parent.getVmId() != vm.getId()) {
-                    readyTime += transferCosts.get(parent).get(task);
-                }
-                minReadyTime = Math.max(minReadyTime, readyTime);
+    private void allocateTask(int task, ReadyTimes readyTimes) {
+        readyTimes.setTask(task);
+        Choice choice;
+        if (pool != null && vms.length > VM_GRAIN) {
+            choice = pool.invoke(new VmSearch(task, readyTimes, 0, vms.length));
+        } else {
+            choice = chooseVm(task, readyTimes, 0, vms.length);
+        }
+
+        findFinishTime(task, choice.vm, choice.readyTime, true);
+        earliestFinishTimes[task] = choice.finishTime;
+
+        graph.getTask(task).setVmId(vms[choice.vm].getId());
+    }
+
+    /**
+     * Finds the vm of a range minimizing the earliest finish time of a task,
+     * the first one of the range on a tie
+     *
+     * @param task the index of the task
+     * @param readyTimes the ready times of the task
+     * @param from the position of the first vm
+     * @param to the position after the last vm
+     * @return the vm chosen, or none with a maximal finish time
+     */
+    private Choice chooseVm(int task, ReadyTimes readyTimes, int from, int to) {
+        Choice choice = new Choice();
+        for (int vm = from; vm < to; vm++) {
+            double minReadyTime = readyTimes.get(vm);
+
+            double finishTime = findFinishTime(task, vm, minReadyTime, false);
+
+            if (finishTime < choice.finishTime) {
+                choice.readyTime = minReadyTime;
+                choice.finishTime = finishTime;
+                choice.vm = vm;
             }
+        }
+        return choice;
+    }
+
+    /**
+     * The vm chosen for a task, with the ready time and the finish time of
+     * the task on it
+     */
+    private static class Choice {
 
-            finishTime = findFinishTime(task, vm, minReadyTime, false);
+        private int vm = -1;
+        private double readyTime = 0.0;
+        private double finishTime = Double.MAX_VALUE;
+    }
+
+    /**
+     * Searches the vms of a range by halves. Of two halves, the right one is
+     * only chosen if it finishes the task strictly earlier, so the vm chosen
+     * is the one a scan of the whole range would choose.
+     */
+    private class VmSearch extends RecursiveTask<Choice> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int task;
+        private final ReadyTimes readyTimes;
+        private final int from;
+        private final int to;
+
+        public VmSearch(int task, ReadyTimes readyTimes, int from, int to) {
+            this.task = task;
+            this.readyTimes = readyTimes;
+            this.from = from;
+            this.to = to;
+        }
 
-            if (finishTime < earliestFinishTime) {
-                bestReadyTime = minReadyTime;
-                earliestFinishTime = finishTime;
-                chosenVM = vm;
+        @Override
+        protected Choice compute() {
+            if (to - from <= VM_GRAIN) {
+                return chooseVm(task, readyTimes, from, to);
             }
+            int middle = (from + to) >>> 1;
+            VmSearch left = new VmSearch(task, readyTimes, from, middle);
+            left.fork();
+            Choice right = new VmSearch(task, readyTimes, middle, to).compute();
+            Choice choice = left.join();
+            return right.finishTime < choice.finishTime ? right : choice;
         }
+    }
 
-        findFinishTime(task, chosenVM, bestReadyTime, true);
-        earliestFinishTimes.put(task, earliestFinishTime);
+    /**
+     * An action on the index of a task or a vm
+     */
+    private interface IndexAction {
 
-        task.setVmId(chosenVM.getId());
+        void run(int i);
     }
 
     /**
-     * Finds the best time slot available to minimize the finish time of the
-     * given task in the vm with the constraint of not scheduling it before
-     * readyTime. If occupySlot is true, reserves the time slot in the schedule.
+     * Runs an action on a range of indexes, on the pool if there is one and
+     * the range is longer than a grain
      *
-     * @param task The task to have the time slot reserved
-     * @param vm The vm that will execute the task
-     * @param readyTime The first moment that the task is available to be
-     * scheduled
-     * @param occupySlot If true, reserves the time slot in the schedule.
-     * @return The minimal finish time of the task in the vmn
+     * @param from the first index
+     * @param to the index after the last one
+     * @param grain the number of indexes a thread takes at once
+     * @param action the action
      */
-    private double findFinishTime(Task task, CondorVM vm, double readyTime,
-            boolean occupySlot) {
-        List<Event> sched = schedules.get(vm);
-        double computationCost = computationCosts.get(task).get(vm);
-        double start, finish;
-        int pos;
-
-        if (sched.isEmpty()) {
-            if (occupySlot) {
-                sched.add(new Event(readyTime, readyTime + computationCost));
+    private void forEach(int from, int to, int grain, IndexAction action) {
+        if (pool == null || to - from <= grain) {
+            for (int i = from; i < to; i++) {
+                action.run(i);
             }
-            return readyTime + computationCost;
-        }
-
-        if (sched.size() == 1) {
-            if (readyTime >= sched.get(0).finish) {
-                pos = 1;
-                start = readyTime;
-            } else if (readyTime + computationCost <= sched.get(0).start) {
-                pos = 0;
-                start = readyTime;
-            } else {
-                pos = 1;
-                start = sched.get(0).finish;
+        } else {
+            pool.invoke(new ForEach(from, to, grain, action));
+        }
+    }
+
+    /**
+     * Runs an action on a range of indexes by halves
+     */
+    private static class ForEach extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IndexAction action;
+
+        public ForEach(int from, int to, int grain, IndexAction action) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    action.run(i);
+                }
+                return;
             }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForEach(from, middle, grain, action), new ForEach(middle, to, grain, action));
+        }
+    }
 
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
+    /**
+     * The time a task can start at on each vm, once its parents have
+     * finished and sent their files. A file is only sent when the parent ran
+     * on another vm, so the ready time on a vm is the latest of the parents
+     * of other vms with their transfer and of the parents of this vm
+     * without. The parents are grouped by vm once per task, and the ready
+     * time on a vm is then found in constant time.
+     */
+    private class ReadyTimes {
+
+        /**
+         * The positions of the vms by id
+         */
+        private final Map<Integer, Integer> vmIndexes;
+        /**
+         * The task whose parents are grouped, per vm
+         */
+        private final int[] stamps;
+        /**
+         * The latest finish of the parents on a vm, with their transfer
+         */
+        private final double[] remoteTimes;
+        /**
+         * The latest finish of the parents on a vm
+         */
+        private final double[] localTimes;
+        /**
+         * The vms running a parent of the task
+         */
+        private final int[] parentVms;
+        /**
+         * The task whose ready times are given
+         */
+        private int task;
+        /**
+         * The latest finish with transfer of the parents on no listed vm
+         */
+        private double outsideTime;
+        /**
+         * The vm of the latest remote time, and that time
+         */
+        private int firstVm;
+        private double firstTime;
+        /**
+         * The latest remote time of the other vms
+         */
+        private double secondTime;
+
+        public ReadyTimes() {
+            vmIndexes = new HashMap<>();
+            for (int i = vms.length - 1; i >= 0; i--) {
+                vmIndexes.put(vms[i].getId(), i);
             }
-            return start + computationCost;
-        }
-
-        // Trivial case: Start after the latest task scheduled
-        start = Math.max(readyTime, sched.get(sched.size() - 1).finish);
-        finish = start + computationCost;
-        int i = sched.size() - 1;
-        int j = sched.size() - 2;
-        pos = i + 1;
-        while (j >= 0) {
-            Event current = sched.get(i);
-            Event previous = sched.get(j);
-
-            if (readyTime > previous.finish) {
-                if (readyTime + computationCost <= current.start) {
-                    start = readyTime;
-                    finish = readyTime + computationCost;
-                }
+            stamps = new int[vms.length];
+            Arrays.fill(stamps, -1);
+            remoteTimes = new double[vms.length];
+            localTimes = new double[vms.length];
+            parentVms = new int[vms.length];
+        }
 
-                break;
+        /**
+         * Groups the parents of a task by vm
+         *
+         * @param task the index of the task
+         */
+        public void setTask(int task) {
+            this.task = task;
+            outsideTime = 0.0;
+            int parentVmCount = 0;
+            for (int dependency = graph.getParentStart(task); dependency < graph.getParentStart(task + 1);
+                    dependency++) {
+                int parent = graph.getParent(dependency);
+                double localTime = earliestFinishTimes[parent];
+                double remoteTime = localTime + transferCosts[dependency];
+                Integer vm = vmIndexes.get(graph.getTask(parent).getVmId());
+                if (vm == null) {
+                    outsideTime = Math.max(outsideTime, remoteTime);
+                } else if (stamps[vm] != task) {
+                    stamps[vm] = task;
+                    remoteTimes[vm] = remoteTime;
+                    localTimes[vm] = localTime;
+                    parentVms[parentVmCount++] = vm;
+                } else {
+                    remoteTimes[vm] = Math.max(remoteTimes[vm], remoteTime);
+                    localTimes[vm] = Math.max(localTimes[vm], localTime);
+                }
             }
-            if (previous.finish + computationCost <= current.start) {
-                start = previous.finish;
-                finish = previous.finish + computationCost;
-                pos = i;
+
+            firstVm = -1;
+            firstTime = 0.0;
+            secondTime = 0.0;
+            for (int i = 0; i < parentVmCount; i++) {
+                int vm = parentVms[i];
+                if (remoteTimes[vm] > firstTime) {
+                    secondTime = firstTime;
+                    firstTime = remoteTimes[vm];
+                    firstVm = vm;
+                } else {
+                    secondTime = Math.max(secondTime, remoteTimes[vm]);
+                }
             }
-            i--;
-            j--;
         }
 
-        if (readyTime + computationCost <= sched.get(0).start) {
-            pos = 0;
-            start = readyTime;
-
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
+        /**
+         * Gets the ready time of the task on a vm
+         *
+         * @param vm the position of the vm
+         * @return the ready time
+         */
+        public double get(int vm) {
+            double readyTime = Math.max(outsideTime, vm == firstVm ? secondTime : firstTime);
+            if (stamps[vm] == task) {
+                readyTime = Math.max(readyTime, localTimes[vm]);
             }
-            return start + computationCost;
+            return readyTime;
         }
+    }
+
+    /**
+     * Finds the best time slot available to minimize the finish time of the
+     * given task in the vm with the constraint of not scheduling it before
+     * readyTime. If occupySlot is true, reserves the time slot in the schedule.
+     *
+     * @param task The index of the task to have the time slot reserved
+     * @param vm The position of the vm that will execute the task
+     * @param readyTime The first moment that the task is available to be
+     * scheduled
+     * @param occupySlot If true, reserves the time slot in the schedule.
+     * @return The minimal finish time of the task in the vmn
+     */
+    private double findFinishTime(int task, int vm, double readyTime,
+            boolean occupySlot) {
+        Timeline sched = schedules[vm];
+        double computationCost = computationCosts[task][vm];
+        double start = sched.findStart(readyTime, computationCost);
+
         if (occupySlot) {
-            sched.add(pos, new Event(start, finish));
+            sched.add(start, start + computationCost);
         }
-        return finish;
+        return start + computationCost;
     }
 }
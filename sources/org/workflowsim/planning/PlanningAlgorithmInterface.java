@@ -15,6 +15,7 @@
  */
 package org.workflowsim.planning;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -24,7 +25,7 @@ import java.util.List;
  * @since WorkflowSim Toolkit 1.0
  * @date Jun 18, 2013
  */
-public interface PlanningAlgorithmInterface {
+public interface PlanningAlgorithmInterface extends Serializable {
 
     /**
      * Sets the task list.
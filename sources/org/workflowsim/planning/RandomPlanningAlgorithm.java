@@ -30,6 +30,8 @@ import org.workflowsim.utils.Parameters;
  */
 public class RandomPlanningAlgorithm extends BasePlanningAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The main function
      */
@@ -0,0 +1,287 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Arrays;
+
+/**
+ * The time slots reserved on a vm by an insertion based planner. The slots do
+ * not overlap, and a new slot is placed in the earliest idle gap that is long
+ * enough, which may lie between two slots reserved before.
+ * <p>
+ * The slots are kept in a treap ordered by start time. Each slot remembers
+ * where the slot before it finishes, so the gap before it is known, and each
+ * subtree the longest of its gaps. Both finding the earliest gap of a length
+ * after a ready time and reserving a slot take O(log n) expected time, instead
+ * of a walk over the list of slots. The priorities of the treap come from a
+ * fixed sequence, so a plan is the same from one run to the next.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+class Timeline {
+
+    private static final int NONE = -1;
+
+    /**
+     * The slots, by node
+     */
+    private double[] starts;
+    private double[] finishes;
+    /**
+     * The finish of the slot before, or negative infinity for the first slot,
+     * whose gap is only used through the ready time
+     */
+    private double[] previousFinishes;
+    /**
+     * The longest gap before a slot of the subtree
+     */
+    private double[] maxGaps;
+    private int[] lefts;
+    private int[] rights;
+    private int[] priorities;
+    private int root;
+    private int size;
+    /**
+     * The slot starting last
+     */
+    private int last;
+    /**
+     * The state of the priority sequence
+     */
+    private int seed;
+    /**
+     * The path from the root to the slot after a new one
+     */
+    private int[] path;
+
+    public Timeline() {
+        starts = new double[4];
+        finishes = new double[4];
+        previousFinishes = new double[4];
+        maxGaps = new double[4];
+        lefts = new int[4];
+        rights = new int[4];
+        priorities = new int[4];
+        root = NONE;
+        last = NONE;
+        seed = 0x2545F491;
+        path = new int[32];
+    }
+
+    /**
+     * Gets the number of reserved slots
+     *
+     * @return the number of slots
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the earliest start of a slot of a length that does not begin
+     * before a ready time
+     *
+     * @param readyTime the earliest start
+     * @param length the length of the slot
+     * @return the start of the slot
+     */
+    public double findStart(double readyTime, double length) {
+        if (size == 0) {
+            return readyTime;
+        }
+        // The slots around the ready time
+        int before = NONE, after = NONE;
+        int node = root;
+        while (node != NONE) {
+            if (starts[node] > readyTime) {
+                after = node;
+                node = lefts[node];
+            } else {
+                before = node;
+                node = rights[node];
+            }
+        }
+        if (after == NONE) {
+            return Math.max(readyTime, finishes[last]);
+        }
+        // The gap the ready time falls in, or follows if it is in a slot
+        double start = before == NONE ? readyTime : Math.max(readyTime, finishes[before]);
+        if (starts[after] - start >= length) {
+            return start;
+        }
+        // The first later gap that is long enough
+        int fit = findGap(root, starts[after], length);
+        if (fit != NONE) {
+            return previousFinishes[fit];
+        }
+        return Math.max(readyTime, finishes[last]);
+    }
+
+    /**
+     * Finds the first slot starting after a time with a gap of a length
+     * before it
+     */
+    private int findGap(int node, double time, double length) {
+        while (node != NONE && maxGaps[node] >= length) {
+            if (starts[node] <= time) {
+                node = rights[node];
+                continue;
+            }
+            int fit = findGap(lefts[node], time, length);
+            if (fit != NONE) {
+                return fit;
+            }
+            if (getGap(node) >= length) {
+                return node;
+            }
+            node = rights[node];
+        }
+        return NONE;
+    }
+
+    /**
+     * Reserves a slot. It should not overlap the slots reserved before, as
+     * findStart ensures.
+     *
+     * @param start the start of the slot
+     * @param finish the finish of the slot
+     */
+    public void add(double start, double finish) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            finishes = Arrays.copyOf(finishes, capacity);
+            previousFinishes = Arrays.copyOf(previousFinishes, capacity);
+            maxGaps = Arrays.copyOf(maxGaps, capacity);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+        }
+        int node = size++;
+        starts[node] = start;
+        finishes[node] = finish;
+        lefts[node] = NONE;
+        rights[node] = NONE;
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        priorities[node] = seed;
+
+        // The slot after the new one now follows it
+        double previousFinish = Double.NEGATIVE_INFINITY;
+        int depth = 0;
+        int next = NONE;
+        int nextDepth = 0;
+        int current = root;
+        while (current != NONE) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = current;
+            if (starts[current] > start) {
+                next = current;
+                nextDepth = depth;
+                current = lefts[current];
+            } else {
+                previousFinish = finishes[current];
+                current = rights[current];
+            }
+        }
+        previousFinishes[node] = previousFinish;
+        maxGaps[node] = getGap(node);
+        if (next != NONE) {
+            previousFinishes[next] = finish;
+            for (int i = nextDepth - 1; i >= 0; i--) {
+                update(path[i]);
+            }
+        }
+        if (last == NONE || start >= starts[last]) {
+            last = node;
+        }
+
+        root = insert(root, node);
+    }
+
+    /**
+     * Inserts a node in a subtree
+     *
+     * @return the root of the subtree
+     */
+    private int insert(int subtree, int node) {
+        if (subtree == NONE) {
+            return node;
+        }
+        if (priorities[node] > priorities[subtree]) {
+            split(subtree, starts[node], node);
+            update(node);
+            return node;
+        }
+        if (starts[node] < starts[subtree]) {
+            lefts[subtree] = insert(lefts[subtree], node);
+        } else {
+            rights[subtree] = insert(rights[subtree], node);
+        }
+        update(subtree);
+        return subtree;
+    }
+
+    /**
+     * Splits a subtree by start time into the children of a node, the slots
+     * starting at the time going to the left as the node follows them
+     */
+    private void split(int subtree, double start, int node) {
+        if (subtree == NONE) {
+            lefts[node] = NONE;
+            rights[node] = NONE;
+            return;
+        }
+        if (starts[subtree] <= start) {
+            split(rights[subtree], start, node);
+            rights[subtree] = lefts[node];
+            update(subtree);
+            lefts[node] = subtree;
+        } else {
+            split(lefts[subtree], start, node);
+            lefts[subtree] = rights[node];
+            update(subtree);
+            rights[node] = subtree;
+        }
+    }
+
+    /**
+     * Gets the gap before a slot, negative infinity for the first slot
+     */
+    private double getGap(int node) {
+        if (previousFinishes[node] == Double.NEGATIVE_INFINITY) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return starts[node] - previousFinishes[node];
+    }
+
+    /**
+     * Updates the longest gap of a subtree from its children
+     */
+    private void update(int node) {
+        double maxGap = getGap(node);
+        if (lefts[node] != NONE) {
+            maxGap = Math.max(maxGap, maxGaps[lefts[node]]);
+        }
+        if (rights[node] != NONE) {
+            maxGap = Math.max(maxGap, maxGaps[rights[node]]);
+        }
+        maxGaps[node] = maxGap;
+    }
+}
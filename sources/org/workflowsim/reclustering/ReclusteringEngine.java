@@ -27,6 +27,7 @@ import org.workflowsim.Task;
 import org.workflowsim.failure.FailureMonitor;
 import org.workflowsim.failure.FailureParameters;
 import org.workflowsim.failure.FailureRecord;
+import org.workflowsim.utils.OverheadParameters;
 import org.workflowsim.utils.Parameters;
 
 /**
@@ -383,35 +384,37 @@ public class ReclusteringEngine {
      */
     private static double getCumulativeDelay(int depth){
         double delay = 0.0;
-        if(Parameters.getOverheadParams().getQueueDelay()!=null && 
-                Parameters.getOverheadParams().getQueueDelay().containsKey(depth)){
-            delay += Parameters.getOverheadParams().getQueueDelay().get(depth).getMLEMean();
+        OverheadParameters params = Parameters.getOverheadParams();
+        if(params.getQueueDelay()!=null && 
+                params.getQueueDelay().containsKey(depth)){
+            delay += params.getQueueDelay().get(depth).getMLEMean();
         }
-        if(Parameters.getOverheadParams().getWEDDelay()!=null &&
-                Parameters.getOverheadParams().getWEDDelay().containsKey(depth)){
-            delay += Parameters.getOverheadParams().getWEDDelay().get(depth).getMLEMean();
+        if(params.getWEDDelay()!=null &&
+                params.getWEDDelay().containsKey(depth)){
+            delay += params.getWEDDelay().get(depth).getMLEMean();
         }
-        if(Parameters.getOverheadParams().getPostDelay()!=null &&
-                Parameters.getOverheadParams().getPostDelay().containsKey(depth)){
-            delay += Parameters.getOverheadParams().getPostDelay().get(depth).getMLEMean();
+        if(params.getPostDelay()!=null &&
+                params.getPostDelay().containsKey(depth)){
+            delay += params.getPostDelay().get(depth).getMLEMean();
         }
         return delay;
     }
     
     private static double getOverheadLikelihoodPrior(int depth){
         double prior = 0.0;
+        OverheadParameters params = Parameters.getOverheadParams();
 
-        if(Parameters.getOverheadParams().getQueueDelay()!=null && 
-                Parameters.getOverheadParams().getQueueDelay().containsKey(depth)){
-            prior = Parameters.getOverheadParams().getQueueDelay().get(depth).getLikelihoodPrior();
+        if(params.getQueueDelay()!=null && 
+                params.getQueueDelay().containsKey(depth)){
+            prior = params.getQueueDelay().get(depth).getLikelihoodPrior();
         }else
-        if(Parameters.getOverheadParams().getWEDDelay()!=null &&
-                Parameters.getOverheadParams().getWEDDelay().containsKey(depth)){
-            prior = Parameters.getOverheadParams().getWEDDelay().get(depth).getMLEMean();
+        if(params.getWEDDelay()!=null &&
+                params.getWEDDelay().containsKey(depth)){
+            prior = params.getWEDDelay().get(depth).getMLEMean();
         }else
-        if(Parameters.getOverheadParams().getPostDelay()!=null &&
-                Parameters.getOverheadParams().getPostDelay().containsKey(depth)){
-            prior = Parameters.getOverheadParams().getPostDelay().get(depth).getMLEMean();
+        if(params.getPostDelay()!=null &&
+                params.getPostDelay().containsKey(depth)){
+            prior = params.getPostDelay().get(depth).getMLEMean();
         }
         return prior;
     }
@@ -16,13 +16,23 @@
 package org.workflowsim.scheduling;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Vm;
 
 /**
  * The base scheduler has implemented the basic features. Every other scheduling method
  * should extend from BaseSchedulingAlgorithm but should not directly use it. 
+ * <p>
+ * A WorkflowScheduler keeps its algorithm for the whole simulation and calls
+ * {@link #schedule()} for every scheduling round. In between, it reports the
+ * jobs that arrive and the vms that become idle, so that an algorithm may keep
+ * its own indexed state and only process what changed. Algorithms that do not
+ * override these notifications just look at the job list and the vm list in
+ * every round.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -30,6 +40,8 @@ import org.cloudbus.cloudsim.Vm;
  */
 public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInterface {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * the job list.
      */
@@ -42,12 +54,26 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      * the scheduled job list.
      */
     private List< Cloudlet> scheduledList;
+    /**
+     * the jobs scheduled by schedule() that are still in the job list. They are
+     * removed in batches rather than after every round.
+     */
+    private final Set<Cloudlet> staleList;
+    /**
+     * the number of rounds run by schedule(), and their wall time in
+     * nanoseconds.
+     */
+    private long roundCount;
+    private long totalRoundTime;
+    private long maxRoundTime;
+    private long lastRoundTime;
 
     /**
      * Initialize a BaseSchedulingAlgorithm
      */
     public BaseSchedulingAlgorithm() {
-        this.scheduledList = new ArrayList();
+        this.scheduledList = new ArrayList<>();
+        this.staleList = Collections.newSetFromMap(new IdentityHashMap<Cloudlet, Boolean>());
     }
 
     /**
@@ -56,8 +82,10 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      * @param list
      */
     @Override
+    @SuppressWarnings("unchecked")
     public void setCloudletList(List list) {
         this.cloudletList = list;
+        this.staleList.clear();
     }
 
     /**
@@ -67,7 +95,11 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      */
     @Override
     public void setVmList(List list) {
-        this.vmList = new ArrayList(list);
+        List<Vm> vms = new ArrayList<>(list.size());
+        for (Object vm : list) {
+            vms.add((Vm) vm);
+        }
+        this.vmList = vms;
     }
 
     /**
@@ -77,6 +109,16 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      */
     @Override
     public List getCloudletList() {
+        return getJobList();
+    }
+
+    /**
+     * Gets the job list, typed.
+     *
+     * @return the job list
+     */
+    protected List<? extends Cloudlet> getJobList() {
+        removeStaleCloudlets(this.cloudletList);
         return this.cloudletList;
     }
 
@@ -103,7 +145,105 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      * @return job list
      */
     @Override
-    public List getScheduledList() {
+    public List<Cloudlet> getScheduledList() {
         return this.scheduledList;
     }
+
+    /**
+     * Notifies that jobs have been appended to the job list. Does nothing by
+     * default.
+     *
+     * @param list the new jobs
+     */
+    public void cloudletsArrived(List<? extends Cloudlet> list) {
+    }
+
+    /**
+     * Notifies that a vm of the vm list has completed its job and is idle
+     * again. Does nothing by default.
+     *
+     * @param vm the vm
+     */
+    public void vmIdle(Vm vm) {
+    }
+
+    /**
+     * Runs a scheduling round. The scheduled list is cleared and filled again
+     * by run(), and the scheduled jobs are dropped from the job list.
+     *
+     * @throws java.lang.Exception
+     */
+    public void schedule() throws Exception {
+        long start = System.nanoTime();
+        this.scheduledList.clear();
+        try {
+            run();
+        } finally {
+            this.staleList.addAll(this.scheduledList);
+            if (this.staleList.size() > this.cloudletList.size() / 2) {
+                removeStaleCloudlets(this.cloudletList);
+            }
+            this.lastRoundTime = System.nanoTime() - start;
+            this.totalRoundTime += this.lastRoundTime;
+            this.maxRoundTime = Math.max(this.maxRoundTime, this.lastRoundTime);
+            this.roundCount++;
+        }
+    }
+
+    /**
+     * Gets the number of scheduling rounds run by schedule().
+     *
+     * @return the number of rounds
+     */
+    public long getRoundCount() {
+        return this.roundCount;
+    }
+
+    /**
+     * Gets the wall time of all the scheduling rounds.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getTotalRoundTime() {
+        return this.totalRoundTime;
+    }
+
+    /**
+     * Gets the wall time of the longest scheduling round.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getMaxRoundTime() {
+        return this.maxRoundTime;
+    }
+
+    /**
+     * Gets the wall time of the last scheduling round.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getLastRoundTime() {
+        return this.lastRoundTime;
+    }
+
+    /**
+     * Removes the jobs scheduled in the previous rounds from the job list, in
+     * one pass that keeps the order of the others.
+     *
+     * @param list the job list
+     */
+    private <T extends Cloudlet> void removeStaleCloudlets(List<T> list) {
+        if (this.staleList.isEmpty()) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < list.size(); i++) {
+            T cloudlet = list.get(i);
+            if (!this.staleList.contains(cloudlet)) {
+                list.set(kept++, cloudlet);
+            }
+        }
+        list.subList(kept, list.size()).clear();
+        this.staleList.clear();
+    }
 }
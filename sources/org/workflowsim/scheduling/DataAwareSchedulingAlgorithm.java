@@ -33,8 +33,16 @@ import org.workflowsim.utils.ReplicaCatalog;
  */
 public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The replica catalog of the simulation, looked up once.
+     */
+    private final ReplicaCatalog.Catalog catalog;
+
     public DataAwareSchedulingAlgorithm() {
         super();
+        catalog = ReplicaCatalog.getCatalog();
     }
 
     @Override
@@ -82,22 +90,20 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     protected double dataTransferTime(List<FileItem> requiredFiles, Cloudlet cl, int vmId)  {
         double time = 0.0;
 
-        for (FileItem file : requiredFiles) {
-            //The input file is not an output File 
-            if (file.isRealInputFile(requiredFiles)) {
-                List<String> siteList = ReplicaCatalog.getStorageList(file.getName());
+        //The input file is not an output File 
+        for (FileItem file : FileItem.getRealInputFiles(requiredFiles)) {
+            List<String> siteList = catalog.getStorageList(file.getName());
 
-                boolean hasFile = false;
-                for (String site : siteList) {
-                    if(site.equals(Integer.toString(vmId))){
-                        hasFile = true;
-                        break;
-                    }
-                }
-                if(!hasFile){
-                    time += file.getSize() ;
+            boolean hasFile = false;
+            for (String site : siteList) {
+                if(site.equals(Integer.toString(vmId))){
+                    hasFile = true;
+                    break;
                 }
             }
+            if(!hasFile){
+                time += file.getSize() ;
+            }
         }
         return time;
     }
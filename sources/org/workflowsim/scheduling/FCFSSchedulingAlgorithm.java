@@ -15,13 +15,22 @@
  */
 package org.workflowsim.scheduling;
 
-import java.util.Iterator;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.CondorVM;
 import org.workflowsim.WorkflowSimTags;
 
 /**
  * The FCFS algorithm. 
+ * <p>
+ * The jobs wait in a queue in order of arrival and the idle vms are kept in a
+ * bit set by position in the vm list, so a round only costs the jobs it
+ * schedules. Every job goes to the first idle vm of the vm list.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -29,31 +38,77 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class FCFSSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     /**
-     * The main function
+     * The jobs not scheduled yet, in order of arrival.
+     */
+    private final ArrayDeque<Cloudlet> waitingList = new ArrayDeque<>();
+    /**
+     * The positions of the idle vms in the vm list.
      */
+    private final BitSet idleVms = new BitSet();
+    /**
+     * The position of each vm in the vm list, by vm id.
+     */
+    private final Map<Integer, Integer> vmIndex = new HashMap<>();
+
     @Override
-    public void run() {
+    public void setCloudletList(List list) {
+        super.setCloudletList(list);
+        waitingList.clear();
+        if (list != null) {
+            waitingList.addAll(getJobList());
+        }
+    }
 
+    @Override
+    public void setVmList(List list) {
+        super.setVmList(list);
+        idleVms.clear();
+        vmIndex.clear();
+        for (int i = 0; i < getVmList().size(); i++) {
+            CondorVM vm = (CondorVM) getVmList().get(i);
+            vmIndex.put(vm.getId(), i);
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                idleVms.set(i);
+            }
+        }
+    }
 
-        for (Iterator it = getCloudletList().iterator(); it.hasNext();) {
-            Cloudlet cloudlet = (Cloudlet) it.next();
-            boolean stillHasVm = false;
-            for (Iterator itc = getVmList().iterator(); itc.hasNext();) {
+    @Override
+    public void cloudletsArrived(List<? extends Cloudlet> list) {
+        waitingList.addAll(list);
+    }
 
-                CondorVM vm = (CondorVM) itc.next();
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    stillHasVm = true;
-                    vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
-                    cloudlet.setVmId(vm.getId());
-                    getScheduledList().add(cloudlet);
-                    break;
-                }
-            }
+    @Override
+    public void vmIdle(Vm vm) {
+        Integer index = vmIndex.get(vm.getId());
+        if (index != null) {
+            idleVms.set(index);
+        }
+    }
+
+    /**
+     * The main function
+     */
+    @Override
+    public void run() {
+        while (!waitingList.isEmpty()) {
+            int index = idleVms.nextSetBit(0);
             //no vm available 
-            if (!stillHasVm) {
+            if (index < 0) {
                 break;
             }
+            idleVms.clear(index);
+            CondorVM vm = (CondorVM) getVmList().get(index);
+            if (vm.getState() != WorkflowSimTags.VM_STATUS_IDLE) {
+                continue;
+            }
+            vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+            Cloudlet cloudlet = waitingList.poll();
+            cloudlet.setVmId(vm.getId());
+            getScheduledList().add(cloudlet);
         }
     }
 }
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.CondorVM;
+import org.workflowsim.WorkflowSimTags;
+
+/**
+ * The idle vms of a vm list, fastest first. The speed of a vm is its current
+ * requested total mips, read when the vm is added. Among vms of the same
+ * speed, the one that comes first in the vm list is taken first, as the linear
+ * scans of the vm list did.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+final class IdleVmQueue implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The idle vms, as positions in the vm list.
+     */
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>();
+    /**
+     * The position of each vm in the vm list, by vm id.
+     */
+    private final Map<Integer, Integer> vmIndex = new HashMap<>();
+    private List<? extends CondorVM> vmList;
+    /**
+     * Whether each vm of the vm list is in the heap.
+     */
+    private boolean[] queued = new boolean[0];
+
+    /**
+     * Starts over with a vm list, and adds its idle vms.
+     *
+     * @param list the vm list
+     */
+    void reset(List<? extends CondorVM> list) {
+        heap.clear();
+        vmIndex.clear();
+        vmList = list;
+        queued = new boolean[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            vmIndex.put(list.get(i).getId(), i);
+            offer(i);
+        }
+    }
+
+    /**
+     * Adds a vm of the vm list that has become idle.
+     *
+     * @param vm the vm
+     */
+    void add(Vm vm) {
+        Integer index = vmIndex.get(vm.getId());
+        if (index != null) {
+            offer(index);
+        }
+    }
+
+    private void offer(int index) {
+        CondorVM vm = vmList.get(index);
+        if (!queued[index] && vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+            queued[index] = true;
+            heap.add(new Entry(vm.getCurrentRequestedTotalMips(), index));
+        }
+    }
+
+    /**
+     * Takes the fastest idle vm out of the queue. The vms that are no longer
+     * idle are dropped on the way.
+     *
+     * @return the vm, or null if no vm is idle
+     */
+    CondorVM poll() {
+        while (!heap.isEmpty()) {
+            Entry entry = heap.poll();
+            queued[entry.index] = false;
+            CondorVM vm = vmList.get(entry.index);
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                return vm;
+            }
+        }
+        return null;
+    }
+
+    private static final class Entry implements Comparable<Entry>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double mips;
+        private final int index;
+
+        Entry(double mips, int index) {
+            this.mips = mips;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (mips != other.mips) {
+                return mips > other.mips ? -1 : 1;
+            }
+            return Integer.compare(index, other.index);
+        }
+    }
+}
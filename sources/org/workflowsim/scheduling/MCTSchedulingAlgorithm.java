@@ -15,13 +15,20 @@
  */
 package org.workflowsim.scheduling;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.CondorVM;
 import org.workflowsim.WorkflowSimTags;
 
 /**
  * MCT algorithm
+ * <p>
+ * Every job, in order of arrival, goes to the fastest idle vm. The idle vms
+ * are kept in a heap by mips.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -29,39 +36,58 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class MCTSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     public MCTSchedulingAlgorithm() {
         super();
     }
+    /**
+     * the jobs not scheduled yet, in order of arrival.
+     */
+    private final ArrayDeque<Cloudlet> waitingList = new ArrayDeque<>();
+    /**
+     * the idle vms, fastest first.
+     */
+    private final IdleVmQueue idleVms = new IdleVmQueue();
 
     @Override
-    public void run() {
+    public void setCloudletList(List list) {
+        super.setCloudletList(list);
+        waitingList.clear();
+        if (list != null) {
+            waitingList.addAll(getJobList());
+        }
+    }
 
+    @Override
+    public void setVmList(List list) {
+        super.setVmList(list);
+        List<CondorVM> vms = new ArrayList<>(list.size());
+        for (Object vm : list) {
+            vms.add((CondorVM) vm);
+        }
+        idleVms.reset(vms);
+    }
 
-        int size = getCloudletList().size();
+    @Override
+    public void cloudletsArrived(List<? extends Cloudlet> list) {
+        waitingList.addAll(list);
+    }
 
-        for (int i = 0; i < size; i++) {
-            Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;
+    @Override
+    public void vmIdle(Vm vm) {
+        idleVms.add(vm);
+    }
 
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+    @Override
+    public void run() {
+
+        while (!waitingList.isEmpty()) {
+            CondorVM firstIdleVm = idleVms.poll();
             if (firstIdleVm == null) {
                 break;
             }
-
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && (vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips())) {
-                    firstIdleVm = vm;
-                }
-            }
+            Cloudlet cloudlet = waitingList.poll();
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             cloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(cloudlet);
@@ -19,11 +19,15 @@ import java.util.ArrayList;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.CondorVM;
 import org.workflowsim.WorkflowSimTags;
 
 /**
  * MaxMin algorithm.
+ * <p>
+ * The longest waiting job goes to the fastest idle vm. The waiting jobs are
+ * kept in a heap by length and the idle vms in a heap by mips.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -31,6 +35,8 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class MaxMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Initialize a MaxMin scheduler.
      */
@@ -38,75 +44,58 @@ public class MaxMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
         super();
     }
     /**
-     * the check point list.
+     * the jobs not scheduled yet, longest first.
+     */
+    private final WaitingCloudletQueue waitingList = new WaitingCloudletQueue(true);
+    /**
+     * the idle vms, fastest first.
      */
-    private final List<Boolean> hasChecked = new ArrayList<>();
+    private final IdleVmQueue idleVms = new IdleVmQueue();
 
     @Override
-    public void run() {
-
+    public void setCloudletList(List list) {
+        super.setCloudletList(list);
+        waitingList.clear();
+        if (list != null) {
+            waitingList.addAll(getJobList());
+        }
+    }
 
-        //Log.printLine("Schedulin Cycle");
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            hasChecked.add(false);
+    @Override
+    public void setVmList(List list) {
+        super.setVmList(list);
+        List<CondorVM> vms = new ArrayList<>(list.size());
+        for (Object vm : list) {
+            vms.add((CondorVM) vm);
         }
-        for (int i = 0; i < size; i++) {
-            int maxIndex = 0;
-            Cloudlet maxCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (!hasChecked.get(j)) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                    break;
-                }
-            }
-            if (maxCloudlet == null) {
-                break;
-            }
+        idleVms.reset(vms);
+    }
 
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (hasChecked.get(j)) {
-                    continue;
-                }
-                long length = cloudlet.getCloudletLength();
-                if (length > maxCloudlet.getCloudletLength()) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                }
-            }
-            hasChecked.set(maxIndex, true);
+    @Override
+    public void cloudletsArrived(List<? extends Cloudlet> list) {
+        waitingList.addAll(list);
+    }
 
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+    @Override
+    public void vmIdle(Vm vm) {
+        idleVms.add(vm);
+    }
+
+    @Override
+    public void run() {
+
+        while (!waitingList.isEmpty()) {
+            CondorVM firstIdleVm = idleVms.poll();
             if (firstIdleVm == null) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-
-                }
-            }
+            Cloudlet maxCloudlet = waitingList.poll();
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             maxCloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(maxCloudlet);
             Log.printLine("Schedules " + maxCloudlet.getCloudletId() + " with "
                     + maxCloudlet.getCloudletLength() + " to VM " + firstIdleVm.getId()
                     + " with " + firstIdleVm.getCurrentRequestedTotalMips());
-
         }
     }
 }
@@ -18,11 +18,16 @@ package org.workflowsim.scheduling;
 import java.util.ArrayList;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.CondorVM;
 import org.workflowsim.WorkflowSimTags;
 
 /**
  * MinMin algorithm.
+ * <p>
+ * The shortest waiting job goes to the fastest idle vm. The waiting jobs are
+ * kept in a heap by length and the idle vms in a heap by mips, so a round costs
+ * O(k log n) for k jobs scheduled.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -30,67 +35,58 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class MinMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     public MinMinSchedulingAlgorithm() {
         super();
     }
-    private final List<Boolean> hasChecked = new ArrayList<>();
+    /**
+     * the jobs not scheduled yet, shortest first.
+     */
+    private final WaitingCloudletQueue waitingList = new WaitingCloudletQueue(false);
+    /**
+     * the idle vms, fastest first.
+     */
+    private final IdleVmQueue idleVms = new IdleVmQueue();
 
     @Override
-    public void run() {
+    public void setCloudletList(List list) {
+        super.setCloudletList(list);
+        waitingList.clear();
+        if (list != null) {
+            waitingList.addAll(getJobList());
+        }
+    }
 
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            hasChecked.add(false);
+    @Override
+    public void setVmList(List list) {
+        super.setVmList(list);
+        List<CondorVM> vms = new ArrayList<>(list.size());
+        for (Object vm : list) {
+            vms.add((CondorVM) vm);
         }
-        for (int i = 0; i < size; i++) {
-            int minIndex = 0;
-            Cloudlet minCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (!hasChecked.get(j)) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                    break;
-                }
-            }
-            if (minCloudlet == null) {
-                break;
-            }
+        idleVms.reset(vms);
+    }
 
+    @Override
+    public void cloudletsArrived(List<? extends Cloudlet> list) {
+        waitingList.addAll(list);
+    }
 
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (hasChecked.get(j)) {
-                    continue;
-                }
-                long length = cloudlet.getCloudletLength();
-                if (length < minCloudlet.getCloudletLength()) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                }
-            }
-            hasChecked.set(minIndex, true);
+    @Override
+    public void vmIdle(Vm vm) {
+        idleVms.add(vm);
+    }
 
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+    @Override
+    public void run() {
+
+        while (!waitingList.isEmpty()) {
+            CondorVM firstIdleVm = idleVms.poll();
             if (firstIdleVm == null) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-                }
-            }
+            Cloudlet minCloudlet = waitingList.poll();
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             minCloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(minCloudlet);
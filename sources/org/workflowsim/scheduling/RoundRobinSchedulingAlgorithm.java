@@ -31,6 +31,8 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class RoundRobinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The main function
      */
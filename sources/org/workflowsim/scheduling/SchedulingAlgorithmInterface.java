@@ -15,6 +15,7 @@
  */
 package org.workflowsim.scheduling;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -24,7 +25,7 @@ import java.util.List;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public interface SchedulingAlgorithmInterface {
+public interface SchedulingAlgorithmInterface extends Serializable {
 
     /**
      * Sets the job list.
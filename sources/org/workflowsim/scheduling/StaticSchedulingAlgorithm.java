@@ -34,6 +34,8 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class StaticSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     public StaticSchedulingAlgorithm() {
         super();
     }
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.cloudbus.cloudsim.Cloudlet;
+
+/**
+ * The jobs waiting to be scheduled, shortest or longest first. Among jobs of
+ * the same length, the one that arrived first is taken first, as the linear
+ * scans of the job list did.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+final class WaitingCloudletQueue implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>();
+    private final boolean longestFirst;
+    /**
+     * The arrival number of the next job.
+     */
+    private long nextSequence;
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param longestFirst whether the longest jobs are taken first
+     */
+    WaitingCloudletQueue(boolean longestFirst) {
+        this.longestFirst = longestFirst;
+    }
+
+    void clear() {
+        heap.clear();
+    }
+
+    boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    /**
+     * Adds jobs in order of arrival.
+     *
+     * @param list the jobs
+     */
+    void addAll(List<? extends Cloudlet> list) {
+        for (Cloudlet cloudlet : list) {
+            long length = cloudlet.getCloudletLength();
+            heap.add(new Entry(cloudlet, longestFirst ? -length : length, nextSequence++));
+        }
+    }
+
+    /**
+     * Takes the next job out of the queue.
+     *
+     * @return the job, or null if the queue is empty
+     */
+    Cloudlet poll() {
+        Entry entry = heap.poll();
+        return entry == null ? null : entry.cloudlet;
+    }
+
+    private static final class Entry implements Comparable<Entry>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Cloudlet cloudlet;
+        /**
+         * The length of the job, negated when the longest jobs go first.
+         */
+        private final long key;
+        private final long sequence;
+
+        Entry(Cloudlet cloudlet, long key, long sequence) {
+            this.cloudlet = cloudlet;
+            this.key = key;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (key != other.key) {
+                return key < other.key ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -15,8 +15,12 @@
  */
 package org.workflowsim.utils;
 
+import java.io.Serializable;
 import java.util.List;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.workflowsim.WorkflowGenerator;
 
 /**
  * This class includes most parameters a user can specify in a configuration
@@ -82,6 +86,15 @@ public class Parameters {
         }
     }
     
+    /**
+     * The DAX parser
+     * DOM: build the whole document with jdom first
+     * STREAMING: create the tasks while reading the document with StAX
+     */
+    public enum ParsingMode{
+        DOM, STREAMING
+    }
+    
     /** 
      * Source Host (submit host)
      */
@@ -89,45 +102,6 @@ public class Parameters {
     
     public static final int BASE = 0;
     
-    /**
-     * Scheduling mode
-     */
-    private static SchedulingAlgorithm schedulingAlgorithm;
-    
-    /**
-     * Planning mode
-     */
-    private static PlanningAlgorithm planningAlgorithm;
-    
-    /**
-     * Reducer mode
-     */
-    private static String reduceMethod;
-    /**
-     * Number of vms available
-     */
-    private static int vmNum;
-    /**
-     * The physical path to DAX file
-     */
-    private static String daxPath;
-    
-    /**
-     * The physical path to DAX files
-     */
-    private static List<String> daxPaths;
-    /**
-     * The physical path to runtime file In the runtime file, please use format
-     * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
-     * runtime in DAX then you don't need to specify this file
-     */
-    private static String runtimePath;
-    /**
-     * The physical path to datasize file In the datasize file, please use
-     * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
-     * specified datasize in DAX then you don't need to specify this file
-     */
-    private static String datasizePath;
     /**
      * Version number
      */
@@ -136,45 +110,142 @@ public class Parameters {
      * Note information
      */
     private static final String note = " supports planning algorithm at Nov 9, 2013";
-    /**
-     * Overhead parameters
-     */
-    private static OverheadParameters oParams;
-    /**
-     * Clustering parameters
-     */
-    private static ClusteringParameters cParams;
-    /**
-     * Deadline of a workflow
-     */
-    private static long deadline;
-    
-    /**
-     * the bandwidth from one vm to one vm
-     */
-    private static double[][] bandwidths;
-    
-    
-    /**
-     * The maximum depth. It is inited manually and used in FailureGenerator
-     */
-    private static int maxDepth;
-    
     /**
      * Invalid String
      */
     private static final String INVALID = "Invalid";
-    
     /**
-     * The scale of runtime. Multiple runtime by this
+     * The name of the simulation context attribute holding the parameters
      */
-    private static double runtime_scale = 1.0;
-    
+    private static final String STATE_ATTRIBUTE = Parameters.class.getName();
+
     /**
-     * The default cost model is based on datacenter, similar to CloudSim
+     * The parameters of a simulation. They are kept per simulation context so
+     * that independent simulations can run concurrently in the same JVM.
      */
-    private static CostModel costModel = CostModel.DATACENTER;
-    
+    private static class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Scheduling mode
+         */
+        private SchedulingAlgorithm schedulingAlgorithm;
+
+        /**
+         * Planning mode
+         */
+        private PlanningAlgorithm planningAlgorithm;
+
+        /**
+         * Reducer mode
+         */
+        private String reduceMethod;
+        /**
+         * Number of vms available
+         */
+        private int vmNum;
+        /**
+         * The physical path to DAX file
+         */
+        private String daxPath;
+
+        /**
+         * The physical path to DAX files
+         */
+        private List<String> daxPaths;
+        /**
+         * The physical path to runtime file In the runtime file, please use format
+         * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
+         * runtime in DAX then you don't need to specify this file
+         */
+        private String runtimePath;
+        /**
+         * The physical path to datasize file In the datasize file, please use
+         * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
+         * specified datasize in DAX then you don't need to specify this file
+         */
+        private String datasizePath;
+        /**
+         * Overhead parameters
+         */
+        private OverheadParameters oParams;
+        /**
+         * Clustering parameters
+         */
+        private ClusteringParameters cParams;
+        /**
+         * Deadline of a workflow
+         */
+        private long deadline;
+
+        /**
+         * the bandwidth from one vm to one vm
+         */
+        private double[][] bandwidths;
+
+
+        /**
+         * The maximum depth. It is inited manually and used in FailureGenerator
+         */
+        private int maxDepth;
+
+        /**
+         * The scale of runtime. Multiple runtime by this
+         */
+        private double runtime_scale = 1.0;
+
+        /**
+         * The default cost model is based on datacenter, similar to CloudSim
+         */
+        private CostModel costModel = CostModel.DATACENTER;
+
+        /**
+         * The DAX parser, jdom by default
+         */
+        private ParsingMode parsingMode = ParsingMode.DOM;
+
+        /**
+         * The number of threads parsing the DAX files of an ensemble
+         */
+        private int parsingThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * The directory of the pre-parsed workflows, null to always parse
+         */
+        private String workflowCache;
+
+        /**
+         * The generator of a synthetic workflow, null to parse the DAX files
+         */
+        private WorkflowGenerator workflowGenerator;
+
+        /**
+         * Whether the tasks leave out the names of their required files
+         */
+        private boolean slimTasks;
+
+        /**
+         * The number of threads of the HEFT planner
+         */
+        private int planningThreads = 1;
+    }
+
+    /**
+     * Gets the parameters of the current simulation context.
+     *
+     * @return the parameters
+     */
+    private static State getState() {
+        SimulationContext context = CloudSim.getContext();
+        State state = (State) context.getAttribute(STATE_ATTRIBUTE);
+        if (state == null) {
+            state = new State();
+            context.setAttribute(STATE_ATTRIBUTE, state);
+        }
+        return state;
+    }
+
     /**
      * A static function so that you can specify them in any place
      *
@@ -194,19 +265,20 @@ public class Parameters {
             OverheadParameters op, ClusteringParameters cp,
             SchedulingAlgorithm scheduler, PlanningAlgorithm planner, String rMethod,
             long dl) {
+        State state = getState();
 
-        cParams = cp;
-        vmNum = vm;
-        daxPath = dax;
-        runtimePath = runtime;
-        datasizePath = datasize;
+        state.cParams = cp;
+        state.vmNum = vm;
+        state.daxPath = dax;
+        state.runtimePath = runtime;
+        state.datasizePath = datasize;
 
-        oParams = op;
-        schedulingAlgorithm = scheduler;
-        planningAlgorithm = planner;
-        reduceMethod = rMethod;
-        deadline = dl;
-        maxDepth = 0;
+        state.oParams = op;
+        state.schedulingAlgorithm = scheduler;
+        state.planningAlgorithm = planner;
+        state.reduceMethod = rMethod;
+        state.deadline = dl;
+        state.maxDepth = 0;
     }
     
     /**
@@ -228,19 +300,20 @@ public class Parameters {
             OverheadParameters op, ClusteringParameters cp,
             SchedulingAlgorithm scheduler, PlanningAlgorithm planner, String rMethod,
             long dl) {
+        State state = getState();
 
-        cParams = cp;
-        vmNum = vm;
-        daxPaths = dax;
-        runtimePath = runtime;
-        datasizePath = datasize;
+        state.cParams = cp;
+        state.vmNum = vm;
+        state.daxPaths = dax;
+        state.runtimePath = runtime;
+        state.datasizePath = datasize;
 
-        oParams = op;
-        schedulingAlgorithm = scheduler;
-        planningAlgorithm = planner;
-        reduceMethod = rMethod;
-        deadline = dl;
-        maxDepth = 0;
+        state.oParams = op;
+        state.schedulingAlgorithm = scheduler;
+        state.planningAlgorithm = planner;
+        state.reduceMethod = rMethod;
+        state.deadline = dl;
+        state.maxDepth = 0;
     }
 
     /**
@@ -251,7 +324,7 @@ public class Parameters {
      * @post $none
      */
     public static OverheadParameters getOverheadParams() {
-        return oParams;
+        return getState().oParams;
     }
 
     
@@ -264,8 +337,9 @@ public class Parameters {
      * @post $none
      */
     public static String getReduceMethod() {
-        if(reduceMethod!=null){
-            return reduceMethod;
+        State state = getState();
+        if(state.reduceMethod!=null){
+            return state.reduceMethod;
         }else{
             return INVALID;
         }
@@ -281,7 +355,7 @@ public class Parameters {
      * @post $none
      */
     public static String getDaxPath() {
-        return daxPath;
+        return getState().daxPath;
     }
 
     /**
@@ -292,7 +366,7 @@ public class Parameters {
      * @post $none
      */
     public static String getRuntimePath() {
-        return runtimePath;
+        return getState().runtimePath;
     }
 
     /**
@@ -303,7 +377,7 @@ public class Parameters {
      * @post $none
      */
     public static String getDatasizePath() {
-        return datasizePath;
+        return getState().datasizePath;
     }
 
     
@@ -315,7 +389,7 @@ public class Parameters {
      * @post $none
      */
     public static int getVmNum() {
-        return vmNum;
+        return getState().vmNum;
     }
 
     
@@ -325,7 +399,7 @@ public class Parameters {
      * @return costModel
      */
     public static CostModel getCostModel(){
-        return costModel;
+        return getState().costModel;
     }
     
     /**
@@ -334,7 +408,7 @@ public class Parameters {
      * @param num
      */
     public static void setVmNum(int num) {
-        vmNum = num;
+        getState().vmNum = num;
     }
 
     /**
@@ -343,7 +417,7 @@ public class Parameters {
      * @return the clustering parameters
      */
     public static ClusteringParameters getClusteringParameters() {
-        return cParams;
+        return getState().cParams;
     }
 
     /**
@@ -352,7 +426,7 @@ public class Parameters {
      * @return the scheduling method
      */
     public static SchedulingAlgorithm getSchedulingAlgorithm() {
-        return schedulingAlgorithm;
+        return getState().schedulingAlgorithm;
     }
     
     /**
@@ -361,7 +435,7 @@ public class Parameters {
      * 
      */
     public static PlanningAlgorithm getPlanningAlgorithm() {
-        return planningAlgorithm;
+        return getState().planningAlgorithm;
     }
     /**
      * Gets the version
@@ -379,7 +453,7 @@ public class Parameters {
      * Gets the deadline
      */
     public static long getDeadline(){
-    	return deadline;
+    	return getState().deadline;
     }
     
     /**
@@ -387,7 +461,7 @@ public class Parameters {
      * @return the maxDepth
      */
     public static int getMaxDepth(){
-        return maxDepth;
+        return getState().maxDepth;
     }
     
     /**
@@ -395,7 +469,7 @@ public class Parameters {
      * @param depth the maxDepth
      */
     public static void setMaxDepth(int depth){
-        maxDepth = depth;
+        getState().maxDepth = depth;
     }
     
     /**
@@ -403,7 +477,7 @@ public class Parameters {
      * @param scale 
      */
     public static void setRuntimeScale(double scale){
-        runtime_scale = scale;
+        getState().runtime_scale = scale;
     }
     
     /**
@@ -411,7 +485,114 @@ public class Parameters {
      * @param model
      */
     public static void setCostModel(CostModel model){
-        costModel = model;
+        getState().costModel = model;
+    }
+    
+    /**
+     * Sets the parsing mode
+     * @param mode
+     */
+    public static void setParsingMode(ParsingMode mode){
+        getState().parsingMode = mode;
+    }
+    
+    /**
+     * Gets the parsing mode
+     * @return parsingMode
+     */
+    public static ParsingMode getParsingMode(){
+        return getState().parsingMode;
+    }
+    
+    /**
+     * Sets the number of threads parsing the DAX files of an ensemble, 1
+     * parses them one after another
+     * @param threads
+     */
+    public static void setParsingThreads(int threads){
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        }
+        getState().parsingThreads = threads;
+    }
+    
+    /**
+     * Gets the number of threads parsing the DAX files of an ensemble
+     * @return parsingThreads
+     */
+    public static int getParsingThreads(){
+        return getState().parsingThreads;
+    }
+    
+    /**
+     * Sets the directory where the parsed DAX files are cached, see
+     * WorkflowCache
+     * @param directory the directory, or null to always parse the DAX files
+     */
+    public static void setWorkflowCache(String directory){
+        getState().workflowCache = directory;
+    }
+    
+    /**
+     * Gets the directory where the parsed DAX files are cached
+     * @return workflowCache
+     */
+    public static String getWorkflowCache(){
+        return getState().workflowCache;
+    }
+    
+    /**
+     * Sets the generator of the workflow to simulate instead of the DAX files
+     * @param generator the generator, or null to parse the DAX files
+     */
+    public static void setWorkflowGenerator(WorkflowGenerator generator){
+        getState().workflowGenerator = generator;
+    }
+    
+    /**
+     * Gets the generator of the workflow to simulate
+     * @return workflowGenerator
+     */
+    public static WorkflowGenerator getWorkflowGenerator(){
+        return getState().workflowGenerator;
+    }
+    
+    /**
+     * Sets whether the tasks are kept slim: a task then does not copy the
+     * names of its files into the required files of Cloudlet, which
+     * WorkflowDatacenter never reads, and its job does not either
+     * @param slim true to leave out the required files
+     */
+    public static void setSlimTasks(boolean slim){
+        getState().slimTasks = slim;
+    }
+    
+    /**
+     * Gets whether the tasks are kept slim
+     * @return slimTasks
+     */
+    public static boolean isSlimTasks(){
+        return getState().slimTasks;
+    }
+    
+    /**
+     * Sets the number of threads of the HEFT planner, 1 plans on the thread
+     * of the simulation. The plan does not depend on it.
+     * @param threads
+     */
+    public static void setPlanningThreads(int threads){
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        }
+        getState().planningThreads = threads;
+    }
+    
+    /**
+     * Gets the number of threads of the HEFT planner
+     * @return planningThreads
+     */
+    public static int getPlanningThreads(){
+        return getState().planningThreads;
     }
     
     /**
@@ -419,7 +600,7 @@ public class Parameters {
      * @return 
      */
     public static double getRuntimeScale(){
-        return runtime_scale;
+        return getState().runtime_scale;
     }
     
     /**
@@ -427,6 +608,6 @@ public class Parameters {
      * @return 
      */
     public static List<String> getDAXPaths() {
-        return daxPaths;
+        return getState().daxPaths;
     }
 }
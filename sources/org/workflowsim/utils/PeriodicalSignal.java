@@ -17,6 +17,8 @@
  */
 package org.workflowsim.utils;
 
+import java.io.Serializable;
+
 /**
  * This class simulates a dynamic failure signal that changes periodically
  *
@@ -24,7 +26,9 @@ package org.workflowsim.utils;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2014
  */
-public class PeriodicalSignal {
+public class PeriodicalSignal implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * The period of the signal (seconds)
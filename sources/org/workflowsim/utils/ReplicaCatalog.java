@@ -17,10 +17,14 @@
  */
 package org.workflowsim.utils;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.FileItem;
 
 /**
@@ -39,17 +43,196 @@ public class ReplicaCatalog {
         SHARED, LOCAL
     }
     /**
-     * Map from file name to a file object
+     * The name of the simulation context attribute holding the replica catalog
      */
-    private static Map<String, FileItem> fileName2File;
+    private static final String CATALOG_ATTRIBUTE = ReplicaCatalog.class.getName();
+
     /**
-     * The selection of file.system
+     * The files and replicas of one simulation, stored in its simulation
+     * context. The entities that use the catalog on every job, such as the
+     * datacenters, get it once with getCatalog and keep it.
+     *
+     * During a parallel run, the replicas added by the entities of a logical
+     * process are only seen by that logical process until the end of the
+     * time window, then added to the catalog in the order of a sequential
+     * run.
      */
-    private static FileSystem fileSystem;
+    public static final class Catalog implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Map from file name to a file object
+         */
+        private Map<String, FileItem> fileName2File;
+        /**
+         * The selection of file.system
+         */
+        private FileSystem fileSystem;
+        /**
+         * Map from file to a list of data storage
+         */
+        private Map<String, List<String>> dataReplicaCatalog;
+        /**
+         * The replicas added by each logical process during the current time
+         * window of a parallel run
+         */
+        private final Map<SimulationContext, Map<String, List<String>>> pendingReplicas
+                = new ConcurrentHashMap<>();
+
+        private Catalog() {
+        }
+
+        /**
+         * Gets the file system
+         *
+         * @return file system
+         */
+        public FileSystem getFileSystem() {
+            return fileSystem;
+        }
+
+        /**
+         * Gets the file object based its file name
+         *
+         * @param fileName, file name
+         * @return file object
+         */
+        public synchronized FileItem getFile(String fileName) {
+            return fileName2File.get(fileName);
+        }
+
+        /**
+         * Adds a file name and the associated file object
+         *
+         * @param fileName, the file name
+         * @param file , the file object
+         */
+        public synchronized void setFile(String fileName, FileItem file) {
+            fileName2File.put(fileName, file);
+        }
+
+        /**
+         * Adds a file object unless a file of that name exists already
+         *
+         * @param fileName, the file name
+         * @param file , the file object
+         * @return the file object of that name in the catalog
+         */
+        public synchronized FileItem setFileIfAbsent(String fileName, FileItem file) {
+            FileItem existing = fileName2File.get(fileName);
+            if (existing != null) {
+                return existing;
+            }
+            fileName2File.put(fileName, file);
+            return file;
+        }
+
+        /**
+         * Checks whether a file exists
+         *
+         * @param fileName file name
+         * @return boolean, whether the file exist
+         */
+        public synchronized boolean containsFile(String fileName) {
+            return fileName2File.containsKey(fileName);
+        }
+
+        /**
+         * Gets the list of storages a file exists
+         *
+         * @param file the file object
+         * @return list of storages
+         */
+        public List<String> getStorageList(String file) {
+            List<String> list = dataReplicaCatalog.get(file);
+            if (pendingReplicas.isEmpty()) {
+                return list;
+            }
+            Map<String, List<String>> pending = pendingReplicas.get(CloudSim.getContext());
+            List<String> added = pending == null ? null : pending.get(file);
+            if (added == null) {
+                return list;
+            }
+            if (list == null) {
+                return added;
+            }
+            List<String> merged = new ArrayList<>(list);
+            merged.addAll(added);
+            return merged;
+        }
+
+        /**
+         * Adds a file to a storage
+         *
+         * @param file, a file object
+         * @param storage , the storage associated with this file
+         */
+        public void addFileToStorage(final String file, final String storage) {
+            final SimulationContext context = CloudSim.getContext();
+            if (!context.isLogicalProcess()) {
+                addReplica(dataReplicaCatalog, file, storage);
+                return;
+            }
+            List<String> list = dataReplicaCatalog.get(file);
+            if (list != null && list.contains(storage)) {
+                return;
+            }
+            Map<String, List<String>> pending = pendingReplicas.get(context);
+            if (pending == null) {
+                pending = new HashMap<>();
+                pendingReplicas.put(context, pending);
+            }
+            if (addReplica(pending, file, storage)) {
+                context.updateShared(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        addReplica(dataReplicaCatalog, file, storage);
+                        Map<String, List<String>> pending = pendingReplicas.get(context);
+                        if (pending != null && pending.remove(file) != null && pending.isEmpty()) {
+                            pendingReplicas.remove(context);
+                        }
+                    }
+                });
+            }
+        }
+
+        /**
+         * Adds a storage to the list of a file in a map
+         *
+         * @return whether the storage was not in the list
+         */
+        private boolean addReplica(Map<String, List<String>> map, String file, String storage) {
+            List<String> list = map.get(file);
+            if (list == null) {
+                list = new ArrayList<>();
+                map.put(file, list);
+            }
+            if (list.contains(storage)) {
+                return false;
+            }
+            list.add(storage);
+            return true;
+        }
+    }
+
     /**
-     * Map from file to a list of data storage
+     * Gets the replica catalog of the current simulation context.
+     *
+     * @return the replica catalog
      */
-    private static Map<String, List<String>> dataReplicaCatalog;
+    public static Catalog getCatalog() {
+        SimulationContext context = CloudSim.getContext();
+        synchronized (context) {
+            Catalog catalog = (Catalog) context.getAttribute(CATALOG_ATTRIBUTE);
+            if (catalog == null) {
+                catalog = new Catalog();
+                context.setAttribute(CATALOG_ATTRIBUTE, catalog);
+            }
+            return catalog;
+        }
+    }
 
     /**
      * Initialize a ReplicaCatalog
@@ -57,9 +240,13 @@ public class ReplicaCatalog {
      * @param fs the type of file system
      */
     public static void init(FileSystem fs) {
-        fileSystem = fs;
-        dataReplicaCatalog = new HashMap<>();
-        fileName2File = new HashMap<>();
+        Catalog catalog = getCatalog();
+        synchronized (catalog) {
+            catalog.fileSystem = fs;
+            catalog.dataReplicaCatalog = new HashMap<>();
+            catalog.fileName2File = new HashMap<>();
+            catalog.pendingReplicas.clear();
+        }
     }
 
     /**
@@ -68,17 +255,18 @@ public class ReplicaCatalog {
      * @return file system
      */
     public static FileSystem getFileSystem() {
-        return fileSystem;
+        return getCatalog().getFileSystem();
     }
 
     /**
-     * Gets the file object based its file name
+     * Gets the file object based its file name. The files may be looked up
+     * and added by several threads, such as the parsers of an ensemble.
      *
      * @param fileName, file name
      * @return file object
      */
     public static FileItem getFile(String fileName) {
-        return fileName2File.get(fileName);
+        return getCatalog().getFile(fileName);
     }
 
     /**
@@ -88,7 +276,18 @@ public class ReplicaCatalog {
      * @param file , the file object
      */
     public static void setFile(String fileName, FileItem file) {
-        fileName2File.put(fileName, file);
+        getCatalog().setFile(fileName, file);
+    }
+
+    /**
+     * Adds a file object unless a file of that name exists already
+     *
+     * @param fileName, the file name
+     * @param file , the file object
+     * @return the file object of that name in the catalog
+     */
+    public static FileItem setFileIfAbsent(String fileName, FileItem file) {
+        return getCatalog().setFileIfAbsent(fileName, file);
     }
 
     /**
@@ -98,7 +297,7 @@ public class ReplicaCatalog {
      * @return boolean, whether the file exist
      */
     public static boolean containsFile(String fileName) {
-        return fileName2File.containsKey(fileName);
+        return getCatalog().containsFile(fileName);
     }
 
     /**
@@ -108,7 +307,7 @@ public class ReplicaCatalog {
      * @return list of storages
      */
     public static List<String> getStorageList(String file) {
-        return dataReplicaCatalog.get(file);
+        return getCatalog().getStorageList(file);
     }
 
     /**
@@ -118,12 +317,6 @@ public class ReplicaCatalog {
      * @param storage , the storage associated with this file
      */
     public static void addFileToStorage(String file, String storage) {
-        if (!dataReplicaCatalog.containsKey(file)) {
-            dataReplicaCatalog.put(file, new ArrayList<>());
-        }
-        List<String> list = getStorageList(file);
-        if (!list.contains(storage)) {
-            list.add(storage);
-        }
+        getCatalog().addFileToStorage(file, storage);
     }
 }